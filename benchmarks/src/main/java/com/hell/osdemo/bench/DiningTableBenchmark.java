@@ -0,0 +1,60 @@
+package com.hell.osdemo.bench;
+
+import com.hell.osdemo.DiningTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 各取筷策略下一次"尝试拿筷-就餐-放下"的开销。
+ * 每个基准线程是一位哲学家，餐桌大小等于线程数（-t 指定，至少2）。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiningTableBenchmark {
+
+    // ENSURE_BOTH_CHOPSTICKS先左后右锁定两个监视器，加锁顺序成环，满负荷下会真的死锁并让JMH挂起，
+    // 默认不测；需要时用 -p strategy=ENSURE_BOTH_CHOPSTICKS -to 30s 单独运行
+    @Param({"NO_STRATEGY", "LIMIT_DINERS"})
+    public DiningTable.Strategy strategy;
+
+    // 临界区（就餐）长度，Blackhole.consumeCPU的令牌数
+    @Param({"0", "100"})
+    public int work;
+
+    private DiningTable table;
+    private final AtomicInteger nextSeat = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        table = new DiningTable(Math.max(2, params.getThreads()));
+        table.setStrategy(strategy);
+    }
+
+    @State(Scope.Thread)
+    public static class Seat {
+        int philosopher;
+
+        @Setup(Level.Trial)
+        public void setUp(DiningTableBenchmark bench) {
+            philosopher = bench.nextSeat.getAndIncrement();
+        }
+    }
+
+    @Benchmark
+    public boolean dine(Seat seat) {
+        if (table.tryPickUp(seat.philosopher)) {
+            Blackhole.consumeCPU(work);
+            table.putDown(seat.philosopher);
+            return true;
+        }
+        return false;
+    }
+}
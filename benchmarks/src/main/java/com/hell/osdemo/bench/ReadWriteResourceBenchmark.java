@@ -0,0 +1,62 @@
+package com.hell.osdemo.bench;
+
+import com.hell.osdemo.ReadWriteResource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各读写策略（ReaderWriterController的tryRead/tryWrite）的吞吐量。
+ * 读者/写者线程数用 -tg 指定，例如 -tg 3,2。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ReadWriteResourceBenchmark {
+
+    // 与演示一致的读者许可数
+    private static final int READER_PERMITS = 3;
+
+    @Param({"READER_PRIORITY", "WRITER_PRIORITY", "FAIR"})
+    public ReadWriteResource.Strategy strategy;
+
+    // 临界区（读/写）长度，Blackhole.consumeCPU的令牌数
+    @Param({"0", "100"})
+    public int work;
+
+    private ReadWriteResource resource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        resource = new ReadWriteResource(READER_PERMITS);
+        resource.reset(strategy);
+    }
+
+    @Benchmark
+    @Group("rw")
+    @GroupThreads(3)
+    public boolean read() throws InterruptedException {
+        if (resource.tryRead()) {
+            Blackhole.consumeCPU(work);
+            resource.finishRead();
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    @Group("rw")
+    @GroupThreads(2)
+    public boolean write() throws InterruptedException {
+        if (resource.tryWrite()) {
+            Blackhole.consumeCPU(work);
+            resource.finishWrite();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+package com.hell.osdemo.bench;
+
+import com.hell.osdemo.SemaphoreBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三信号量有界缓冲区（ProducerConsumerController的实现）的吞吐量。
+ * 生产者/消费者线程数用 -tg 指定，例如 -tg 2,2。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class SemaphoreBufferBenchmark {
+
+    // 迭代结束时对端线程可能已停止，限时操作避免永久阻塞
+    private static final long TIMEOUT_MS = 10;
+
+    @Param({"5", "64"})
+    public int capacity;
+
+    // 每次操作后在临界区之外做的工作量（Blackhole.consumeCPU的令牌数），
+    // 模拟生产/消费物品本身的耗时，用来观察竞争变稀疏后吞吐量如何变化；不会延长mutex的持有时间
+    @Param({"0", "100"})
+    public int outsideWork;
+
+    private SemaphoreBuffer<Integer> buffer;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        buffer = new SemaphoreBuffer<>(capacity);
+    }
+
+    @Benchmark
+    @Group("buffer")
+    @GroupThreads(1)
+    public int produce() throws InterruptedException {
+        int slot = buffer.offer(42, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        Blackhole.consumeCPU(outsideWork);
+        return slot;
+    }
+
+    @Benchmark
+    @Group("buffer")
+    @GroupThreads(1)
+    public Integer consume() throws InterruptedException {
+        Integer item = buffer.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        Blackhole.consumeCPU(outsideWork);
+        return item;
+    }
+}
@@ -0,0 +1,43 @@
+#!/usr/bin/env sh
+# 为jlink生成的运行时镜像创建AppCDS归档。
+# 用法: scripts/build-cds.sh [镜像目录，默认 target/app]
+#
+# 1. 生成镜像自身的基础CDS归档（jlink镜像默认不带）
+# 2. 以训练模式依次运行三个演示，退出时导出应用类的动态归档
+# 3. 修改 bin/app 启动脚本，使其默认加载该归档
+set -e
+
+IMAGE=${1:-target/app}
+ARCHIVE="$IMAGE/lib/osdemo.jsa"
+MAIN=com.hell.osdemo/com.hell.osdemo.MainApp
+
+if [ ! -x "$IMAGE/bin/java" ]; then
+    echo "找不到运行时镜像: $IMAGE (请先执行 mvn -Pcds package)" >&2
+    exit 1
+fi
+
+# 训练运行需要图形环境，无显示器时尝试使用xvfb-run
+RUNNER=""
+if [ -z "$DISPLAY" ] && command -v xvfb-run >/dev/null 2>&1; then
+    RUNNER="xvfb-run -a"
+fi
+
+echo "生成基础CDS归档..."
+"$IMAGE/bin/java" -Xshare:dump >/dev/null
+
+echo "训练运行，生成 $ARCHIVE ..."
+rm -f "$ARCHIVE"
+$RUNNER "$IMAGE/bin/java" -XX:ArchiveClassesAtExit="$ARCHIVE" -Dosdemo.autorun=training -m "$MAIN"
+
+if [ ! -f "$ARCHIVE" ]; then
+    echo "未能生成CDS归档" >&2
+    exit 1
+fi
+
+# 启动脚本形如: $DIR/java $JLINK_VM_OPTIONS -m ...
+if ! grep -q "SharedArchiveFile" "$IMAGE/bin/app"; then
+    sed -i.bak 's|\$DIR/java \$JLINK_VM_OPTIONS|$DIR/java -XX:SharedArchiveFile=$DIR/../lib/osdemo.jsa $JLINK_VM_OPTIONS|' "$IMAGE/bin/app"
+    rm -f "$IMAGE/bin/app.bak"
+fi
+
+echo "完成: $(du -h "$ARCHIVE" | cut -f1) $ARCHIVE"
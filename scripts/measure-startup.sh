@@ -0,0 +1,50 @@
+#!/usr/bin/env sh
+# 对比使用/不使用AppCDS归档时的启动时间和内存占用。
+# 用法: scripts/measure-startup.sh [镜像目录，默认 target/app] [次数，默认 10]
+#
+# 每次以 -Dosdemo.autorun=startup 启动，主页面就绪后立即退出；
+# 取程序输出的"首帧耗时"和"主页面加载完成"时间，以及进程最大常驻内存。
+set -e
+
+IMAGE=${1:-target/app}
+RUNS=${2:-10}
+ARCHIVE="$IMAGE/lib/osdemo.jsa"
+MAIN=com.hell.osdemo/com.hell.osdemo.MainApp
+
+RUNNER=""
+if [ -z "$DISPLAY" ] && command -v xvfb-run >/dev/null 2>&1; then
+    RUNNER="xvfb-run -a"
+fi
+
+TIME=""
+if [ -x /usr/bin/time ]; then
+    TIME="/usr/bin/time -f rss_kb=%M"
+fi
+
+measure() {
+    label=$1
+    shift
+    frame_total=0
+    ready_total=0
+    rss_total=0
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        out=$($RUNNER $TIME "$IMAGE/bin/java" "$@" -Dosdemo.autorun=startup -m "$MAIN" 2>&1)
+        frame=$(echo "$out" | sed -n 's/.*首帧耗时: \([0-9]*\) ms.*/\1/p')
+        ready=$(echo "$out" | sed -n 's/.*主页面加载完成: \([0-9]*\) ms.*/\1/p')
+        rss=$(echo "$out" | sed -n 's/.*rss_kb=\([0-9]*\).*/\1/p')
+        frame_total=$((frame_total + ${frame:-0}))
+        ready_total=$((ready_total + ${ready:-0}))
+        rss_total=$((rss_total + ${rss:-0}))
+        i=$((i + 1))
+    done
+    echo "$label: 首帧 $((frame_total / RUNS)) ms, 主页面 $((ready_total / RUNS)) ms, 最大内存 $((rss_total / RUNS / 1024)) MB (平均 $RUNS 次)"
+}
+
+measure "无CDS  " -Xshare:off
+measure "默认CDS" -Xshare:auto
+if [ -f "$ARCHIVE" ]; then
+    measure "AppCDS " -XX:SharedArchiveFile="$ARCHIVE"
+else
+    echo "未找到 $ARCHIVE，跳过AppCDS测量（先运行 scripts/build-cds.sh）"
+fi
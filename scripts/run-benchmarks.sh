@@ -0,0 +1,22 @@
+#!/usr/bin/env sh
+# 按不同线程数运行全部JMH基准，结果写入 target/jmh-*.json。
+# 用法: scripts/run-benchmarks.sh [线程数列表，默认 "1 2 4 8"]
+set -e
+
+THREADS=${1:-"1 2 4 8"}
+JAR=benchmarks/target/benchmarks.jar
+
+mvn -q install -DskipTests
+mvn -q -f benchmarks/pom.xml package
+
+for t in $THREADS; do
+    # 分组基准按一半生产者/读者、一半消费者/写者分配线程
+    half=$(( (t + 1) / 2 ))
+    rest=$(( t - half ))
+    [ "$rest" -lt 1 ] && rest=1
+
+    java -jar "$JAR" DiningTableBenchmark -t "$t" \
+        -rf json -rff "target/jmh-dining-t$t.json"
+    java -jar "$JAR" "SemaphoreBufferBenchmark|ReadWriteResourceBenchmark" -tg "$half,$rest" \
+        -rf json -rff "target/jmh-groups-t$t.json"
+done
@@ -0,0 +1,88 @@
+package com.hell.osdemo;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按线程统计堆分配字节数，基于HotSpot的ThreadMXBean.getThreadAllocatedBytes。
+ * 登记的线程结束后读不到计数，保留最后一次采样到的值，因此最后一次采样之后的分配会漏记。
+ */
+public class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    // 线程id -> 登记时的计数 / 最近一次采样的计数 / 线程名
+    private final Map<Long, Long> baseline = new ConcurrentHashMap<>();
+    private final Map<Long, Long> lastSeen = new ConcurrentHashMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    public static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    /** 当前线程累计分配的字节数，不支持时返回0 */
+    public static long currentThreadBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * 登记一个线程，可以在线程启动前调用。
+     */
+    public void register(Thread thread) {
+        long id = thread.getId();
+        long start = THREADS == null ? 0 : Math.max(0, THREADS.getThreadAllocatedBytes(id));
+        baseline.put(id, start);
+        lastSeen.put(id, start);
+        names.put(id, thread.getName());
+    }
+
+    /** 所有登记线程自登记以来分配的字节数 */
+    public long bytes() {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : baseline.entrySet()) {
+            total += sample(entry.getKey()) - entry.getValue();
+        }
+        return total;
+    }
+
+    /** 按线程名汇总的分配字节数，同名线程（例如先后几轮的生产者）合并 */
+    public Map<String, Long> perThread() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<Long, Long> entry : baseline.entrySet()) {
+            result.merge(names.get(entry.getKey()), sample(entry.getKey()) - entry.getValue(), Long::sum);
+        }
+        return result;
+    }
+
+    private long sample(long id) {
+        if (THREADS != null) {
+            long bytes = THREADS.getThreadAllocatedBytes(id);
+            if (bytes >= 0) {
+                lastSeen.put(id, bytes);
+                return bytes;
+            }
+        }
+        return lastSeen.getOrDefault(id, 0L);
+    }
+
+    public void clear() {
+        baseline.clear();
+        lastSeen.clear();
+        names.clear();
+    }
+}
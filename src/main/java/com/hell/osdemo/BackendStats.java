@@ -0,0 +1,89 @@
+package com.hell.osdemo;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 生产者-消费者演示中一种缓冲区实现在最近一次运行中的统计：吞吐量、端到端延迟和分配速率，
+ * 是对比表中的一行。只累计运行中的时间，暂停期间不计。
+ */
+class BackendStats {
+    private final ItemBuffer.Backend backend;
+    private final LongAdder consumed = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long activeNanos = 0;
+    private long runningSince = -1;
+    private long allocatedBytes = 0;
+
+    BackendStats(ItemBuffer.Backend backend) {
+        this.backend = backend;
+    }
+
+    void recordConsumed(long latencyNanos) {
+        consumed.increment();
+        synchronized (latency) {
+            latency.record(latencyNanos);
+        }
+    }
+
+    void resume() {
+        if (runningSince < 0) {
+            runningSince = System.nanoTime();
+        }
+    }
+
+    void pause() {
+        if (runningSince >= 0) {
+            activeNanos += System.nanoTime() - runningSince;
+            runningSince = -1;
+        }
+    }
+
+    void setAllocatedBytes(long bytes) {
+        allocatedBytes = bytes;
+    }
+
+    private double seconds() {
+        long nanos = activeNanos + (runningSince < 0 ? 0 : System.nanoTime() - runningSince);
+        return nanos / 1e9;
+    }
+
+    boolean hasData() {
+        return seconds() > 0;
+    }
+
+    String getBackend() {
+        return backend.getLabel();
+    }
+
+    String getThroughput() {
+        return hasData() ? String.format(Locale.ROOT, "%.1f", consumed.sum() / seconds()) : "-";
+    }
+
+    String getP50() {
+        return percentile(50);
+    }
+
+    String getP99() {
+        return percentile(99);
+    }
+
+    private String percentile(double p) {
+        synchronized (latency) {
+            return latency.getCount() == 0 ? "-"
+                    : String.format(Locale.ROOT, "%.1f", latency.percentile(p) / 1_000_000.0);
+        }
+    }
+
+    String getAllocationRate() {
+        return rate(allocatedBytes);
+    }
+
+    // 按运行时间折算的分配速率(KB/s)
+    String rate(long bytes) {
+        if (!AllocationMeter.isSupported()) {
+            return "不支持";
+        }
+        return hasData() ? String.format(Locale.ROOT, "%.1f", bytes / 1024.0 / seconds()) : "-";
+    }
+}
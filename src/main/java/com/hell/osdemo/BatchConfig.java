@@ -0,0 +1,504 @@
+package com.hell.osdemo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 命令行批量运行的参数，形如 --problem=philosophers --actors=1000 --duration=60s。
+ */
+public class BatchConfig {
+
+    public enum Problem {
+        PHILOSOPHERS("philosophers"),
+        READERS_WRITERS("readers-writers"),
+        PRODUCER_CONSUMER("producer-consumer");
+
+        private final String name;
+
+        Problem(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Problem fromName(String name) {
+            for (Problem problem : values()) {
+                if (problem.name.equals(name)) {
+                    return problem;
+                }
+            }
+            throw new IllegalArgumentException("未知问题类型: " + name
+                    + "（可选 philosophers / readers-writers / producer-consumer）");
+        }
+    }
+
+    public enum Format { JSON, CSV }
+
+    // threads：每个参与者一个真实线程；events：单线程离散事件模拟，见 EventSimulator；
+    // processes：生产者-消费者各自一个进程，经共享内存交换物品，见 SharedMemoryRunner
+    public enum Engine { THREADS, EVENTS, PROCESSES }
+
+    Problem problem = Problem.PHILOSOPHERS;
+    // 策略名为对应枚举常量，例如 LIMIT_DINERS、WRITER_PRIORITY；生产者-消费者为缓冲区实现，例如 ARRAY_BLOCKING
+    String strategy = null;
+    int actors = 5;
+    // 读者-写者中写者的数量，生产者-消费者中生产者的数量；-1表示取actors的一半（写者取四分之一）
+    int writers = -1;
+    // 写者优先策略中读者信号量的许可数，0表示每个读者一个（不限制同时读的人数）
+    int readerPermits = 0;
+    // 离散事件模拟中哲学家拿着左筷子等右筷子（教科书式），不再放下重试，用来演示死锁
+    boolean holdAndWait = false;
+    int bufferSize = 5;
+    long durationMillis = 10_000;
+    long thinkMillis = 0;
+    long workMillis = 0;
+    Format format = Format.JSON;
+    // 模拟时钟：real / scaled:倍率 / virtual，见 SimClock
+    String clock = "real";
+    Engine engine = Engine.THREADS;
+    // 离散事件模拟的随机种子，种子相同结果相同
+    long seed = 1;
+    // 生产者-消费者缓冲区满时生产者的处理方式，见 OverloadBuffer
+    OverloadBuffer.Policy overload = OverloadBuffer.Policy.BLOCK;
+    long overloadTimeoutMillis = 100;
+    // --overload=spill-disk 的溢出文件：每段字节数和最多段数，磁盘占用不超过两者之积
+    int spillSegmentBytes = 1 << 20;
+    int spillSegments = 16;
+    // --overload=spill 的内存溢出区最多保存的物品数，满了就丢弃
+    int spillCapacity = OverflowStore.Memory.DEFAULT_CAPACITY;
+    // 生产者-消费者物品的负载字节数，以及物品是否从对象池中取用（见 PayloadPool）
+    int payloadBytes = 64;
+    boolean pooled = true;
+    // 生产者-消费者的弹性消费者池：消费者数在 actors-生产者数 和 maxConsumers 之间伸缩，0表示固定数量
+    int maxConsumers = 0;
+    // 突发：每隔burstEveryMillis一次性放入burstItems个物品，并记录从开始放入到缓冲区排空的时长，0表示不突发
+    int burstItems = 0;
+    long burstEveryMillis = 1000;
+    // 消费者之后的ForkJoin计算阶段：每个物品的工作量（混洗次数，0表示没有）、叶子任务的最大工作量和并行度（0取CPU数），见 ForkJoinStage
+    int forkWork = 0;
+    int forkThreshold = 4096;
+    int forkParallelism = 0;
+    // 获取失败后重试（拿筷子、读写锁、缓冲区空位/物品）的等待方式，见 WaitStrategy
+    WaitStrategy waitStrategy = WaitStrategy.CLOCK;
+
+    public static BatchConfig parse(String[] args) {
+        BatchConfig config = new BatchConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "problem":
+                    config.problem = Problem.fromName(value);
+                    break;
+                case "strategy":
+                    config.strategy = value.toUpperCase(Locale.ROOT);
+                    break;
+                case "actors":
+                    config.actors = Integer.parseInt(value);
+                    break;
+                case "writers":
+                case "producers":
+                    config.writers = Integer.parseInt(value);
+                    break;
+                case "reader-permits":
+                    config.readerPermits = Integer.parseInt(value);
+                    break;
+                case "hold-and-wait":
+                    config.holdAndWait = Boolean.parseBoolean(value);
+                    break;
+                case "buffer":
+                    config.bufferSize = Integer.parseInt(value);
+                    break;
+                case "duration":
+                    config.durationMillis = parseMillis(value);
+                    break;
+                case "think":
+                    config.thinkMillis = parseMillis(value);
+                    break;
+                case "work":
+                    config.workMillis = parseMillis(value);
+                    break;
+                case "format":
+                    config.format = Format.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "clock":
+                    SimClock.fromSpec(value);
+                    config.clock = value;
+                    break;
+                case "engine":
+                    config.engine = Engine.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "seed":
+                    config.seed = Long.parseLong(value);
+                    break;
+                case "overload":
+                    config.overload = OverloadBuffer.Policy.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                    break;
+                case "overload-timeout":
+                    config.overloadTimeoutMillis = parseMillis(value);
+                    break;
+                case "spill-segment":
+                    config.spillSegmentBytes = (int) parseBytes(value);
+                    break;
+                case "spill-segments":
+                    config.spillSegments = Integer.parseInt(value);
+                    break;
+                case "spill-capacity":
+                    config.spillCapacity = Integer.parseInt(value);
+                    break;
+                case "payload":
+                    config.payloadBytes = (int) parseBytes(value);
+                    break;
+                case "pool":
+                    config.pooled = Boolean.parseBoolean(value);
+                    break;
+                case "max-consumers":
+                    config.maxConsumers = Integer.parseInt(value);
+                    break;
+                case "burst":
+                    config.burstItems = Integer.parseInt(value);
+                    break;
+                case "burst-every":
+                    config.burstEveryMillis = parseMillis(value);
+                    break;
+                case "fork-work":
+                    config.forkWork = Integer.parseInt(value);
+                    break;
+                case "fork-threshold":
+                    config.forkThreshold = Integer.parseInt(value);
+                    break;
+                case "fork-parallelism":
+                    config.forkParallelism = Integer.parseInt(value);
+                    break;
+                case "wait":
+                    config.waitStrategy = WaitStrategy.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: --" + key);
+            }
+        }
+        if (config.actors < 2) {
+            throw new IllegalArgumentException("--actors 至少为2");
+        }
+        // 虚拟时钟只在所有线程都睡眠或阻塞时推进，没有耗时的循环会让时间停住
+        if (config.clock.equals("virtual") && config.thinkMillis == 0 && config.workMillis == 0) {
+            throw new IllegalArgumentException("--clock=virtual 需要 --think 或 --work 大于0");
+        }
+        // 同理，离散事件模拟中所有事件都在同一时刻发生时永远不会结束
+        if (config.engine == Engine.EVENTS && config.thinkMillis == 0 && config.workMillis == 0) {
+            throw new IllegalArgumentException("--engine=events 需要 --think 或 --work 大于0");
+        }
+        if (config.spillCapacity <= 0) {
+            throw new IllegalArgumentException("--spill-capacity 至少为1");
+        }
+        if (config.readerPermits < 0) {
+            throw new IllegalArgumentException("--reader-permits 不能为负");
+        }
+        // DiningTable拿不到右筷子总会放下左筷子，只有离散事件模拟能按持有并等待建模
+        if (config.holdAndWait) {
+            if (config.engine != Engine.EVENTS || config.problem != Problem.PHILOSOPHERS) {
+                throw new IllegalArgumentException("--hold-and-wait 只支持 philosophers 的 --engine=events");
+            }
+            if (config.diningStrategy() == DiningTable.Strategy.ENSURE_BOTH_CHOPSTICKS) {
+                throw new IllegalArgumentException("--hold-and-wait 不适用于同时拿起两根筷子的 ENSURE_BOTH_CHOPSTICKS");
+            }
+        }
+        // 离散事件模拟只模拟有界的先进先出缓冲区
+        if (config.engine == Engine.EVENTS && config.problem == Problem.PRODUCER_CONSUMER) {
+            ItemBuffer.Backend backend = config.bufferBackend();
+            if (backend == ItemBuffer.Backend.LINKED_TRANSFER || backend == ItemBuffer.Backend.SYNCHRONOUS
+                    || backend == ItemBuffer.Backend.FLOW) {
+                throw new IllegalArgumentException("--engine=events 不支持 " + backend.name());
+            }
+            if (config.overload != OverloadBuffer.Policy.BLOCK) {
+                throw new IllegalArgumentException("--engine=events 只支持 --overload=block");
+            }
+        }
+        if (config.problem == Problem.PRODUCER_CONSUMER && config.bufferBackend() == ItemBuffer.Backend.FLOW) {
+            if (!FlowPipeline.supports(config.overload)) {
+                throw new IllegalArgumentException("--strategy=FLOW 不支持 --overload="
+                        + config.overload.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+            }
+            // 缓冲区满时生产者是限时等待，虚拟时钟把它当作仍在运行，时间无法推进
+            if (config.clock.equals("virtual")) {
+                throw new IllegalArgumentException("--strategy=FLOW 不支持 --clock=virtual");
+            }
+        }
+        // 跨进程模式只有生产者-消费者，缓冲区固定为共享内存环形缓冲区
+        if (config.engine == Engine.PROCESSES) {
+            if (config.problem != Problem.PRODUCER_CONSUMER) {
+                throw new IllegalArgumentException("--engine=processes 只支持 producer-consumer");
+            }
+            if (!config.clock.equals("real") || config.overload != OverloadBuffer.Policy.BLOCK) {
+                throw new IllegalArgumentException("--engine=processes 只支持 --clock=real 和 --overload=block");
+            }
+            int producers = Math.max(1, config.producerCount());
+            if (producers > SharedRingBuffer.MAX_ACTORS || config.actors - producers > SharedRingBuffer.MAX_ACTORS) {
+                throw new IllegalArgumentException("--engine=processes 的生产者和消费者各最多"
+                        + SharedRingBuffer.MAX_ACTORS + "个");
+            }
+        }
+        // 弹性消费者池和突发只在进程内的线程模型中实现
+        if (config.maxConsumers > 0 || config.burstItems > 0) {
+            if (config.problem != Problem.PRODUCER_CONSUMER || config.engine != Engine.THREADS) {
+                throw new IllegalArgumentException("--max-consumers 和 --burst 只支持 producer-consumer 的 --engine=threads");
+            }
+        }
+        if (config.maxConsumers > 0) {
+            if (config.maxConsumers < config.actors - Math.max(1, config.producerCount())) {
+                throw new IllegalArgumentException("--max-consumers 不能少于消费者数 "
+                        + (config.actors - Math.max(1, config.producerCount())));
+            }
+            // Flow的消费者是订阅者，数量由轨道数决定
+            if (config.bufferBackend() == ItemBuffer.Backend.FLOW) {
+                throw new IllegalArgumentException("--strategy=FLOW 不支持 --max-consumers");
+            }
+            // 消费者限时等待物品以便发现缩容，虚拟时钟把它当作仍在运行，时间无法推进
+            if (config.clock.equals("virtual")) {
+                throw new IllegalArgumentException("--max-consumers 不支持 --clock=virtual");
+            }
+        }
+        if (config.forkWork > 0) {
+            if (config.problem != Problem.PRODUCER_CONSUMER || config.engine != Engine.THREADS) {
+                throw new IllegalArgumentException("--fork-work 只支持 producer-consumer 的 --engine=threads");
+            }
+            if (config.forkThreshold < 1 || config.forkParallelism < 0) {
+                throw new IllegalArgumentException("--fork-threshold 至少为1，--fork-parallelism 不能为负");
+            }
+        }
+        if (config.waitStrategy != WaitStrategy.CLOCK) {
+            // 自旋、挂起都不经过模拟时钟，虚拟时钟和离散事件模拟中时间无法推进
+            if (config.engine == Engine.EVENTS || config.clock.equals("virtual")) {
+                throw new IllegalArgumentException("--wait 不支持 --engine=events 和 --clock=virtual");
+            }
+            // 缓冲区改为非阻塞的放入/取出加重试，需要有容量的缓冲区和阻塞的过载策略
+            if (config.problem == Problem.PRODUCER_CONSUMER && config.engine == Engine.THREADS) {
+                ItemBuffer.Backend backend = config.bufferBackend();
+                if (backend == ItemBuffer.Backend.SYNCHRONOUS || backend == ItemBuffer.Backend.FLOW) {
+                    throw new IllegalArgumentException("--wait 不支持 " + backend.name());
+                }
+                if (config.overload != OverloadBuffer.Policy.BLOCK || config.isElastic()) {
+                    throw new IllegalArgumentException("--wait 只支持 --overload=block，且不能与 --max-consumers 同时使用");
+                }
+            }
+        }
+        return config;
+    }
+
+    /** 计算阶段的并行度，未指定时取CPU数 */
+    public int forkParallelism() {
+        return forkParallelism > 0 ? forkParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /** 是否使用弹性消费者池 */
+    public boolean isElastic() {
+        return maxConsumers > 0;
+    }
+
+    public BatchConfig copy() {
+        BatchConfig copy = new BatchConfig();
+        copy.problem = problem;
+        copy.strategy = strategy;
+        copy.actors = actors;
+        copy.writers = writers;
+        copy.readerPermits = readerPermits;
+        copy.holdAndWait = holdAndWait;
+        copy.bufferSize = bufferSize;
+        copy.durationMillis = durationMillis;
+        copy.thinkMillis = thinkMillis;
+        copy.workMillis = workMillis;
+        copy.format = format;
+        copy.clock = clock;
+        copy.engine = engine;
+        copy.seed = seed;
+        copy.overload = overload;
+        copy.overloadTimeoutMillis = overloadTimeoutMillis;
+        copy.spillSegmentBytes = spillSegmentBytes;
+        copy.spillSegments = spillSegments;
+        copy.spillCapacity = spillCapacity;
+        copy.payloadBytes = payloadBytes;
+        copy.pooled = pooled;
+        copy.maxConsumers = maxConsumers;
+        copy.burstItems = burstItems;
+        copy.burstEveryMillis = burstEveryMillis;
+        copy.forkWork = forkWork;
+        copy.forkThreshold = forkThreshold;
+        copy.forkParallelism = forkParallelism;
+        copy.waitStrategy = waitStrategy;
+        return copy;
+    }
+
+    /**
+     * 还原为命令行参数，供在独立JVM中运行。
+     */
+    public List<String> toArgs() {
+        List<String> args = new ArrayList<>();
+        args.add("--problem=" + problem.getName());
+        if (strategy != null) {
+            args.add("--strategy=" + strategy);
+        }
+        args.add("--actors=" + actors);
+        if (writers >= 0) {
+            args.add("--writers=" + writers);
+        }
+        args.add("--reader-permits=" + readerPermits);
+        args.add("--hold-and-wait=" + holdAndWait);
+        args.add("--buffer=" + bufferSize);
+        args.add("--duration=" + durationMillis + "ms");
+        args.add("--think=" + thinkMillis + "ms");
+        args.add("--work=" + workMillis + "ms");
+        args.add("--format=" + format.name().toLowerCase(Locale.ROOT));
+        args.add("--clock=" + clock);
+        args.add("--engine=" + engine.name().toLowerCase(Locale.ROOT));
+        args.add("--seed=" + seed);
+        args.add("--overload=" + overload.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        args.add("--overload-timeout=" + overloadTimeoutMillis + "ms");
+        args.add("--spill-segment=" + spillSegmentBytes);
+        args.add("--spill-segments=" + spillSegments);
+        args.add("--spill-capacity=" + spillCapacity);
+        args.add("--payload=" + payloadBytes);
+        args.add("--pool=" + pooled);
+        args.add("--max-consumers=" + maxConsumers);
+        args.add("--burst=" + burstItems);
+        args.add("--burst-every=" + burstEveryMillis + "ms");
+        args.add("--fork-work=" + forkWork);
+        args.add("--fork-threshold=" + forkThreshold);
+        args.add("--fork-parallelism=" + forkParallelism);
+        args.add("--wait=" + waitStrategy.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        return args;
+    }
+
+    public Problem getProblem() {
+        return problem;
+    }
+
+    public int getActors() {
+        return actors;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public long getThinkMillis() {
+        return thinkMillis;
+    }
+
+    public SimClock newClock() {
+        return SimClock.fromSpec(clock);
+    }
+
+    /**
+     * 解析时长，支持 ms / s / m / h 后缀，纯数字按毫秒计。
+     */
+    static long parseMillis(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.endsWith("ms")) {
+            return Long.parseLong(v.substring(0, v.length() - 2));
+        }
+        if (v.endsWith("s")) {
+            return Long.parseLong(v.substring(0, v.length() - 1)) * 1000;
+        }
+        if (v.endsWith("m")) {
+            return Long.parseLong(v.substring(0, v.length() - 1)) * 60_000;
+        }
+        if (v.endsWith("h")) {
+            return Long.parseLong(v.substring(0, v.length() - 1)) * 3_600_000;
+        }
+        return Long.parseLong(v);
+    }
+
+    /**
+     * 解析字节数，支持 k / m / g 后缀（按1024进位），纯数字按字节计。
+     */
+    static long parseBytes(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.endsWith("k")) {
+            return Long.parseLong(v.substring(0, v.length() - 1)) << 10;
+        }
+        if (v.endsWith("m")) {
+            return Long.parseLong(v.substring(0, v.length() - 1)) << 20;
+        }
+        if (v.endsWith("g")) {
+            return Long.parseLong(v.substring(0, v.length() - 1)) << 30;
+        }
+        return Long.parseLong(v);
+    }
+
+    public DiningTable.Strategy diningStrategy() {
+        return strategy == null ? DiningTable.Strategy.NO_STRATEGY : DiningTable.Strategy.valueOf(strategy);
+    }
+
+    public ReadWriteResource.Strategy readWriteStrategy() {
+        return strategy == null ? ReadWriteResource.Strategy.READER_PRIORITY : ReadWriteResource.Strategy.valueOf(strategy);
+    }
+
+    public ItemBuffer.Backend bufferBackend() {
+        return strategy == null ? ItemBuffer.Backend.SEMAPHORE : ItemBuffer.Backend.valueOf(strategy);
+    }
+
+    public int writerCount() {
+        if (writers >= 0) {
+            return Math.min(writers, actors - 1);
+        }
+        return Math.max(1, actors / 4);
+    }
+
+    /** 读者信号量的许可数，未指定时每个读者一个 */
+    public int readerPermits() {
+        return readerPermits > 0 ? readerPermits : actors - writerCount();
+    }
+
+    public int producerCount() {
+        if (writers >= 0) {
+            return Math.min(writers, actors - 1);
+        }
+        return actors / 2;
+    }
+
+    /** 该问题可选的全部策略名 */
+    public static List<String> strategiesOf(Problem problem) {
+        List<String> names = new ArrayList<>();
+        switch (problem) {
+            case PHILOSOPHERS:
+                for (DiningTable.Strategy strategy : DiningTable.Strategy.values()) {
+                    names.add(strategy.name());
+                }
+                break;
+            case READERS_WRITERS:
+                for (ReadWriteResource.Strategy strategy : ReadWriteResource.Strategy.values()) {
+                    names.add(strategy.name());
+                }
+                break;
+            default:
+                for (ItemBuffer.Backend backend : ItemBuffer.Backend.values()) {
+                    names.add(backend.name());
+                }
+                break;
+        }
+        return names;
+    }
+
+    /** 策略名，非默认的等待方式以“+名称”附在后面，例如 LIMIT_DINERS+SPIN_PARK */
+    public String strategyName() {
+        String name;
+        switch (problem) {
+            case PHILOSOPHERS:
+                name = diningStrategy().name();
+                break;
+            case READERS_WRITERS:
+                name = readWriteStrategy().name();
+                break;
+            default:
+                name = engine == Engine.PROCESSES ? "SHARED_MEMORY" : bufferBackend().name();
+                break;
+        }
+        return waitStrategy == WaitStrategy.CLOCK ? name : name + "+" + waitStrategy.name();
+    }
+}
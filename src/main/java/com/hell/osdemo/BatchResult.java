@@ -0,0 +1,130 @@
+package com.hell.osdemo;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 一次批量运行的统计结果：吞吐量、等待延迟百分位和公平性。
+ */
+public class BatchResult {
+
+    private final String problem;
+    private final String strategy;
+    private final int actors;
+    private final long elapsedNanos;
+    private final long[] actorOps;          // 计入吞吐量的每个参与者的完成次数
+    private final LatencyHistogram latency; // 等待获取资源（或物品端到端）的延迟
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    public BatchResult(String problem, String strategy, int actors, long elapsedNanos,
+                       long[] actorOps, LatencyHistogram latency) {
+        this.problem = problem;
+        this.strategy = strategy;
+        this.actors = actors;
+        this.elapsedNanos = elapsedNanos;
+        this.actorOps = actorOps;
+        this.latency = latency;
+    }
+
+    public void addCounter(String name, long value) {
+        counters.put(name, value);
+    }
+
+    public String getProblem() {
+        return problem;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public int getActors() {
+        return actors;
+    }
+
+    public long getOperations() {
+        long sum = 0;
+        for (long ops : actorOps) {
+            sum += ops;
+        }
+        return sum;
+    }
+
+    public double getThroughput() {
+        return getOperations() / (elapsedNanos / 1e9);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Jain公平性指数：1表示各参与者完成次数完全相同，1/n表示全部由一个参与者完成。
+     */
+    public double getFairness() {
+        double sum = 0;
+        double squares = 0;
+        for (long ops : actorOps) {
+            sum += ops;
+            squares += (double) ops * ops;
+        }
+        return squares == 0 ? 0 : sum * sum / (actorOps.length * squares);
+    }
+
+    private long minOps() {
+        long min = Long.MAX_VALUE;
+        for (long ops : actorOps) {
+            min = Math.min(min, ops);
+        }
+        return actorOps.length == 0 ? 0 : min;
+    }
+
+    private long maxOps() {
+        long max = 0;
+        for (long ops : actorOps) {
+            max = Math.max(max, ops);
+        }
+        return max;
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        sb.append("\"problem\":\"").append(problem).append("\",");
+        sb.append("\"strategy\":\"").append(strategy).append("\",");
+        sb.append("\"actors\":").append(actors).append(',');
+        sb.append("\"durationMs\":").append(elapsedNanos / 1_000_000).append(',');
+        sb.append("\"operations\":").append(getOperations()).append(',');
+        sb.append(String.format(Locale.ROOT, "\"throughputPerSec\":%.1f,", getThroughput()));
+        sb.append(String.format(Locale.ROOT,
+                "\"latencyUs\":{\"p50\":%.1f,\"p90\":%.1f,\"p99\":%.1f,\"p999\":%.1f,\"max\":%.1f},",
+                micros(latency.percentile(50)), micros(latency.percentile(90)),
+                micros(latency.percentile(99)), micros(latency.percentile(99.9)), micros(latency.getMax())));
+        sb.append(String.format(Locale.ROOT, "\"fairness\":%.4f,", getFairness()));
+        sb.append("\"minPerActor\":").append(minOps()).append(',');
+        sb.append("\"maxPerActor\":").append(maxOps());
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            sb.append(",\"").append(counter.getKey()).append("\":").append(counter.getValue());
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static String csvHeader() {
+        return "problem,strategy,actors,durationMs,operations,throughputPerSec,"
+                + "p50Us,p90Us,p99Us,p999Us,maxUs,fairness,minPerActor,maxPerActor";
+    }
+
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.4f,%d,%d",
+                problem, strategy, actors, elapsedNanos / 1_000_000, getOperations(), getThroughput(),
+                micros(latency.percentile(50)), micros(latency.percentile(90)),
+                micros(latency.percentile(99)), micros(latency.percentile(99.9)), micros(latency.getMax()),
+                getFairness(), minOps(), maxOps());
+    }
+}
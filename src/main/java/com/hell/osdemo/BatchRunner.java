@@ -0,0 +1,658 @@
+package com.hell.osdemo;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 不依赖JavaFX的命令行批量运行入口，适用于没有显示器的CI和压测机器:
+ * <pre>
+ * java -cp OSdemo.jar com.hell.osdemo.BatchRunner --problem=philosophers \
+ *     --strategy=LIMIT_DINERS --actors=1000 --duration=60s --think=0
+ * </pre>
+ * 结果以JSON（默认）或CSV（--format=csv）输出到标准输出。
+ */
+public class BatchRunner {
+
+    private final BatchConfig config;
+    private final SimClock clock;
+    private volatile boolean running = false;
+    private final CountDownLatch startGate = new CountDownLatch(1);
+    // 所有参与者线程在运行期间分配的堆内存
+    private final LongAdder allocatedBytes = new LongAdder();
+    // 所有参与者线程的CPU时间，以及runFor从放行到所有线程退出的实际时长
+    private final LongAdder cpuNanos = new LongAdder();
+    private long realNanos;
+    // 预热结束后才登记参与者线程，只统计稳定运行阶段的分配
+    private final AllocationMeter steadyMeter = new AllocationMeter();
+    private long steadyBytes;
+    private long steadyOps;
+    private long steadyNanos;
+    // 由执行器创建和启动的参与者线程（Flow的订阅者），不经runFor启动和等待，只登记分配统计
+    private final List<Thread> executorThreads = new CopyOnWriteArrayList<>();
+    // 预热结束后由弹性消费者池新建的线程直接登记到steadyMeter
+    private volatile boolean measuringSteady = false;
+    // 生产者-消费者的ForkJoin计算阶段（--fork-work），没有则为null；校验值累加到这里以免计算被消除
+    private ForkJoinStage forkStage;
+    private final LongAdder forkChecksum = new LongAdder();
+    private final LongAdder forkNanos = new LongAdder();
+    private final LongAdder forkItems = new LongAdder();
+
+    public BatchRunner(BatchConfig config) {
+        this.config = config;
+        this.clock = config.newClock();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        BatchConfig config;
+        try {
+            config = BatchConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("参数错误: " + e.getMessage());
+            System.err.println("用法: BatchRunner --problem=philosophers|readers-writers|producer-consumer"
+                    + " [--strategy=名称|缓冲区实现] [--actors=5] [--writers=N] [--reader-permits=N] [--buffer=5]"
+                    + " [--duration=10s] [--think=0] [--work=0] [--format=json|csv]"
+                    + " [--clock=real|scaled:100|virtual] [--engine=threads|events|processes] [--seed=1]"
+                    + " [--hold-and-wait=false]"
+                    + " [--overload=block|timeout|drop-newest|drop-oldest|caller-runs|spill|spill-disk]"
+                    + " [--overload-timeout=100ms] [--spill-segment=1m] [--spill-segments=16]"
+                    + " [--spill-capacity=10000]"
+                    + " [--payload=64] [--pool=true|false]"
+                    + " [--max-consumers=N] [--burst=N] [--burst-every=1s]"
+                    + " [--fork-work=0] [--fork-threshold=4096] [--fork-parallelism=CPU数]"
+                    + " [--wait=clock|busy-spin|spin-yield|spin-park|park|backoff|adaptive]");
+            System.exit(2);
+            return;
+        }
+
+        BatchResult result;
+        switch (config.engine) {
+            case EVENTS:
+                result = new EventSimulator(config).run();
+                break;
+            case PROCESSES:
+                result = new SharedMemoryRunner(config).run();
+                break;
+            case THREADS:
+            default:
+                result = new BatchRunner(config).run();
+                break;
+        }
+        if (config.format == BatchConfig.Format.CSV) {
+            System.out.println(BatchResult.csvHeader());
+            System.out.println(result.toCsv());
+        } else {
+            System.out.println(result.toJson());
+        }
+    }
+
+    public BatchResult run() throws InterruptedException {
+        try {
+            switch (config.problem) {
+                case READERS_WRITERS:
+                    return runReadersWriters();
+                case PRODUCER_CONSUMER:
+                    return runProducerConsumer();
+                case PHILOSOPHERS:
+                default:
+                    return runPhilosophers();
+            }
+        } finally {
+            // 参数扫描每个点都新建一个时钟，用完停掉虚拟时钟的协调线程
+            clock.shutdown();
+        }
+    }
+
+    private BatchResult runPhilosophers() throws InterruptedException {
+        int n = config.actors;
+        DiningTable table = new DiningTable(n);
+        table.setStrategy(config.diningStrategy());
+
+        long[] meals = new long[n];
+        LatencyHistogram[] waits = newHistograms(n);
+        LatencyHistogram[] handoffs = newHistograms(n);
+        // 每根筷子最近一次放下的时刻，用来计算交接延迟
+        AtomicLongArray forkReleasedAt = new AtomicLongArray(n);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            final int id = i;
+            threads.add(newActor("philosopher-" + id, () -> {
+                while (running) {
+                    hold(config.thinkMillis);
+
+                    // 饥饿：反复尝试直到拿到两根筷子
+                    long hungryAt = clock.nanoTime();
+                    int attempt = 0;
+                    while (!table.tryPickUp(id)) {
+                        if (!running) {
+                            return;
+                        }
+                        config.waitStrategy.idle(attempt++, clock);
+                    }
+                    long acquiredAt = clock.nanoTime();
+                    waits[id].record(acquiredAt - hungryAt);
+                    recordHandoff(handoffs[id], attempt, hungryAt, acquiredAt,
+                            Math.max(forkReleasedAt.get(id), forkReleasedAt.get((id + 1) % n)));
+
+                    hold(config.workMillis);
+                    long releasedAt = clock.nanoTime();
+                    forkReleasedAt.set(id, releasedAt);
+                    forkReleasedAt.set((id + 1) % n, releasedAt);
+                    table.putDown(id);
+                    meals[id]++;
+                }
+            }));
+        }
+
+        long elapsed = runFor(threads, meals);
+        BatchResult result = new BatchResult(config.problem.getName(), config.strategyName(), n,
+                elapsed, meals, merge(waits));
+        addWaitCounters(result, merge(handoffs));
+        addInvariantCounters(result, table.getInvariants());
+        addLockOrderCounters(result);
+        addAllocationCounters(result, elapsed);
+        return result;
+    }
+
+    private BatchResult runReadersWriters() throws InterruptedException {
+        int n = config.actors;
+        int writers = config.writerCount();
+        ReadWriteResource resource = new ReadWriteResource(config.readerPermits());
+        resource.reset(config.readWriteStrategy());
+
+        long[] ops = new long[n];
+        LatencyHistogram[] waits = newHistograms(n);
+        LatencyHistogram[] handoffs = newHistograms(n);
+        // 最近一次释放读锁或写锁的时刻
+        AtomicLong releasedAt = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            final int id = i;
+            final boolean writer = i < writers;
+            threads.add(newActor((writer ? "writer-" : "reader-") + id, () -> {
+                while (running) {
+                    hold(config.thinkMillis);
+
+                    long waitingAt = clock.nanoTime();
+                    int attempt = 0;
+                    while (!(writer ? resource.tryWrite() : resource.tryRead())) {
+                        if (!running) {
+                            return;
+                        }
+                        config.waitStrategy.idle(attempt++, clock);
+                    }
+                    long acquiredAt = clock.nanoTime();
+                    waits[id].record(acquiredAt - waitingAt);
+                    recordHandoff(handoffs[id], attempt, waitingAt, acquiredAt, releasedAt.get());
+
+                    hold(config.workMillis);
+                    releasedAt.set(clock.nanoTime());
+                    if (writer) {
+                        resource.finishWrite();
+                    } else {
+                        resource.finishRead();
+                    }
+                    ops[id]++;
+                }
+            }));
+        }
+
+        long elapsed = runFor(threads, ops);
+        BatchResult result = new BatchResult(config.problem.getName(), config.strategyName(), n,
+                elapsed, ops, merge(waits));
+        long writes = 0;
+        for (int i = 0; i < writers; i++) {
+            writes += ops[i];
+        }
+        result.addCounter("writes", writes);
+        result.addCounter("reads", result.getOperations() - writes);
+        addWaitCounters(result, merge(handoffs));
+        addInvariantCounters(result, resource.getInvariants());
+        addLockOrderCounters(result);
+        addAllocationCounters(result, elapsed);
+        return result;
+    }
+
+    private BatchResult runProducerConsumer() throws InterruptedException {
+        int producers = Math.max(1, config.producerCount());
+        int consumers = config.actors - producers;
+        // 弹性消费者池按槽位计数，槽位数为最多消费者数
+        int slots = config.isElastic() ? config.maxConsumers : consumers;
+        long[] produced = new long[producers];
+        long[] consumed = new long[slots];
+        LatencyHistogram[] latencies = newHistograms(slots);
+        // 消费者等到物品时，物品从放入到被取走的时长
+        LatencyHistogram[] handoffs = newHistograms(slots);
+        // 生产者代为处理的物品的延迟，多个生产者共用
+        LatencyHistogram inlineLatency = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+
+        ProducerConsumerPipeline.Spec spec = new ProducerConsumerPipeline.Spec(config.bufferBackend(),
+                config.bufferSize, config.overload);
+        spec.rails = consumers;
+        spec.overloadTimeoutMillis = config.overloadTimeoutMillis;
+        spec.spillCapacity = config.spillCapacity;
+        spec.spillSegmentBytes = config.spillSegmentBytes;
+        spec.spillSegments = config.spillSegments;
+        spec.payloadBytes = config.payloadBytes;
+        spec.pooled = config.pooled;
+        // 每个生产者（含突发）和每个消费者手上各一个
+        spec.holders = producers + slots + 1;
+        // 对象池由流水线创建，生产者代为处理物品的函数通过数组引用它
+        PayloadPool[] pools = new PayloadPool[1];
+        ProducerConsumerPipeline pipeline = new ProducerConsumerPipeline(spec, item -> {
+            synchronized (inlineLatency) {
+                inlineLatency.record(clock.nanoTime() - item.getProducedAt());
+            }
+            consume(pools[0], item);
+        });
+        OverloadSink<PayloadPool.Payload> buffer = pipeline.getSink();
+        PayloadPool pool = pipeline.getPool();
+        pools[0] = pool;
+        LongAdder corrupted = new LongAdder();
+        if (config.forkWork > 0) {
+            forkStage = new ForkJoinStage(config.forkParallelism(), config.forkThreshold);
+        }
+
+        for (int i = 0; i < producers; i++) {
+            final int id = i;
+            threads.add(newActor("producer-" + id, () -> {
+                // 序号按生产者分段，不同生产者的序号不会重复
+                long sequence = (long) id << 40;
+                while (running) {
+                    hold(config.thinkMillis);
+                    // 物品携带生产时刻，用于计算端到端延迟
+                    pipeline.put(pool.acquire(sequence++, clock.nanoTime()), config.waitStrategy);
+                    produced[id]++;
+                }
+            }));
+        }
+        // 突发：另一个生产者定期一次放入一批物品，等缓冲区排空后记下用时
+        LatencyHistogram burstDrain = new LatencyHistogram();
+        long[] burstProduced = new long[1];
+        long[] burstsStarted = new long[1];
+        if (config.burstItems > 0) {
+            threads.add(newActor("burst", () -> {
+                long sequence = (long) producers << 40;
+                while (running) {
+                    hold(config.burstEveryMillis);
+                    burstsStarted[0]++;
+                    long burstStart = clock.nanoTime();
+                    for (int i = 0; i < config.burstItems && running; i++) {
+                        pipeline.put(pool.acquire(sequence++, clock.nanoTime()), config.waitStrategy);
+                        burstProduced[0]++;
+                    }
+                    while (running && buffer.count() > 0) {
+                        hold(BURST_RECHECK_MILLIS);
+                    }
+                    if (running) {
+                        burstDrain.record(clock.nanoTime() - burstStart);
+                    }
+                }
+            }));
+        }
+        // 弹性消费者池在下面创建，消费者的处理函数通过数组引用它
+        ElasticConsumerPool elastic = null;
+        ElasticConsumerPool[] scaler = new ElasticConsumerPool[1];
+        FlowPipeline<PayloadPool.Payload> flow = pipeline.getFlow();
+        if (flow != null) {
+            // 推模式：消费者是订阅者，物品由各轨道的执行线程送来，线程同样等起跑闸门
+            AtomicInteger railIds = new AtomicInteger();
+            flow.subscribe(id -> item -> {
+                latencies[id].record(clock.nanoTime() - item.getProducedAt());
+                if (!consume(pool, item)) {
+                    corrupted.increment();
+                }
+                consumed[id]++;
+            }, task -> {
+                Thread thread = newActor("consumer-" + railIds.getAndIncrement(), task::run);
+                executorThreads.add(thread);
+                return thread;
+            });
+        } else if (config.isElastic()) {
+            OverloadBuffer<PayloadPool.Payload> source = pipeline.getBuffer();
+            elastic = new ElasticConsumerPool(new ElasticConsumerPool.Policy(consumers, config.maxConsumers,
+                    targetLatencyNanos()), id -> {
+                        PayloadPool.Payload item = source.poll(ELASTIC_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                        if (item == null) {
+                            return;
+                        }
+                        long latency = clock.nanoTime() - item.getProducedAt();
+                        latencies[id].record(latency);
+                        scaler[0].recordLatency(latency);
+                        if (!consume(pool, item)) {
+                            corrupted.increment();
+                        }
+                        consumed[id]++;
+                    }, (id, body) -> {
+                        Thread thread = newActor("consumer-" + id, body::run);
+                        executorThreads.add(thread);
+                        if (measuringSteady) {
+                            steadyMeter.register(thread);
+                        }
+                        return thread;
+                    }, event -> { });
+            scaler[0] = elastic;
+            threads.add(newActor("autoscaler", () -> {
+                while (running) {
+                    hold(SCALE_INTERVAL_MILLIS);
+                    scaler[0].sample(buffer.count(), buffer.capacity());
+                }
+            }));
+            elastic.start();
+        } else {
+            for (int i = 0; i < consumers; i++) {
+                final int id = i;
+                threads.add(newActor("consumer-" + id, () -> {
+                    while (running) {
+                        long takeStart = clock.nanoTime();
+                        PayloadPool.Payload item = pipeline.take(config.waitStrategy);
+                        long now = clock.nanoTime();
+                        latencies[id].record(now - item.getProducedAt());
+                        // 物品在开始等待之后才放入，说明消费者一直在等它
+                        if (item.getProducedAt() > takeStart) {
+                            handoffs[id].record(now - item.getProducedAt());
+                        }
+                        if (!consume(pool, item)) {
+                            corrupted.increment();
+                        }
+                        consumed[id]++;
+                    }
+                }));
+            }
+        }
+
+        long elapsed = runFor(threads, consumed);
+        if (flow != null) {
+            flow.close();
+            flow.awaitTermination(FLOW_EXIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        if (elastic != null) {
+            elastic.shutdown();
+            elastic.awaitTermination();
+        }
+        LatencyHistogram latency = merge(latencies);
+        latency.merge(inlineLatency);
+        // 弹性池只计用到过的槽位，公平性反映的是这些消费者之间的分布
+        BatchResult result = new BatchResult(config.problem.getName(), config.strategyName(), config.actors,
+                elapsed, elastic != null ? Arrays.copyOf(consumed, elastic.getPeakWorkers()) : consumed, latency);
+        long total = 0;
+        for (long p : produced) {
+            total += p;
+        }
+        result.addCounter("produced", total);
+        result.addCounter("producers", producers);
+        result.addCounter("consumers", consumers);
+        result.addCounter("dropped", buffer.getDropped());
+        result.addCounter("spilled", buffer.getSpilled());
+        result.addCounter("spillDropped", buffer.getOverflowDropped());
+        result.addCounter("callerRuns", buffer.getCallerRuns());
+        result.addCounter("producerStallMs", buffer.getStallNanos() / 1_000_000);
+        if (flow != null) {
+            // 订阅者出错后该轨道的订阅被取消，之后的物品都积压在发布者里
+            result.addCounter("flowErrors", flow.getErrors());
+        }
+        result.addCounter("payloadBytes", config.payloadBytes);
+        result.addCounter("poolMisses", pool.getMisses());
+        result.addCounter("corruptedPayloads", corrupted.sum());
+        addWaitCounters(result, merge(handoffs));
+        if (elastic != null) {
+            result.addCounter("maxConsumers", config.maxConsumers);
+            result.addCounter("peakConsumers", elastic.getPeakWorkers());
+            result.addCounter("finalConsumers", elastic.getWorkers());
+            result.addCounter("scaleUps", elastic.getScaleUps());
+            result.addCounter("scaleDowns", elastic.getScaleDowns());
+        }
+        if (config.burstItems > 0) {
+            result.addCounter("burstProduced", burstProduced[0]);
+            // 排空次数少于突发次数说明消费者没能在运行结束前消化最后一次（或一直没能消化）
+            result.addCounter("bursts", burstsStarted[0]);
+            result.addCounter("burstsDrained", burstDrain.getCount());
+            result.addCounter("burstDrainP50Ms", burstDrain.percentile(50) / 1_000_000);
+            result.addCounter("burstDrainMaxMs", burstDrain.getMax() / 1_000_000);
+        }
+        if (pipeline.getOverflow() instanceof MappedSpillFile) {
+            MappedSpillFile<PayloadPool.Payload> spillFile = (MappedSpillFile<PayloadPool.Payload>) pipeline.getOverflow();
+            result.addCounter("spillSegments", spillFile.getSegments());
+            result.addCounter("spillRecycled", spillFile.getRecycled());
+            result.addCounter("spillDiskBytes", spillFile.getDiskBytes());
+            // 命令行下删除失败的提示写到标准错误，不混进结果输出
+            spillFile.setLogListener(System.err::println);
+        }
+        if (forkStage != null) {
+            addForkCounters(result, realNanos);
+            forkStage.shutdown();
+        }
+        pipeline.close();
+        addInvariantCounters(result, buffer.getInvariants());
+        addLockOrderCounters(result);
+        addAllocationCounters(result, elapsed);
+        return result;
+    }
+
+    // 运行结束后等待Flow订阅者线程退出的时长
+    private static final long FLOW_EXIT_MILLIS = 5_000;
+    // 弹性消费者等待物品的时限（期间发现缩容）、伸缩采样间隔，以及突发后检查是否排空的间隔
+    private static final long ELASTIC_POLL_MILLIS = 20;
+    private static final long SCALE_INTERVAL_MILLIS = 50;
+    private static final long BURST_RECHECK_MILLIS = 1;
+
+    // 弹性池的目标延迟：物品在缓冲区里多等了一个以上的处理时间就算有压力，处理时间为0时取1ms
+    private long targetLatencyNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.workMillis * 2));
+    }
+
+    // 等待过（至少失败一次）且资源在开始等待之后才被释放时，记录从释放到拿到的交接延迟
+    private static void recordHandoff(LatencyHistogram handoffs, int attempts, long waitingSince,
+                                      long acquiredAt, long releasedAt) {
+        if (attempts > 0 && releasedAt > waitingSince) {
+            handoffs.record(acquiredAt - releasedAt);
+        }
+    }
+
+    // 交接延迟的次数和分位数，以及参与者线程的CPU时间和占一个核的百分比（自旋越多越高）
+    private void addWaitCounters(BatchResult result, LatencyHistogram handoffs) {
+        result.addCounter("handoffs", handoffs.getCount());
+        result.addCounter("handoffP50Us", handoffs.percentile(50) / 1000);
+        result.addCounter("handoffP99Us", handoffs.percentile(99) / 1000);
+        if (CPU_TIME_SUPPORTED) {
+            result.addCounter("cpuMs", cpuNanos.sum() / 1_000_000);
+            result.addCounter("cpuPct", cpuNanos.sum() * 100 / Math.max(1, realNanos));
+        }
+    }
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_BEAN.isCurrentThreadCpuTimeSupported();
+
+    // 当前线程的CPU时间，不支持时返回0
+    private static long currentThreadCpuNanos() {
+        return CPU_TIME_SUPPORTED ? THREAD_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    // 核对负载后处理并归还物品，返回负载是否完好；有计算阶段时先等该物品的工作量算完
+    private boolean consume(PayloadPool pool, PayloadPool.Payload item) throws InterruptedException {
+        boolean intact = item.verify();
+        long seed = item.getSequence();
+        pool.release(item);
+        if (forkStage != null) {
+            long start = System.nanoTime();
+            forkChecksum.add(forkStage.process(seed, config.forkWork));
+            forkNanos.add(System.nanoTime() - start);
+            forkItems.increment();
+        }
+        hold(config.workMillis);
+        return intact;
+    }
+
+    // 计算阶段：叶子任务数、按子任务计的窃取次数（及每个工作线程的最少/最多）、线程池自己的窃取计数，
+    // 工作线程的利用率（叶子上的计算时间占实际运行时间的百分比，平均/最低/最高）和每个物品的平均计算耗时
+    private void addForkCounters(BatchResult result, long realElapsedNanos) {
+        List<ForkJoinStage.WorkerStats> workers = forkStage.snapshot();
+        long leaves = 0;
+        long steals = 0;
+        long busy = 0;
+        long minSteals = Long.MAX_VALUE;
+        long maxSteals = 0;
+        long minBusy = Long.MAX_VALUE;
+        long maxBusy = 0;
+        for (ForkJoinStage.WorkerStats worker : workers) {
+            leaves += worker.getLeaves();
+            steals += worker.getSteals();
+            busy += worker.getBusyNanos();
+            minSteals = Math.min(minSteals, worker.getSteals());
+            maxSteals = Math.max(maxSteals, worker.getSteals());
+            minBusy = Math.min(minBusy, worker.getBusyNanos());
+            maxBusy = Math.max(maxBusy, worker.getBusyNanos());
+        }
+        if (workers.isEmpty()) {
+            minSteals = 0;
+            minBusy = 0;
+        }
+        result.addCounter("forkWork", config.forkWork);
+        result.addCounter("forkThreshold", config.forkThreshold);
+        result.addCounter("forkParallelism", forkStage.getParallelism());
+        result.addCounter("forkWorkers", workers.size());
+        result.addCounter("forkLeaves", leaves);
+        result.addCounter("forkSteals", steals);
+        result.addCounter("forkStealsMin", minSteals);
+        result.addCounter("forkStealsMax", maxSteals);
+        result.addCounter("forkPoolSteals", forkStage.getPoolStealCount());
+        result.addCounter("forkUtilPct", busy * 100 / Math.max(1, realElapsedNanos * forkStage.getParallelism()));
+        result.addCounter("forkUtilMinPct", minBusy * 100 / Math.max(1, realElapsedNanos));
+        result.addCounter("forkUtilMaxPct", maxBusy * 100 / Math.max(1, realElapsedNanos));
+        result.addCounter("forkItemAvgUs", forkItems.sum() == 0 ? 0 : forkNanos.sum() / forkItems.sum() / 1000);
+    }
+
+    // -Dosdemo.invariants=true 时附上不变式检查的次数和违反次数
+    private static void addInvariantCounters(BatchResult result, InvariantChecker invariants) {
+        if (InvariantChecker.ENABLED) {
+            result.addCounter("invariantChecks", invariants.getChecks());
+            result.addCounter("invariantViolations", invariants.getViolations());
+        }
+    }
+
+    // -Dosdemo.lockdep=true 时附上锁顺序检查的次数、图中的边数和发现的潜在死锁数（整个进程累计）
+    private static void addLockOrderCounters(BatchResult result) {
+        if (LockOrderChecker.ENABLED) {
+            result.addCounter("lockOrderChecks", LockOrderChecker.getChecks());
+            result.addCounter("lockOrderEdges", LockOrderChecker.getEdges());
+            result.addCounter("lockOrderCycles", LockOrderChecker.getCycles().size());
+        }
+    }
+
+    // 运行期间的堆分配总量和折算成每秒的分配速率，JVM不支持按线程统计时省略；
+    // steady*只计预热之后的阶段；默认的阻塞等待每次挂起线程都会分配JDK同步器的等待节点，
+    // 所以即使物品池化每千次操作仍有上万字节，不挂起的 --wait=busy-spin/spin-yield 下才为0
+    private void addAllocationCounters(BatchResult result, long elapsedNanos) {
+        if (AllocationMeter.isSupported()) {
+            long bytes = allocatedBytes.sum();
+            result.addCounter("allocatedBytes", bytes);
+            result.addCounter("allocBytesPerSec", Math.round(bytes / (elapsedNanos / 1e9)));
+            result.addCounter("steadyAllocBytes", steadyBytes);
+            result.addCounter("steadyAllocBytesPerSec", steadyNanos == 0 ? 0 : Math.round(steadyBytes / (steadyNanos / 1e9)));
+            result.addCounter("steadyAllocBytesPerKOp", steadyOps == 0 ? 0 : steadyBytes * 1000 / steadyOps);
+        }
+    }
+
+    // 工作线程主体，被中断即退出
+    interface ActorLoop {
+        void run() throws InterruptedException;
+    }
+
+    private Thread newActor(String name, ActorLoop loop) {
+        Thread thread = new Thread(() -> {
+            long allocatedAtStart = AllocationMeter.currentThreadBytes();
+            long cpuAtStart = currentThreadCpuNanos();
+            try {
+                startGate.await();
+                loop.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                allocatedBytes.add(AllocationMeter.currentThreadBytes() - allocatedAtStart);
+                cpuNanos.add(currentThreadCpuNanos() - cpuAtStart);
+            }
+        }, name);
+        thread.setDaemon(true);
+        // 启动前登记，虚拟时钟不会在参与者就绪前推进
+        clock.register(thread);
+        return thread;
+    }
+
+    /**
+     * 同时放行所有参与者，运行指定的模拟时长后中断并等待退出，返回模拟经过的纳秒数。
+     * 前五分之一的时长作为预热（类加载、JIT、池和缓冲区填满），之后的分配和操作数计入steady*。
+     */
+    private long runFor(List<Thread> threads, long[] ops) throws InterruptedException {
+        running = true;
+        threads.forEach(Thread::start);
+
+        long realStart = System.nanoTime();
+        long start = clock.nanoTime();
+        startGate.countDown();
+        long warmup = config.durationMillis / WARMUP_FRACTION;
+        clock.sleep(warmup);
+        measuringSteady = true;
+        threads.forEach(steadyMeter::register);
+        executorThreads.forEach(steadyMeter::register);
+        long opsAtWarmup = sum(ops);
+        long steadyStart = clock.nanoTime();
+        clock.sleep(config.durationMillis - warmup);
+        // 线程退出后读不到计数，在中断之前采样
+        steadyBytes = steadyMeter.bytes();
+        steadyOps = sum(ops) - opsAtWarmup;
+        steadyNanos = clock.nanoTime() - steadyStart;
+        running = false;
+        long elapsed = clock.nanoTime() - start;
+
+        // 阻塞在信号量或锁上的线程需要中断才能退出
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        realNanos = System.nanoTime() - realStart;
+        return elapsed;
+    }
+
+    private static final int WARMUP_FRACTION = 5;
+
+    // 参与者线程在运行中累加，读到的值可能稍旧，统计用足够了
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private void hold(long millis) throws InterruptedException {
+        clock.sleep(millis);
+    }
+
+    private static LatencyHistogram[] newHistograms(int n) {
+        LatencyHistogram[] histograms = new LatencyHistogram[n];
+        for (int i = 0; i < n; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    private static LatencyHistogram merge(LatencyHistogram[] histograms) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) {
+            merged.merge(histogram);
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,178 @@
+package com.hell.osdemo;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在进程内开启JFR录制，流式消费ContentionProbe产生的事件，
+ * 按资源汇总获取次数、失败次数、等待时间和主要阻塞者。
+ */
+public class ContentionMonitor {
+
+    /** 一个资源的竞争统计快照 */
+    public static class ResourceStats {
+        private final String resource;
+        private long acquires;
+        private long failures;
+        private long waitNanos;
+        private long maxWaitNanos;
+        // 阻塞者 -> 被其阻塞的次数
+        private final Map<String, Long> blockers = new HashMap<>();
+
+        ResourceStats(String resource) {
+            this.resource = resource;
+        }
+
+        ResourceStats copy() {
+            ResourceStats copy = new ResourceStats(resource);
+            copy.acquires = acquires;
+            copy.failures = failures;
+            copy.waitNanos = waitNanos;
+            copy.maxWaitNanos = maxWaitNanos;
+            copy.blockers.putAll(blockers);
+            return copy;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public long getAcquires() {
+            return acquires;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getWaitNanos() {
+            return waitNanos;
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        /** 阻塞次数最多的前n个阻塞者，形如 "哲学家P3×12, 哲学家P1×5" */
+        public String topBlockers(int n) {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(blockers.entrySet());
+            entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < Math.min(n, entries.size()); i++) {
+                if (i > 0) {
+                    text.append(", ");
+                }
+                text.append(entries.get(i).getKey()).append('×').append(entries.get(i).getValue());
+            }
+            return text.toString();
+        }
+    }
+
+    // 等待超过该时长才算一次竞争（成功获取时），失败的尝试总是算
+    private static final long CONTENDED_NANOS = 10_000;
+
+    private final Map<String, ResourceStats> stats = new HashMap<>();
+    private RecordingStream stream;
+
+    public synchronized boolean isRunning() {
+        return stream != null;
+    }
+
+    public synchronized void start() {
+        if (stream != null) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(ContentionProbe.ACQUIRE_EVENT);
+        stream.enable(ContentionProbe.RELEASE_EVENT);
+        // 只保留最近几分钟的数据，长时间运行时磁盘占用有上限
+        stream.setMaxAge(Duration.ofMinutes(5));
+        stream.onEvent(ContentionProbe.ACQUIRE_EVENT, this::onAcquire);
+        stream.startAsync();
+    }
+
+    public synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    /**
+     * 把当前录制的数据写入JFR文件，可用JDK Mission Control或jfr命令查看。
+     */
+    public synchronized void dump(Path file) throws IOException {
+        if (stream == null) {
+            throw new IllegalStateException("未在录制");
+        }
+        stream.dump(file);
+    }
+
+    public void clear() {
+        synchronized (stats) {
+            stats.clear();
+        }
+    }
+
+    /** 按等待总时长从大到小排列的统计快照 */
+    public List<ResourceStats> snapshot() {
+        List<ResourceStats> result = new ArrayList<>();
+        synchronized (stats) {
+            for (ResourceStats value : stats.values()) {
+                result.add(value.copy());
+            }
+        }
+        result.sort(Comparator.comparingLong(ResourceStats::getWaitNanos).reversed()
+                .thenComparing(Comparator.comparingLong(ResourceStats::getFailures).reversed()));
+        return result;
+    }
+
+    private void onAcquire(RecordedEvent event) {
+        String resource = event.getString("resource");
+        boolean acquired = event.getBoolean("acquired");
+        String blocker = event.getString("blocker");
+        long wait = event.getDuration().toNanos();
+        // 持有者只是近似记录，自己不算自己的阻塞者
+        if (blocker != null && event.getThread() != null && blocker.equals(event.getThread().getJavaName())) {
+            blocker = null;
+        }
+
+        synchronized (stats) {
+            ResourceStats value = stats.computeIfAbsent(resource, ResourceStats::new);
+            if (acquired) {
+                value.acquires++;
+            } else {
+                value.failures++;
+            }
+            value.waitNanos += wait;
+            value.maxWaitNanos = Math.max(value.maxWaitNanos, wait);
+            if (blocker != null && (!acquired || wait >= CONTENDED_NANOS)) {
+                value.blockers.merge(blocker, 1L, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * 启动时通过 -Dosdemo.jfr=文件 开启的录制：只录本程序的同步事件，退出时写入文件。
+     */
+    public static Recording startRecording(Path file) throws IOException {
+        Recording recording = new Recording();
+        recording.setName("osdemo");
+        recording.enable(ContentionProbe.ACQUIRE_EVENT);
+        recording.enable(ContentionProbe.RELEASE_EVENT);
+        recording.setToDisk(true);
+        recording.setDestination(file);
+        recording.start();
+        return recording;
+    }
+}
@@ -0,0 +1,109 @@
+package com.hell.osdemo;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * 浮在演示界面上的锁竞争面板，每秒刷新一次ContentionMonitor的统计。
+ */
+public class ContentionPanel extends VBox {
+
+    private final ContentionMonitor monitor = new ContentionMonitor();
+    private final TableView<ContentionMonitor.ResourceStats> table = new TableView<>();
+    private final Label statusLabel = new Label("JFR录制未开启");
+    private final Timeline refresher;
+
+    public ContentionPanel() {
+        setSpacing(5);
+        setStyle("-fx-padding: 10; -fx-background-color: rgba(255,255,255,0.92);"
+                + " -fx-border-color: #2c3e50; -fx-border-radius: 5; -fx-background-radius: 5;");
+
+        Label title = new Label("锁竞争（JFR）");
+        title.setStyle("-fx-font-size: 14; -fx-font-weight: bold;");
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        Button clearBtn = new Button("清空");
+        clearBtn.setOnAction(e -> {
+            monitor.clear();
+            table.getItems().clear();
+        });
+        Button dumpBtn = new Button("导出JFR");
+        dumpBtn.setOnAction(e -> dump());
+        HBox header = new HBox(10, title, spacer, clearBtn, dumpBtn);
+        header.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+
+        table.getColumns().add(column("资源", ContentionMonitor.ResourceStats::getResource));
+        table.getColumns().add(column("获取", ContentionMonitor.ResourceStats::getAcquires));
+        table.getColumns().add(column("失败", ContentionMonitor.ResourceStats::getFailures));
+        table.getColumns().add(column("等待(ms)", s -> millis(s.getWaitNanos())));
+        table.getColumns().add(column("最长(ms)", s -> millis(s.getMaxWaitNanos())));
+        table.getColumns().add(column("主要阻塞者", s -> s.topBlockers(2)));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        table.setPlaceholder(new Label("暂无事件，开始任一演示后显示"));
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        statusLabel.setStyle("-fx-font-size: 11; -fx-text-fill: #666;");
+        getChildren().addAll(header, table, statusLabel);
+
+        refresher = new Timeline(new KeyFrame(Duration.seconds(1),
+                e -> table.getItems().setAll(monitor.snapshot())));
+        refresher.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    public void start() {
+        try {
+            monitor.start();
+            statusLabel.setText("JFR录制中，事件约每秒到达一批");
+            refresher.play();
+        } catch (RuntimeException e) {
+            // 精简运行时可能不含JFR
+            statusLabel.setText("无法开启JFR录制: " + e.getMessage());
+        }
+    }
+
+    public void stop() {
+        refresher.stop();
+        monitor.stop();
+        statusLabel.setText("JFR录制未开启");
+    }
+
+    private void dump() {
+        String time = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = Paths.get("osdemo-contention-" + time + ".jfr").toAbsolutePath();
+        try {
+            monitor.dump(file);
+            statusLabel.setText("已导出: " + file);
+        } catch (IOException | IllegalStateException e) {
+            statusLabel.setText("导出失败: " + e.getMessage());
+        }
+    }
+
+    private static <T> TableColumn<ContentionMonitor.ResourceStats, T> column(
+            String title, Function<ContentionMonitor.ResourceStats, T> getter) {
+        TableColumn<ContentionMonitor.ResourceStats, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new SimpleObjectProperty<>(getter.apply(cell.getValue())));
+        return column;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.hell.osdemo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 同步资源（筷子、读写锁、信号量）的JFR探针：每次获取和释放各产生一个自定义事件。
+ * 没有录制启用这些事件时只剩一次isEnabled()判断，也不创建事件对象。
+ */
+public final class ContentionProbe {
+
+    public static final String ACQUIRE_EVENT = "com.hell.osdemo.ResourceAcquire";
+    public static final String RELEASE_EVENT = "com.hell.osdemo.ResourceRelease";
+
+    @Name(ACQUIRE_EVENT)
+    @Label("资源获取")
+    @Description("获取同步资源的一次尝试，持续时间为等待时间")
+    @Category({"OSdemo", "同步"})
+    @StackTrace(false)
+    public static class AcquireEvent extends Event {
+        @Label("资源")
+        String resource;
+
+        @Label("是否获得")
+        boolean acquired;
+
+        @Label("最近持有者")
+        String blocker;
+    }
+
+    @Name(RELEASE_EVENT)
+    @Label("资源释放")
+    @Category({"OSdemo", "同步"})
+    @StackTrace(false)
+    public static class ReleaseEvent extends Event {
+        @Label("资源")
+        String resource;
+    }
+
+    private static final EventType ACQUIRE_TYPE = EventType.getEventType(AcquireEvent.class);
+    private static final EventType RELEASE_TYPE = EventType.getEventType(ReleaseEvent.class);
+    // 未启用时begin()返回的共享事件，从不提交
+    private static final AcquireEvent DISABLED = new AcquireEvent();
+
+    private final String resource;
+    // 最近一次成功获取该资源的线程，作为等待者的阻塞者；多持有者的资源（读锁、计数信号量）只是近似
+    private volatile String holder;
+
+    public ContentionProbe(String resource) {
+        this.resource = resource;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    /**
+     * 在尝试获取之前调用，返回的事件交给 end() 结束。
+     */
+    public AcquireEvent begin() {
+        if (!ACQUIRE_TYPE.isEnabled()) {
+            return DISABLED;
+        }
+        AcquireEvent event = new AcquireEvent();
+        event.blocker = holder;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 获取结束（成功或失败）后调用；被中断时不调用，该事件直接丢弃。
+     */
+    public void end(AcquireEvent event, boolean acquired) {
+        // 录制可能在begin()和end()之间开始，共享事件仍然不能提交
+        if (event == DISABLED || !event.isEnabled()) {
+            return;
+        }
+        event.end();
+        if (acquired) {
+            holder = Thread.currentThread().getName();
+        }
+        if (event.shouldCommit()) {
+            event.resource = resource;
+            event.acquired = acquired;
+            event.commit();
+        }
+    }
+
+    public void released() {
+        if (!RELEASE_TYPE.isEnabled()) {
+            return;
+        }
+        if (Thread.currentThread().getName().equals(holder)) {
+            holder = null;
+        }
+        ReleaseEvent event = new ReleaseEvent();
+        event.resource = resource;
+        event.commit();
+    }
+}
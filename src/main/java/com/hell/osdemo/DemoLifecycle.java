@@ -0,0 +1,24 @@
+package com.hell.osdemo;
+
+/**
+ * 演示控制器的生命周期接口，由MainController在切换演示时调用。
+ */
+public interface DemoLifecycle {
+
+    /** 开始模拟，暂停状态下则继续 */
+    void start();
+
+    /** 暂停模拟，工作线程挂起但保留状态 */
+    void pause();
+
+    /** 停止模拟，结束所有工作线程和定时器 */
+    void stop();
+
+    /** 是否正在运行（已暂停或已停止时返回false） */
+    boolean isRunning();
+
+    /** 演示界面被移除前调用，释放全部资源 */
+    default void dispose() {
+        stop();
+    }
+}
@@ -1,5 +1,6 @@
 package com.hell.osdemo;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -9,6 +10,7 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Text;
+import javafx.util.Duration;
 
 import java.net.URL;
 import java.time.LocalTime;
@@ -16,12 +18,13 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
 
-public class DiningPhilosophersController implements Initializable {
+public class DiningPhilosophersController implements Initializable, DemoLifecycle {
 
     // FXML组件
     @FXML private Button startBtn;
     @FXML private Button pauseBtn;
     @FXML private Button resetBtn;
+    @FXML private Button modelCheckBtn;
     @FXML private ChoiceBox<String> strategyChoice;
 
     @FXML private Label statusLabel;
@@ -34,6 +37,7 @@ public class DiningPhilosophersController implements Initializable {
     @FXML private Pane chopsticksPane;
     @FXML private Pane philosophersPane;
     @FXML private Circle tableCircle;
+    @FXML private LiveMetricsPanel metricsPanel;
 
     // 常量
     private static final int NUM_PHILOSOPHERS = 5;
@@ -45,40 +49,106 @@ public class DiningPhilosophersController implements Initializable {
     private List<PhilosopherThread> philosopherThreads;
     private volatile boolean isRunning = false;
     private ScheduledExecutorService uiScheduler;
+    private final PauseGate pauseGate = new PauseGate();
+    private final MetricsWindow metrics = new MetricsWindow();
+    // 所有耗时都走模拟时钟，-Dosdemo.clock=100x 或 virtual 可加速演示
+    private final SimClock clock = SimClock.fromSystemProperty();
 
-    // 哲学家和筷子
+    // 哲学家和餐桌（筷子）
     private List<Philosopher> philosophers;
-    private List<Fork> forks;
+    private DiningTable table;
 
-    // 图形元素
+    // 图形元素，只创建一次，尺寸变化时只重新定位，不影响模型
     private List<Circle> philosopherCircles;
+    private List<Text> philosopherLabels;
     private List<Line> chopstickLines;
+    // 连续的尺寸变化停下来之后才重新布局
+    private final PauseTransition layoutDebounce = new PauseTransition(Duration.millis(100));
+    // 每次重置递增，只安装最近一次重置构建的模型
+    private int resetGeneration = 0;
 
     // 统计
     private int totalEatCount = 0;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        // 等待StackPane布局完成后再初始化位置
+        // 队列深度为饥饿的哲学家数，活动线程为正在就餐的哲学家数
+        metricsPanel.bind(metrics, () -> countState(Philosopher.State.HUNGRY),
+                () -> countState(Philosopher.State.EATING));
+
+        createTableGraphics();
+        installModel(buildModel());
+        layoutDebounce.setOnFinished(e -> layoutTable());
+
+        // 等待StackPane布局完成后再计算位置
         Platform.runLater(() -> {
-            initializeTable();
+            layoutTable();
             setupStrategies();
             log("系统初始化完成，等待开始模拟");
         });
     }
 
-    private void initializeTable() {
-        // 清除现有元素
+    // 一次重置构建出的模型：餐桌、哲学家和线程，不含任何界面元素
+    private class TableModel {
+        final DiningTable table = new DiningTable(NUM_PHILOSOPHERS);
+        final Philosopher[] philosophers = new Philosopher[NUM_PHILOSOPHERS];
+        final PhilosopherThread[] threads = new PhilosopherThread[NUM_PHILOSOPHERS];
+    }
+
+    /**
+     * 构建新模型，可在任意线程调用。只有五位哲学家，逐个创建即可，并行反而要付出调度开销。
+     */
+    private TableModel buildModel() {
+        TableModel model = new TableModel();
+        for (int i = 0; i < NUM_PHILOSOPHERS; i++) {
+            model.philosophers[i] = new Philosopher(i, model.table);
+            model.threads[i] = new PhilosopherThread(model.philosophers[i]);
+        }
+        return model;
+    }
+
+    // 在FX线程上整体替换模型
+    private void installModel(TableModel model) {
+        table = model.table;
+        philosophers = Arrays.asList(model.philosophers);
+        philosopherThreads = Arrays.asList(model.threads);
+    }
+
+    private void createTableGraphics() {
         chopsticksPane.getChildren().clear();
         philosophersPane.getChildren().clear();
-
-        // 初始化数据
-        philosophers = new ArrayList<>();
-        forks = new ArrayList<>();
         philosopherCircles = new ArrayList<>();
+        philosopherLabels = new ArrayList<>();
         chopstickLines = new ArrayList<>();
-        philosopherThreads = new ArrayList<>();
 
+        for (int i = 0; i < NUM_PHILOSOPHERS; i++) {
+            // 创建哲学家图形
+            Circle circle = new Circle(PHILOSOPHER_RADIUS);
+            circle.setFill(Color.LIGHTBLUE); // 思考状态
+            circle.setStroke(Color.BLACK);
+            circle.setStrokeWidth(2);
+
+            Text label = new Text("P" + i);
+            label.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
+
+            philosopherCircles.add(circle);
+            philosopherLabels.add(label);
+            philosophersPane.getChildren().addAll(circle, label);
+
+            Line chopstick = new Line();
+            chopstick.setStrokeWidth(4);
+            chopstick.setStroke(Color.GOLD);
+            chopstick.setStrokeLineCap(javafx.scene.shape.StrokeLineCap.ROUND);
+
+            chopstickLines.add(chopstick);
+            chopsticksPane.getChildren().add(chopstick);
+        }
+    }
+
+    /**
+     * 按容器当前大小重新定位圆桌、哲学家和筷子。
+     */
+    private void layoutTable() {
         // 获取StackPane的实际大小
         double containerWidth = philosophersPane.getWidth();
         double containerHeight = philosophersPane.getHeight();
@@ -98,12 +168,6 @@ public class DiningPhilosophersController implements Initializable {
         tableCircle.setCenterY(centerY);
         tableCircle.setRadius(tableRadius);
 
-        // 创建筷子
-        for (int i = 0; i < NUM_PHILOSOPHERS; i++) {
-            forks.add(new Fork(i));
-        }
-
-        // 创建哲学家图形和对象
         for (int i = 0; i < NUM_PHILOSOPHERS; i++) {
             double angle = 2 * Math.PI * i / NUM_PHILOSOPHERS;
 
@@ -111,28 +175,13 @@ public class DiningPhilosophersController implements Initializable {
             double philosopherX = centerX + (tableRadius - PHILOSOPHER_RADIUS - 10) * Math.cos(angle);
             double philosopherY = centerY + (tableRadius - PHILOSOPHER_RADIUS - 10) * Math.sin(angle);
 
-            // 创建哲学家图形
-            Circle circle = new Circle(PHILOSOPHER_RADIUS);
+            Circle circle = philosopherCircles.get(i);
             circle.setCenterX(philosopherX);
             circle.setCenterY(philosopherY);
-            circle.setFill(Color.LIGHTBLUE); // 思考状态
-            circle.setStroke(Color.BLACK);
-            circle.setStrokeWidth(2);
 
-            Text label = new Text("P" + i);
+            Text label = philosopherLabels.get(i);
             label.setX(philosopherX - 6);
             label.setY(philosopherY + 5);
-            label.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
-
-            philosopherCircles.add(circle);
-            philosophersPane.getChildren().addAll(circle, label);
-
-            // 创建哲学家对象
-            Philosopher philosopher = new Philosopher(i, forks.get(i), forks.get((i + 1) % NUM_PHILOSOPHERS));
-            philosophers.add(philosopher);
-
-            // 创建哲学家线程
-            philosopherThreads.add(new PhilosopherThread(philosopher));
 
             // 筷子位置（在哲学家之间）
             double chopstickAngle = angle + Math.PI / NUM_PHILOSOPHERS;
@@ -140,20 +189,11 @@ public class DiningPhilosophersController implements Initializable {
             double chopstickY = centerY + tableRadius * 0.7 * Math.sin(chopstickAngle);
 
             // 计算筷子端点
-            double endX = chopstickX + CHOPSTICK_LENGTH * Math.cos(chopstickAngle);
-            double endY = chopstickY + CHOPSTICK_LENGTH * Math.sin(chopstickAngle);
-
-            Line chopstick = new Line();
+            Line chopstick = chopstickLines.get(i);
             chopstick.setStartX(chopstickX);
             chopstick.setStartY(chopstickY);
-            chopstick.setEndX(endX);
-            chopstick.setEndY(endY);
-            chopstick.setStrokeWidth(4);
-            chopstick.setStroke(Color.GOLD);
-            chopstick.setStrokeLineCap(javafx.scene.shape.StrokeLineCap.ROUND);
-
-            chopstickLines.add(chopstick);
-            chopsticksPane.getChildren().add(chopstick);
+            chopstick.setEndX(chopstickX + CHOPSTICK_LENGTH * Math.cos(chopstickAngle));
+            chopstick.setEndY(chopstickY + CHOPSTICK_LENGTH * Math.sin(chopstickAngle));
         }
     }
 
@@ -162,13 +202,13 @@ public class DiningPhilosophersController implements Initializable {
         // 监听容器大小变化
         philosophersPane.widthProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal.doubleValue() > 0) {
-                Platform.runLater(this::initializeTable);
+                layoutDebounce.playFromStart();
             }
         });
 
         philosophersPane.heightProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal.doubleValue() > 0) {
-                Platform.runLater(this::initializeTable);
+                layoutDebounce.playFromStart();
             }
         });
     }
@@ -184,9 +224,8 @@ public class DiningPhilosophersController implements Initializable {
             currentStrategyLabel.setText("当前策略: " + strategy);
 
             if (isRunning) {
-                // 如果正在运行，重新开始以应用新策略
-                resetSimulation();
-                startSimulation();
+                // 如果正在运行，重置完成后重新开始以应用新策略
+                resetModel(this::startSimulation);
             } else {
                 log("已选择策略: " + strategy);
             }
@@ -207,6 +246,15 @@ public class DiningPhilosophersController implements Initializable {
             runningStatusLabel.setText("运行中");
             statusLabel.setText("模拟运行中...");
 
+            // 暂停后继续：直接放行挂起的线程
+            if (pauseGate.isPaused() && executor != null) {
+                log("继续模拟");
+                pauseGate.resume();
+                startUITimer();
+                metricsPanel.start();
+                return;
+            }
+
             String strategy = strategyChoice.getValue();
             log("开始模拟 - 策略: " + strategy);
 
@@ -214,15 +262,15 @@ public class DiningPhilosophersController implements Initializable {
             executor = Executors.newFixedThreadPool(NUM_PHILOSOPHERS);
 
             // 启动所有哲学家线程
-            Strategy currentStrategy = getCurrentStrategy();
+            table.setStrategy(getCurrentStrategy());
             for (PhilosopherThread thread : philosopherThreads) {
-                thread.setStrategy(currentStrategy);
                 thread.reset();
                 executor.execute(thread);
             }
 
             // 启动UI更新定时器
             startUITimer();
+            metricsPanel.start();
         }
     }
 
@@ -238,19 +286,40 @@ public class DiningPhilosophersController implements Initializable {
             log("模拟暂停");
 
             // 暂停所有哲学家线程
-            for (PhilosopherThread thread : philosopherThreads) {
-                thread.pause();
-            }
+            pauseGate.pause();
 
             // 停止UI更新
             if (uiScheduler != null) {
                 uiScheduler.shutdownNow();
             }
+            metricsPanel.stop();
         }
     }
 
-    @FXML
-    private void resetSimulation() {
+    @Override
+    public void start() {
+        startSimulation();
+    }
+
+    @Override
+    public void pause() {
+        pauseSimulation();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public void dispose() {
+        stop();
+        // 虚拟时钟的协调线程不随工作线程退出
+        clock.shutdown();
+    }
+
+    @Override
+    public void stop() {
         // 停止UI更新
         if (uiScheduler != null) {
             uiScheduler.shutdownNow();
@@ -262,31 +331,87 @@ public class DiningPhilosophersController implements Initializable {
             executor.shutdownNow();
             executor = null;
         }
+        pauseGate.resume();
+        metricsPanel.stop();
 
-        // 重置状态
         isRunning = false;
         startBtn.setDisable(false);
         pauseBtn.setDisable(true);
         resetBtn.setDisable(false);
         runningStatusLabel.setText("已停止");
-        statusLabel.setText("等待开始模拟...");
-        deadlockWarningLabel.setText("");
-        totalEatCount = 0;
-        eatCountLabel.setText("0");
-
-        // 重置所有哲学家
-        philosophers.forEach(Philosopher::reset);
-        forks.forEach(Fork::reset);
-
-        // 重置哲学家线程
-        for (PhilosopherThread thread : philosopherThreads) {
-            thread.reset();
-        }
+    }
 
-        // 重置显示
-        updateDisplay();
+    @FXML
+    private void resetSimulation() {
+        resetModel(null);
+    }
+
+    /**
+     * 停止线程后在后台构建新模型，完成后在FX线程一次性替换并刷新显示，再执行afterReset（可为null）。
+     */
+    private void resetModel(Runnable afterReset) {
+        stop();
+        int generation = ++resetGeneration;
+        startBtn.setDisable(true);
+        resetBtn.setDisable(true);
+        statusLabel.setText("正在重置...");
+
+        CompletableFuture.supplyAsync(this::buildModel).whenComplete((model, error) -> Platform.runLater(() -> {
+            // 重置期间又触发了重置，丢弃这次的结果
+            if (generation != resetGeneration) {
+                return;
+            }
+            startBtn.setDisable(false);
+            resetBtn.setDisable(false);
+            if (error != null) {
+                statusLabel.setText("重置失败");
+                log("重置失败: " + error.getMessage());
+                return;
+            }
+            installModel(model);
+
+            // 重置状态
+            statusLabel.setText("等待开始模拟...");
+            deadlockWarningLabel.setText("");
+            totalEatCount = 0;
+            eatCountLabel.setText("0");
+            metricsPanel.clear();
+            updateDisplay();
+            log("模拟已重置");
+
+            if (afterReset != null) {
+                afterReset.run();
+            }
+        }));
+    }
 
-        log("模拟已重置");
+    @FXML
+    private void runModelCheck() {
+        DiningTable.Strategy strategy = getCurrentStrategy();
+        modelCheckBtn.setDisable(true);
+        log("开始穷举验证: " + strategy.getLabel());
+
+        // 状态空间很小，但仍放在后台线程，避免卡住界面
+        Thread checker = new Thread(() -> {
+            ModelChecker.Report report = new ModelChecker(true)
+                    .check(ModelChecker.philosophers(NUM_PHILOSOPHERS, strategy, false));
+            log(report.summary());
+            if (report.isClean()) {
+                log("未发现死锁、饥饿或互斥问题");
+            }
+            for (ModelChecker.Finding finding : report.getFindings()) {
+                log("[" + finding.getKind() + "] " + finding.getMessage());
+            }
+            // 只展开第一条反例，完整结果可用命令行 ModelChecker 查看
+            if (!report.isClean()) {
+                for (String step : report.getFindings().get(0).getTrace()) {
+                    log("    " + step);
+                }
+            }
+            Platform.runLater(() -> modelCheckBtn.setDisable(false));
+        }, "model-checker");
+        checker.setDaemon(true);
+        checker.start();
     }
 
     @FXML
@@ -295,16 +420,8 @@ public class DiningPhilosophersController implements Initializable {
         log("日志已清空");
     }
 
-    private Strategy getCurrentStrategy() {
-        String strategy = strategyChoice.getValue();
-        switch (strategy) {
-            case "限制进餐人数":
-                return Strategy.LIMIT_DINERS;
-            case "确保左右筷子可用":
-                return Strategy.ENSURE_BOTH_CHOPSTICKS;
-            default:
-                return Strategy.NO_STRATEGY;
-        }
+    private DiningTable.Strategy getCurrentStrategy() {
+        return DiningTable.Strategy.fromLabel(strategyChoice.getValue());
     }
 
     private void startUITimer() {
@@ -340,19 +457,16 @@ public class DiningPhilosophersController implements Initializable {
             }
 
             // 更新筷子颜色
-            Fork leftFork = forks.get(i);
-            Fork rightFork = forks.get((i + 1) % NUM_PHILOSOPHERS);
-
             Line leftChopstick = chopstickLines.get(i);
             Line rightChopstick = chopstickLines.get((i + 1) % NUM_PHILOSOPHERS);
 
-            if (leftFork.isTaken()) {
+            if (table.leftFork(i).isTaken()) {
                 leftChopstick.setStroke(Color.RED);
             } else {
                 leftChopstick.setStroke(Color.GOLD);
             }
 
-            if (rightFork.isTaken()) {
+            if (table.rightFork(i).isTaken()) {
                 rightChopstick.setStroke(Color.RED);
             } else {
                 rightChopstick.setStroke(Color.GOLD);
@@ -364,11 +478,23 @@ public class DiningPhilosophersController implements Initializable {
         eatCountLabel.setText(String.valueOf(totalEatCount));
     }
 
+    private int countState(Philosopher.State state) {
+        if (philosophers == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Philosopher philosopher : philosophers) {
+            if (philosopher.getState() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     private void checkDeadlock() {
         boolean allHungry = philosophers.stream()
                 .allMatch(p -> p.getState() == Philosopher.State.HUNGRY);
-        boolean allForksTaken = forks.stream()
-                .allMatch(Fork::isTaken);
+        boolean allForksTaken = table.allForksTaken();
 
         if (allHungry && allForksTaken) {
             deadlockWarningLabel.setText("⚠️ 检测到死锁！所有哲学家都饥饿且叉子被占用");
@@ -386,13 +512,6 @@ public class DiningPhilosophersController implements Initializable {
             logArea.setScrollTop(Double.MAX_VALUE);
         });
     }
-    // 策略枚举
-    enum Strategy {
-        NO_STRATEGY,
-        LIMIT_DINERS,
-        ENSURE_BOTH_CHOPSTICKS
-    }
-
     // 哲学家类
     class Philosopher {
         enum State {
@@ -402,32 +521,36 @@ public class DiningPhilosophersController implements Initializable {
         }
 
         private final int id;
+        // 只使用创建时的餐桌，重置后残留的旧线程不会碰到新模型
+        private final DiningTable table;
         private volatile State state = State.THINKING;
-        private final Fork leftFork;
-        private final Fork rightFork;
         private int eatCount = 0;
+        // 本轮开始饥饿的时刻，拿不到筷子回去思考时保留，吃上饭后清除（-1）
+        private long hungrySince = -1;
 
-        public Philosopher(int id, Fork leftFork, Fork rightFork) {
+        public Philosopher(int id, DiningTable table) {
             this.id = id;
-            this.leftFork = leftFork;
-            this.rightFork = rightFork;
+            this.table = table;
         }
 
         public void think() throws InterruptedException {
             state = State.THINKING;
             log("哲学家 P" + id + " 开始思考");
-            Thread.sleep(1000 + (int)(Math.random() * 2000));
+            clock.sleep(clock.randomMillis(1000, 2000));
         }
 
         public void eat() throws InterruptedException {
             state = State.EATING;
             eatCount++;
+            metrics.recordOp(clock.nanoTime() - hungrySince);
+            hungrySince = -1;
             log("哲学家 P" + id + " 开始就餐 (第" + eatCount + "次)");
-            Thread.sleep(800 + (int)(Math.random() * 1500));
-
-            // 放下筷子
-            leftFork.release();
-            rightFork.release();
+            try {
+                clock.sleep(clock.randomMillis(800, 1500));
+            } finally {
+                // 放下筷子；就餐中被中断（停止或重置）也要放下，否则邻座会一直等
+                table.putDown(id);
+            }
 
             log("哲学家 P" + id + " 吃完放下筷子");
         }
@@ -439,74 +562,48 @@ public class DiningPhilosophersController implements Initializable {
         public int getEatCount() {
             return eatCount;
         }
-
-        public Fork getLeftFork() {
-            return leftFork;
-        }
-
-        public Fork getRightFork() {
-            return rightFork;
-        }
-
-        public void reset() {
-            state = State.THINKING;
-            eatCount = 0;
-            leftFork.release();
-            rightFork.release();
-        }
     }
 
     // 哲学家线程类
     class PhilosopherThread implements Runnable {
         private final Philosopher philosopher;
-        private Strategy strategy;
         private volatile boolean running = true;
-        private volatile boolean paused = false;
-
-        // 用于限制进餐人数的信号量（最多允许4个哲学家同时尝试就餐）
-        private static final Semaphore dinerSemaphore = new Semaphore(NUM_PHILOSOPHERS - 1);
 
         public PhilosopherThread(Philosopher philosopher) {
             this.philosopher = philosopher;
         }
 
-        public void setStrategy(Strategy strategy) {
-            this.strategy = strategy;
-        }
-
-        public void pause() {
-            paused = true;
-        }
-
         public void reset() {
             running = true;
-            paused = false;
         }
 
         @Override
         public void run() {
+            // 线程名出现在JFR事件和锁竞争面板中
+            Thread.currentThread().setName("哲学家P" + philosopher.id);
+            clock.register(Thread.currentThread());
             while (running && !Thread.currentThread().isInterrupted()) {
                 try {
-                    if (paused) {
-                        Thread.sleep(100);
-                        continue;
-                    }
+                    pauseGate.awaitIfPaused();
 
                     // 思考
                     philosopher.think();
 
                     // 饥饿
                     philosopher.state = Philosopher.State.HUNGRY;
+                    if (philosopher.hungrySince < 0) {
+                        philosopher.hungrySince = clock.nanoTime();
+                    }
                     log("哲学家 P" + philosopher.id + " 饿了，尝试拿筷子");
 
                     // 尝试就餐（根据策略）
-                    boolean canEat = tryToEat();
+                    boolean canEat = philosopher.table.tryPickUp(philosopher.id);
 
                     if (canEat) {
                         philosopher.eat();
                     } else {
                         // 拿不到筷子，等待一段时间
-                        Thread.sleep(300 + (int)(Math.random() * 500));
+                        clock.sleep(clock.randomMillis(300, 500));
                     }
 
                 } catch (InterruptedException e) {
@@ -514,94 +611,7 @@ public class DiningPhilosophersController implements Initializable {
                     break;
                 }
             }
-        }
-
-        private boolean tryToEat() throws InterruptedException {
-            switch (strategy) {
-                case NO_STRATEGY:
-                    return tryEatNoStrategy();
-                case LIMIT_DINERS:
-                    return tryEatLimitDiners();
-                case ENSURE_BOTH_CHOPSTICKS:
-                    return tryEatEnsureBothChopsticks();
-                default:
-                    return tryEatNoStrategy();
-            }
-        }
-
-        private boolean tryEatNoStrategy() {
-            // 无策略：直接尝试拿筷子
-            if (philosopher.getLeftFork().tryTake() && philosopher.getRightFork().tryTake()) {
-                return true;
-            }
-            // 拿不到就释放
-            philosopher.getLeftFork().release();
-            philosopher.getRightFork().release();
-            return false;
-        }
-
-        private boolean tryEatLimitDiners() throws InterruptedException {
-            // 限制进餐人数：最多允许4个哲学家同时尝试就餐
-            if (dinerSemaphore.tryAcquire()) {
-                try {
-                    if (philosopher.getLeftFork().tryTake() && philosopher.getRightFork().tryTake()) {
-                        return true;
-                    }
-                    philosopher.getLeftFork().release();
-                    philosopher.getRightFork().release();
-                } finally {
-                    dinerSemaphore.release();
-                }
-            }
-            return false;
-        }
-
-        private boolean tryEatEnsureBothChopsticks() {
-            // 确保左右筷子可用：原子性地获取两个筷子
-            synchronized (philosopher.getLeftFork()) {
-                synchronized (philosopher.getRightFork()) {
-                    if (!philosopher.getLeftFork().isTaken() && !philosopher.getRightFork().isTaken()) {
-                        philosopher.getLeftFork().take();
-                        philosopher.getRightFork().take();
-                        return true;
-                    }
-                }
-            }
-            return false;
-        }
-    }
-
-    // 叉子类
-    class Fork {
-        private final int id;
-        private volatile boolean taken = false;
-
-        public Fork(int id) {
-            this.id = id;
-        }
-
-        public synchronized boolean tryTake() {
-            if (!taken) {
-                taken = true;
-                return true;
-            }
-            return false;
-        }
-
-        public synchronized void take() {
-            taken = true;
-        }
-
-        public synchronized void release() {
-            taken = false;
-        }
-
-        public boolean isTaken() {
-            return taken;
-        }
-
-        public void reset() {
-            taken = false;
+            clock.unregister(Thread.currentThread());
         }
     }
-}
\ No newline at end of file
+}
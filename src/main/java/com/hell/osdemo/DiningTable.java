@@ -0,0 +1,287 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 哲学家就餐问题的同步部分：餐桌上的筷子和取筷策略。
+ * 不依赖JavaFX，演示界面、基准测试和命令行运行共用同一套实现。
+ */
+public class DiningTable {
+
+    // 策略枚举，label与界面下拉框中的选项一致
+    public enum Strategy {
+        NO_STRATEGY("无策略"),
+        LIMIT_DINERS("限制进餐人数"),
+        ENSURE_BOTH_CHOPSTICKS("确保左右筷子可用");
+
+        private final String label;
+
+        Strategy(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public static Strategy fromLabel(String label) {
+            for (Strategy strategy : values()) {
+                if (strategy.label.equals(label)) {
+                    return strategy;
+                }
+            }
+            return NO_STRATEGY;
+        }
+    }
+
+    private final Fork[] forks;
+    // 限制进餐人数：最多允许 size-1 个哲学家同时就餐
+    private final Semaphore dinerSemaphore;
+    // 记录每个哲学家是否持有就餐许可，放下筷子时归还
+    private final boolean[] seated;
+    // 锁顺序检查中代表就餐许可的节点
+    private final LockOrderChecker.Lock seats = LockOrderChecker.lock("就餐许可");
+    private volatile Strategy strategy = Strategy.NO_STRATEGY;
+    private final InvariantChecker invariants = new InvariantChecker("餐桌");
+
+    public DiningTable(int size) {
+        forks = new Fork[size];
+        for (int i = 0; i < size; i++) {
+            forks[i] = new Fork(i, invariants);
+        }
+        dinerSemaphore = new Semaphore(size - 1);
+        seated = new boolean[size];
+    }
+
+    public int size() {
+        return forks.length;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public InvariantChecker getInvariants() {
+        return invariants;
+    }
+
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public Fork leftFork(int philosopher) {
+        return forks[philosopher];
+    }
+
+    public Fork rightFork(int philosopher) {
+        return forks[(philosopher + 1) % forks.length];
+    }
+
+    public boolean isForkTaken(int fork) {
+        return forks[fork].isTaken();
+    }
+
+    public boolean allForksTaken() {
+        for (Fork fork : forks) {
+            if (!fork.isTaken()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按当前策略尝试拿起左右两根筷子，成功返回true。
+     */
+    public boolean tryPickUp(int philosopher) {
+        switch (strategy) {
+            case LIMIT_DINERS:
+                return tryPickUpLimitDiners(philosopher);
+            case ENSURE_BOTH_CHOPSTICKS:
+                return tryPickUpBoth(philosopher);
+            case NO_STRATEGY:
+            default:
+                return tryPickUpInOrder(philosopher);
+        }
+    }
+
+    /**
+     * 放下左右筷子，并归还限制进餐人数时占用的许可。
+     */
+    public void putDown(int philosopher) {
+        leftFork(philosopher).release(philosopher);
+        rightFork(philosopher).release(philosopher);
+        if (seated[philosopher]) {
+            seated[philosopher] = false;
+            dinerSemaphore.release();
+            LockOrderChecker.release(seats);
+        }
+    }
+
+    public void reset() {
+        for (Fork fork : forks) {
+            fork.reset();
+        }
+        for (int i = 0; i < seated.length; i++) {
+            if (seated[i]) {
+                seated[i] = false;
+                dinerSemaphore.release();
+            }
+        }
+    }
+
+    private boolean tryPickUpInOrder(int philosopher) {
+        // 无策略：先拿左边再拿右边，拿不到右边就放下自己拿到的左边
+        Fork left = leftFork(philosopher);
+        if (!left.tryTake(philosopher)) {
+            return false;
+        }
+        if (rightFork(philosopher).tryTake(philosopher)) {
+            return true;
+        }
+        left.release(philosopher);
+        return false;
+    }
+
+    private boolean tryPickUpLimitDiners(int philosopher) {
+        // 限制进餐人数：许可一直持有到放下筷子
+        if (!dinerSemaphore.tryAcquire()) {
+            return false;
+        }
+        LockOrderChecker.acquired(seats);
+        if (tryPickUpInOrder(philosopher)) {
+            seated[philosopher] = true;
+            return true;
+        }
+        dinerSemaphore.release();
+        LockOrderChecker.release(seats);
+        return false;
+    }
+
+    private boolean tryPickUpBoth(int philosopher) {
+        // 确保左右筷子可用：原子性地获取两个筷子
+        Fork left = leftFork(philosopher);
+        Fork right = rightFork(philosopher);
+        ContentionProbe.AcquireEvent leftEvent = left.probe.begin();
+        ContentionProbe.AcquireEvent rightEvent = right.probe.begin();
+        boolean leftTaken;
+        boolean rightTaken;
+        // 先锁左筷子再锁右筷子。最后一位哲学家的右筷子是0号，加锁顺序成环，
+        // 满负荷时五个监视器可能互相等待而死锁；锁顺序检查在第一次出现反序时就会报告这个环
+        LockOrderChecker.acquire(left.order);
+        synchronized (left) {
+            LockOrderChecker.acquire(right.order);
+            synchronized (right) {
+                leftTaken = left.isTaken();
+                rightTaken = right.isTaken();
+                if (!leftTaken && !rightTaken) {
+                    left.owner = philosopher;
+                    right.owner = philosopher;
+                }
+            }
+            LockOrderChecker.release(right.order);
+        }
+        LockOrderChecker.release(left.order);
+        boolean acquired = !leftTaken && !rightTaken;
+        if (acquired) {
+            left.held();
+            right.held();
+            LockOrderChecker.acquired(left.order);
+            LockOrderChecker.acquired(right.order);
+        }
+        // 失败时只记录真正被占用的那根筷子
+        if (acquired || leftTaken) {
+            left.probe.end(leftEvent, acquired);
+        }
+        if (acquired || rightTaken) {
+            right.probe.end(rightEvent, acquired);
+        }
+        return acquired;
+    }
+
+    // 筷子类，记录当前持有者
+    public static class Fork {
+        private final int id;
+        private volatile int owner = -1;
+        private final ContentionProbe probe;
+        // 锁顺序检查的节点，监视器和持有筷子共用
+        private final LockOrderChecker.Lock order;
+        // 不变式检查：同时认为自己持有这根筷子的哲学家数
+        private final AtomicInteger holders = new AtomicInteger();
+        private final InvariantChecker invariants;
+
+        public Fork(int id) {
+            this(id, new InvariantChecker("筷子" + id));
+        }
+
+        Fork(int id, InvariantChecker invariants) {
+            this.id = id;
+            this.probe = new ContentionProbe("筷子" + id);
+            this.order = LockOrderChecker.lock("筷子" + id);
+            this.invariants = invariants;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public boolean tryTake(int philosopher) {
+            ContentionProbe.AcquireEvent event = probe.begin();
+            boolean taken;
+            synchronized (this) {
+                taken = owner < 0;
+                if (taken) {
+                    owner = philosopher;
+                }
+            }
+            probe.end(event, taken);
+            if (taken) {
+                held();
+                // 拿不到就返回，不会阻塞，只入栈不记边
+                LockOrderChecker.acquired(order);
+            }
+            return taken;
+        }
+
+        private void held() {
+            if (InvariantChecker.ENABLED && !invariants.check(holders.incrementAndGet() == 1)) {
+                invariants.fail("筷子" + id + "被两位哲学家同时持有");
+            }
+        }
+
+        /**
+         * 只有持有者才能放下筷子，避免误放邻座手中的筷子。
+         */
+        public void release(int philosopher) {
+            boolean released = false;
+            synchronized (this) {
+                if (owner == philosopher) {
+                    // 先减影子计数再让出筷子，下一位持有者不会误报
+                    if (InvariantChecker.ENABLED) {
+                        holders.decrementAndGet();
+                    }
+                    owner = -1;
+                    released = true;
+                }
+            }
+            if (released) {
+                probe.released();
+                LockOrderChecker.release(order);
+            }
+        }
+
+        public boolean isTaken() {
+            return owner >= 0;
+        }
+
+        public int getOwner() {
+            return owner;
+        }
+
+        public synchronized void reset() {
+            owner = -1;
+            holders.set(0);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.hell.osdemo;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 在最少和最多消费者之间伸缩的消费者池。由外部定期调用 sample() 采样缓冲区占用，
+ * 结合两次采样之间消费者记录的平均端到端延迟决定扩容还是缩容：
+ * 占用达到高水位或延迟超过目标算有压力，占用低于低水位且延迟低于目标一半算空闲，
+ * 连续若干次采样都满足才动作，动作后再冷却若干次采样，避免在两个规模之间来回抖动（滞回）。
+ * 缩容只给一个消费者打上退出标记，它处理完手上的物品后退出，不会丢失物品。
+ */
+public class ElasticConsumerPool {
+
+    /** 消费者处理一个物品；应限时等待物品，超时返回，以便及时发现退出标记 */
+    public interface Worker {
+        void runOnce(int slot) throws InterruptedException;
+    }
+
+    /** 为第slot个消费者创建（不启动）线程 */
+    public interface WorkerThreads {
+        Thread newThread(int slot, Runnable body);
+    }
+
+    /** 伸缩参数 */
+    public static class Policy {
+        final int min;
+        final int max;
+        // 占用比例的高低水位
+        double highWater = 0.8;
+        double lowWater = 0.2;
+        final long targetLatencyNanos;
+        // 连续多少次采样满足条件才扩容/缩容，动作后冷却多少次采样
+        int upSamples = 2;
+        int downSamples = 4;
+        int cooldownSamples = 2;
+
+        public Policy(int min, int max, long targetLatencyNanos) {
+            if (min < 1 || max < min) {
+                throw new IllegalArgumentException("需要 1 <= min <= max");
+            }
+            this.min = min;
+            this.max = max;
+            this.targetLatencyNanos = targetLatencyNanos;
+        }
+
+        public int getMin() {
+            return min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+    }
+
+    /** 一次伸缩 */
+    public static class ScaleEvent {
+        private final int from;
+        private final int to;
+        private final double occupancy;
+        private final long latencyNanos;
+
+        ScaleEvent(int from, int to, double occupancy, long latencyNanos) {
+            this.from = from;
+            this.to = to;
+            this.occupancy = occupancy;
+            this.latencyNanos = latencyNanos;
+        }
+
+        public boolean isScaleUp() {
+            return to > from;
+        }
+
+        public int getTo() {
+            return to;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %d→%d（占用 %.0f%%，平均延迟 %.1f ms）",
+                    isScaleUp() ? "扩容" : "缩容", from, to, occupancy * 100, latencyNanos / 1_000_000.0);
+        }
+    }
+
+    private final Policy policy;
+    private final Worker worker;
+    private final WorkerThreads threads;
+    private final Consumer<ScaleEvent> listener;
+
+    // 以下由本对象的锁保护；每个槽位同一时刻最多一个线程，退出的线程释放槽位后才能复用
+    private final Thread[] slots;
+    private final boolean[] retiring;
+    private int workers = 0;
+    private int peakWorkers = 0;
+    private int upStreak = 0;
+    private int downStreak = 0;
+    private int cooldown = 0;
+    private int scaleUps = 0;
+    private int scaleDowns = 0;
+    private boolean shutdown = false;
+
+    // 两次采样之间的延迟，由消费者写入
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAdder latencyCount = new LongAdder();
+
+    public ElasticConsumerPool(Policy policy, Worker worker, WorkerThreads threads, Consumer<ScaleEvent> listener) {
+        this.policy = policy;
+        this.worker = worker;
+        this.threads = threads;
+        this.listener = listener;
+        this.slots = new Thread[policy.max];
+        this.retiring = new boolean[policy.max];
+    }
+
+    /** 启动最少数量的消费者 */
+    public synchronized void start() {
+        while (workers < policy.min && addWorker()) {
+            // 逐个启动
+        }
+    }
+
+    public void recordLatency(long nanos) {
+        latencySum.add(nanos);
+        latencyCount.increment();
+    }
+
+    /**
+     * 采样一次并按需伸缩，返回本次的伸缩事件，没有则为null；事件同时交给监听器。
+     */
+    public ScaleEvent sample(int occupied, int capacity) {
+        ScaleEvent event;
+        synchronized (this) {
+            if (shutdown) {
+                return null;
+            }
+            double occupancy = capacity <= 0 ? 0 : Math.min(1.0, (double) occupied / capacity);
+            long count = latencyCount.sumThenReset();
+            long latency = count == 0 ? 0 : latencySum.sumThenReset() / count;
+
+            boolean pressure = occupancy >= policy.highWater || latency >= policy.targetLatencyNanos;
+            boolean idle = occupancy <= policy.lowWater && latency < policy.targetLatencyNanos / 2;
+            upStreak = pressure ? upStreak + 1 : 0;
+            downStreak = idle ? downStreak + 1 : 0;
+            if (cooldown > 0) {
+                cooldown--;
+                return null;
+            }
+
+            int from = workers;
+            if (upStreak >= policy.upSamples && workers < policy.max) {
+                if (!addWorker()) {
+                    // 槽位都被占着（刚缩容的消费者还在处理手上的物品），保留upStreak，下次采样再扩容
+                    return null;
+                }
+                scaleUps++;
+            } else if (downStreak >= policy.downSamples && workers > policy.min) {
+                retireWorker();
+                scaleDowns++;
+            } else {
+                return null;
+            }
+            upStreak = 0;
+            downStreak = 0;
+            cooldown = policy.cooldownSamples;
+            event = new ScaleEvent(from, workers, occupancy, latency);
+        }
+        listener.accept(event);
+        return event;
+    }
+
+    // 在空闲槽位上启动一个消费者，没有空闲槽位返回false；调用方持有锁
+    private boolean addWorker() {
+        int slot = 0;
+        while (slot < slots.length && slots[slot] != null) {
+            slot++;
+        }
+        if (slot == slots.length) {
+            return false;
+        }
+        final int id = slot;
+        Thread thread = threads.newThread(id, () -> runWorker(id));
+        slots[id] = thread;
+        retiring[id] = false;
+        workers++;
+        peakWorkers = Math.max(peakWorkers, workers);
+        thread.start();
+        return true;
+    }
+
+    // 退出编号最大的消费者，调用方持有锁
+    private void retireWorker() {
+        for (int slot = slots.length - 1; slot >= 0; slot--) {
+            if (slots[slot] != null && !retiring[slot]) {
+                retiring[slot] = true;
+                workers--;
+                return;
+            }
+        }
+    }
+
+    private void runWorker(int slot) {
+        try {
+            while (!shouldExit(slot)) {
+                worker.runOnce(slot);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                if (!retiring[slot] && !shutdown) {
+                    // 意外退出（异常），按缩容处理以免计数偏大
+                    workers--;
+                }
+                slots[slot] = null;
+                retiring[slot] = false;
+            }
+        }
+    }
+
+    private synchronized boolean shouldExit(int slot) {
+        return shutdown || retiring[slot];
+    }
+
+    /** 停止所有消费者：打上退出标记并中断，不等待它们退出 */
+    public void shutdown() {
+        Thread[] running;
+        synchronized (this) {
+            shutdown = true;
+            running = slots.clone();
+        }
+        for (Thread thread : running) {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /** 等待shutdown()之后所有消费者退出 */
+    public void awaitTermination() throws InterruptedException {
+        for (Thread thread : threads()) {
+            if (thread != null) {
+                thread.join();
+            }
+        }
+    }
+
+    /** 当前的消费者线程（含已打上退出标记、尚未退出的） */
+    public synchronized Thread[] threads() {
+        return slots.clone();
+    }
+
+    /** 不含正在退出的消费者数 */
+    public synchronized int getWorkers() {
+        return workers;
+    }
+
+    public synchronized int getPeakWorkers() {
+        return peakWorkers;
+    }
+
+    public synchronized int getScaleUps() {
+        return scaleUps;
+    }
+
+    public synchronized int getScaleDowns() {
+        return scaleDowns;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+}
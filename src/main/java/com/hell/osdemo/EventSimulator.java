@@ -0,0 +1,585 @@
+package com.hell.osdemo;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * 单线程离散事件模拟：把哲学家、读者/写者、生产者/消费者建模为状态机，
+ * 由按时间排序的事件队列驱动。不创建任何工作线程，同样的参数和种子总是得到同样的结果。
+ * 各问题按真实实现的协议逐步建模，而不是把加锁当成一个原子操作:
+ * <ul>
+ * <li>哲学家：先拿左筷子，经过 {@link #STEP_NANOS} 再拿右筷子。NO_STRATEGY和LIMIT_DINERS
+ * 拿不到右筷子时与DiningTable一样放下左筷子（LIMIT_DINERS同时归还座位）；
+ * {@code --hold-and-wait=true} 时改为拿着左筷子阻塞等待，NO_STRATEGY会因此形成死锁，
+ * 并通过 deadlocked/deadlockAtMs 计数器报告；由于拿两根筷子之间的窗口很短，人数越多越难碰上。
+ * ENSURE_BOTH_CHOPSTICKS同时锁定两根筷子。</li>
+ * <li>读者/写者：与ReadWriteResource相同，由读者信号量、写者信号量和读写锁组成，
+ * 非公平锁允许插队，公平策略的读者和写者都在公平锁上按到达顺序排队；读者许可数由 {@code --reader-permits} 指定。</li>
+ * <li>生产者/消费者：有界缓冲区，阻塞的一方被唤醒前经过 {@link #WAKEUP_NANOS}，
+ * 延迟从生产者准备好数据（开始阻塞之前）算起。</li>
+ * </ul>
+ * 简化之处：锁和信号量的操作本身不耗时，线程调度只用固定的唤醒延迟表示，不模拟CPU核数。
+ * 例如下面的命令在单核上实测约需5秒墙钟时间（约1400万个事件）:
+ * <pre>
+ * java -cp OSdemo.jar com.hell.osdemo.BatchRunner --engine=events --problem=philosophers \
+ *     --strategy=LIMIT_DINERS --actors=100000 --duration=1s --think=10ms --work=10ms
+ * </pre>
+ * 思考和工作时长在设定值的0.5~1.5倍之间均匀随机，避免所有参与者步调一致。
+ */
+public class EventSimulator {
+
+    // 拿到左筷子后伸手去拿右筷子所需的时间
+    static final long STEP_NANOS = 1_000;
+    // 阻塞的线程被唤醒、重新获得CPU所需的时间
+    static final long WAKEUP_NANOS = 10_000;
+
+    // 事件对象从对象池取用，处理完归还，长时间运行不产生垃圾
+    private static final class Event {
+        long time;
+        long seq;
+        int actor;
+        int type;
+    }
+
+    // 按int保存参与者编号的环形队列，用于等待队列
+    private static final class IntQueue {
+        private int[] items = new int[16];
+        private int head = 0;
+        private int size = 0;
+
+        void add(int value) {
+            if (size == items.length) {
+                int[] grown = new int[items.length * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = items[(head + i) % items.length];
+                }
+                items = grown;
+                head = 0;
+            }
+            items[(head + size) % items.length] = value;
+            size++;
+        }
+
+        int peek() {
+            return items[head];
+        }
+
+        int poll() {
+            int value = items[head];
+            head = (head + 1) % items.length;
+            size--;
+            return value;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    interface EventHandler {
+        void handle(int actor, int type);
+    }
+
+    private final BatchConfig config;
+    private final SplittableRandom random;
+
+    private final PriorityQueue<Event> queue = new PriorityQueue<>((a, b) -> a.time != b.time
+            ? Long.compare(a.time, b.time) : Long.compare(a.seq, b.seq));
+    private final ArrayDeque<Event> pool = new ArrayDeque<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long now = 0;
+    private long seq = 0;
+    private long events = 0;
+
+    public EventSimulator(BatchConfig config) {
+        this.config = config;
+        this.random = new SplittableRandom(config.seed);
+    }
+
+    public BatchResult run() {
+        long wallStart = System.nanoTime();
+        BatchResult result;
+        switch (config.problem) {
+            case READERS_WRITERS:
+                result = runReadersWriters();
+                break;
+            case PRODUCER_CONSUMER:
+                result = runProducerConsumer();
+                break;
+            case PHILOSOPHERS:
+            default:
+                result = runPhilosophers();
+                break;
+        }
+        result.addCounter("events", events);
+        result.addCounter("wallMs", (System.nanoTime() - wallStart) / 1_000_000);
+        return result;
+    }
+
+    // ---------------------------------------------------------------- 哲学家
+
+    private static final int THINKING = 0;
+    private static final int HUNGRY = 1;
+    // 拿着左筷子，正要拿右筷子
+    private static final int REACHING = 2;
+    // 拿着左筷子阻塞等待右筷子（持有并等待）
+    private static final int HOLDING = 3;
+    private static final int EATING = 4;
+
+    private static final int PHILOSOPHER_HUNGRY = 0;
+    private static final int PHILOSOPHER_RIGHT = 1;
+    private static final int PHILOSOPHER_EAT = 2;
+    private static final int PHILOSOPHER_DONE = 3;
+
+    private BatchResult runPhilosophers() {
+        int n = config.actors;
+        DiningTable.Strategy strategy = config.diningStrategy();
+        boolean holdAndWait = config.holdAndWait;
+        byte[] state = new byte[n];
+        // 筷子的持有者，-1为空闲
+        int[] owner = new int[n];
+        Arrays.fill(owner, -1);
+        long[] hungryAt = new long[n];
+        long[] meals = new long[n];
+        // LIMIT_DINERS：最多 n-1 个座位，座位满时按到达顺序排队
+        boolean[] seated = new boolean[n];
+        IntQueue seatQueue = new IntQueue();
+        boolean[] queued = new boolean[n];
+        // [0]空座位数，[1]持有并等待的人数，[2]拿不到右筷子而放下左筷子的次数
+        long[] counts = {n - 1, 0, 0};
+        long[] deadlockAt = {-1};
+
+        EventHandler startEating = (p, type) -> {
+            state[p] = EATING;
+            latency.record(now - hungryAt[p]);
+            schedule(hold(config.workMillis), p, PHILOSOPHER_DONE);
+        };
+
+        // 饥饿的哲学家按策略尝试拿筷子；失败后等相邻筷子或座位被释放时再试
+        EventHandler[] attempt = new EventHandler[1];
+        EventHandler releaseSeat = (p, type) -> {
+            seated[p] = false;
+            counts[0]++;
+            while (counts[0] > 0 && !seatQueue.isEmpty()) {
+                int waiting = seatQueue.poll();
+                queued[waiting] = false;
+                attempt[0].handle(waiting, type);
+            }
+        };
+        // 放下筷子f（借用两个int参数的处理函数，第二个参数是放下它的哲学家），
+        // 唤醒另一位用这根筷子的邻居；放下的人自己不唤醒，否则会原地反复拿放
+        EventHandler releaseFork = (f, by) -> {
+            owner[f] = -1;
+            int[] users = {f, (f + n - 1) % n};
+            for (int q : users) {
+                if (q == by) {
+                    continue;
+                }
+                if (state[q] == HUNGRY) {
+                    attempt[0].handle(q, PHILOSOPHER_HUNGRY);
+                } else if (state[q] == HOLDING && (q + 1) % n == f && owner[f] < 0) {
+                    // 阻塞等右筷子的哲学家直接拿到它，被唤醒后开始就餐
+                    owner[f] = q;
+                    state[q] = REACHING;
+                    counts[1]--;
+                    schedule(WAKEUP_NANOS, q, PHILOSOPHER_EAT);
+                }
+            }
+        };
+        attempt[0] = (p, type) -> {
+            if (state[p] != HUNGRY) {
+                return;
+            }
+            int left = p;
+            int right = (p + 1) % n;
+            if (strategy == DiningTable.Strategy.ENSURE_BOTH_CHOPSTICKS) {
+                // 同时锁定两根筷子，都空闲才拿
+                if (owner[left] < 0 && owner[right] < 0) {
+                    owner[left] = p;
+                    owner[right] = p;
+                    startEating.handle(p, type);
+                }
+                return;
+            }
+            if (strategy == DiningTable.Strategy.LIMIT_DINERS && !seated[p]) {
+                if (counts[0] == 0) {
+                    if (!queued[p]) {
+                        queued[p] = true;
+                        seatQueue.add(p);
+                    }
+                    return;
+                }
+                // tryPickUpLimitDiners拿到座位后左筷子被占会立即归还座位，单线程下等于没拿；
+                // 持有并等待时则占着座位等左筷子
+                if (owner[left] >= 0 && !holdAndWait) {
+                    return;
+                }
+                counts[0]--;
+                seated[p] = true;
+            }
+            if (owner[left] >= 0) {
+                return;
+            }
+            owner[left] = p;
+            state[p] = REACHING;
+            schedule(STEP_NANOS, p, PHILOSOPHER_RIGHT);
+        };
+
+        EventHandler handler = (p, type) -> {
+            int right = (p + 1) % n;
+            switch (type) {
+                case PHILOSOPHER_HUNGRY:
+                    state[p] = HUNGRY;
+                    hungryAt[p] = now;
+                    attempt[0].handle(p, type);
+                    break;
+                case PHILOSOPHER_RIGHT:
+                    if (owner[right] < 0) {
+                        owner[right] = p;
+                        startEating.handle(p, type);
+                    } else if (holdAndWait) {
+                        state[p] = HOLDING;
+                        // 每个人都拿着左筷子等右筷子：环路闭合，谁也不会再释放筷子
+                        if (++counts[1] == n && deadlockAt[0] < 0) {
+                            deadlockAt[0] = now;
+                        }
+                    } else {
+                        // 与tryPickUpLimitDiners顺序一致：先放下左筷子，再归还座位
+                        counts[2]++;
+                        state[p] = HUNGRY;
+                        releaseFork.handle(p, p);
+                        if (seated[p]) {
+                            releaseSeat.handle(p, type);
+                        }
+                    }
+                    break;
+                case PHILOSOPHER_EAT:
+                    startEating.handle(p, type);
+                    break;
+                case PHILOSOPHER_DONE:
+                    state[p] = THINKING;
+                    meals[p]++;
+                    schedule(hold(config.thinkMillis), p, PHILOSOPHER_HUNGRY);
+                    releaseFork.handle(p, p);
+                    releaseFork.handle(right, p);
+                    if (seated[p]) {
+                        releaseSeat.handle(p, type);
+                    }
+                    break;
+            }
+        };
+
+        for (int p = 0; p < n; p++) {
+            schedule(hold(config.thinkMillis), p, PHILOSOPHER_HUNGRY);
+        }
+        long elapsed = runUntil(config.durationMillis * 1_000_000, handler);
+        BatchResult result = new BatchResult(config.problem.getName(), strategy.name(), n, elapsed, meals, latency);
+        result.addCounter("leftForkReleases", counts[2]);
+        if (holdAndWait) {
+            result.addCounter("deadlocked", deadlockAt[0] >= 0 ? 1 : 0);
+            result.addCounter("deadlockAtMs", deadlockAt[0] >= 0 ? deadlockAt[0] / 1_000_000 : -1);
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------------- 读者-写者
+
+    private static final int RW_ARRIVE = 0;
+    private static final int RW_GRANTED = 1;
+    private static final int RW_DONE = 2;
+
+    private BatchResult runReadersWriters() {
+        int n = config.actors;
+        int writers = config.writerCount();
+        ReadWriteResource.Strategy strategy = config.readWriteStrategy();
+        long[] ops = new long[n];
+        long[] waitingAt = new long[n];
+        // 阻塞在读写锁上的线程，按到达顺序
+        IntQueue lockQueue = new IntQueue();
+        // tryAcquire失败后重试的线程：等读者信号量、写者信号量
+        IntQueue readerRetry = new IntQueue();
+        IntQueue writerRetry = new IntQueue();
+        // [0]持有读锁的读者数，[1]是否有写者持有写锁（0/1），[2]读者信号量剩余许可，[3]写者信号量剩余许可
+        int[] resource = {0, 0, config.readerPermits(), 1};
+
+        EventHandler started = (id, type) -> {
+            latency.record(now - waitingAt[id]);
+            schedule(hold(config.workMillis), id, RW_DONE);
+        };
+
+        // 非公平ReentrantReadWriteLock：写者在没有任何持有者时可插队；
+        // 读者在没有写者持有、且队首不是写者时可插队，否则排队
+        EventHandler lock = (id, type) -> {
+            boolean writer = id < writers;
+            if (writer ? resource[0] == 0 && resource[1] == 0
+                    : resource[1] == 0 && (lockQueue.isEmpty() || lockQueue.peek() >= writers)) {
+                resource[writer ? 1 : 0]++;
+                started.handle(id, type);
+            } else {
+                lockQueue.add(id);
+            }
+        };
+
+        // 公平ReentrantReadWriteLock：有人排队时一律排在后面，不能插队
+        EventHandler fairLock = (id, type) -> {
+            boolean writer = id < writers;
+            if (lockQueue.isEmpty() && (writer ? resource[0] == 0 && resource[1] == 0 : resource[1] == 0)) {
+                resource[writer ? 1 : 0]++;
+                started.handle(id, type);
+            } else {
+                lockQueue.add(id);
+            }
+        };
+
+        // 锁释放后按队列顺序授予：队首的写者独占，或队首起连续的读者一起进入；被唤醒的线程稍后才开始
+        Runnable grant = () -> {
+            while (!lockQueue.isEmpty() && resource[1] == 0) {
+                int head = lockQueue.peek();
+                if (head < writers) {
+                    if (resource[0] > 0) {
+                        return;
+                    }
+                    resource[1] = 1;
+                } else {
+                    resource[0]++;
+                }
+                lockQueue.poll();
+                schedule(WAKEUP_NANOS, head, RW_GRANTED);
+            }
+        };
+
+        EventHandler request = (id, type) -> {
+            boolean writer = id < writers;
+            switch (strategy) {
+                case WRITER_PRIORITY:
+                    // 读者先过读者信号量，写者直接等写锁
+                    if (writer) {
+                        lock.handle(id, type);
+                    } else if (resource[2] > 0) {
+                        resource[2]--;
+                        lock.handle(id, type);
+                    } else {
+                        readerRetry.add(id);
+                    }
+                    break;
+                case FAIR:
+                    fairLock.handle(id, type);
+                    break;
+                case READER_PRIORITY:
+                default:
+                    // 写者先过写者信号量（同一时刻只有一个写者在等写锁），读者直接等读锁
+                    if (!writer) {
+                        lock.handle(id, type);
+                    } else if (resource[3] > 0) {
+                        resource[3]--;
+                        lock.handle(id, type);
+                    } else {
+                        writerRetry.add(id);
+                    }
+                    break;
+            }
+        };
+
+        // 重试队列中的线程各试一次，仍失败的按原顺序留在队列里
+        EventHandler retry = (which, type) -> {
+            IntQueue queue = which == 0 ? readerRetry : writerRetry;
+            for (int i = queue.size(); i > 0; i--) {
+                request.handle(queue.poll(), type);
+            }
+        };
+
+        EventHandler handler = (id, type) -> {
+            boolean writer = id < writers;
+            switch (type) {
+                case RW_ARRIVE:
+                    waitingAt[id] = now;
+                    request.handle(id, type);
+                    break;
+                case RW_GRANTED:
+                    started.handle(id, type);
+                    break;
+                case RW_DONE:
+                    ops[id]++;
+                    schedule(hold(config.thinkMillis), id, RW_ARRIVE);
+                    // 与finishRead/finishWrite顺序一致：先解锁，再归还信号量
+                    resource[writer ? 1 : 0]--;
+                    grant.run();
+                    if (strategy == ReadWriteResource.Strategy.WRITER_PRIORITY && !writer) {
+                        resource[2]++;
+                        retry.handle(0, type);
+                    } else if (strategy == ReadWriteResource.Strategy.READER_PRIORITY && writer) {
+                        resource[3]++;
+                        retry.handle(1, type);
+                    }
+                    break;
+            }
+        };
+
+        for (int id = 0; id < n; id++) {
+            schedule(hold(config.thinkMillis), id, RW_ARRIVE);
+        }
+        long elapsed = runUntil(config.durationMillis * 1_000_000, handler);
+        BatchResult result = new BatchResult(config.problem.getName(), strategy.name(), n, elapsed, ops, latency);
+        long writes = 0;
+        for (int i = 0; i < writers; i++) {
+            writes += ops[i];
+        }
+        result.addCounter("writes", writes);
+        result.addCounter("reads", result.getOperations() - writes);
+        return result;
+    }
+
+    // ---------------------------------------------------------------- 生产者-消费者
+
+    private static final int PRODUCER_READY = 0;
+    private static final int PRODUCER_RESUME = 1;
+    private static final int CONSUMER_TAKE = 2;
+    private static final int CONSUMER_DONE = 3;
+
+    private BatchResult runProducerConsumer() {
+        int producers = Math.max(1, config.producerCount());
+        int consumers = config.actors - producers;
+        int capacity = config.bufferSize;
+        // 环形缓冲区只保存每个物品的生产时刻，用于计算端到端延迟
+        long[] slots = new long[capacity];
+        // [0]为队头，[1]为物品数
+        int[] buffer = {0, 0};
+        long[] produced = new long[producers];
+        long[] consumed = new long[consumers];
+        // 生产者开始放入的时刻（与线程模式一致，物品在放入之前就带上生产时刻），以及消费者被唤醒后要取的物品
+        long[] readyAt = new long[producers];
+        long[] handed = new long[consumers];
+        // 阻塞在emptySlots / fullSlots上的线程，按先来先得唤醒
+        IntQueue producerQueue = new IntQueue();
+        IntQueue consumerQueue = new IntQueue();
+
+        EventHandler startConsuming = (c, type) -> {
+            latency.record(now - handed[c]);
+            schedule(hold(config.workMillis), producers + c, CONSUMER_DONE);
+        };
+
+        // 取出队头的物品；有阻塞的生产者时把空出的槽位交给它，它醒来后继续生产
+        EventHandler take = (c, type) -> {
+            handed[c] = slots[buffer[0]];
+            buffer[0] = (buffer[0] + 1) % capacity;
+            buffer[1]--;
+            if (!producerQueue.isEmpty()) {
+                int p = producerQueue.poll();
+                slots[(buffer[0] + buffer[1]) % capacity] = readyAt[p];
+                buffer[1]++;
+                produced[p]++;
+                schedule(WAKEUP_NANOS, p, PRODUCER_RESUME);
+            }
+        };
+
+        // 放入一个物品；有阻塞的消费者时把物品交给它，它醒来后开始处理
+        EventHandler put = (p, type) -> {
+            if (buffer[1] == capacity) {
+                producerQueue.add(p);
+                return;
+            }
+            slots[(buffer[0] + buffer[1]) % capacity] = readyAt[p];
+            buffer[1]++;
+            produced[p]++;
+            schedule(hold(config.thinkMillis), p, PRODUCER_READY);
+            if (!consumerQueue.isEmpty()) {
+                int c = consumerQueue.poll();
+                take.handle(c, type);
+                schedule(WAKEUP_NANOS, producers + c, CONSUMER_TAKE);
+            }
+        };
+
+        EventHandler consumerReady = (c, type) -> {
+            if (buffer[1] == 0) {
+                consumerQueue.add(c);
+                return;
+            }
+            take.handle(c, type);
+            startConsuming.handle(c, type);
+        };
+
+        EventHandler handler = (actor, type) -> {
+            switch (type) {
+                case PRODUCER_READY:
+                    readyAt[actor] = now;
+                    put.handle(actor, type);
+                    break;
+                case PRODUCER_RESUME:
+                    schedule(hold(config.thinkMillis), actor, PRODUCER_READY);
+                    break;
+                case CONSUMER_TAKE:
+                    startConsuming.handle(actor - producers, type);
+                    break;
+                case CONSUMER_DONE:
+                    consumed[actor - producers]++;
+                    consumerReady.handle(actor - producers, type);
+                    break;
+            }
+        };
+
+        for (int p = 0; p < producers; p++) {
+            schedule(hold(config.thinkMillis), p, PRODUCER_READY);
+        }
+        for (int c = 0; c < consumers; c++) {
+            consumerReady.handle(c, CONSUMER_DONE);
+        }
+        long elapsed = runUntil(config.durationMillis * 1_000_000, handler);
+        BatchResult result = new BatchResult(config.problem.getName(), config.strategyName(), config.actors,
+                elapsed, consumed, latency);
+        long total = 0;
+        for (long p : produced) {
+            total += p;
+        }
+        result.addCounter("produced", total);
+        result.addCounter("producers", producers);
+        result.addCounter("consumers", consumers);
+        return result;
+    }
+
+    // ---------------------------------------------------------------- 事件引擎
+
+    private void schedule(long delayNanos, int actor, int type) {
+        Event event = pool.poll();
+        if (event == null) {
+            event = new Event();
+        }
+        event.time = now + delayNanos;
+        // 同一时刻的事件按加入顺序处理，保证结果可重现
+        event.seq = seq++;
+        event.actor = actor;
+        event.type = type;
+        queue.add(event);
+    }
+
+    /**
+     * 依次处理事件直到模拟时间超过endNanos，返回模拟经过的纳秒数。
+     */
+    private long runUntil(long endNanos, EventHandler handler) {
+        while (!queue.isEmpty() && queue.peek().time <= endNanos) {
+            Event event = queue.poll();
+            now = event.time;
+            int actor = event.actor;
+            int type = event.type;
+            pool.push(event);
+            events++;
+            handler.handle(actor, type);
+        }
+        now = endNanos;
+        return endNanos;
+    }
+
+    // 设定时长的0.5~1.5倍，单位纳秒
+    private long hold(long millis) {
+        if (millis <= 0) {
+            return 0;
+        }
+        long nanos = millis * 1_000_000;
+        return nanos / 2 + random.nextLong(nanos);
+    }
+}
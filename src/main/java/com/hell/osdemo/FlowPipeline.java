@@ -0,0 +1,298 @@
+package com.hell.osdemo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * 响应式（java.util.concurrent.Flow）的生产者-消费者：生产者向SubmissionPublisher提交物品，
+ * 消费者是订阅者，由发布者的执行线程推送物品，只在声明了需求（request(n)）时才会收到。
+ * 订阅者先请求一个缓冲区的量，每处理完半个缓冲区再补上，需求和积压都可以随时读到。
+ * <p>
+ * 多个消费者时按轨道（rail）拆分：每个消费者一个发布者，生产者轮流提交，
+ * 因为同一个发布者的多个订阅者收到的是同样的物品（广播），不能用来分担工作。
+ * <p>
+ * 消费者不能主动取出，所以只实现生产者一侧的 ItemSink：put在缓冲区满时等待（可中断），offer超时即丢弃；
+ * 过载策略由 OverloadSink 包在外面，需要取出物品的策略（丢弃最旧、溢出）不适用。
+ * 还没有订阅或已经close()时，put按被中断处理，offer返回-1。
+ * 每条轨道的缓冲区容量会被向上取整为2的幂，与SubmissionPublisher一致。
+ */
+public class FlowPipeline<T> implements ItemSink<T> {
+
+    // put等待空位时每次等待的时长，期间检查中断
+    private static final long PUT_RECHECK_MILLIS = 100;
+    // submit()在没有订阅者时的返回值
+    private static final int CLOSED = -2;
+
+    private final int railCapacity;
+    private final int rails;
+    private final AtomicLong nextRail = new AtomicLong();
+    // 缓冲区的上限由SubmissionPublisher自己保证，offer返回的积压只是估计值（可能比容量多一），这里不做检查
+    private final InvariantChecker invariants = new InvariantChecker("Flow缓冲区");
+    // 订阅者处理物品时抛出的异常，发布者随后取消该订阅；交给监听器写入日志或统计
+    private final LongAdder errors = new LongAdder();
+    private volatile Consumer<Throwable> errorListener = error -> { };
+
+    private volatile List<Rail<T>> active;
+    // 最近一次close()关闭的执行器
+    private final List<ExecutorService> closing = new CopyOnWriteArrayList<>();
+
+    // 一个发布者、它的执行线程和唯一的订阅者
+    private static class Rail<T> {
+        final ExecutorService executor;
+        final SubmissionPublisher<T> publisher;
+        final FlowPipeline<T>.DemandSubscriber subscriber;
+
+        Rail(ExecutorService executor, SubmissionPublisher<T> publisher, FlowPipeline<T>.DemandSubscriber subscriber) {
+            this.executor = executor;
+            this.publisher = publisher;
+            this.subscriber = subscriber;
+        }
+    }
+
+    /**
+     * 按需求拉取的订阅者：未满足的需求 = 已请求 - 已收到，处理完半个批次就补充需求。
+     */
+    private class DemandSubscriber implements Flow.Subscriber<T> {
+        private final OverloadBuffer.ItemHandler<T> handler;
+        private final int batch;
+        private Flow.Subscription subscription;
+        private int sinceRequest = 0;
+        // 由订阅者线程写，界面线程读
+        private volatile long requested = 0;
+        private volatile long received = 0;
+
+        DemandSubscriber(OverloadBuffer.ItemHandler<T> handler, int batch) {
+            this.handler = handler;
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            request(batch);
+        }
+
+        @Override
+        public void onNext(T item) {
+            received++;
+            try {
+                handler.handle(item);
+            } catch (InterruptedException e) {
+                // 关闭时执行线程被中断，取消订阅，剩下的物品不再处理
+                subscription.cancel();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (++sinceRequest >= Math.max(1, batch / 2)) {
+                request(sinceRequest);
+                sinceRequest = 0;
+            }
+        }
+
+        private void request(long n) {
+            requested += n;
+            subscription.request(n);
+        }
+
+        long outstanding() {
+            return requested - received;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errors.increment();
+            errorListener.accept(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    public FlowPipeline(int capacity, int rails) {
+        if (capacity < 1 || rails < 1) {
+            throw new IllegalArgumentException("容量和轨道数至少为1");
+        }
+        this.railCapacity = roundToPowerOfTwo(capacity);
+        this.rails = rails;
+    }
+
+    // 与SubmissionPublisher一致，容量向上取整为2的幂
+    private static int roundToPowerOfTwo(int capacity) {
+        int rounded = Integer.highestOneBit(capacity);
+        return rounded == capacity ? capacity : rounded << 1;
+    }
+
+    /** 只有不从缓冲区取出物品的过载策略（见 OverloadSink）适用于推模式，新增的策略默认不适用 */
+    public static boolean supports(OverloadBuffer.Policy policy) {
+        switch (policy) {
+            case BLOCK:
+            case TIMEOUT:
+            case DROP_NEWEST:
+            case CALLER_RUNS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 为每条轨道创建发布者和订阅者，订阅者在threads创建的线程上调用handlers给出的处理函数。
+     * 已经订阅过则先关闭原来的发布者。
+     */
+    public void subscribe(IntFunction<OverloadBuffer.ItemHandler<T>> handlers, ThreadFactory threads) {
+        close();
+        List<Rail<T>> created = new ArrayList<>(rails);
+        for (int i = 0; i < rails; i++) {
+            ExecutorService executor = Executors.newSingleThreadExecutor(threads);
+            SubmissionPublisher<T> publisher = new SubmissionPublisher<>(executor, railCapacity);
+            DemandSubscriber subscriber = new DemandSubscriber(handlers.apply(i), railCapacity);
+            publisher.subscribe(subscriber);
+            created.add(new Rail<>(executor, publisher, subscriber));
+        }
+        active = created;
+    }
+
+    /** 关闭发布者并中断订阅者线程，未处理的物品丢弃 */
+    public void close() {
+        List<Rail<T>> current = active;
+        if (current == null) {
+            return;
+        }
+        active = null;
+        closing.clear();
+        for (Rail<T> rail : current) {
+            rail.publisher.close();
+            rail.executor.shutdownNow();
+            closing.add(rail.executor);
+        }
+    }
+
+    /** 等待close()中断的订阅者线程退出 */
+    public void awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ExecutorService executor : closing) {
+            executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // 轮到的轨道，还没有订阅或已经关闭时为null
+    private Rail<T> nextRail() {
+        List<Rail<T>> current = active;
+        if (current == null) {
+            return null;
+        }
+        return current.get((int) (nextRail.getAndIncrement() % current.size()));
+    }
+
+    /**
+     * 提交物品，该轨道的缓冲区满时等待，返回提交后的积压数。
+     * 没有订阅者（还没有订阅或已经关闭）时与等待中被关闭一样抛出InterruptedException，生产者随之退出。
+     */
+    @Override
+    public int put(T item) throws InterruptedException {
+        Rail<T> rail = nextRail();
+        while (true) {
+            int lag = submit(rail, item, PUT_RECHECK_MILLIS, TimeUnit.MILLISECONDS);
+            if (lag >= 0) {
+                return lag;
+            }
+            if (lag == CLOSED) {
+                throw new InterruptedException("Flow缓冲区已关闭");
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /** 限时提交，超时或没有订阅者时返回-1 */
+    @Override
+    public int offer(T item, long timeout, TimeUnit unit) {
+        int lag = submit(nextRail(), item, timeout, unit);
+        return lag < 0 ? -1 : lag;
+    }
+
+    // 向轨道限时提交，返回积压数；超时返回-1，没有轨道或发布者已关闭返回CLOSED。
+    // 取到轨道之后close()仍可能关闭发布者，此时SubmissionPublisher.offer抛出IllegalStateException
+    private int submit(Rail<T> rail, T item, long timeout, TimeUnit unit) {
+        if (rail == null) {
+            return CLOSED;
+        }
+        try {
+            int lag = rail.publisher.offer(item, timeout, unit, (s, dropped) -> false);
+            return lag >= 0 ? lag : rail.publisher.isClosed() ? CLOSED : -1;
+        } catch (IllegalStateException e) {
+            return CLOSED;
+        }
+    }
+
+    public void setErrorListener(Consumer<Throwable> errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    /** 订阅者出错的次数，每次出错该轨道的订阅都被取消 */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /** 所有轨道的缓冲区容量之和 */
+    @Override
+    public int capacity() {
+        return railCapacity * rails;
+    }
+
+    /** 所有轨道上已提交但订阅者还没收到的物品数 */
+    @Override
+    public int count() {
+        List<Rail<T>> current = active;
+        if (current == null) {
+            return 0;
+        }
+        int lag = 0;
+        for (Rail<T> rail : current) {
+            lag += rail.publisher.estimateMaximumLag();
+        }
+        return lag;
+    }
+
+    /** 所有订阅者尚未满足的需求之和 */
+    public long demand() {
+        List<Rail<T>> current = active;
+        if (current == null) {
+            return 0;
+        }
+        long demand = 0;
+        for (Rail<T> rail : current) {
+            demand += rail.subscriber.outstanding();
+        }
+        return demand;
+    }
+
+    /** 发布者不公开缓冲区中的物品 */
+    @Override
+    public T peek(int slot) {
+        return null;
+    }
+
+    @Override
+    public String describe() {
+        return "需求:" + demand() + " 积压:" + count() + (rails > 1 ? " 轨道:" + rails : "");
+    }
+
+    @Override
+    public InvariantChecker getInvariants() {
+        return invariants;
+    }
+}
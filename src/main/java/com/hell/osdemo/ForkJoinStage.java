@@ -0,0 +1,166 @@
+package com.hell.osdemo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 消费者之后的并行计算阶段：每个物品展开成一个递归的工作量，在ForkJoinPool上分治执行。
+ * 工作量为units次整数混洗，大于threshold就一分为二，一半fork出去，一半自己算，再join。
+ * <p>
+ * 每个工作线程统计自己执行的叶子任务数、叶子上的计算时间（用来折算利用率）和窃取次数：
+ * 子任务由另一个工作线程执行就算一次窃取（join时帮忙执行被窃取任务的子任务也算），
+ * 根任务由消费者线程从外部提交，被哪个工作线程拿走都不算窃取。
+ * 消费者调用process()时一直等到计算完成，计算阶段跟不上时消费者变慢，缓冲区随之变满。
+ */
+public class ForkJoinStage {
+
+    /** 带统计的工作线程，计数只由自己写，读到的值可能稍旧 */
+    static class Worker extends ForkJoinWorkerThread {
+        private volatile long steals = 0;
+        private volatile long leaves = 0;
+        private volatile long busyNanos = 0;
+
+        Worker(ForkJoinPool pool, int index) {
+            super(pool);
+            setName("forkjoin-" + index);
+        }
+    }
+
+    /** 一个工作线程在某一时刻的计数 */
+    public static class WorkerStats {
+        private final String name;
+        private final long steals;
+        private final long leaves;
+        private final long busyNanos;
+
+        WorkerStats(String name, long steals, long leaves, long busyNanos) {
+            this.name = name;
+            this.steals = steals;
+            this.leaves = leaves;
+            this.busyNanos = busyNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSteals() {
+            return steals;
+        }
+
+        public long getLeaves() {
+            return leaves;
+        }
+
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+    }
+
+    private class Workload extends RecursiveTask<Long> {
+        // RecursiveTask实现了Serializable，任务不会被序列化，只为消除编译警告
+        private static final long serialVersionUID = 1L;
+
+        private final long seed;
+        private final int units;
+        // fork出本任务的工作线程，根任务为null
+        private final Worker forker;
+
+        Workload(long seed, int units, Worker forker) {
+            this.seed = seed;
+            this.units = units;
+            this.forker = forker;
+        }
+
+        @Override
+        protected Long compute() {
+            Worker self = (Worker) Thread.currentThread();
+            if (forker != null && forker != self) {
+                self.steals++;
+            }
+            if (units <= threshold) {
+                long start = System.nanoTime();
+                long result = mix(seed, units);
+                self.busyNanos += System.nanoTime() - start;
+                self.leaves++;
+                return result;
+            }
+            int half = units / 2;
+            Workload left = new Workload(seed * 31 + 1, half, self);
+            left.fork();
+            long right = new Workload(seed * 31 + 2, units - half, self).compute();
+            return left.join() ^ right;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final List<Worker> workers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger workerIds = new AtomicInteger();
+
+    /**
+     * @param parallelism 工作线程数
+     * @param threshold   叶子任务的最大工作量，越小拆得越细、窃取越多
+     */
+    public ForkJoinStage(int parallelism, int threshold) {
+        if (parallelism < 1 || threshold < 1) {
+            throw new IllegalArgumentException("并行度和拆分阈值至少为1");
+        }
+        this.threshold = threshold;
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            Worker worker = new Worker(p, workerIds.incrementAndGet());
+            workers.add(worker);
+            return worker;
+        }, null, false);
+    }
+
+    // xorshift混洗units次，结果返回给调用方，避免计算被JIT当作无用代码消除
+    private static long mix(long seed, int units) {
+        long x = seed | 1;
+        for (int i = 0; i < units; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        return x;
+    }
+
+    /**
+     * 在线程池上计算一个物品的工作量，等待完成后返回校验值。
+     */
+    public long process(long seed, int units) {
+        return pool.invoke(new Workload(seed, units, null));
+    }
+
+    /** 所有创建过的工作线程的计数，按创建顺序 */
+    public List<WorkerStats> snapshot() {
+        List<WorkerStats> result = new ArrayList<>();
+        for (Worker worker : workers) {
+            result.add(new WorkerStats(worker.getName(), worker.steals, worker.leaves, worker.busyNanos));
+        }
+        return result;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /** ForkJoinPool自己统计的窃取次数（按任务队列计，与按子任务计的不完全一致） */
+    public long getPoolStealCount() {
+        return pool.getStealCount();
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public void awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        pool.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,57 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同步不变式检查：在每次获取/释放时用原子计数器核对，例如读写锁不会同时有读者和写者、
+ * 一根筷子不会被两人同时持有。通过 -Dosdemo.invariants=true 开启，
+ * 关闭时ENABLED是值为false的static final字段，检查代码会被JIT整体消除。
+ * 违反时在标准错误输出中注明出问题的线程。
+ */
+public final class InvariantChecker {
+
+    public static final boolean ENABLED = Boolean.getBoolean("osdemo.invariants");
+
+    // 每个检查器最多打印的违反次数，之后只计数
+    private static final int REPORT_LIMIT = 10;
+
+    private final String resource;
+    private final LongAdder checks = new LongAdder();
+    private final AtomicLong violations = new AtomicLong();
+    private volatile String lastViolation;
+
+    public InvariantChecker(String resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * 记录一次检查，返回condition；为false时调用方接着调用fail()说明原因，
+     * 这样正常路径上不用拼接字符串。
+     */
+    boolean check(boolean condition) {
+        checks.increment();
+        return condition;
+    }
+
+    void fail(String message) {
+        String text = resource + ": " + message + "（线程 " + Thread.currentThread().getName() + "）";
+        lastViolation = text;
+        if (violations.incrementAndGet() <= REPORT_LIMIT) {
+            System.err.println("[不变式] " + text);
+        }
+    }
+
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    public long getViolations() {
+        return violations.get();
+    }
+
+    /** 最近一次违反的描述，没有则为null */
+    public String getLastViolation() {
+        return lastViolation;
+    }
+}
@@ -0,0 +1,76 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 生产者-消费者的缓冲区，消费者主动取出物品。演示界面和批量运行用同一套生产/消费循环驱动，
+ * 只替换背后的实现：原来的三信号量设计或JDK自带的阻塞队列。
+ * 消费者由订阅推送的Flow发布者只有生产者一侧，见 ItemSink 和 FlowPipeline。
+ */
+public interface ItemBuffer<T> extends ItemSink<T> {
+
+    /** 可选的缓冲区实现 */
+    enum Backend {
+        SEMAPHORE("三信号量"),
+        ARRAY_BLOCKING("ArrayBlockingQueue"),
+        LINKED_BLOCKING("LinkedBlockingQueue"),
+        // 无界，容量参数只用于界面上显示的槽位数
+        LINKED_TRANSFER("LinkedTransferQueue"),
+        // 没有容量，put必须等到一个消费者来取
+        SYNCHRONOUS("SynchronousQueue"),
+        // 响应式推模式，消费者是订阅者，不是ItemBuffer，由 ProducerConsumerPipeline 组装 FlowPipeline
+        FLOW("Flow (SubmissionPublisher)");
+
+        private final String label;
+
+        Backend(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public static Backend fromLabel(String label) {
+            for (Backend backend : values()) {
+                if (backend.label.equals(label)) {
+                    return backend;
+                }
+            }
+            return SEMAPHORE;
+        }
+
+        /** 创建消费者主动取出的缓冲区；FLOW是推模式，不能用这里创建 */
+        public <T> ItemBuffer<T> create(int capacity) {
+            switch (this) {
+                case ARRAY_BLOCKING:
+                    return new QueueBuffer<>(new ArrayBlockingQueue<>(capacity), capacity);
+                case LINKED_BLOCKING:
+                    return new QueueBuffer<>(new LinkedBlockingQueue<>(capacity), capacity);
+                case LINKED_TRANSFER:
+                    return new QueueBuffer<>(new LinkedTransferQueue<>(), Integer.MAX_VALUE);
+                case SYNCHRONOUS:
+                    return new QueueBuffer<>(new SynchronousQueue<>(), 0);
+                case FLOW:
+                    throw new IllegalArgumentException("Flow是推模式，没有取出一侧，见 FlowPipeline");
+                case SEMAPHORE:
+                default:
+                    return new SemaphoreBuffer<>(capacity);
+            }
+        }
+    }
+
+    /**
+     * 取出一个物品，缓冲区空时阻塞。
+     */
+    T take() throws InterruptedException;
+
+    /**
+     * 限时取出，超时返回null。
+     */
+    T poll(long timeout, TimeUnit unit) throws InterruptedException;
+}
@@ -0,0 +1,33 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓冲区的生产者一侧：放入物品，以及界面显示用的观察方法。
+ * 能由消费者主动取出的缓冲区见 ItemBuffer；推模式的 FlowPipeline 由订阅者接收物品，只有这一侧。
+ */
+public interface ItemSink<T> {
+
+    /**
+     * 放入一个物品，缓冲区满时阻塞，返回物品所在的槽位（队列实现为放入时的队列位置）。
+     */
+    int put(T item) throws InterruptedException;
+
+    /**
+     * 限时放入，超时返回-1，否则同put()。
+     */
+    int offer(T item, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /** 容量，无界为Integer.MAX_VALUE */
+    int capacity();
+
+    int count();
+
+    /** 第slot个显示位置上的物品，没有则返回null */
+    T peek(int slot);
+
+    /** 同步状态的简短描述，显示在缓冲区计数旁 */
+    String describe();
+
+    InvariantChecker getInvariants();
+}
@@ -0,0 +1,133 @@
+package com.hell.osdemo;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * 实时指标面板：每秒从MetricsWindow取一次样，绘制吞吐量、等待时间和队列深度/活动线程三条滚动曲线。
+ * 每条曲线最多保留 HISTORY_SECONDS 个点，超出后移除最早的点，界面开销不随运行时间增长。
+ */
+public class LiveMetricsPanel extends HBox {
+
+    private static final int HISTORY_SECONDS = 60;
+
+    private final XYChart.Series<Number, Number> opsSeries = series("次/秒");
+    private final XYChart.Series<Number, Number> p50Series = series("p50");
+    private final XYChart.Series<Number, Number> p99Series = series("p99");
+    private final XYChart.Series<Number, Number> depthSeries = series("等待数");
+    private final XYChart.Series<Number, Number> activeSeries = series("活动线程");
+    private final NumberAxis[] timeAxes = new NumberAxis[3];
+
+    private final Timeline sampler;
+    private MetricsWindow metrics;
+    private IntSupplier queueDepth = () -> 0;
+    private IntSupplier activeThreads = () -> 0;
+    private long second = 0;
+
+    public LiveMetricsPanel() {
+        setSpacing(5);
+        getChildren().addAll(
+                chart(0, "吞吐量", List.of(opsSeries)),
+                chart(1, "等待时间 (ms)", List.of(p50Series, p99Series)),
+                chart(2, "队列深度 / 活动线程", List.of(depthSeries, activeSeries)));
+
+        sampler = new Timeline(new KeyFrame(Duration.seconds(1), e -> sample()));
+        sampler.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    /**
+     * 绑定数据来源；两个计量函数在界面线程上每秒调用一次。
+     */
+    public void bind(MetricsWindow metrics, IntSupplier queueDepth, IntSupplier activeThreads) {
+        this.metrics = metrics;
+        this.queueDepth = queueDepth;
+        this.activeThreads = activeThreads;
+    }
+
+    public void start() {
+        if (metrics != null) {
+            // 暂停期间的操作不计入下一秒
+            metrics.reset();
+            sampler.play();
+        }
+    }
+
+    public void stop() {
+        sampler.stop();
+    }
+
+    public void clear() {
+        sampler.stop();
+        second = 0;
+        opsSeries.getData().clear();
+        p50Series.getData().clear();
+        p99Series.getData().clear();
+        depthSeries.getData().clear();
+        activeSeries.getData().clear();
+        for (NumberAxis axis : timeAxes) {
+            axis.setLowerBound(0);
+            axis.setUpperBound(HISTORY_SECONDS);
+        }
+        if (metrics != null) {
+            metrics.reset();
+        }
+    }
+
+    private void sample() {
+        MetricsWindow.Sample sample = metrics.roll();
+        second++;
+        append(opsSeries, sample.getOps());
+        append(p50Series, sample.getP50Nanos() / 1_000_000.0);
+        append(p99Series, sample.getP99Nanos() / 1_000_000.0);
+        append(depthSeries, queueDepth.getAsInt());
+        append(activeSeries, activeThreads.getAsInt());
+
+        // 横轴跟随最新的点滚动
+        long lower = Math.max(0, second - HISTORY_SECONDS);
+        for (NumberAxis axis : timeAxes) {
+            axis.setLowerBound(lower);
+            axis.setUpperBound(lower + HISTORY_SECONDS);
+        }
+    }
+
+    private void append(XYChart.Series<Number, Number> series, Number value) {
+        if (series.getData().size() >= HISTORY_SECONDS) {
+            series.getData().remove(0);
+        }
+        series.getData().add(new XYChart.Data<>(second, value));
+    }
+
+    private LineChart<Number, Number> chart(int index, String title, List<XYChart.Series<Number, Number>> series) {
+        NumberAxis timeAxis = new NumberAxis(0, HISTORY_SECONDS, 10);
+        timeAxis.setAutoRanging(false);
+        timeAxis.setTickLabelsVisible(false);
+        timeAxes[index] = timeAxis;
+
+        LineChart<Number, Number> chart = new LineChart<>(timeAxis, new NumberAxis());
+        chart.setTitle(title);
+        chart.setAnimated(false);
+        chart.setCreateSymbols(false);
+        chart.setLegendVisible(series.size() > 1);
+        chart.setPrefHeight(170);
+        chart.setMinWidth(0);
+        chart.setStyle("-fx-font-size: 10;");
+        chart.getData().addAll(series);
+        HBox.setHgrow(chart, Priority.ALWAYS);
+        return chart;
+    }
+
+    private static XYChart.Series<Number, Number> series(String name) {
+        XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        series.setName(name);
+        return series;
+    }
+}
@@ -0,0 +1,192 @@
+package com.hell.osdemo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 类似Linux lockdep的加锁顺序检查：每个线程在线程局部的栈里记下自己持有的锁，
+ * 阻塞地获取一把锁时，为每把已持有的锁A记一条边 A → 新锁，所有线程共用一张有向图。
+ * 一条边第一次出现时检查图中是否已有从新锁回到A的路径，有就说明两个线程可能按相反的顺序加锁，
+ * 在真的死锁之前就报告出来。通过 -Dosdemo.lockdep=true 开启，关闭时和 InvariantChecker 一样被JIT消除。
+ * <p>
+ * 约定与lockdep相同：tryLock之类不会阻塞的获取只入栈、不产生指向它的边；同一把锁重入不记边。
+ * 跨线程发信号的计数信号量（缓冲区的空槽位、满槽位）不归某个线程持有，用 waitOn() 只检查、不入栈。
+ */
+public final class LockOrderChecker {
+
+    public static final boolean ENABLED = Boolean.getBoolean("osdemo.lockdep");
+
+    // 最多打印的潜在死锁报告数，之后只计数
+    private static final int REPORT_LIMIT = 10;
+
+    /** 图中的一个节点：一把锁（筷子的监视器、读写锁、信号量），按实例区分 */
+    public static final class Lock {
+        private final String name;
+        // 后继 -> 第一次建立这条边的线程名
+        private final Map<Lock, String> after = new ConcurrentHashMap<>();
+
+        Lock(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    // 线程持有的锁，按获取顺序；释放可以不按顺序
+    private static final class Held {
+        Lock[] locks = new Lock[8];
+        int depth = 0;
+
+        void push(Lock lock) {
+            if (depth == locks.length) {
+                locks = Arrays.copyOf(locks, depth * 2);
+            }
+            locks[depth++] = lock;
+        }
+
+        void remove(Lock lock) {
+            for (int i = depth - 1; i >= 0; i--) {
+                if (locks[i] == lock) {
+                    System.arraycopy(locks, i + 1, locks, i, depth - i - 1);
+                    locks[--depth] = null;
+                    return;
+                }
+            }
+            // 不在栈里：由别的线程获取（信号量）或开启检查之前获取的，忽略
+        }
+    }
+
+    private static final ThreadLocal<Held> HELD = ThreadLocal.withInitial(Held::new);
+    private static final AtomicInteger EDGES = new AtomicInteger();
+    private static final LongAdder CHECKS = new LongAdder();
+    private static final List<String> CYCLES = new CopyOnWriteArrayList<>();
+
+    private LockOrderChecker() {
+    }
+
+    public static Lock lock(String name) {
+        return new Lock(name);
+    }
+
+    /** 阻塞地获取之前调用：检查顺序并入栈 */
+    public static void acquire(Lock lock) {
+        if (!ENABLED) {
+            return;
+        }
+        Held held = HELD.get();
+        addEdges(held, lock);
+        held.push(lock);
+    }
+
+    /** 不会阻塞的获取（tryLock、tryAcquire）成功之后调用：只入栈 */
+    public static void acquired(Lock lock) {
+        if (ENABLED) {
+            HELD.get().push(lock);
+        }
+    }
+
+    /** 阻塞地等待一个不归线程持有的信号量之前调用：只检查顺序 */
+    public static void waitOn(Lock lock) {
+        if (ENABLED) {
+            addEdges(HELD.get(), lock);
+        }
+    }
+
+    public static void release(Lock lock) {
+        if (ENABLED) {
+            HELD.get().remove(lock);
+        }
+    }
+
+    private static void addEdges(Held held, Lock lock) {
+        CHECKS.increment();
+        for (int i = 0; i < held.depth; i++) {
+            Lock from = held.locks[i];
+            if (from == lock || from.after.containsKey(lock)) {
+                continue;
+            }
+            String thread = Thread.currentThread().getName();
+            if (from.after.putIfAbsent(lock, thread) == null) {
+                EDGES.incrementAndGet();
+                List<Lock> path = findPath(lock, from);
+                if (path != null) {
+                    report(from, lock, thread, path);
+                }
+            }
+        }
+    }
+
+    // 广度优先找一条从start到target的路径，没有返回null；只在新边出现时调用
+    private static List<Lock> findPath(Lock start, Lock target) {
+        Map<Lock, Lock> previous = new HashMap<>();
+        Deque<Lock> queue = new ArrayDeque<>();
+        previous.put(start, start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            Lock current = queue.poll();
+            if (current == target) {
+                List<Lock> path = new ArrayList<>();
+                for (Lock step = target; step != start; step = previous.get(step)) {
+                    path.add(step);
+                }
+                path.add(start);
+                Collections.reverse(path);
+                return path;
+            }
+            for (Lock next : current.after.keySet()) {
+                if (previous.putIfAbsent(next, current) == null) {
+                    queue.add(next);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void report(Lock from, Lock to, String thread, List<Lock> path) {
+        StringBuilder text = new StringBuilder("潜在死锁：线程 ").append(thread).append(" 持有 ").append(from)
+                .append(" 时获取 ").append(to).append("，而已有顺序 ");
+        for (int i = 0; i < path.size(); i++) {
+            if (i > 0) {
+                Lock edgeFrom = path.get(i - 1);
+                text.append(" →(").append(edgeFrom.after.get(path.get(i))).append(") ");
+            }
+            text.append(path.get(i));
+        }
+        CYCLES.add(text.toString());
+        if (CYCLES.size() <= REPORT_LIMIT) {
+            System.err.println("[锁顺序] " + text);
+        }
+    }
+
+    /** 检查（阻塞获取）次数 */
+    public static long getChecks() {
+        return CHECKS.sum();
+    }
+
+    /** 图中不同的边数 */
+    public static int getEdges() {
+        return EDGES.get();
+    }
+
+    /** 发现的潜在死锁（每条闭合环路的新边一条），按发现顺序 */
+    public static List<String> getCycles() {
+        return Collections.unmodifiableList(CYCLES);
+    }
+}
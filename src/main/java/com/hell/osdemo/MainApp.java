@@ -1,40 +1,157 @@
 package com.hell.osdemo;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
-import javafx.stage.StageStyle;
+import jdk.jfr.Recording;
 
-import java.net.URL;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 public class MainApp extends Application {
 
+    // 类加载时刻，作为首帧耗时的起点
+    private static final long LAUNCH_NANOS = System.nanoTime();
+
+    private MainController mainController;
+    private Recording jfrRecording;
+
     @Override
     public void start(Stage primaryStage) {
-        try {
-            // 加载主页面FXML
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("MainPage.fxml"));
-            Parent root = loader.load();
+        startJfrRecording();
 
-            Scene scene = new Scene(root);
+        // 先显示轻量的启动界面，主页面在后台线程加载
+        Scene scene = new Scene(createSplash(), 900, 600);
 
-            // 设置窗口样式
-            primaryStage.setTitle("进程同步演示系统");
-            primaryStage.setScene(scene);
+        // 设置窗口样式
+        primaryStage.setTitle("进程同步演示系统");
+        primaryStage.setScene(scene);
 //            primaryStage.initStyle(StageStyle.DECORATED);
 
-            // 显示窗口
-            primaryStage.show();
+        reportFirstFrame(scene);
+
+        // 显示窗口
+        primaryStage.show();
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("启动应用程序时出错: " + e.getMessage());
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("MainPage.fxml"));
+        Task<Parent> loadTask = new Task<>() {
+            @Override
+            protected Parent call() throws Exception {
+                return loader.load();
+            }
+        };
+
+        loadTask.setOnSucceeded(e -> {
+            mainController = loader.getController();
+            scene.setRoot(loadTask.getValue());
+            System.out.println("主页面加载完成: " + elapsedMillis() + " ms");
+            runAutorun();
+        });
+
+        loadTask.setOnFailed(e -> {
+            Throwable error = loadTask.getException();
+            error.printStackTrace();
+            System.err.println("启动应用程序时出错: " + error.getMessage());
             // 提供更详细的错误信息
-            if (e.getCause() != null) {
-                System.err.println("原因: " + e.getCause().getMessage());
+            if (error.getCause() != null) {
+                System.err.println("原因: " + error.getCause().getMessage());
             }
+        });
+
+        Thread loaderThread = new Thread(loadTask, "main-page-loader");
+        loaderThread.setDaemon(true);
+        loaderThread.start();
+    }
+
+    /**
+     * 脚本化运行模式，通过 -Dosdemo.autorun 指定：
+     * startup - 主页面就绪后立即退出，用于测量启动时间；
+     * training - 依次运行三个演示后退出，用于生成AppCDS归档。
+     */
+    private void runAutorun() {
+        String mode = System.getProperty("osdemo.autorun", "");
+        switch (mode) {
+            case "startup":
+                Platform.runLater(Platform::exit);
+                break;
+            case "training":
+                mainController.runTrainingTour(Platform::exit);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * -Dosdemo.jfr=文件 时在进程内录制同步事件，退出时写入该文件。
+     */
+    private void startJfrRecording() {
+        String file = System.getProperty("osdemo.jfr");
+        if (file == null || file.isEmpty()) {
+            return;
+        }
+        try {
+            jfrRecording = ContentionMonitor.startRecording(Paths.get(file));
+            System.out.println("JFR录制已开启: " + file);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("无法开启JFR录制: " + e.getMessage());
+        }
+    }
+
+    private VBox createSplash() {
+        VBox splash = new VBox(20);
+        splash.setAlignment(javafx.geometry.Pos.CENTER);
+        splash.setStyle("-fx-background-color: linear-gradient(to right, #2c3e50, #3498db);");
+
+        Label title = new Label("操作系统同步问题演示系统");
+        title.setStyle("-fx-text-fill: white; -fx-font-size: 24px; -fx-font-weight: bold;");
+
+        ProgressIndicator progress = new ProgressIndicator();
+        progress.setMaxSize(40, 40);
+
+        splash.getChildren().addAll(title, progress);
+        return splash;
+    }
+
+    private void reportFirstFrame(Scene scene) {
+        // 第一次布局脉冲完成即视为首帧
+        Runnable listener = new Runnable() {
+            private boolean reported = false;
+
+            @Override
+            public void run() {
+                if (!reported) {
+                    reported = true;
+                    System.out.println("首帧耗时: " + elapsedMillis() + " ms");
+                    // 不能在脉冲回调中直接修改监听列表
+                    Platform.runLater(() -> scene.removePostLayoutPulseListener(this));
+                }
+            }
+        };
+        scene.addPostLayoutPulseListener(listener);
+    }
+
+    private static long elapsedMillis() {
+        return (System.nanoTime() - LAUNCH_NANOS) / 1_000_000;
+    }
+
+    @Override
+    public void stop() {
+        // 关闭窗口时结束当前演示的所有线程
+        if (mainController != null) {
+            mainController.shutdown();
+        }
+        // 停止录制时数据写入目标文件
+        if (jfrRecording != null) {
+            jfrRecording.stop();
+            jfrRecording.close();
         }
     }
 
@@ -43,4 +160,4 @@ public class MainApp extends Application {
         System.out.println("当前工作目录: " + System.getProperty("user.dir"));
         launch(args);
     }
-}
\ No newline at end of file
+}
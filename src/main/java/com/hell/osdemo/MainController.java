@@ -1,5 +1,7 @@
 package com.hell.osdemo;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -7,6 +9,15 @@ import javafx.scene.control.*;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
+import javafx.util.Duration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainController {
 
@@ -16,12 +27,29 @@ public class MainController {
     @FXML private Button producerConsumerBtn;
     @FXML private Button diningPhilosopherBtn;
     @FXML private Button readerWriterBtn;
+    @FXML private Button sweepBtn;
+
+    @FXML private CheckBox keepRunningCheck;
+    @FXML private CheckBox contentionCheck;
+    @FXML private ContentionPanel contentionPanel;
+
+    private static final String[] DEMO_FILES = {
+            "ProducerConsumerDemo.fxml",
+            "DiningPhilosopherDemo.fxml",
+            "ReaderWriterDemo.fxml",
+            "SweepDemo.fxml"
+    };
 
     private String currentDemoType = "none";
 
+    // 演示界面缓存，每个FXML只加载一次
+    private final Map<String, CompletableFuture<DemoView>> demoCache = new HashMap<>();
+    private DemoView currentView;
+    private String requestedDemo;
+
     @FXML
     public void initialize() {
-
+        preloadDemos();
     }
 
     @FXML
@@ -54,11 +82,34 @@ public class MainController {
         loadDemoContent("ReaderWriterDemo.fxml");
     }
 
+    @FXML
+    private void showSweepDemo() {
+        setActiveButton(sweepBtn);
+        currentDemoType = "sweep";
+        infoText.setText("策略对比\n在独立JVM中扫描参数网格");
+
+        // 加载参数扫描界面
+        loadDemoContent("SweepDemo.fxml");
+    }
+
+    @FXML
+    private void toggleContention() {
+        // 面板浮在演示之上，切换演示时保持显示
+        if (contentionCheck.isSelected()) {
+            contentionPanel.setVisible(true);
+            contentionPanel.start();
+        } else {
+            contentionPanel.stop();
+            contentionPanel.setVisible(false);
+        }
+    }
+
     private void setActiveButton(Button activeButton) {
         // 重置所有按钮颜色
         producerConsumerBtn.setStyle("-fx-font-size: 14; -fx-background-color: #6c757d; -fx-text-fill: white;");
         diningPhilosopherBtn.setStyle("-fx-font-size: 14; -fx-background-color: #6c757d; -fx-text-fill: white;");
         readerWriterBtn.setStyle("-fx-font-size: 14; -fx-background-color: #6c757d; -fx-text-fill: white;");
+        sweepBtn.setStyle("-fx-font-size: 14; -fx-background-color: #6c757d; -fx-text-fill: white;");
 
         // 设置活动按钮颜色
         switch (activeButton.getId()) {
@@ -71,37 +122,95 @@ public class MainController {
             case "readerWriterBtn":
                 activeButton.setStyle("-fx-font-size: 14; -fx-background-color: #e74c3c; -fx-text-fill: white;");
                 break;
+            case "sweepBtn":
+                activeButton.setStyle("-fx-font-size: 14; -fx-background-color: #16a085; -fx-text-fill: white;");
+                break;
         }
     }
 
-    private void loadDemoContent(String fxmlFile) {
-        try {
-            // 清空演示区域
-            demoPane.getChildren().clear();
+    private void preloadDemos() {
+        // 三个演示界面在后台并行加载，切换时直接取用
+        ExecutorService loaderPool = Executors.newFixedThreadPool(DEMO_FILES.length, r -> {
+            Thread thread = new Thread(r, "demo-preload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (String fxmlFile : DEMO_FILES) {
+            demoCache.put(fxmlFile, CompletableFuture.supplyAsync(() -> loadView(fxmlFile), loaderPool));
+        }
+        loaderPool.shutdown();
+    }
 
-            // 加载对应的演示FXML
+    private DemoView loadView(String fxmlFile) {
+        try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
-            Parent demoContent = loader.load();
-
-            // 添加到演示区域
-            demoPane.getChildren().add(demoContent);
+            Parent content = loader.load();
+            return new DemoView(content, loader.getController());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
+    private void loadDemoContent(String fxmlFile) {
+        requestedDemo = fxmlFile;
+        CompletableFuture<DemoView> future = demoCache.computeIfAbsent(fxmlFile,
+                f -> CompletableFuture.supplyAsync(() -> loadView(f)));
+        future.whenComplete((view, error) -> Platform.runLater(() -> {
+            // 加载失败的不留在缓存中，下次选择时重新加载（预加载失败的也一样）
+            if (error != null) {
+                demoCache.remove(fxmlFile, future);
+            }
+            // 快速连续点击时只显示最后一次选择的演示
+            if (!fxmlFile.equals(requestedDemo)) {
+                return;
+            }
+            if (error != null) {
+                showLoadError(fxmlFile);
+            } else {
+                showView(view);
+            }
+        }));
+    }
 
-        } catch (Exception e) {
-            // 显示错误信息
-            VBox errorBox = new VBox();
-            errorBox.setAlignment(javafx.geometry.Pos.CENTER);
-            errorBox.setSpacing(10);
+    private void showView(DemoView view) {
+        if (view == currentView) {
+            return;
+        }
 
-            Label errorLabel = new Label("无法加载演示内容");
-            errorLabel.setStyle("-fx-text-fill: red; -fx-font-size: 16;");
+        // 离开当前演示：除非选择后台运行，否则暂停其线程
+        if (currentView != null && !keepRunningCheck.isSelected() && currentView.controller.isRunning()) {
+            currentView.controller.pause();
+            // 暂停不起作用的界面（如参数扫描）保持运行，回来时也不需要继续
+            currentView.suspended = !currentView.controller.isRunning();
+        }
 
-            Label detailLabel = new Label("请确保文件存在：" + fxmlFile);
-            detailLabel.setStyle("-fx-text-fill: #666; -fx-font-size: 12;");
+        currentView = view;
+        demoPane.getChildren().setAll(view.content);
 
-            errorBox.getChildren().addAll(errorLabel, detailLabel);
-            demoPane.getChildren().add(errorBox);
+        // 回到之前被挂起的演示时自动继续
+        if (view.suspended) {
+            view.suspended = false;
+            view.controller.start();
         }
+        reportThreadCount();
+    }
+
+    private void showLoadError(String fxmlFile) {
+        currentView = null;
+
+        // 显示错误信息
+        VBox errorBox = new VBox();
+        errorBox.setAlignment(javafx.geometry.Pos.CENTER);
+        errorBox.setSpacing(10);
+
+        Label errorLabel = new Label("无法加载演示内容");
+        errorLabel.setStyle("-fx-text-fill: red; -fx-font-size: 16;");
+
+        Label detailLabel = new Label("请确保文件存在：" + fxmlFile);
+        detailLabel.setStyle("-fx-text-fill: #666; -fx-font-size: 12;");
+
+        errorBox.getChildren().addAll(errorLabel, detailLabel);
+        demoPane.getChildren().setAll(errorBox);
     }
 
     @FXML
@@ -110,14 +219,74 @@ public class MainController {
             return;
         }
 
-        // 这里可以添加具体演示的启动逻辑
-        switch (currentDemoType) {
-            case "producerConsumer":
-                break;
-            case "diningPhilosopher":
-                break;
-            case "readerWriter":
-                break;
+        if (currentView != null) {
+            currentView.controller.start();
+        }
+    }
+
+    /**
+     * 依次打开并运行三个演示，供AppCDS训练运行使用，结束后执行onFinished。
+     */
+    public void runTrainingTour(Runnable onFinished) {
+        runTrainingStep(0, onFinished);
+    }
+
+    private void runTrainingStep(int index, Runnable onFinished) {
+        Button[] buttons = {producerConsumerBtn, diningPhilosopherBtn, readerWriterBtn};
+        if (index >= buttons.length) {
+            onFinished.run();
+            return;
+        }
+
+        buttons[index].fire();
+
+        // 等界面显示后开始模拟，运行一段时间再切换到下一个演示
+        PauseTransition showDelay = new PauseTransition(Duration.seconds(1));
+        showDelay.setOnFinished(e -> {
+            startDemo();
+            PauseTransition runDelay = new PauseTransition(Duration.seconds(3));
+            runDelay.setOnFinished(ev -> runTrainingStep(index + 1, onFinished));
+            runDelay.play();
+        });
+        showDelay.play();
+    }
+
+    /**
+     * 应用退出时调用，确保没有残留的工作线程。
+     */
+    public void shutdown() {
+        contentionPanel.stop();
+        for (CompletableFuture<DemoView> future : demoCache.values()) {
+            // 加载失败的界面没有控制器，getNow会抛出加载时的异常
+            DemoView view = future.isCompletedExceptionally() ? null : future.getNow(null);
+            if (view != null) {
+                view.controller.dispose();
+            }
+        }
+    }
+
+    private void reportThreadCount() {
+        // 被中断的线程需要片刻才能退出，稍后再统计
+        PauseTransition delay = new PauseTransition(Duration.millis(500));
+        delay.setOnFinished(e -> infoText.setText(baseInfoText() + "\n活动线程数: " + Thread.activeCount()));
+        delay.play();
+    }
+
+    private String baseInfoText() {
+        String text = infoText.getText();
+        int index = text.indexOf("\n活动线程数");
+        return index >= 0 ? text.substring(0, index) : text;
+    }
+
+    // 已加载的演示界面及其控制器
+    private static class DemoView {
+        private final Parent content;
+        private final DemoLifecycle controller;
+        private boolean suspended = false;
+
+        DemoView(Parent content, DemoLifecycle controller) {
+            this.content = content;
+            this.controller = controller;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,266 @@
+package com.hell.osdemo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 分段的内存映射溢出文件：物品按 [长度int][内容] 追加到当前段，当前段写不下就换下一段，
+ * 按段的顺序读回，保持先进先出。读完的段放回空闲列表，之后直接复用，不再创建和映射新文件；
+ * 段数达到上限且没有空闲段时拒绝追加，磁盘占用不超过 段大小 × 最大段数。
+ * 文件放在临时目录中以进程号命名的子目录里，close()时删除。映射要等缓冲区被回收才释放，
+ * Windows上仍在映射的文件删不掉，删除失败的和进程没有close()就退出留下的目录，
+ * 在下次创建溢出文件时按进程号确认原进程已退出后再删除。
+ */
+public class MappedSpillFile<T> implements OverflowStore<T> {
+
+    /** 物品与字节之间的转换，在映射缓冲区的当前位置上读写 */
+    public interface Codec<T> {
+        int size(T item);
+
+        void write(T item, ByteBuffer out);
+
+        T read(ByteBuffer in, int length);
+    }
+
+    private static class Segment {
+        final MappedByteBuffer data;
+        int writePos = 0;
+        int readPos = 0;
+
+        Segment(MappedByteBuffer data) {
+            this.data = data;
+        }
+    }
+
+    private static final String DIR_PREFIX = "osdemo-spill-";
+
+    private final Codec<T> codec;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final Path directory;
+
+    // 队首为读段，队尾为写段
+    private final ArrayDeque<Segment> active = new ArrayDeque<>();
+    private final ArrayDeque<Segment> free = new ArrayDeque<>();
+    private final List<Segment> all = new ArrayList<>();
+    private int size = 0;
+    private long recycled = 0;
+    private boolean closed = false;
+    // peek()解码出的队首物品，poll()时直接返回，避免解码两次
+    private T peeked;
+    private volatile Consumer<String> logListener = message -> { };
+
+    public MappedSpillFile(Codec<T> codec, int segmentBytes, int maxSegments) {
+        if (segmentBytes <= Integer.BYTES || maxSegments < 1) {
+            throw new IllegalArgumentException("段大小或段数过小");
+        }
+        this.codec = codec;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        removeLeftovers(Paths.get(System.getProperty("java.io.tmpdir")));
+        try {
+            directory = Files.createTempDirectory(DIR_PREFIX + ProcessHandle.current().pid() + "-");
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建溢出目录", e);
+        }
+    }
+
+    @Override
+    public boolean append(T item) {
+        int length = codec.size(item);
+        int needed = Integer.BYTES + length;
+        if (needed > segmentBytes) {
+            throw new IllegalArgumentException("物品大小" + length + "超过段大小" + segmentBytes);
+        }
+        Segment tail = active.peekLast();
+        if (closed) {
+            // 重置后残留的旧生产者，按溢出区已满处理
+            return false;
+        }
+        if (tail == null || segmentBytes - tail.writePos < needed) {
+            tail = nextSegment();
+            if (tail == null) {
+                return false;
+            }
+            active.addLast(tail);
+        }
+        tail.data.position(tail.writePos);
+        tail.data.putInt(length);
+        codec.write(item, tail.data);
+        tail.writePos += needed;
+        size++;
+        return true;
+    }
+
+    @Override
+    public T peek() {
+        if (peeked == null && size > 0) {
+            Segment head = readableHead();
+            head.data.position(head.readPos);
+            int length = head.data.getInt();
+            peeked = codec.read(head.data, length);
+        }
+        return peeked;
+    }
+
+    @Override
+    public T poll() {
+        T item = peek();
+        if (item == null) {
+            return null;
+        }
+        peeked = null;
+        Segment head = active.peekFirst();
+        head.readPos += Integer.BYTES + head.data.getInt(head.readPos);
+        size--;
+        if (head.readPos == head.writePos) {
+            if (active.size() > 1) {
+                recycle(active.pollFirst());
+            } else {
+                // 唯一的段读空了，从头开始写
+                head.readPos = 0;
+                head.writePos = 0;
+            }
+        }
+        return item;
+    }
+
+    // 跳过已读空的段（只会在写段换段后出现），返回有数据的读段
+    private Segment readableHead() {
+        Segment head = active.peekFirst();
+        while (head.readPos == head.writePos) {
+            recycle(active.pollFirst());
+            head = active.peekFirst();
+        }
+        return head;
+    }
+
+    private void recycle(Segment segment) {
+        segment.readPos = 0;
+        segment.writePos = 0;
+        free.push(segment);
+        recycled++;
+    }
+
+    private Segment nextSegment() {
+        if (!free.isEmpty()) {
+            return free.pop();
+        }
+        if (all.size() >= maxSegments) {
+            return null;
+        }
+        Path file = directory.resolve(String.format("spill-%03d.seg", all.size()));
+        // 映射建立后即可关闭通道，映射在缓冲区被回收前一直有效
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Segment segment = new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+            all.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建溢出段 " + file, e);
+        }
+    }
+
+    /** 删除溢出文件失败时的提示，默认忽略 */
+    public void setLogListener(Consumer<String> logListener) {
+        this.logListener = logListener;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** 已创建的段文件数 */
+    public int getSegments() {
+        return all.size();
+    }
+
+    /** 段被读空后放回空闲列表的次数 */
+    public long getRecycled() {
+        return recycled;
+    }
+
+    /** 磁盘占用的字节数 */
+    public long getDiskBytes() {
+        return (long) all.size() * segmentBytes;
+    }
+
+    @Override
+    public String describe() {
+        return "磁盘溢出:" + size + " 段:" + all.size() + "/" + maxSegments;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        active.clear();
+        free.clear();
+        all.clear();
+        size = 0;
+        peeked = null;
+        // Linux上映射中的文件也可以删除；Windows上要等缓冲区被回收，删不掉的留到下次启动
+        deleteDirectory(directory, logListener);
+    }
+
+    /** 溢出文件所在的目录 */
+    Path getDirectory() {
+        return directory;
+    }
+
+    // 清理已退出进程留下的溢出目录，它们的映射已随进程释放
+    static void removeLeftovers(Path tempRoot) {
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(tempRoot, DIR_PREFIX + "*")) {
+            for (Path dir : dirs) {
+                if (!ownerAlive(dir)) {
+                    deleteDirectory(dir, message -> { });
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            // 临时目录不可读时跳过，下次再试
+        }
+    }
+
+    private static boolean ownerAlive(Path dir) {
+        String name = dir.getFileName().toString();
+        try {
+            long pid = Long.parseLong(name.substring(DIR_PREFIX.length(), name.indexOf('-', DIR_PREFIX.length())));
+            return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            // 不是按进程号命名的目录，不动它
+            return true;
+        }
+    }
+
+    private static void deleteDirectory(Path dir, Consumer<String> log) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.accept("无法删除溢出段 " + file + "，下次启动时重试: " + e.getMessage());
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            log.accept("无法读取溢出目录 " + dir + ": " + e.getMessage());
+        }
+        try {
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            log.accept("无法删除溢出目录 " + dir + "，下次启动时重试: " + e.getMessage());
+        }
+    }
+}
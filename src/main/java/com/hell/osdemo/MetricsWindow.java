@@ -0,0 +1,96 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按秒聚合的无锁指标窗口：工作线程随时记录一次操作及其等待时间，
+ * 采样线程每秒调用一次 roll() 换出当前窗口并计算吞吐量和等待时间分位数。
+ */
+public class MetricsWindow {
+
+    /** 一个窗口的汇总结果 */
+    public static class Sample {
+        private final long ops;
+        private final long p50Nanos;
+        private final long p99Nanos;
+
+        Sample(long ops, long p50Nanos, long p99Nanos) {
+            this.ops = ops;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+        }
+
+        public long getOps() {
+            return ops;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+    }
+
+    // 一秒内的计数，与LatencyHistogram共用分桶方式，但桶是原子的，可被多线程同时写入
+    private static class Window {
+        final LongAdder ops = new LongAdder();
+        final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+    }
+
+    private final AtomicReference<Window> current = new AtomicReference<>(new Window());
+    private volatile long lastRollNanos = System.nanoTime();
+
+    /**
+     * 记录一次完成的操作，waitNanos为该操作获取资源前的等待时间。
+     */
+    public void recordOp(long waitNanos) {
+        Window window = current.get();
+        window.ops.increment();
+        window.counts.incrementAndGet(LatencyHistogram.bucketIndex(Math.max(0, waitNanos)));
+    }
+
+    /**
+     * 换出当前窗口并返回其汇总；吞吐量按实际经过的时间折算成每秒。
+     * 换出瞬间仍在写旧窗口的线程最多丢失一两次记录，对曲线没有影响。
+     */
+    public Sample roll() {
+        Window window = current.getAndSet(new Window());
+        long now = System.nanoTime();
+        long elapsed = Math.max(1, now - lastRollNanos);
+        lastRollNanos = now;
+
+        long perSecond = Math.round(window.ops.sum() * 1_000_000_000.0 / elapsed);
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = window.counts.get(i);
+            total += counts[i];
+        }
+        return new Sample(perSecond, percentile(counts, total, 50), percentile(counts, total, 99));
+    }
+
+    /** 丢弃当前窗口的数据，重新开始计时 */
+    public void reset() {
+        current.set(new Window());
+        lastRollNanos = System.nanoTime();
+    }
+
+    private static long percentile(long[] counts, long total, double percent) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percent / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return LatencyHistogram.bucketValue(i);
+            }
+        }
+        return 0;
+    }
+}
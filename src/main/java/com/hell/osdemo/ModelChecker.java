@@ -0,0 +1,1348 @@
+package com.hell.osdemo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 有界模型检查：穷举小规模配置下所有线程交错，报告死锁、饥饿和互斥被破坏，并给出反例路径。
+ * 每一步对应真实实现中的一个原子动作（拿一根筷子、获取一个信号量、原子地修改一次计数器），
+ * 失败后原地重试的动作不改变状态，不作为转移。
+ * <pre>
+ * java -cp OSdemo.jar com.hell.osdemo.ModelChecker --problem=philosophers [--strategy=LIMIT_DINERS]
+ * </pre>
+ * 状态按位打包成long做哈希去重，按层并行广度优先搜索（fork/join），
+ * 只改变自身局部状态的动作（如"饿了"）与其他动作可交换，用偏序归约只展开其中一个。
+ * 归约带循环条件（C3）：只在这个动作通向本层新发现的状态时才归约，否则完全展开，
+ * 保证归约后图中的每个环上都有完全展开的状态，不会有动作被无限推迟。
+ * 局部动作会改变参与者是否在等待，对饥饿检查是可见的，所以饥饿检查总在未归约的状态图上进行。
+ */
+public class ModelChecker {
+
+    /**
+     * 待检查的模型：状态由若干个小整数变量组成，按位打包成一个long。
+     */
+    public abstract static class Model {
+        private final String name;
+        private final int actors;
+        private final int[] widths;
+
+        Model(String name, int actors, int[] widths) {
+            int total = 0;
+            for (int width : widths) {
+                total += width;
+            }
+            if (total > 64) {
+                throw new IllegalArgumentException("状态超过64位，请减小规模: " + name);
+            }
+            this.name = name;
+            this.actors = actors;
+            this.widths = widths;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        int variables() {
+            return widths.length;
+        }
+
+        abstract void initial(int[] v);
+
+        /** 参与者actor在状态v下所有会改变状态的动作 */
+        abstract void transitions(int[] v, int actor, Transitions out);
+
+        /** 状态v违反的不变式，没有则返回null */
+        String violation(int[] v) {
+            return null;
+        }
+
+        /** 参与者是否在等待资源（饥饿检查只看等待中的参与者） */
+        abstract boolean isWaiting(int[] v, int actor);
+
+        abstract String actorName(int actor);
+
+        abstract String describe(int[] v);
+
+        long encode(int[] v) {
+            long state = 0;
+            int shift = 0;
+            for (int i = 0; i < widths.length; i++) {
+                state |= ((long) v[i]) << shift;
+                shift += widths[i];
+            }
+            return state;
+        }
+
+        void decode(long state, int[] v) {
+            int shift = 0;
+            for (int i = 0; i < widths.length; i++) {
+                v[i] = (int) ((state >>> shift) & ((1L << widths[i]) - 1));
+                shift += widths[i];
+            }
+        }
+    }
+
+    // 一个状态的全部后继
+    static final class Transitions {
+        private final Model model;
+        final List<Transition> list = new ArrayList<>();
+
+        Transitions(Model model) {
+            this.model = model;
+        }
+
+        /**
+         * @param progress 完成一次就餐/读/写/生产/消费的关键动作
+         * @param local    只改变自身局部状态，与其他参与者的动作可交换
+         */
+        void add(int actor, String label, int[] next, boolean progress, boolean local) {
+            list.add(new Transition(actor, label, model.encode(next), progress, local));
+        }
+    }
+
+    static final class Transition {
+        final int actor;
+        final String label;
+        final long target;
+        final boolean progress;
+        final boolean local;
+
+        Transition(int actor, String label, long target, boolean progress, boolean local) {
+            this.actor = actor;
+            this.label = label;
+            this.target = target;
+            this.progress = progress;
+            this.local = local;
+        }
+    }
+
+    // 搜索图中的一个状态：广度优先树上的父状态和到达它的动作、所在层，以及（归约后的）出边
+    private static final class Node {
+        final long parent;
+        final int actor;
+        final String label;
+        final int depth;
+        long[] next = new long[0];
+        Transition[] edges = new Transition[0];
+        // 未归约前有动作可做的参与者
+        int enabledMask;
+
+        Node(long parent, int actor, String label, int depth) {
+            this.parent = parent;
+            this.actor = actor;
+            this.label = label;
+            this.depth = depth;
+        }
+    }
+
+    /** 一条检查结论及其反例路径 */
+    public static class Finding {
+        private final String kind;
+        private final String message;
+        private final List<String> trace;
+
+        Finding(String kind, String message, List<String> trace) {
+            this.kind = kind;
+            this.message = message;
+            this.trace = trace;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public List<String> getTrace() {
+            return trace;
+        }
+    }
+
+    /** 一个模型的检查结果 */
+    public static class Report {
+        private final String model;
+        private final long states;
+        private final long transitions;
+        private final long reduced;
+        private final boolean truncated;
+        private final long millis;
+        private final List<Finding> findings;
+
+        Report(String model, long states, long transitions, long reduced, boolean truncated,
+               long millis, List<Finding> findings) {
+            this.model = model;
+            this.states = states;
+            this.transitions = transitions;
+            this.reduced = reduced;
+            this.truncated = truncated;
+            this.millis = millis;
+            this.findings = findings;
+        }
+
+        public List<Finding> getFindings() {
+            return findings;
+        }
+
+        public boolean isClean() {
+            return findings.isEmpty();
+        }
+
+        public String summary() {
+            return String.format(Locale.ROOT, "%s: 状态%d，转移%d，偏序归约%d个状态，用时%d ms%s",
+                    model, states, transitions, reduced, millis, truncated ? "（超出状态上限，结果不完整）" : "");
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(summary()).append('\n');
+            if (findings.isEmpty()) {
+                text.append("  未发现死锁、饥饿或互斥问题\n");
+            }
+            for (Finding finding : findings) {
+                text.append("  [").append(finding.kind).append("] ").append(finding.message).append('\n');
+                for (String step : finding.trace) {
+                    text.append("    ").append(step).append('\n');
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    // 超过该数目的状态不再展开，避免耗尽内存
+    private static final int MAX_STATES = 5_000_000;
+    // 每个fork/join子任务至少处理的状态数
+    private static final int SPLIT_THRESHOLD = 256;
+
+    private final boolean partialOrder;
+
+    public ModelChecker(boolean partialOrder) {
+        this.partialOrder = partialOrder;
+    }
+
+    // 一次完整的搜索：状态图、发现的问题和归约掉的状态数
+    private static final class Exploration {
+        final ConcurrentHashMap<Long, Node> nodes = new ConcurrentHashMap<>();
+        // 违反的不变式或"死锁" -> 首个出现该问题的状态（广度优先，路径最短）
+        final ConcurrentHashMap<String, Long> problems = new ConcurrentHashMap<>();
+        long reduced = 0;
+        boolean truncated = false;
+    }
+
+    public Report check(Model model) {
+        long start = System.nanoTime();
+        Exploration safety = explore(model, partialOrder);
+
+        List<Finding> findings = new ArrayList<>();
+        List<String> keys = new ArrayList<>(safety.problems.keySet());
+        Collections.sort(keys);
+        for (String key : keys) {
+            long state = safety.problems.get(key);
+            String kind = key.equals(DEADLOCK) ? "死锁" : "不变式";
+            findings.add(new Finding(kind, key, trace(model, safety.nodes, state)));
+        }
+        boolean truncated = safety.truncated;
+        if (!truncated) {
+            // 归约对饥饿检查不可靠，开启归约时另外搜索一遍完整的状态图
+            Exploration full = partialOrder ? explore(model, false) : safety;
+            truncated = full.truncated;
+            if (!truncated) {
+                findings.addAll(new StarvationSearch(model, full.nodes).run());
+            }
+        }
+
+        long transitions = 0;
+        for (Node node : safety.nodes.values()) {
+            transitions += node.next.length;
+        }
+        return new Report(model.getName(), safety.nodes.size(), transitions, safety.reduced, truncated,
+                (System.nanoTime() - start) / 1_000_000, findings);
+    }
+
+    private Exploration explore(Model model, boolean reduce) {
+        Exploration exploration = new Exploration();
+        int[] v = new int[model.variables()];
+        model.initial(v);
+        long initial = model.encode(v);
+        exploration.nodes.put(initial, new Node(initial, -1, null, 0));
+
+        List<Long> frontier = Collections.singletonList(initial);
+        int depth = 0;
+        while (!frontier.isEmpty()) {
+            Queue<Long> next = new ConcurrentLinkedQueue<>();
+            Expand task = new Expand(model, exploration, reduce, depth, frontier, 0, frontier.size(), next);
+            ForkJoinPool.commonPool().invoke(task);
+            exploration.reduced += task.reduced;
+            if (exploration.nodes.size() > MAX_STATES) {
+                exploration.truncated = true;
+                break;
+            }
+            frontier = new ArrayList<>(next);
+            depth++;
+        }
+        return exploration;
+    }
+
+    private static final String DEADLOCK = "所有参与者都无法继续";
+
+    // 并行展开一层中的一段状态
+    private static final class Expand extends RecursiveAction {
+        // RecursiveAction实现了Serializable，任务不会被序列化
+        private static final long serialVersionUID = 1L;
+
+        private final Model model;
+        private final Exploration exploration;
+        private final ConcurrentHashMap<Long, Node> nodes;
+        private final ConcurrentHashMap<String, Long> problems;
+        private final boolean reduce;
+        // frontier中状态所在的层
+        private final int depth;
+        private final List<Long> frontier;
+        private final int from;
+        private final int to;
+        private final Queue<Long> next;
+        long reduced;
+
+        Expand(Model model, Exploration exploration, boolean reduce, int depth,
+               List<Long> frontier, int from, int to, Queue<Long> next) {
+            this.model = model;
+            this.exploration = exploration;
+            this.nodes = exploration.nodes;
+            this.problems = exploration.problems;
+            this.reduce = reduce;
+            this.depth = depth;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.next = next;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                Expand left = new Expand(model, exploration, reduce, depth, frontier, from, middle, next);
+                Expand right = new Expand(model, exploration, reduce, depth, frontier, middle, to, next);
+                invokeAll(left, right);
+                reduced = left.reduced + right.reduced;
+                return;
+            }
+            int[] v = new int[model.variables()];
+            Transitions out = new Transitions(model);
+            for (int i = from; i < to; i++) {
+                long state = frontier.get(i);
+                model.decode(state, v);
+                String violation = model.violation(v);
+                if (violation != null) {
+                    // 出问题的状态不再展开
+                    problems.putIfAbsent(violation, state);
+                    continue;
+                }
+
+                out.list.clear();
+                int enabled = 0;
+                for (int actor = 0; actor < model.actors; actor++) {
+                    int before = out.list.size();
+                    model.transitions(v, actor, out);
+                    if (out.list.size() > before) {
+                        enabled |= 1 << actor;
+                    }
+                }
+                if (out.list.isEmpty()) {
+                    problems.putIfAbsent(DEADLOCK, state);
+                }
+
+                List<Transition> chosen = out.list;
+                if (reduce) {
+                    // 局部动作与其他动作独立且不影响不变式，只展开一个即可；
+                    // 循环条件：它必须通向下一层的新状态，通向已访问的状态可能闭合一个环，此时完全展开
+                    for (Transition transition : out.list) {
+                        if (transition.local && leadsForward(transition)) {
+                            chosen = Collections.singletonList(transition);
+                            reduced++;
+                            break;
+                        }
+                    }
+                }
+
+                Node node = nodes.get(state);
+                node.enabledMask = enabled;
+                node.edges = chosen.toArray(new Transition[0]);
+                node.next = new long[chosen.size()];
+                for (int t = 0; t < chosen.size(); t++) {
+                    Transition transition = chosen.get(t);
+                    node.next[t] = transition.target;
+                    if (nodes.putIfAbsent(transition.target,
+                            new Node(state, transition.actor, transition.label, depth + 1)) == null) {
+                        next.add(transition.target);
+                    }
+                }
+            }
+        }
+
+        // 目标状态尚未访问，或刚在本层被其他状态发现（同样位于下一层）；
+        // 这样归约的边总是通向更深一层，任何环都要经过一条回到浅层或同层的边，其起点是完全展开的
+        private boolean leadsForward(Transition transition) {
+            Node target = nodes.get(transition.target);
+            return target == null || target.depth > depth;
+        }
+    }
+
+    // 从初始状态到state的路径
+    private static List<String> trace(Model model, Map<Long, Node> nodes, long state) {
+        List<String> steps = new ArrayList<>();
+        int[] v = new int[model.variables()];
+        long current = state;
+        while (true) {
+            Node node = nodes.get(current);
+            model.decode(current, v);
+            if (node.actor < 0) {
+                steps.add("初始  " + model.describe(v));
+                break;
+            }
+            steps.add(model.actorName(node.actor) + ": " + node.label + "  " + model.describe(v));
+            current = node.parent;
+        }
+        Collections.reverse(steps);
+        return steps;
+    }
+
+    /**
+     * 饥饿：存在一个循环，某参与者始终在等待、从未完成，其他参与者却不断完成，
+     * 且循环中该参与者至少有一次无动作可做（弱公平下的调度也无法让它前进）。
+     * 对每个参与者在"它在等待"的子图上求强连通分量来寻找这样的循环。
+     */
+    private static final class StarvationSearch {
+        private final Model model;
+        private final Map<Long, Node> nodes;
+        private final long[] states;
+        private final Map<Long, Integer> ids = new HashMap<>();
+
+        StarvationSearch(Model model, Map<Long, Node> nodes) {
+            this.model = model;
+            this.nodes = nodes;
+            states = new long[nodes.size()];
+            int id = 0;
+            for (Long state : nodes.keySet()) {
+                states[id++] = state;
+            }
+            // 排序后编号与并行搜索的顺序无关，反例路径可重现
+            Arrays.sort(states);
+            for (int i = 0; i < states.length; i++) {
+                ids.put(states[i], i);
+            }
+        }
+
+        List<Finding> run() {
+            List<Finding> findings = new ArrayList<>();
+            int[] v = new int[model.variables()];
+            for (int actor = 0; actor < model.actors; actor++) {
+                boolean[] allowed = new boolean[states.length];
+                for (int i = 0; i < states.length; i++) {
+                    model.decode(states[i], v);
+                    allowed[i] = model.isWaiting(v, actor);
+                }
+                Finding finding = search(actor, allowed);
+                if (finding != null) {
+                    findings.add(finding);
+                }
+            }
+            return findings;
+        }
+
+        // actor的完成动作不算循环内的边
+        private boolean inSubgraph(int actor, Transition edge) {
+            return !(edge.actor == actor && edge.progress);
+        }
+
+        private Finding search(int actor, boolean[] allowed) {
+            int[] component = components(actor, allowed);
+            int count = 0;
+            for (int c : component) {
+                count = Math.max(count, c + 1);
+            }
+            // 每个分量：其他参与者的完成边、以及actor无动作可做的状态
+            int[] progressFrom = new int[count];
+            int[] progressEdge = new int[count];
+            int[] disabledAt = new int[count];
+            Arrays.fill(progressFrom, -1);
+            Arrays.fill(disabledAt, -1);
+            for (int i = 0; i < states.length; i++) {
+                int c = component[i];
+                if (c < 0) {
+                    continue;
+                }
+                Node node = nodes.get(states[i]);
+                if ((node.enabledMask & (1 << actor)) == 0 && disabledAt[c] < 0) {
+                    disabledAt[c] = i;
+                }
+                for (int e = 0; e < node.edges.length; e++) {
+                    Transition edge = node.edges[e];
+                    Integer target = ids.get(edge.target);
+                    if (edge.progress && edge.actor != actor && target != null && component[target] == c
+                            && progressFrom[c] < 0) {
+                        progressFrom[c] = i;
+                        progressEdge[c] = e;
+                    }
+                }
+            }
+            for (int c = 0; c < count; c++) {
+                if (progressFrom[c] < 0 || disabledAt[c] < 0) {
+                    continue;
+                }
+                int entry = disabledAt[c];
+                int from = progressFrom[c];
+                Transition edge = nodes.get(states[from]).edges[progressEdge[c]];
+                int to = ids.get(edge.target);
+
+                List<String> steps = trace(model, nodes, states[entry]);
+                steps.add("—— 以下循环可无限重复 ——");
+                appendPath(actor, component, entry, from, steps);
+                int[] v = new int[model.variables()];
+                model.decode(edge.target, v);
+                steps.add(model.actorName(edge.actor) + ": " + edge.label + "  " + model.describe(v));
+                appendPath(actor, component, to, entry, steps);
+                return new Finding("饥饿", model.actorName(actor) + " 可能一直等待，而其他参与者不断完成（弱公平调度下也会发生）", steps);
+            }
+            return null;
+        }
+
+        // 分量内从from到to的最短路径（不含from）
+        private void appendPath(int actor, int[] component, int from, int to, List<String> steps) {
+            if (from == to) {
+                return;
+            }
+            int[] previous = new int[states.length];
+            Transition[] via = new Transition[states.length];
+            Arrays.fill(previous, -2);
+            previous[from] = -1;
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(from);
+            while (!queue.isEmpty() && previous[to] == -2) {
+                int i = queue.poll();
+                for (Transition edge : nodes.get(states[i]).edges) {
+                    Integer target = ids.get(edge.target);
+                    if (target != null && component[target] == component[from] && inSubgraph(actor, edge)
+                            && previous[target] == -2) {
+                        previous[target] = i;
+                        via[target] = edge;
+                        queue.add(target);
+                    }
+                }
+            }
+            List<String> path = new ArrayList<>();
+            int[] v = new int[model.variables()];
+            for (int i = to; i != from; i = previous[i]) {
+                model.decode(states[i], v);
+                path.add(model.actorName(via[i].actor) + ": " + via[i].label + "  " + model.describe(v));
+            }
+            Collections.reverse(path);
+            steps.addAll(path);
+        }
+
+        /**
+         * 迭代版Tarjan算法，返回每个状态所在的非平凡强连通分量编号，不在子图或平凡分量为-1。
+         */
+        private int[] components(int actor, boolean[] allowed) {
+            int n = states.length;
+            int[] index = new int[n];
+            int[] low = new int[n];
+            int[] component = new int[n];
+            boolean[] onStack = new boolean[n];
+            Arrays.fill(index, -1);
+            Arrays.fill(component, -1);
+            int[] stack = new int[n];
+            int stackSize = 0;
+            int[] callStack = new int[n];
+            int[] edgeCursor = new int[n];
+            int counter = 0;
+            int components = 0;
+
+            for (int root = 0; root < n; root++) {
+                if (!allowed[root] || index[root] >= 0) {
+                    continue;
+                }
+                int depth = 0;
+                callStack[depth++] = root;
+                index[root] = low[root] = counter++;
+                stack[stackSize++] = root;
+                onStack[root] = true;
+                edgeCursor[root] = 0;
+
+                while (depth > 0) {
+                    int u = callStack[depth - 1];
+                    Transition[] edges = nodes.get(states[u]).edges;
+                    if (edgeCursor[u] < edges.length) {
+                        Transition edge = edges[edgeCursor[u]++];
+                        Integer target = ids.get(edge.target);
+                        if (target == null || !allowed[target] || !inSubgraph(actor, edge)) {
+                            continue;
+                        }
+                        int w = target;
+                        if (index[w] < 0) {
+                            index[w] = low[w] = counter++;
+                            stack[stackSize++] = w;
+                            onStack[w] = true;
+                            edgeCursor[w] = 0;
+                            callStack[depth++] = w;
+                        } else if (onStack[w]) {
+                            low[u] = Math.min(low[u], index[w]);
+                        }
+                        continue;
+                    }
+                    depth--;
+                    if (depth > 0) {
+                        int parent = callStack[depth - 1];
+                        low[parent] = Math.min(low[parent], low[u]);
+                    }
+                    if (low[u] == index[u]) {
+                        int size = 0;
+                        int w;
+                        int id = components;
+                        do {
+                            w = stack[--stackSize];
+                            onStack[w] = false;
+                            component[w] = id;
+                            size++;
+                        } while (w != u);
+                        // 单个状态没有自环，不构成循环
+                        if (size == 1) {
+                            component[u] = -1;
+                        } else {
+                            components++;
+                        }
+                    }
+                }
+            }
+            return component;
+        }
+    }
+
+    // ---------------------------------------------------------------- 模型
+
+    private static int bits(int max) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+    }
+
+    private static int[] with(int[] v, int index, int value) {
+        int[] next = v.clone();
+        next[index] = value;
+        return next;
+    }
+
+    public static Model philosophers(int n, DiningTable.Strategy strategy, boolean holdAndWait) {
+        return new PhilosopherModel(n, strategy, holdAndWait);
+    }
+
+    public static Model readersWriters(int readers, int writers, ReadWriteResource.Strategy strategy) {
+        return new ReaderWriterModel(readers, writers, strategy);
+    }
+
+    public static Model producerConsumer(int producers, int consumers, int capacity) {
+        return new ProducerConsumerModel(producers, consumers, capacity);
+    }
+
+    /**
+     * 哲学家就餐，对应DiningTable的三种策略。holdAndWait为true时无策略改为教科书式的
+     * "拿着左筷子等右筷子"，用来演示死锁。
+     */
+    private static final class PhilosopherModel extends Model {
+        static final int THINKING = 0;
+        static final int HUNGRY = 1;
+        static final int SEATED = 2;
+        static final int HAS_LEFT = 3;
+        static final int EATING = 4;
+        static final String[] NAMES = {"思", "饿", "座", "左", "餐"};
+
+        private final int n;
+        private final DiningTable.Strategy strategy;
+        private final boolean holdAndWait;
+        // 变量：[0,n) 哲学家状态，[n,2n) 筷子持有者（n表示空闲），2n 剩余座位
+        private final int seats;
+
+        PhilosopherModel(int n, DiningTable.Strategy strategy, boolean holdAndWait) {
+            super(String.format(Locale.ROOT, "哲学家就餐(%s%s, %d人)", strategy.name(),
+                    holdAndWait ? "，持有并等待" : "", n), n, widths(n));
+            this.n = n;
+            this.strategy = strategy;
+            this.holdAndWait = holdAndWait;
+            this.seats = 2 * n;
+        }
+
+        private static int[] widths(int n) {
+            int[] widths = new int[2 * n + 1];
+            for (int i = 0; i < n; i++) {
+                widths[i] = 3;
+                widths[n + i] = bits(n);
+            }
+            widths[2 * n] = bits(n);
+            return widths;
+        }
+
+        @Override
+        void initial(int[] v) {
+            for (int i = 0; i < n; i++) {
+                v[i] = THINKING;
+                v[n + i] = n;
+            }
+            v[seats] = n - 1;
+        }
+
+        @Override
+        void transitions(int[] v, int p, Transitions out) {
+            int left = n + p;
+            int right = n + (p + 1) % n;
+            int[] next;
+            switch (v[p]) {
+                case THINKING:
+                    out.add(p, "饿了", with(v, p, HUNGRY), false, true);
+                    break;
+                case HUNGRY:
+                    switch (strategy) {
+                        case LIMIT_DINERS:
+                            if (v[seats] > 0) {
+                                next = with(v, p, SEATED);
+                                next[seats]--;
+                                out.add(p, "获得座位", next, false, false);
+                            }
+                            break;
+                        case ENSURE_BOTH_CHOPSTICKS:
+                            if (v[left] == n && v[right] == n) {
+                                next = with(v, p, EATING);
+                                next[left] = p;
+                                next[right] = p;
+                                out.add(p, "同时拿起两根筷子", next, true, false);
+                            }
+                            break;
+                        case NO_STRATEGY:
+                        default:
+                            if (v[left] == n) {
+                                next = with(v, p, HAS_LEFT);
+                                next[left] = p;
+                                out.add(p, "拿起左筷子", next, false, false);
+                            }
+                            break;
+                    }
+                    break;
+                case SEATED:
+                    next = v.clone();
+                    if (v[left] == n) {
+                        next[p] = HAS_LEFT;
+                        next[left] = p;
+                        out.add(p, "拿起左筷子", next, false, false);
+                    } else {
+                        next[p] = HUNGRY;
+                        next[seats]++;
+                        out.add(p, "左筷子被占，让出座位", next, false, false);
+                    }
+                    break;
+                case HAS_LEFT:
+                    next = v.clone();
+                    if (v[right] == n) {
+                        next[p] = EATING;
+                        next[right] = p;
+                        out.add(p, "拿起右筷子", next, true, false);
+                    } else if (!holdAndWait) {
+                        next[p] = HUNGRY;
+                        next[left] = n;
+                        if (strategy == DiningTable.Strategy.LIMIT_DINERS) {
+                            next[seats]++;
+                        }
+                        out.add(p, "右筷子被占，放下左筷子", next, false, false);
+                    }
+                    break;
+                case EATING:
+                    next = with(v, p, THINKING);
+                    next[left] = n;
+                    next[right] = n;
+                    if (strategy == DiningTable.Strategy.LIMIT_DINERS) {
+                        next[seats]++;
+                    }
+                    out.add(p, "放下筷子", next, false, false);
+                    break;
+            }
+        }
+
+        @Override
+        String violation(int[] v) {
+            for (int p = 0; p < n; p++) {
+                if (v[p] == EATING && (v[n + p] != p || v[n + (p + 1) % n] != p)) {
+                    return "就餐的哲学家没有同时持有两根筷子";
+                }
+            }
+            return null;
+        }
+
+        @Override
+        boolean isWaiting(int[] v, int p) {
+            return v[p] == HUNGRY || v[p] == SEATED || v[p] == HAS_LEFT;
+        }
+
+        @Override
+        String actorName(int p) {
+            return "P" + p;
+        }
+
+        @Override
+        String describe(int[] v) {
+            StringBuilder text = new StringBuilder("[");
+            for (int p = 0; p < n; p++) {
+                text.append(p > 0 ? " " : "").append(NAMES[v[p]]);
+            }
+            text.append("] 筷子[");
+            for (int f = 0; f < n; f++) {
+                text.append(f > 0 ? " " : "").append(v[n + f] == n ? "-" : "P" + v[n + f]);
+            }
+            text.append(']');
+            if (strategy == DiningTable.Strategy.LIMIT_DINERS) {
+                text.append(" 座位=").append(v[seats]);
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * 读者-写者，对应ReadWriteResource：信号量、读写锁的阻塞队列（公平策略不能插队），
+     * 以及读者对currentReaders的原子加减。编号[0,writers)为写者，其余为读者。
+     */
+    private static final class ReaderWriterModel extends Model {
+        static final int IDLE = 0;
+        static final int WANT = 1;
+        static final int PERMIT = 2;
+        static final int QUEUED = 3;
+        // 读者
+        static final int LOCKED = 4;
+        static final int READING = 5;
+        static final int DEC_DONE = 6;
+        static final int UNLOCKED = 7;
+        // 写者
+        static final int WRITING = 4;
+        static final int WRITE_UNLOCKED = 5;
+        static final String[] READER_NAMES = {"闲", "想", "许", "排", "锁", "读", "毕", "放"};
+        static final String[] WRITER_NAMES = {"闲", "想", "许", "排", "写", "放"};
+
+        private final int readers;
+        private final int writers;
+        private final int actorCount;
+        private final ReadWriteResource.Strategy strategy;
+        // 变量下标
+        private final int counter;
+        private final int lockReaders;
+        private final int lockWriter;
+        private final int queue;
+        private final int readerSem;
+        private final int writerSem;
+
+        ReaderWriterModel(int readers, int writers, ReadWriteResource.Strategy strategy) {
+            super(String.format(Locale.ROOT, "读者-写者(%s, %d读%d写)", strategy.name(), readers, writers),
+                    readers + writers, widths(readers, writers));
+            this.readers = readers;
+            this.writers = writers;
+            this.actorCount = readers + writers;
+            this.strategy = strategy;
+            counter = actorCount;
+            lockReaders = counter + 1;
+            lockWriter = lockReaders + 1;
+            queue = lockWriter + 1;
+            readerSem = queue + actorCount;
+            writerSem = readerSem + 1;
+        }
+
+        private static int[] widths(int readers, int writers) {
+            int actors = readers + writers;
+            int[] widths = new int[actors + 3 + actors + 2];
+            int i = 0;
+            for (int a = 0; a < actors; a++) {
+                widths[i++] = 4;
+            }
+            widths[i++] = bits(readers);     // currentReaders
+            widths[i++] = bits(readers);     // 读锁持有数
+            widths[i++] = bits(actors);      // 写锁持有者+1
+            for (int a = 0; a < actors; a++) {
+                widths[i++] = bits(actors);  // 锁等待队列
+            }
+            widths[i++] = bits(readers);     // readerSemaphore
+            widths[i] = 1;                   // writerSemaphore
+            return widths;
+        }
+
+        @Override
+        void initial(int[] v) {
+            Arrays.fill(v, 0);
+            v[readerSem] = readers;
+            v[writerSem] = 1;
+        }
+
+        private boolean isWriter(int actor) {
+            return actor < writers;
+        }
+
+        private int queueHead(int[] v) {
+            return v[queue] - 1;
+        }
+
+        private void enqueue(int[] next, int actor) {
+            for (int i = 0; i < actorCount; i++) {
+                if (next[queue + i] == 0) {
+                    next[queue + i] = actor + 1;
+                    return;
+                }
+            }
+        }
+
+        private void dequeue(int[] next) {
+            for (int i = 0; i < actorCount - 1; i++) {
+                next[queue + i] = next[queue + i + 1];
+            }
+            next[queue + actorCount - 1] = 0;
+        }
+
+        @Override
+        void transitions(int[] v, int a, Transitions out) {
+            if (isWriter(a)) {
+                writerTransitions(v, a, out);
+            } else {
+                readerTransitions(v, a, out);
+            }
+        }
+
+        private void readerTransitions(int[] v, int a, Transitions out) {
+            int[] next;
+            switch (v[a]) {
+                case IDLE:
+                    out.add(a, "想读", with(v, a, WANT), false, true);
+                    break;
+                case WANT:
+                    switch (strategy) {
+                        case WRITER_PRIORITY:
+                            if (v[readerSem] > 0) {
+                                next = with(v, a, PERMIT);
+                                next[readerSem]--;
+                                out.add(a, "获得读者许可", next, false, false);
+                            }
+                            break;
+                        case FAIR:
+                            fairLock(v, a, out, v[lockWriter] == 0);
+                            break;
+                        case READER_PRIORITY:
+                        default:
+                            lockRead(v, a, out);
+                            break;
+                    }
+                    break;
+                case PERMIT:
+                    lockRead(v, a, out);
+                    break;
+                case QUEUED:
+                    if (queueHead(v) == a && v[lockWriter] == 0) {
+                        next = with(v, a, LOCKED);
+                        dequeue(next);
+                        next[lockReaders]++;
+                        out.add(a, "被唤醒，获得读锁", next, false, false);
+                    }
+                    break;
+                case LOCKED:
+                    next = with(v, a, READING);
+                    next[counter] = Math.min(readers, v[counter] + 1);
+                    out.add(a, "currentReaders+1", next, true, false);
+                    break;
+                case READING:
+                    next = with(v, a, DEC_DONE);
+                    next[counter] = Math.max(0, v[counter] - 1);
+                    out.add(a, "currentReaders-1", next, false, false);
+                    break;
+                case DEC_DONE:
+                    next = with(v, a, strategy == ReadWriteResource.Strategy.WRITER_PRIORITY ? UNLOCKED : IDLE);
+                    next[lockReaders]--;
+                    out.add(a, "释放读锁", next, false, false);
+                    break;
+                case UNLOCKED:
+                    next = with(v, a, IDLE);
+                    next[readerSem]++;
+                    out.add(a, "归还读者许可", next, false, false);
+                    break;
+            }
+        }
+
+        // 非公平读写锁的lock()：队首是写者时新读者也要排队
+        private void lockRead(int[] v, int a, Transitions out) {
+            int head = queueHead(v);
+            int[] next;
+            if (v[lockWriter] == 0 && (head < 0 || !isWriter(head))) {
+                next = with(v, a, LOCKED);
+                next[lockReaders]++;
+                out.add(a, "获得读锁", next, false, false);
+            } else {
+                next = with(v, a, QUEUED);
+                enqueue(next, a);
+                out.add(a, "读锁被占，排队阻塞", next, false, false);
+            }
+        }
+
+        private void writerTransitions(int[] v, int a, Transitions out) {
+            int[] next;
+            switch (v[a]) {
+                case IDLE:
+                    out.add(a, "想写", with(v, a, WANT), false, true);
+                    break;
+                case WANT:
+                    switch (strategy) {
+                        case READER_PRIORITY:
+                            if (v[writerSem] > 0) {
+                                next = with(v, a, PERMIT);
+                                next[writerSem] = 0;
+                                out.add(a, "获得写者许可", next, false, false);
+                            }
+                            break;
+                        case FAIR:
+                            fairLock(v, a, out, v[lockWriter] == 0 && v[lockReaders] == 0);
+                            break;
+                        case WRITER_PRIORITY:
+                        default:
+                            lockWrite(v, a, out);
+                            break;
+                    }
+                    break;
+                case PERMIT:
+                    lockWrite(v, a, out);
+                    break;
+                case QUEUED:
+                    if (queueHead(v) == a && v[lockWriter] == 0 && v[lockReaders] == 0) {
+                        next = with(v, a, WRITING);
+                        dequeue(next);
+                        next[lockWriter] = a + 1;
+                        out.add(a, "被唤醒，获得写锁", next, true, false);
+                    }
+                    break;
+                case WRITING:
+                    next = with(v, a, strategy == ReadWriteResource.Strategy.READER_PRIORITY ? WRITE_UNLOCKED : IDLE);
+                    next[lockWriter] = 0;
+                    out.add(a, "释放写锁", next, false, false);
+                    break;
+                case WRITE_UNLOCKED:
+                    next = with(v, a, IDLE);
+                    next[writerSem] = 1;
+                    out.add(a, "归还写者许可", next, false, false);
+                    break;
+            }
+        }
+
+        // 公平读写锁：有人排队时一律排在后面，free表示锁本身可以授予这个参与者
+        private void fairLock(int[] v, int a, Transitions out, boolean free) {
+            int[] next;
+            if (free && queueHead(v) < 0) {
+                if (isWriter(a)) {
+                    next = with(v, a, WRITING);
+                    next[lockWriter] = a + 1;
+                    out.add(a, "获得公平写锁", next, true, false);
+                } else {
+                    next = with(v, a, LOCKED);
+                    next[lockReaders]++;
+                    out.add(a, "获得公平读锁", next, false, false);
+                }
+            } else {
+                next = with(v, a, QUEUED);
+                enqueue(next, a);
+                out.add(a, "公平锁被占或有人排队，排队阻塞", next, false, false);
+            }
+        }
+
+        // 非公平写锁可以插队，只要没有人持有锁
+        private void lockWrite(int[] v, int a, Transitions out) {
+            int[] next;
+            if (v[lockWriter] == 0 && v[lockReaders] == 0) {
+                next = with(v, a, WRITING);
+                next[lockWriter] = a + 1;
+                out.add(a, "获得写锁", next, true, false);
+            } else {
+                next = with(v, a, QUEUED);
+                enqueue(next, a);
+                out.add(a, "写锁被占，排队阻塞", next, false, false);
+            }
+        }
+
+        @Override
+        String violation(int[] v) {
+            if (v[lockWriter] != 0 && v[lockReaders] > 0) {
+                return "互斥被破坏：读者和写者同时持有锁";
+            }
+            int reading = 0;
+            for (int a = writers; a < actorCount; a++) {
+                if (v[a] == READING) {
+                    reading++;
+                }
+            }
+            if (v[counter] != reading) {
+                return "currentReaders与实际读者数不一致";
+            }
+            return null;
+        }
+
+        @Override
+        boolean isWaiting(int[] v, int a) {
+            return v[a] == WANT || v[a] == PERMIT || v[a] == QUEUED;
+        }
+
+        @Override
+        String actorName(int a) {
+            return isWriter(a) ? "写者" + a : "读者" + (a - writers);
+        }
+
+        @Override
+        String describe(int[] v) {
+            StringBuilder text = new StringBuilder("写者[");
+            for (int a = 0; a < writers; a++) {
+                text.append(a > 0 ? " " : "").append(WRITER_NAMES[v[a]]);
+            }
+            text.append("] 读者[");
+            for (int a = writers; a < actorCount; a++) {
+                text.append(a > writers ? " " : "").append(READER_NAMES[v[a]]);
+            }
+            text.append("] currentReaders=").append(v[counter]);
+            text.append(" 读锁=").append(v[lockReaders]);
+            text.append(" 写锁=").append(v[lockWriter] == 0 ? "-" : actorName(v[lockWriter] - 1));
+            if (v[queue] != 0) {
+                text.append(" 队列[");
+                for (int i = 0; i < actorCount && v[queue + i] != 0; i++) {
+                    text.append(i > 0 ? " " : "").append(actorName(v[queue + i] - 1));
+                }
+                text.append(']');
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * 生产者-消费者，对应SemaphoreBuffer的put/take：emptySlots、mutex、fullSlots逐个获取和释放。
+     * 编号[0,producers)为生产者，其余为消费者。
+     */
+    private static final class ProducerConsumerModel extends Model {
+        static final int IDLE = 0;
+        static final int WANT = 1;
+        static final int HAS_SLOT = 2;
+        static final int IN_MUTEX = 3;
+        static final int DONE = 4;
+        static final int RELEASED = 5;
+        static final String[] NAMES = {"闲", "想", "槽", "锁", "毕", "放"};
+
+        private final int producers;
+        private final int actorCount;
+        private final int capacity;
+        private final int empty;
+        private final int full;
+        private final int mutex;
+        private final int count;
+
+        ProducerConsumerModel(int producers, int consumers, int capacity) {
+            super(String.format(Locale.ROOT, "生产者-消费者(%d生产%d消费, 容量%d)", producers, consumers, capacity),
+                    producers + consumers, widths(producers + consumers, capacity));
+            this.producers = producers;
+            this.actorCount = producers + consumers;
+            this.capacity = capacity;
+            empty = actorCount;
+            full = empty + 1;
+            mutex = full + 1;
+            count = mutex + 1;
+        }
+
+        private static int[] widths(int actors, int capacity) {
+            int[] widths = new int[actors + 4];
+            Arrays.fill(widths, 0, actors, 3);
+            widths[actors] = bits(capacity);
+            widths[actors + 1] = bits(capacity);
+            widths[actors + 2] = 1;
+            widths[actors + 3] = bits(capacity + 1);
+            return widths;
+        }
+
+        @Override
+        void initial(int[] v) {
+            Arrays.fill(v, 0);
+            v[empty] = capacity;
+            v[mutex] = 1;
+        }
+
+        @Override
+        void transitions(int[] v, int a, Transitions out) {
+            boolean producer = a < producers;
+            // 生产者先等空槽位、最后释放满槽位，消费者相反
+            int waitOn = producer ? empty : full;
+            int signal = producer ? full : empty;
+            int[] next;
+            switch (v[a]) {
+                case IDLE:
+                    out.add(a, producer ? "准备生产" : "准备消费", with(v, a, WANT), false, true);
+                    break;
+                case WANT:
+                    if (v[waitOn] > 0) {
+                        next = with(v, a, HAS_SLOT);
+                        next[waitOn]--;
+                        out.add(a, producer ? "获取emptySlots" : "获取fullSlots", next, false, false);
+                    }
+                    break;
+                case HAS_SLOT:
+                    if (v[mutex] > 0) {
+                        next = with(v, a, IN_MUTEX);
+                        next[mutex] = 0;
+                        out.add(a, "获取mutex", next, false, false);
+                    }
+                    break;
+                case IN_MUTEX:
+                    next = with(v, a, DONE);
+                    next[count] = producer ? Math.min(capacity + 1, v[count] + 1) : Math.max(0, v[count] - 1);
+                    out.add(a, producer ? "放入物品" : "取出物品", next, true, false);
+                    break;
+                case DONE:
+                    next = with(v, a, RELEASED);
+                    next[mutex] = 1;
+                    out.add(a, "释放mutex", next, false, false);
+                    break;
+                case RELEASED:
+                    next = with(v, a, IDLE);
+                    next[signal] = Math.min(capacity, v[signal] + 1);
+                    out.add(a, producer ? "释放fullSlots" : "释放emptySlots", next, false, false);
+                    break;
+            }
+        }
+
+        @Override
+        String violation(int[] v) {
+            int inside = 0;
+            boolean busy = false;
+            for (int a = 0; a < actorCount; a++) {
+                if (v[a] == IN_MUTEX || v[a] == DONE) {
+                    inside++;
+                }
+                if (v[a] >= HAS_SLOT) {
+                    busy = true;
+                }
+            }
+            if (inside > 1) {
+                return "互斥被破坏：多个线程同时在临界区";
+            }
+            if (v[count] > capacity) {
+                return "缓冲区溢出";
+            }
+            if (!busy && (v[empty] + v[full] != capacity || v[full] != v[count])) {
+                return "信号量计数不守恒：emptySlots+fullSlots≠容量";
+            }
+            return null;
+        }
+
+        @Override
+        boolean isWaiting(int[] v, int a) {
+            return v[a] == WANT || v[a] == HAS_SLOT;
+        }
+
+        @Override
+        String actorName(int a) {
+            return a < producers ? "生产者" + a : "消费者" + (a - producers);
+        }
+
+        @Override
+        String describe(int[] v) {
+            StringBuilder text = new StringBuilder("[");
+            for (int a = 0; a < actorCount; a++) {
+                text.append(a > 0 ? " " : "").append(NAMES[v[a]]);
+            }
+            return text.append(String.format(Locale.ROOT, "] 物品=%d emptySlots=%d fullSlots=%d mutex=%d",
+                    v[count], v[empty], v[full], v[mutex])).toString();
+        }
+    }
+
+    // ---------------------------------------------------------------- 命令行
+
+    /**
+     * 按问题类型列出要检查的模型；strategy为null时检查该问题的全部策略。
+     */
+    public static List<Model> models(BatchConfig.Problem problem, String strategy, boolean holdAndWait) {
+        List<Model> models = new ArrayList<>();
+        switch (problem) {
+            case READERS_WRITERS:
+                for (ReadWriteResource.Strategy s : ReadWriteResource.Strategy.values()) {
+                    if (strategy == null || s.name().equals(strategy)) {
+                        models.add(readersWriters(3, 2, s));
+                    }
+                }
+                break;
+            case PRODUCER_CONSUMER:
+                models.add(producerConsumer(1, 1, 2));
+                break;
+            case PHILOSOPHERS:
+            default:
+                for (DiningTable.Strategy s : DiningTable.Strategy.values()) {
+                    if (strategy == null || s.name().equals(strategy)) {
+                        models.add(philosophers(5, s, holdAndWait && s == DiningTable.Strategy.NO_STRATEGY));
+                    }
+                }
+                break;
+        }
+        if (models.isEmpty()) {
+            throw new IllegalArgumentException("未知策略: " + strategy);
+        }
+        return models;
+    }
+
+    public static void main(String[] args) {
+        BatchConfig.Problem problem = BatchConfig.Problem.PHILOSOPHERS;
+        String strategy = null;
+        boolean partialOrder = true;
+        boolean holdAndWait = false;
+
+        List<Model> models;
+        try {
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("无法识别的参数: " + arg);
+                }
+                String key = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (key) {
+                    case "problem":
+                        problem = BatchConfig.Problem.fromName(value);
+                        break;
+                    case "strategy":
+                        strategy = value.equalsIgnoreCase("all") ? null : value.toUpperCase(Locale.ROOT);
+                        break;
+                    case "por":
+                        partialOrder = Boolean.parseBoolean(value);
+                        break;
+                    case "hold-and-wait":
+                        holdAndWait = Boolean.parseBoolean(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("未知参数: --" + key);
+                }
+            }
+            models = models(problem, strategy, holdAndWait);
+        } catch (IllegalArgumentException e) {
+            System.err.println("参数错误: " + e.getMessage());
+            System.err.println("用法: ModelChecker --problem=philosophers|readers-writers|producer-consumer"
+                    + " [--strategy=名称|all] [--por=true] [--hold-and-wait=false]");
+            System.exit(2);
+            return;
+        }
+
+        ModelChecker checker = new ModelChecker(partialOrder);
+        boolean clean = true;
+        for (Model model : models) {
+            Report report = checker.check(model);
+            System.out.print(report);
+            clean &= report.isClean();
+        }
+        System.exit(clean ? 0 : 1);
+    }
+}
@@ -0,0 +1,76 @@
+package com.hell.osdemo;
+
+import java.util.ArrayDeque;
+
+/**
+ * OverloadBuffer的溢出区，按先进先出保存放不进缓冲区的物品。
+ * 实现不需要线程安全，OverloadBuffer总是在持有溢出区锁时调用。
+ */
+public interface OverflowStore<T> {
+
+    /** 追加到队尾，溢出区已满返回false */
+    boolean append(T item);
+
+    /** 队首物品，不移除；为空返回null */
+    T peek();
+
+    /** 移除并返回队首物品；为空返回null */
+    T poll();
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** 溢出区状态的简短描述，显示在缓冲区计数旁 */
+    String describe();
+
+    /** 释放占用的文件等资源 */
+    default void close() {
+    }
+
+    /** 内存中的溢出区，最多保存capacity个物品，满了由OverloadBuffer丢弃 */
+    class Memory<T> implements OverflowStore<T> {
+        public static final int DEFAULT_CAPACITY = 10_000;
+
+        private final ArrayDeque<T> items = new ArrayDeque<>();
+        private final int capacity;
+
+        public Memory(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("溢出区容量必须大于0");
+            }
+            this.capacity = capacity;
+        }
+
+        @Override
+        public boolean append(T item) {
+            if (items.size() >= capacity) {
+                return false;
+            }
+            items.addLast(item);
+            return true;
+        }
+
+        @Override
+        public T peek() {
+            return items.peekFirst();
+        }
+
+        @Override
+        public T poll() {
+            return items.pollFirst();
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
+
+        @Override
+        public String describe() {
+            return "溢出区:" + items.size() + "/" + capacity;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在缓冲区外加一层过载策略：除了 OverloadSink 的阻塞、限时阻塞、丢弃最新和生产者代为处理，
+ * 还支持需要从缓冲区取出物品的丢弃最旧和暂存到溢出区，并统计溢出的物品数。
+ * 溢出区中的物品总比缓冲区中的新，消费者每取走一个就按先进先出补入缓冲区。
+ * 溢出区可以在内存中，也可以是磁盘上的内存映射文件（见 MappedSpillFile），满了就丢弃。
+ */
+public class OverloadBuffer<T> extends OverloadSink<T> implements ItemBuffer<T> {
+
+    // 溢出模式下消费者等待的间隔，没有容量的缓冲区靠它发现溢出区中的物品
+    private static final long SPILL_RECHECK_MILLIS = 50;
+
+    private final ItemBuffer<T> buffer;
+    // 溢出区，同时作为溢出和补入的锁
+    private final OverflowStore<T> overflow;
+
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder overflowFull = new LongAdder();
+
+    public OverloadBuffer(ItemBuffer<T> buffer, Policy policy, long timeoutMillis, ItemHandler<T> callerRuns) {
+        this(buffer, policy, timeoutMillis, callerRuns, new OverflowStore.Memory<>(OverflowStore.Memory.DEFAULT_CAPACITY));
+    }
+
+    public OverloadBuffer(ItemBuffer<T> buffer, Policy policy, long timeoutMillis, ItemHandler<T> callerRuns,
+                          OverflowStore<T> overflow) {
+        super(buffer, policy, timeoutMillis, callerRuns, true);
+        this.buffer = buffer;
+        this.overflow = overflow;
+    }
+
+    @Override
+    int putRemoving(T item) throws InterruptedException {
+        if (policy.spills()) {
+            return spill(item);
+        }
+        // DROP_OLDEST
+        int slot = buffer.offer(item, 0, TimeUnit.MILLISECONDS);
+        if (slot >= 0) {
+            return slot;
+        }
+        // 挤掉队首的物品；没有容量的缓冲区挤不出位置，退化为丢弃最新
+        T evicted = buffer.poll(0, TimeUnit.MILLISECONDS);
+        if (evicted != null) {
+            drop(evicted);
+        }
+        slot = buffer.offer(item, 0, TimeUnit.MILLISECONDS);
+        return slot >= 0 ? slot : drop(item);
+    }
+
+    private int spill(T item) throws InterruptedException {
+        synchronized (overflow) {
+            refill();
+            // 溢出区不空时新物品只能排在后面，否则会插队
+            if (overflow.isEmpty()) {
+                int slot = buffer.offer(item, 0, TimeUnit.MILLISECONDS);
+                if (slot >= 0) {
+                    return slot;
+                }
+            }
+            // 溢出区也满了（内存溢出区达到容量或磁盘占用达到上限）只能丢弃
+            if (!overflow.append(item)) {
+                overflowFull.increment();
+                return drop(item);
+            }
+            spilled.increment();
+            return SPILLED;
+        }
+    }
+
+    // 把溢出区队首的物品依次补入缓冲区，直到缓冲区满；调用方持有overflow锁
+    private void refill() throws InterruptedException {
+        while (!overflow.isEmpty() && buffer.offer(overflow.peek(), 0, TimeUnit.MILLISECONDS) >= 0) {
+            overflow.poll();
+        }
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        if (!policy.spills()) {
+            return buffer.take();
+        }
+        while (true) {
+            T item = poll(SPILL_RECHECK_MILLIS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+        }
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        T item = buffer.poll(timeout, unit);
+        if (!policy.spills()) {
+            return item;
+        }
+        synchronized (overflow) {
+            if (item != null) {
+                refill();
+                return item;
+            }
+            // 缓冲区为空（或没有容量）时溢出区队首就是最旧的物品
+            if (!overflow.isEmpty() && buffer.count() == 0) {
+                return overflow.poll();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long getSpilled() {
+        return spilled.sum();
+    }
+
+    @Override
+    public long getOverflowDropped() {
+        return overflowFull.sum();
+    }
+
+    public int overflowSize() {
+        synchronized (overflow) {
+            return overflow.size();
+        }
+    }
+
+    public OverflowStore<T> getOverflow() {
+        return overflow;
+    }
+
+    /** 关闭溢出区，删除磁盘上的溢出文件 */
+    public void close() {
+        synchronized (overflow) {
+            overflow.close();
+        }
+    }
+
+    @Override
+    public String describe() {
+        synchronized (overflow) {
+            return overflow.isEmpty() ? buffer.describe() : buffer.describe() + " " + overflow.describe();
+        }
+    }
+}
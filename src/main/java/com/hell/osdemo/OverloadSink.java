@@ -0,0 +1,197 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 在缓冲区的生产者一侧加一层过载策略：缓冲区满时生产者是阻塞、限时阻塞、丢弃还是自己处理，
+ * 并统计丢弃、代为处理的物品数和生产者被拖住的总时间。
+ * 这些策略都不需要从缓冲区取出物品，推模式的 FlowPipeline 也适用；
+ * 挤掉最旧的物品和暂存到溢出区需要取出一侧，见 OverloadBuffer。
+ */
+public class OverloadSink<T> implements ItemSink<T> {
+
+    public enum Policy {
+        BLOCK("阻塞"),
+        TIMEOUT("限时阻塞"),
+        DROP_NEWEST("丢弃最新"),
+        DROP_OLDEST("丢弃最旧"),
+        CALLER_RUNS("生产者代为处理"),
+        SPILL("溢出暂存"),
+        SPILL_DISK("溢出到磁盘");
+
+        private final String label;
+
+        Policy(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public boolean spills() {
+            return this == SPILL || this == SPILL_DISK;
+        }
+
+        /** 是否需要从缓冲区取出物品（挤掉最旧的、从溢出区补入），只有 OverloadBuffer 支持 */
+        public boolean removes() {
+            return this == DROP_OLDEST || spills();
+        }
+
+        public static Policy fromLabel(String label) {
+            for (Policy policy : values()) {
+                if (policy.label.equals(label)) {
+                    return policy;
+                }
+            }
+            return BLOCK;
+        }
+    }
+
+    /** CALLER_RUNS时由生产者线程直接处理物品 */
+    public interface ItemHandler<T> {
+        void handle(T item) throws InterruptedException;
+    }
+
+    // put()在物品没有进入缓冲区时的返回值
+    public static final int DROPPED = -1;
+    public static final int CALLER_RAN = -2;
+    public static final int SPILLED = -3;
+
+    private final ItemSink<T> sink;
+    final Policy policy;
+    private final long timeoutMillis;
+    private final ItemHandler<T> callerRuns;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder callerRan = new LongAdder();
+    private final LongAdder stallNanos = new LongAdder();
+    // 每个被丢弃的物品（包括被挤掉的）都交给它，例如归还对象池
+    private volatile Consumer<T> dropListener = item -> { };
+
+    /**
+     * policy不能是需要取出物品的策略（见 Policy.removes()），那些策略用 OverloadBuffer。
+     */
+    public OverloadSink(ItemSink<T> sink, Policy policy, long timeoutMillis, ItemHandler<T> callerRuns) {
+        this(sink, policy, timeoutMillis, callerRuns, false);
+    }
+
+    // removing为true时由子类处理需要取出物品的策略
+    OverloadSink(ItemSink<T> sink, Policy policy, long timeoutMillis, ItemHandler<T> callerRuns, boolean removing) {
+        if (policy.removes() && !removing) {
+            throw new IllegalArgumentException(policy.getLabel() + "需要从缓冲区取出物品，请使用OverloadBuffer");
+        }
+        this.sink = sink;
+        this.policy = policy;
+        this.timeoutMillis = timeoutMillis;
+        this.callerRuns = callerRuns;
+    }
+
+    public void setDropListener(Consumer<T> dropListener) {
+        this.dropListener = dropListener;
+    }
+
+    /**
+     * 按过载策略放入，返回槽位，或DROPPED / CALLER_RAN / SPILLED。
+     * 从调用到返回的时间都计为生产者被拖住的时间，包括代为处理物品的时间。
+     */
+    @Override
+    public int put(T item) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            int slot;
+            switch (policy) {
+                case TIMEOUT:
+                    slot = sink.offer(item, timeoutMillis, TimeUnit.MILLISECONDS);
+                    return slot >= 0 ? slot : drop(item);
+                case DROP_NEWEST:
+                    slot = sink.offer(item, 0, TimeUnit.MILLISECONDS);
+                    return slot >= 0 ? slot : drop(item);
+                case CALLER_RUNS:
+                    slot = sink.offer(item, 0, TimeUnit.MILLISECONDS);
+                    if (slot >= 0) {
+                        return slot;
+                    }
+                    callerRan.increment();
+                    callerRuns.handle(item);
+                    return CALLER_RAN;
+                case BLOCK:
+                    return sink.put(item);
+                default:
+                    return putRemoving(item);
+            }
+        } finally {
+            stallNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // 需要取出物品的策略，构造时已经排除，只有 OverloadBuffer 会走到这里
+    int putRemoving(T item) throws InterruptedException {
+        throw new IllegalStateException(policy.getLabel() + "需要从缓冲区取出物品");
+    }
+
+    int drop(T item) {
+        dropped.increment();
+        dropListener.accept(item);
+        return DROPPED;
+    }
+
+    @Override
+    public int offer(T item, long timeout, TimeUnit unit) throws InterruptedException {
+        return sink.offer(item, timeout, unit);
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /** 被丢弃的物品数，包括DROP_OLDEST挤掉的和溢出区满时丢弃的 */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /** 暂存到溢出区的物品数，没有溢出区时为0 */
+    public long getSpilled() {
+        return 0;
+    }
+
+    /** 因溢出区已满而丢弃的物品数，已计入getDropped；没有溢出区时为0 */
+    public long getOverflowDropped() {
+        return 0;
+    }
+
+    public long getCallerRuns() {
+        return callerRan.sum();
+    }
+
+    public long getStallNanos() {
+        return stallNanos.sum();
+    }
+
+    @Override
+    public int capacity() {
+        return sink.capacity();
+    }
+
+    @Override
+    public int count() {
+        return sink.count();
+    }
+
+    @Override
+    public T peek(int slot) {
+        return sink.peek(slot);
+    }
+
+    @Override
+    public String describe() {
+        return sink.describe();
+    }
+
+    @Override
+    public InvariantChecker getInvariants() {
+        return sink.getInvariants();
+    }
+}
@@ -0,0 +1,55 @@
+package com.hell.osdemo;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 暂停闸门：三个演示共用的暂停/继续机制。
+ * 暂停期间工作线程通过 LockSupport.park 挂起，不占用CPU；
+ * 继续时立即唤醒，线程保留各自的状态继续运行。
+ */
+public class PauseGate {
+
+    private volatile boolean paused = false;
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+        // 唤醒所有挂起的线程
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * 工作线程在每轮循环开始处调用；未暂停时只是一次volatile读。
+     */
+    public void awaitIfPaused() throws InterruptedException {
+        if (!paused) {
+            return;
+        }
+
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            // 入队后再检查一次，避免错过resume()的唤醒
+            while (paused) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiters.remove(current);
+        }
+    }
+}
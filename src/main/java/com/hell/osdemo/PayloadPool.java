@@ -0,0 +1,155 @@
+package com.hell.osdemo;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 生产者-消费者物品的对象池：物品对象预先创建，每个带一段固定大小的堆外负载，
+ * 负载是同一块直接内存上的切片。生产者取出并填写，消费者读完后归还，物品和负载在稳定运行时不再分配。
+ * 池化的只是物品：线程在信号量或阻塞队列上挂起时，JDK的同步器每次仍会分配一个等待节点，
+ * 只有用不挂起的等待方式（--wait=busy-spin 或 spin-yield）热路径上才没有分配。
+ * 池空时临时新建一个堆内负载的物品（计入未命中）而不是阻塞，避免和缓冲区的等待互相卡住。
+ * 不池化时每次都新建、归还即丢弃，用来对比每个物品一次分配的开销。
+ */
+public class PayloadPool {
+
+    /** 池中的物品：序号、生产时刻和负载 */
+    public static final class Payload {
+        private final ByteBuffer data;
+        private long sequence;
+        private long producedAt;
+
+        Payload(ByteBuffer data) {
+            this.data = data;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getProducedAt() {
+            return producedAt;
+        }
+
+        public ByteBuffer getData() {
+            return data;
+        }
+
+        // 把序号写进负载的首尾，模拟生产者填写内容
+        void fill(long sequence, long producedAt) {
+            this.sequence = sequence;
+            this.producedAt = producedAt;
+            int size = data.capacity();
+            if (size >= Long.BYTES) {
+                data.putLong(0, sequence);
+            }
+            if (size > 0) {
+                data.put(size - 1, (byte) sequence);
+            }
+        }
+
+        /**
+         * 读取负载并核对序号，模拟消费者处理内容；负载被改写时返回false。
+         */
+        public boolean verify() {
+            int size = data.capacity();
+            if (size >= Long.BYTES && data.getLong(0) != sequence) {
+                return false;
+            }
+            return size == 0 || data.get(size - 1) == (byte) sequence;
+        }
+    }
+
+    private final int payloadBytes;
+    private final boolean pooled;
+    // 空闲物品；poll/offer在无竞争时不分配
+    private final ArrayBlockingQueue<Payload> free;
+    private final LongAdder misses = new LongAdder();
+
+    public PayloadPool(int size, int payloadBytes) {
+        this(size, payloadBytes, true);
+    }
+
+    public PayloadPool(int size, int payloadBytes, boolean pooled) {
+        this.payloadBytes = payloadBytes;
+        this.pooled = pooled;
+        this.free = new ArrayBlockingQueue<>(Math.max(1, size));
+        if (pooled) {
+            ByteBuffer arena = ByteBuffer.allocateDirect(size * payloadBytes);
+            for (int i = 0; i < size; i++) {
+                free.add(new Payload(arena.slice(i * payloadBytes, payloadBytes)));
+            }
+        }
+    }
+
+    /**
+     * 取出一个物品并填写序号和生产时刻。
+     */
+    public Payload acquire(long sequence, long producedAt) {
+        Payload payload = pooled ? free.poll() : null;
+        if (payload == null) {
+            if (pooled) {
+                misses.increment();
+            }
+            payload = new Payload(ByteBuffer.allocate(payloadBytes));
+        }
+        payload.fill(sequence, producedAt);
+        return payload;
+    }
+
+    /** 归还物品；不池化或池已满（未命中时新建的物品）则交给GC */
+    public void release(Payload payload) {
+        if (pooled) {
+            free.offer(payload);
+        }
+    }
+
+    public int getPayloadBytes() {
+        return payloadBytes;
+    }
+
+    public boolean isPooled() {
+        return pooled;
+    }
+
+    public int available() {
+        return free.size();
+    }
+
+    /** 池空时临时新建物品的次数 */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 溢出到磁盘的格式：序号(long) + 生产时刻(long) + 负载。
+     * 写出后物品即归还给池，读回时从池中重新取出，磁盘上的物品不占用池。
+     */
+    public MappedSpillFile.Codec<Payload> codec() {
+        return new MappedSpillFile.Codec<>() {
+            @Override
+            public int size(Payload item) {
+                return 2 * Long.BYTES + item.data.capacity();
+            }
+
+            @Override
+            public void write(Payload item, ByteBuffer out) {
+                out.putLong(item.sequence);
+                out.putLong(item.producedAt);
+                out.put(out.position(), item.data, 0, item.data.capacity());
+                out.position(out.position() + item.data.capacity());
+                release(item);
+            }
+
+            @Override
+            public Payload read(ByteBuffer in, int length) {
+                long sequence = in.getLong();
+                long producedAt = in.getLong();
+                Payload payload = acquire(sequence, producedAt);
+                payload.data.put(0, in, in.position(), length - 2 * Long.BYTES);
+                return payload;
+            }
+        };
+    }
+}
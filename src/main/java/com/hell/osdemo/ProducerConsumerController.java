@@ -1,72 +1,302 @@
 package com.hell.osdemo;
 
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
+import javafx.util.Duration;
+import com.hell.osdemo.PayloadPool.Payload;
 
 import java.net.URL;
-import java.util.Arrays;
-import java.util.Objects;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.concurrent.Semaphore;
-
-public class ProducerConsumerController implements Initializable {
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ProducerConsumerController implements Initializable, DemoLifecycle {
 
     @FXML private Button startButton;
     @FXML private Button pauseButton;
     @FXML private Button resetButton;
+    @FXML private ChoiceBox<String> backendChoice;
+    @FXML private ChoiceBox<String> overloadChoice;
+    @FXML private ChoiceBox<String> spillCapacityChoice;
+    @FXML private ChoiceBox<String> waitChoice;
+    @FXML private CheckBox slowConsumerBox;
+    @FXML private CheckBox elasticBox;
+    @FXML private Button burstButton;
+    @FXML private Label elasticStatsLabel;
+    @FXML private CheckBox forkBox;
+    @FXML private Label forkStatsLabel;
+    @FXML private Label overloadStatsLabel;
+    @FXML private Label allocationLabel;
+    @FXML private Button processButton;
+    @FXML private Label processStatsLabel;
     @FXML private Label producerStatus;
     @FXML private Label consumerStatus;
     @FXML private Label bufferCount;
     @FXML private HBox bufferContainer;
+    @FXML private TableView<BackendStats> backendTable;
     @FXML private TextArea logArea;
+    @FXML private LiveMetricsPanel metricsPanel;
 
     private static final int BUFFER_SIZE = 5;
-    private String[] buffer; // 共享缓冲区
-    private boolean isRunning = false;
-
-    // 同步信号量
-    private Semaphore emptySlots;    // 空槽位信号量
-    private Semaphore fullSlots;     // 满槽位信号量
-    private Semaphore mutex;         // 互斥信号量
+    // 限时阻塞策略等待空位的时长
+    private static final long OVERLOAD_TIMEOUT_MILLIS = 300;
+    // 溢出到磁盘时每段64KB，最多16段
+    private static final int SPILL_SEGMENT_BYTES = 64 * 1024;
+    private static final int SPILL_SEGMENTS = 16;
+    // 每个物品的负载字节数
+    private static final int PAYLOAD_BYTES = 64;
+    // 跨进程模式中生产者和消费者进程每个物品的耗时
+    private static final long PROCESS_HOLD_MILLIS = 500;
+    // 弹性消费者的数量范围和目标延迟（约为缓冲区半满时物品的等待时间），以及等待物品的时限
+    private static final int ELASTIC_MIN = 1;
+    private static final int ELASTIC_MAX = 4;
+    private static final long ELASTIC_TARGET_LATENCY_MILLIS = 2000;
+    private static final long ELASTIC_POLL_MILLIS = 200;
+    // 一次突发放入的物品数，以及之后检查缓冲区是否排空的间隔
+    private static final int BURST_ITEMS = BUFFER_SIZE * 2;
+    private static final long BURST_RECHECK_MILLIS = 50;
+    // 并行计算阶段每个物品的工作量（混洗次数）和叶子任务的最大工作量，单线程约几十毫秒
+    private static final int FORK_WORK = 1 << 25;
+    private static final int FORK_THRESHOLD = 1 << 16;
+    // 重置时等待旧的工作线程退出的最长时间，超时则不关闭旧流水线，溢出文件留到下次启动清理
+    private static final long WORKER_EXIT_MILLIS = 2000;
+    // 共享缓冲区的生产者一侧，实现由backendChoice选择，外层的过载策略由overloadChoice选择；
+    // 消费者从pipeline.getBuffer()取出，Flow的消费者是订阅者
+    private volatile OverloadSink<Payload> buffer;
+    // 组装出缓冲区、对象池和Flow发布者的流水线，与下面三个字段一起重建
+    private volatile ProducerConsumerPipeline pipeline;
+    // 生产者放入、消费者取出的等待方式，由waitChoice选择，流水线不支持时仍阻塞放入/取出
+    private volatile WaitStrategy waitStrategy = WaitStrategy.CLOCK;
+    // 物品对象池，与缓冲区一起重建
+    private volatile PayloadPool pool;
+    // 选择Flow时的发布者，消费者是它的订阅者而不是自己取物品的线程；其他实现为null
+    private FlowPipeline<Payload> flow;
+    // 消费者变慢时消费时间的倍数，用来制造消费跟不上生产的局面
+    private volatile int consumerSlowdown = 1;
+    private volatile boolean isRunning = false;
+    private final PauseGate pauseGate = new PauseGate();
+    private final MetricsWindow metrics = new MetricsWindow();
+    // 所有耗时都走模拟时钟，-Dosdemo.clock=100x 或 virtual 可加速演示
+    private final SimClock clock = SimClock.fromSystemProperty();
+    // 生产者和消费者线程的堆分配
+    private final AllocationMeter allocations = new AllocationMeter();
+    // 当前实现的统计，每秒刷新到对比表中
+    private volatile BackendStats stats;
+    private final Timeline statsTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> refreshStats()));
+    // 跨进程模式的共享缓冲区和参与者进程，界面只读取，不参与生产和消费
+    private SharedRingBuffer sharedRing;
+    private final List<Process> processes = new ArrayList<>();
+    private final Timeline observerTimeline = new Timeline(new KeyFrame(Duration.millis(200), e -> refreshShared()));
+    // 勾选弹性消费者时代替单个消费者线程，由定时器每半秒采样一次决定伸缩
+    private ElasticConsumerPool consumerPool;
+    private final Timeline scaleTimeline = new Timeline(new KeyFrame(Duration.millis(500), e -> sampleScale()));
+    // 最近一次突发的排空用时（纳秒），下标0为固定消费者、1为弹性消费者，-1表示还没有
+    private final long[] burstDrainNanos = {-1, -1};
+    private Thread burstThread;
+    // 勾选并行计算时消费者把每个物品的工作量交给ForkJoin线程池，等算完再继续；
+    // 线程池勾选时创建，取消勾选或界面销毁时关闭，不勾选时为null
+    private volatile ForkJoinStage forkStage;
+    // 上一次刷新时每个工作线程的计算时间，用来折算这一秒的利用率
+    private final Map<String, Long> forkBusyAtRefresh = new HashMap<>();
+    private long forkRefreshedAt;
 
     private Thread producerThread;
     private Thread consumerThread;
-    private int itemId = 0;
-    private int in = 0;  // 生产者指针
-    private int out = 0; // 消费者指针
-
+    // 创建过的所有工作线程（生产者、消费者、弹性消费者、Flow订阅者和突发线程），重置时等它们退出
+    private final List<Thread> workers = new CopyOnWriteArrayList<>();
+    // 生产者和突发线程共用的物品序号
+    private final AtomicLong itemId = new AtomicLong();
+    // 每次重置递增，只安装最近一次重置构建的缓冲区
+    private int resetGeneration = 0;
+
+    // 物品只带序号，名称在显示时才拼出来
+    private static String itemName(long sequence) {
+        return "物品" + sequence;
+    }
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        initializeBuffer();
-        initializeSemaphores();
+        statsTimeline.setCycleCount(Timeline.INDEFINITE);
+        observerTimeline.setCycleCount(Timeline.INDEFINITE);
+        scaleTimeline.setCycleCount(Timeline.INDEFINITE);
+        setupBackendTable();
+        backendChoice.getSelectionModel().selectFirst();
+        overloadChoice.getSelectionModel().selectFirst();
+        spillCapacityChoice.getSelectionModel().select("100");
+        waitChoice.getSelectionModel().selectFirst();
+        installBuffer(new BufferModel(selectedBackend(), selectedPolicy(), selectedSpillCapacity(), true));
         pauseButton.setDisable(true);
+        // 队列深度为缓冲区中的物品数，活动线程为未阻塞在信号量上的线程数
+        metricsPanel.bind(metrics, () -> buffer.count(),
+                () -> countActive(producerThread) + countActive(consumerThread) + countActive(consumerPool));
+
+        // 切换实现需要重建缓冲区，运行中则重建后继续
+        backendChoice.setOnAction(e -> {
+            logMessage("缓冲区实现: " + backendChoice.getValue());
+            resetModel(isRunning ? this::startSimulation : null);
+        });
+        overloadChoice.setOnAction(e -> {
+            logMessage("过载策略: " + overloadChoice.getValue());
+            resetModel(isRunning ? this::startSimulation : null);
+        });
+        // 只有内存溢出区使用这个容量
+        spillCapacityChoice.setOnAction(e -> {
+            logMessage("溢出区容量: " + spillCapacityChoice.getValue());
+            if (selectedPolicy() == OverloadBuffer.Policy.SPILL) {
+                resetModel(isRunning ? this::startSimulation : null);
+            }
+        });
+        // 自旋、挂起都不经过模拟时钟，虚拟时钟下时间无法推进
+        waitChoice.setDisable(clock instanceof VirtualClock);
+        waitChoice.setOnAction(e -> {
+            waitStrategy = WaitStrategy.fromLabel(waitChoice.getValue());
+            logMessage("等待方式: " + waitStrategy.getLabel()
+                    + (waitStrategy == WaitStrategy.CLOCK || pipeline.retries(waitStrategy) ? "" : "（当前缓冲区实现或过载策略不适用，仍阻塞）"));
+        });
+        slowConsumerBox.selectedProperty().addListener((obs, oldVal, newVal) -> {
+            consumerSlowdown = newVal ? 3 : 1;
+            logMessage(newVal ? "消费者变慢，消费时间×3" : "消费者恢复正常速度");
+        });
+        forkBox.selectedProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal) {
+                forkStage = new ForkJoinStage(Runtime.getRuntime().availableProcessors(), FORK_THRESHOLD);
+                forkBusyAtRefresh.clear();
+                forkRefreshedAt = System.nanoTime();
+                logMessage("并行计算：每个物品 " + FORK_WORK + " 次运算，在 " + forkStage.getParallelism()
+                        + " 个ForkJoin工作线程上分治执行");
+            } else {
+                shutdownForkStage();
+                logMessage("并行计算关闭");
+            }
+        });
+        // 弹性消费者限时等待物品以便发现缩容，虚拟时钟把限时等待当作仍在运行，时间无法推进
+        elasticBox.setDisable(clock instanceof VirtualClock);
+        elasticBox.selectedProperty().addListener((obs, oldVal, newVal) -> {
+            logMessage(newVal ? "弹性消费者：" + ELASTIC_MIN + "-" + ELASTIC_MAX + " 个，按缓冲区占用和消费延迟伸缩"
+                    + (flow != null ? "（Flow的消费者是订阅者，不适用）" : "") : "固定单个消费者");
+            resetModel(isRunning ? this::startSimulation : null);
+        });
     }
 
-    private void initializeBuffer() {
-        buffer = new String[BUFFER_SIZE];
-        bufferContainer.getChildren().clear();
+    private ItemBuffer.Backend selectedBackend() {
+        return ItemBuffer.Backend.fromLabel(backendChoice.getValue());
+    }
 
-        for (int i = 0; i < BUFFER_SIZE; i++) {
-            buffer[i] = null;
-            VBox slotContainer = createBufferSlot(i);
-            bufferContainer.getChildren().add(slotContainer);
+    private OverloadBuffer.Policy selectedPolicy() {
+        return OverloadBuffer.Policy.fromLabel(overloadChoice.getValue());
+    }
+
+    private int selectedSpillCapacity() {
+        return Integer.parseInt(spillCapacityChoice.getValue());
+    }
+
+    private void setupBackendTable() {
+        backendTable.getColumns().add(column("缓冲区实现", BackendStats::getBackend));
+        backendTable.getColumns().add(column("吞吐量(次/秒)", BackendStats::getThroughput));
+        backendTable.getColumns().add(column("延迟p50(ms)", BackendStats::getP50));
+        backendTable.getColumns().add(column("延迟p99(ms)", BackendStats::getP99));
+        backendTable.getColumns().add(column("分配(KB/s)", BackendStats::getAllocationRate));
+        backendTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        // 每种实现一行，切换实现后其他行保留上一次运行的结果用于对比
+        for (ItemBuffer.Backend backend : ItemBuffer.Backend.values()) {
+            backendTable.getItems().add(new BackendStats(backend));
         }
+    }
+
+    private static TableColumn<BackendStats, String> column(String title, Function<BackendStats, String> getter) {
+        TableColumn<BackendStats, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new SimpleObjectProperty<>(getter.apply(cell.getValue())));
+        column.setSortable(false);
+        return column;
+    }
+
+    private void refreshStats() {
+        stats.setAllocatedBytes(allocations.bytes());
+        // 需求和积压在两次生产/消费之间也会变化
         updateBufferCount();
+        backendTable.refresh();
+        overloadStatsLabel.setText(String.format(Locale.ROOT,
+                "丢弃 %d（溢出区满 %d） · 溢出 %d · 代为处理 %d · 生产者阻塞 %d ms",
+                buffer.getDropped(), buffer.getOverflowDropped(), buffer.getSpilled(), buffer.getCallerRuns(),
+                buffer.getStallNanos() / 1_000_000));
+
+        // 每个线程的分配速率；只有物品来自对象池，线程阻塞时同步器的等待节点、日志字符串和界面更新仍会分配
+        StringBuilder text = new StringBuilder("分配(KB/s，仅物品池化):");
+        for (Map.Entry<String, Long> entry : allocations.perThread().entrySet()) {
+            text.append(' ').append(entry.getKey()).append(' ').append(stats.rate(entry.getValue())).append(" ·");
+        }
+        text.append(" 对象池空闲 ").append(pool.available()).append(" 未命中 ").append(pool.getMisses());
+        allocationLabel.setText(text.toString());
+        refreshElasticStats();
+        refreshForkStats();
+    }
+
+    // 每个工作线程累计的窃取次数和这一秒的利用率（叶子任务上的计算时间占比）
+    private void refreshForkStats() {
+        ForkJoinStage stage = forkStage;
+        if (stage == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long interval = Math.max(1, now - forkRefreshedAt);
+        forkRefreshedAt = now;
+        StringBuilder text = new StringBuilder("ForkJoin 窃取/利用率:");
+        for (ForkJoinStage.WorkerStats worker : stage.snapshot()) {
+            long busy = worker.getBusyNanos() - forkBusyAtRefresh.getOrDefault(worker.getName(), 0L);
+            forkBusyAtRefresh.put(worker.getName(), worker.getBusyNanos());
+            text.append(String.format(Locale.ROOT, " %s %d/%.0f%% ·", worker.getName(), worker.getSteals(),
+                    busy * 100.0 / interval));
+        }
+        text.append(" 线程池窃取 ").append(stage.getPoolStealCount());
+        forkStatsLabel.setText(text.toString());
+    }
+
+    private void refreshElasticStats() {
+        ElasticConsumerPool current = consumerPool;
+        String workers = current == null ? "消费者 1"
+                : String.format(Locale.ROOT, "消费者 %d（%d-%d）· 扩容 %d · 缩容 %d", current.getWorkers(),
+                ELASTIC_MIN, ELASTIC_MAX, current.getScaleUps(), current.getScaleDowns());
+        boolean draining = burstThread != null && burstThread.isAlive();
+        elasticStatsLabel.setText(workers + " · 突发排空: 固定 " + drainSeconds(burstDrainNanos[0])
+                + " · 弹性 " + drainSeconds(burstDrainNanos[1]) + (draining ? " · 排空中..." : ""));
+    }
+
+    private static String drainSeconds(long nanos) {
+        return nanos < 0 ? "-" : String.format(Locale.ROOT, "%.1f s", nanos / 1e9);
     }
 
-    private void initializeSemaphores() {
-        emptySlots = new Semaphore(BUFFER_SIZE); // 初始有BUFFER_SIZE个空槽位
-        fullSlots = new Semaphore(0);            // 初始没有满槽位
-        mutex = new Semaphore(1);                // 二进制信号量，用于互斥
+    // 槽位节点还未加入场景，可以在后台线程创建；无界队列只显示队首的BUFFER_SIZE个物品
+    private List<VBox> createBufferSlots(int capacity) {
+        return IntStream.range(0, Math.min(capacity, BUFFER_SIZE))
+                .mapToObj(this::createBufferSlot).collect(Collectors.toList());
     }
 
     private VBox createBufferSlot(int index) {
@@ -88,97 +318,308 @@ public class ProducerConsumerController implements Initializable {
 
     @FXML
     private void startSimulation() {
+        // 跨进程模式中由参与者进程生产和消费，不启动进程内的线程
+        if (sharedRing != null) {
+            return;
+        }
+        // 暂停后继续：线程仍然存活，直接放行
+        if (isRunning && pauseGate.isPaused()) {
+            pauseGate.resume();
+            metricsPanel.start();
+            stats.resume();
+            statsTimeline.play();
+            if (consumerPool != null) {
+                scaleTimeline.play();
+            }
+            logMessage("模拟继续");
+            startButton.setDisable(true);
+            pauseButton.setDisable(false);
+            return;
+        }
+
         if (!isRunning) {
             isRunning = true;
 
             // 启动生产者线程
-            producerThread = new Thread(this::producer);
+            producerThread = new Thread(this::producer, "生产者");
             producerThread.setDaemon(true);
 
-            // 启动消费者线程
-            consumerThread = new Thread(this::consumer);
-            consumerThread.setDaemon(true);
-
+            allocations.register(producerThread);
+            workers.add(producerThread);
+            if (flow != null) {
+                // Flow：订阅后发布者在自己的执行线程上推送物品，该线程即消费者
+                subscribeConsumer();
+            } else if (elasticBox.isSelected()) {
+                startConsumerPool();
+            } else {
+                // 启动消费者线程
+                consumerThread = new Thread(this::consumer, "消费者");
+                consumerThread.setDaemon(true);
+                allocations.register(consumerThread);
+                workers.add(consumerThread);
+                consumerThread.start();
+            }
             producerThread.start();
-            consumerThread.start();
+            metricsPanel.start();
+            stats.resume();
+            statsTimeline.play();
 
-            logMessage("信号量同步模拟开始...");
+            logMessage("同步模拟开始 - 缓冲区: " + backendChoice.getValue());
             startButton.setDisable(true);
             pauseButton.setDisable(false);
         }
     }
 
     private void producer() {
+        // 只使用启动时的缓冲区，重置后残留的旧线程不会碰到新缓冲区
+        ProducerConsumerPipeline pipeline = this.pipeline;
+        PayloadPool pool = pipeline.getPool();
+        clock.register(Thread.currentThread());
         while (isRunning && !Thread.currentThread().isInterrupted()) {
             try {
-                Platform.runLater(() -> producerStatus.setText("等待生产..."));
-
-                // 生产者算法
-                String item = "物品" + (++itemId);
-
-                logMessage("生产者准备生产: " + item);
+                pauseGate.awaitIfPaused();
 
-                emptySlots.acquire(); // 等待空槽位
-                mutex.acquire();      // 进入临界区
-
-                // 生产物品
-                buffer[in] = item;
-                int currentIn = in;
-                in = (in + 1) % BUFFER_SIZE;
+                Platform.runLater(() -> producerStatus.setText("等待生产..."));
 
+                // 生产者算法：从对象池取出物品并填写
+                long sequence = itemId.incrementAndGet();
+                Payload item = pool.acquire(sequence, clock.nanoTime());
+                // 放入缓冲区后物品可能已被消费并回到池中，之后只用序号
+                String name = itemName(sequence);
+
+                logMessage("生产者准备生产: " + name);
+
+                // 生产物品：缓冲区满时按过载策略处理
+                long waitStart = clock.nanoTime();
+                int slot = pipeline.put(item, waitStrategy);
+                metrics.recordOp(clock.nanoTime() - waitStart);
+
+                String outcome;
+                switch (slot) {
+                    case OverloadBuffer.DROPPED:
+                        outcome = "缓冲区满，已丢弃";
+                        break;
+                    case OverloadBuffer.CALLER_RAN:
+                        outcome = "缓冲区满，已由生产者处理";
+                        break;
+                    case OverloadBuffer.SPILLED:
+                        outcome = "缓冲区满，暂存到溢出区";
+                        break;
+                    default:
+                        outcome = "位置:" + slot;
+                        break;
+                }
                 Platform.runLater(() -> {
-                    updateBufferSlot(currentIn, item, true);
-                    logMessage("[线程消息] 生产者生产了: " + item + " [位置:" + currentIn + "]");
+                    refreshBuffer();
+                    logMessage("[线程消息] 生产者生产了: " + name + " [" + outcome + "]");
                     producerStatus.setText("生产中");
                 });
 
-                mutex.release(); // 离开临界区
-                fullSlots.release(); // 增加一个满槽位
-
                 // 模拟生产时间
-                Thread.sleep((long) (Math.random() * 800 + 200));
+                clock.sleep(clock.randomMillis(200, 800));
 
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
             }
         }
+        clock.unregister(Thread.currentThread());
     }
 
     private void consumer() {
+        ProducerConsumerPipeline pipeline = this.pipeline;
+        PayloadPool pool = pipeline.getPool();
+        BackendStats stats = this.stats;
+        clock.register(Thread.currentThread());
         while (isRunning && !Thread.currentThread().isInterrupted()) {
             try {
+                pauseGate.awaitIfPaused();
+
                 Platform.runLater(() -> consumerStatus.setText("等待消费..."));
 
                 // 消费者算法
                 logMessage("消费者准备消费...");
 
-                fullSlots.acquire(); // 等待满槽位
-                mutex.acquire();     // 进入临界区
+                // 消费物品：等待有物品后取出
+                long waitStart = clock.nanoTime();
+                Payload item = pipeline.take(waitStrategy);
+                long now = clock.nanoTime();
+                metrics.recordOp(now - waitStart);
+                consumeItem(item, now, pool, stats);
 
-                // 消费物品
-                String item = buffer[out];
-                int currentOut = out;
-                buffer[out] = null;
-                out = (out + 1) % BUFFER_SIZE;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        clock.unregister(Thread.currentThread());
+    }
 
-                Platform.runLater(() -> {
-                    updateBufferSlot(currentOut, "空", false);
-                    logMessage("[线程消息] 消费者消费了: " + item + " [位置:" + currentOut + "]");
-                    consumerStatus.setText("消费中");
-                });
+    // 记录延迟、核对负载后归还对象池，再模拟消费时间
+    private void consumeItem(Payload item, long now, PayloadPool pool, BackendStats stats) throws InterruptedException {
+        stats.recordConsumed(now - item.getProducedAt());
+        // 读完负载即归还对象池
+        long sequence = item.getSequence();
+        String name = itemName(sequence);
+        String verdict = item.verify() ? "" : " [负载校验失败]";
+        pool.release(item);
+        // 弹性消费者的线程名带编号
+        String consumer = Thread.currentThread().getName();
+        ForkJoinStage stage = forkStage;
+        if (stage != null) {
+            Platform.runLater(() -> consumerStatus.setText("并行计算中"));
+            try {
+                stage.process(sequence, FORK_WORK);
+            } catch (RejectedExecutionException | CancellationException e) {
+                // 计算中途取消了勾选，线程池已关闭，这个物品不再计算
+            }
+        }
+
+        Platform.runLater(() -> {
+            refreshBuffer();
+            logMessage("[线程消息] " + consumer + "消费了: " + name + verdict);
+            consumerStatus.setText("消费中");
+        });
+
+        // 模拟消费时间
+        clock.sleep(clock.randomMillis(200, 800) * consumerSlowdown);
+    }
+
+    /**
+     * Flow模式的消费者：订阅发布者，物品到达时在订阅者线程上处理。
+     * 等待时间是上一个物品处理完到下一个物品送达的间隔，订阅者空闲时停在执行器的任务队列上。
+     */
+    private void subscribeConsumer() {
+        PayloadPool pool = this.pool;
+        BackendStats stats = this.stats;
+        long[] idleSince = {clock.nanoTime()};
+        // 处理物品时抛出异常，发布者取消这个订阅，消费者从此不再收到物品
+        flow.setErrorListener(error -> logMessage("[Flow] 订阅者出错，订阅已取消: " + error));
+        flow.subscribe(rail -> item -> {
+            pauseGate.awaitIfPaused();
+            long now = clock.nanoTime();
+            metrics.recordOp(now - idleSince[0]);
+            consumeItem(item, now, pool, stats);
+            idleSince[0] = clock.nanoTime();
+            Platform.runLater(() -> consumerStatus.setText("等待推送..."));
+        }, task -> {
+            Thread thread = new Thread(task, "消费者");
+            thread.setDaemon(true);
+            clock.register(thread);
+            allocations.register(thread);
+            workers.add(thread);
+            consumerThread = thread;
+            return thread;
+        });
+    }
 
-                mutex.release(); // 离开临界区
-                emptySlots.release(); // 增加一个空槽位
+    /**
+     * 启动弹性消费者池，先启动最少数量的消费者，之后由scaleTimeline采样伸缩。
+     * 消费者限时等待物品，缩容时处理完手上的物品再退出。
+     */
+    private void startConsumerPool() {
+        OverloadBuffer<Payload> buffer = pipeline.getBuffer();
+        PayloadPool pool = this.pool;
+        BackendStats stats = this.stats;
+        ElasticConsumerPool[] self = new ElasticConsumerPool[1];
+        self[0] = new ElasticConsumerPool(new ElasticConsumerPool.Policy(ELASTIC_MIN, ELASTIC_MAX,
+                TimeUnit.MILLISECONDS.toNanos(ELASTIC_TARGET_LATENCY_MILLIS)), slot -> {
+                    pauseGate.awaitIfPaused();
+                    long waitStart = clock.nanoTime();
+                    Payload item = buffer.poll(ELASTIC_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (item == null) {
+                        return;
+                    }
+                    long now = clock.nanoTime();
+                    metrics.recordOp(now - waitStart);
+                    self[0].recordLatency(now - item.getProducedAt());
+                    consumeItem(item, now, pool, stats);
+                }, (slot, body) -> {
+                    Thread thread = new Thread(() -> {
+                        clock.register(Thread.currentThread());
+                        try {
+                            body.run();
+                        } finally {
+                            clock.unregister(Thread.currentThread());
+                        }
+                    }, "消费者-" + (slot + 1));
+                    thread.setDaemon(true);
+                    allocations.register(thread);
+                    workers.add(thread);
+                    return thread;
+                }, event -> logMessage("[弹性] " + event));
+        consumerPool = self[0];
+        consumerPool.start();
+        scaleTimeline.play();
+    }
 
-                // 模拟消费时间
-                Thread.sleep((long) (Math.random() * 800 + 200));
+    // 在FX线程上采样缓冲区占用，伸缩事件由监听器写入日志
+    private void sampleScale() {
+        ElasticConsumerPool current = consumerPool;
+        if (current == null) {
+            return;
+        }
+        current.sample(buffer.count(), buffer.capacity());
+        refreshElasticStats();
+    }
 
+    /**
+     * 突发：另起一个线程一次放入BURST_ITEMS个物品（缓冲区满时按过载策略处理），
+     * 然后等缓冲区排空，按当前是固定还是弹性消费者记下从开始放入到排空的用时。
+     */
+    @FXML
+    private void injectBurst() {
+        if (!isRunning || sharedRing != null) {
+            logMessage("请先开始模拟再制造突发");
+            return;
+        }
+        if (burstThread != null && burstThread.isAlive()) {
+            logMessage("上一次突发还没有排空");
+            return;
+        }
+        OverloadSink<Payload> buffer = this.buffer;
+        PayloadPool pool = this.pool;
+        int mode = consumerPool != null ? 1 : 0;
+        burstThread = new Thread(() -> {
+            clock.register(Thread.currentThread());
+            try {
+                long start = clock.nanoTime();
+                for (int i = 0; i < BURST_ITEMS; i++) {
+                    pauseGate.awaitIfPaused();
+                    buffer.put(pool.acquire(itemId.incrementAndGet(), clock.nanoTime()));
+                    Platform.runLater(this::refreshBuffer);
+                }
+                while (buffer.count() > 0) {
+                    clock.sleep(BURST_RECHECK_MILLIS);
+                }
+                long drained = clock.nanoTime() - start;
+                burstDrainNanos[mode] = drained;
+                logMessage(String.format(Locale.ROOT, "突发的 %d 个物品已排空，用时 %.1f 秒（%s）",
+                        BURST_ITEMS, drained / 1e9, mode == 1 ? "弹性消费者" : "固定消费者"));
+                Platform.runLater(this::refreshElasticStats);
             } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+                // 停止或重置
+            } finally {
+                clock.unregister(Thread.currentThread());
             }
+        }, "突发");
+        burstThread.setDaemon(true);
+        workers.add(burstThread);
+        burstThread.start();
+        logMessage("突发：一次放入 " + BURST_ITEMS + " 个物品");
+        refreshElasticStats();
+    }
+
+    private void refreshBuffer() {
+        // 按缓冲区快照重绘所有槽位
+        // Flow的发布者不公开缓冲区内容，只按积压数显示占用
+        int pending = flow != null ? buffer.count() : 0;
+        for (int i = 0; i < bufferContainer.getChildren().size(); i++) {
+            Payload item = buffer.peek(i);
+            String text = item != null ? itemName(item.getSequence()) : i < pending ? "待处理" : "空";
+            updateBufferSlot(i, text, item != null || i < pending);
         }
+        updateBufferCount();
     }
 
     private void updateBufferSlot(int index, String text, boolean isFull) {
@@ -192,24 +633,39 @@ public class ProducerConsumerController implements Initializable {
             rect.setFill(javafx.scene.paint.Color.LIGHTGRAY);
         }
         textNode.setText(text);
-        updateBufferCount();
     }
 
     private void updateBufferCount() {
-        int count = (int) Arrays.stream(buffer).filter(Objects::nonNull).count();
+        ItemSink<Payload> current = buffer;
+        int count = current.count();
+        String capacity = current.capacity() == Integer.MAX_VALUE ? "∞" : String.valueOf(current.capacity());
 
         Platform.runLater(() -> {
-            bufferCount.setText(count + "/" + BUFFER_SIZE);
-
-            // 显示信号量状态
-            String semaphoreInfo = String.format(" [空:%d 满:%d 互斥:%s]",
-                    emptySlots.availablePermits(),
-                    fullSlots.availablePermits(),
-                    mutex.availablePermits() > 0 ? "空闲" : "锁定");
-            bufferCount.setText(count + "/" + BUFFER_SIZE + semaphoreInfo);
+            // 显示同步状态（信号量许可数或队列剩余容量）
+            bufferCount.setText(count + "/" + capacity + " [" + current.describe() + "]");
         });
     }
 
+    private static int countActive(ElasticConsumerPool pool) {
+        if (pool == null) {
+            return 0;
+        }
+        int active = 0;
+        for (Thread thread : pool.threads()) {
+            active += countActive(thread);
+        }
+        return active;
+    }
+
+    // 睡眠（模拟生产/消费）或运行中的线程算活动，阻塞在信号量或暂停闸门上的不算
+    private static int countActive(Thread thread) {
+        if (thread == null) {
+            return 0;
+        }
+        Thread.State state = thread.getState();
+        return state == Thread.State.RUNNABLE || state == Thread.State.TIMED_WAITING ? 1 : 0;
+    }
+
     private void logMessage(String message) {
         String timestamp = java.time.LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm:ss"));
         Platform.runLater(() ->
@@ -218,15 +674,14 @@ public class ProducerConsumerController implements Initializable {
 
     @FXML
     private void pauseSimulation() {
-        if (isRunning) {
-            isRunning = false;
-
-            if (producerThread != null) {
-                producerThread.interrupt();
-            }
-            if (consumerThread != null) {
-                consumerThread.interrupt();
-            }
+        if (isRunning && !pauseGate.isPaused()) {
+            // 线程在闸门处挂起，缓冲区和信号量状态保持不变
+            pauseGate.pause();
+            metricsPanel.stop();
+            stats.pause();
+            statsTimeline.stop();
+            scaleTimeline.stop();
+            refreshStats();
 
             logMessage("模拟暂停");
             startButton.setDisable(false);
@@ -234,27 +689,289 @@ public class ProducerConsumerController implements Initializable {
         }
     }
 
+    @Override
+    public void start() {
+        startSimulation();
+    }
+
+    @Override
+    public void pause() {
+        pauseSimulation();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning && !pauseGate.isPaused();
+    }
+
+    @Override
+    public void dispose() {
+        stop();
+        shutdownForkStage();
+        // 虚拟时钟的协调线程不随工作线程退出
+        clock.shutdown();
+    }
+
+    // 关闭ForkJoin线程池，正在计算的消费者会放弃当前物品的计算
+    private void shutdownForkStage() {
+        ForkJoinStage stage = forkStage;
+        forkStage = null;
+        if (stage != null) {
+            stage.shutdown();
+        }
+    }
+
+    /**
+     * 进入或退出跨进程模式。进入时停止进程内的线程，创建共享文件并启动一个生产者进程和一个消费者进程，
+     * 两者都映射好文件后由观察定时器打开启动闸门；退出时关闭闸门，进程自行退出，再重建进程内的缓冲区。
+     */
+    @FXML
+    private void toggleProcessMode() {
+        if (sharedRing != null) {
+            logMessage("跨进程模式结束");
+            resetModel(null);
+            return;
+        }
+        stop();
+        Path file = SharedMemoryRunner.tempFile();
+        SharedRingBuffer ring = SharedRingBuffer.create(file, BUFFER_SIZE, PAYLOAD_BYTES);
+        try {
+            processes.add(SharedMemoryRunner.launch(file, "producer", 0, PROCESS_HOLD_MILLIS, waitStrategy));
+            processes.add(SharedMemoryRunner.launch(file, "consumer", 0, PROCESS_HOLD_MILLIS * consumerSlowdown,
+                    waitStrategy));
+        } catch (RuntimeException e) {
+            ring.close();
+            processes.forEach(Process::destroy);
+            processes.clear();
+            SharedMemoryRunner.deleteQuietly(file);
+            logMessage("无法启动参与者进程: " + e.getMessage());
+            return;
+        }
+        sharedRing = ring;
+        bufferContainer.getChildren().setAll(createBufferSlots(BUFFER_SIZE));
+        startButton.setDisable(true);
+        processButton.setText("结束跨进程");
+        producerStatus.setText("进程 " + processes.get(0).pid());
+        consumerStatus.setText("进程 " + processes.get(1).pid());
+        logMessage("跨进程模式 - 共享文件: " + file + "，等待参与者进程就绪...");
+        observerTimeline.play();
+    }
+
+    // 观察共享内存：参与者都已映射文件时打开闸门，之后按快照重绘槽位和统计
+    private void refreshShared() {
+        SharedRingBuffer ring = sharedRing;
+        if (ring == null) {
+            return;
+        }
+        for (Process process : processes) {
+            if (!process.isAlive()) {
+                logMessage("参与者进程 " + process.pid() + " 已退出，退出码 " + process.exitValue());
+                resetModel(null);
+                return;
+            }
+        }
+        if (ring.getState() == SharedRingBuffer.WAITING && ring.getProducers() > 0 && ring.getConsumers() > 0) {
+            ring.start();
+            logMessage("参与者进程已就绪，开始运行");
+        }
+        for (int i = 0; i < bufferContainer.getChildren().size(); i++) {
+            Long item = ring.peek(i);
+            updateBufferSlot(i, item == null ? "空" : itemName(item), item != null);
+        }
+        bufferCount.setText(ring.count() + "/" + ring.capacity() + " [" + ring.describe() + "]");
+        LatencyHistogram latency = ring.latencySnapshot();
+        processStatsLabel.setText(String.format(Locale.ROOT, "生产 %d · 消费 %d · 跨进程延迟 p50 %.1f ms · p99 %.1f ms",
+                ring.getProduced(0), ring.getConsumed(0),
+                latency.percentile(50) / 1_000_000.0, latency.percentile(99) / 1_000_000.0));
+    }
+
+    // 关闭闸门让参与者进程退出，删除共享文件；没有在跨进程模式中则什么也不做
+    private void stopProcesses() {
+        if (sharedRing == null) {
+            return;
+        }
+        observerTimeline.stop();
+        sharedRing.close();
+        // 参与者看到闸门关闭后在一个等待间隔内退出，仍然存活的直接结束
+        for (Process process : processes) {
+            process.destroy();
+        }
+        processes.clear();
+        SharedMemoryRunner.deleteQuietly(sharedRing.getFile());
+        sharedRing = null;
+        processButton.setText("跨进程运行");
+    }
+
+    @Override
+    public void stop() {
+        isRunning = false;
+        stopProcesses();
+
+        if (producerThread != null) {
+            producerThread.interrupt();
+        }
+        if (consumerThread != null) {
+            consumerThread.interrupt();
+        }
+        if (consumerPool != null) {
+            scaleTimeline.stop();
+            consumerPool.shutdown();
+            consumerPool = null;
+        }
+        if (burstThread != null) {
+            burstThread.interrupt();
+        }
+        if (flow != null) {
+            flow.close();
+        }
+        pauseGate.resume();
+        metricsPanel.stop();
+        statsTimeline.stop();
+        if (stats != null) {
+            stats.pause();
+            refreshStats();
+        }
+
+        startButton.setDisable(false);
+        pauseButton.setDisable(true);
+    }
+
     @FXML
     private void resetSimulation() {
-        pauseSimulation();
+        resetModel(null);
+    }
 
-        // 重置信号量
-        initializeSemaphores();
+    /**
+     * 停止线程后在后台创建新的缓冲区和槽位节点，完成后在FX线程一次性替换，再执行afterReset（可为null）。
+     */
+    private void resetModel(Runnable afterReset) {
+        stop();
+        // stop()只中断线程，旧流水线要等它们退出后才能关闭
+        workers.removeIf(thread -> !thread.isAlive());
+        List<Thread> retiring = List.copyOf(workers);
+        int generation = ++resetGeneration;
+        startButton.setDisable(true);
+        resetButton.setDisable(true);
+
+        ItemBuffer.Backend backend = selectedBackend();
+        OverloadBuffer.Policy policy = selectedPolicy();
+        int spillCapacity = selectedSpillCapacity();
+        CompletableFuture.supplyAsync(() -> new BufferModel(backend, policy, spillCapacity, awaitWorkers(retiring)))
+                .whenComplete((model, error) -> Platform.runLater(() -> {
+                    // 重置期间又触发了重置，丢弃这次的结果；它的流水线还没有线程用过，直接关闭
+                    if (generation != resetGeneration) {
+                        if (model != null) {
+                            model.pipeline.close();
+                        }
+                        return;
+                    }
+                    startButton.setDisable(false);
+                    resetButton.setDisable(false);
+                    if (error != null) {
+                        logMessage("重置失败: " + error.getMessage());
+                        return;
+                    }
+                    installBuffer(model);
+                    logArea.clear();
+                    logMessage("模拟已重置 - 缓冲区重新初始化: " + backend.getLabel() + "，过载策略: " + model.pipeline.getPolicy().getLabel()
+                            + (model.pipeline.getPolicy() == policy ? "" : "（Flow不支持" + policy.getLabel() + "）"));
+
+                    if (afterReset != null) {
+                        afterReset.run();
+                    }
+                }));
+    }
 
-        // 清空缓冲区
-        for (int i = 0; i < BUFFER_SIZE; i++) {
-            buffer[i] = null;
+    // 等待被中断的工作线程退出，全部退出返回true
+    private static boolean awaitWorkers(List<Thread> threads) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WORKER_EXIT_MILLIS);
+        try {
+            for (Thread thread : threads) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                thread.join(remaining);
+                if (thread.isAlive()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
-        in = 0;
-        out = 0;
-        itemId = 0;
+    }
 
-        Platform.runLater(() -> {
-            initializeBuffer();
-            producerStatus.setText("等待");
-            consumerStatus.setText("等待");
-            logArea.clear();
-            logMessage("模拟已重置 - 信号量重新初始化");
-        });
+    /**
+     * 一次重置构建出的流水线、对应的槽位节点和统计。
+     * 生产者代为处理物品时只用这里的对象池和统计，不读控制器中会被下一次重置替换的字段。
+     */
+    private class BufferModel {
+        final ProducerConsumerPipeline pipeline;
+        final List<VBox> slots;
+        final BackendStats stats;
+        // 上一条流水线的工作线程是否都已退出，是才能关闭它
+        final boolean retired;
+
+        BufferModel(ItemBuffer.Backend backend, OverloadBuffer.Policy requested, int spillCapacity, boolean retired) {
+            ProducerConsumerPipeline.Spec spec = new ProducerConsumerPipeline.Spec(backend, BUFFER_SIZE, requested);
+            spec.overloadTimeoutMillis = OVERLOAD_TIMEOUT_MILLIS;
+            spec.spillCapacity = spillCapacity;
+            spec.spillSegmentBytes = SPILL_SEGMENT_BYTES;
+            spec.spillSegments = SPILL_SEGMENTS;
+            spec.payloadBytes = PAYLOAD_BYTES;
+            // 生产者、突发线程和每个消费者手上的各一个；无界队列按显示的槽位数预建
+            spec.holders = 2 + ELASTIC_MAX;
+            spec.poolLimit = BUFFER_SIZE;
+            this.retired = retired;
+            this.stats = new BackendStats(backend);
+            this.pipeline = new ProducerConsumerPipeline(spec, this::consumeInProducer);
+            if (pipeline.getOverflow() instanceof MappedSpillFile) {
+                ((MappedSpillFile<PayloadPool.Payload>) pipeline.getOverflow()).setLogListener(ProducerConsumerController.this::logMessage);
+            }
+            this.slots = createBufferSlots(pipeline.getSink().capacity());
+        }
+
+        /**
+         * 生产者代为处理：缓冲区满且策略为CALLER_RUNS时在生产者线程上消费该物品，期间不再生产。
+         */
+        private void consumeInProducer(Payload item) throws InterruptedException {
+            stats.recordConsumed(clock.nanoTime() - item.getProducedAt());
+            String name = itemName(item.getSequence());
+            pipeline.getPool().release(item);
+            Platform.runLater(() -> producerStatus.setText("代为处理中"));
+            logMessage("[线程消息] 生产者代为处理: " + name);
+            clock.sleep(clock.randomMillis(200, 800) * consumerSlowdown);
+        }
+    }
+
+    private void installBuffer(BufferModel model) {
+        // 旧缓冲区的线程都已退出才删除其溢出文件，否则留到下次启动清理
+        if (pipeline != null) {
+            if (model.retired) {
+                pipeline.close();
+            } else {
+                logMessage("旧的工作线程未能及时退出，溢出文件留到下次启动时清理");
+            }
+        }
+        // 清空缓冲区，重置同步状态
+        pipeline = model.pipeline;
+        buffer = pipeline.getSink();
+        flow = pipeline.getFlow();
+        pool = pipeline.getPool();
+        itemId.set(0);
+        metricsPanel.clear();
+        allocations.clear();
+
+        // 该实现的统计从头开始，其他实现的行保留
+        stats = model.stats;
+        backendTable.getItems().set(pipeline.getBackend().ordinal(), stats);
+
+        bufferContainer.getChildren().setAll(model.slots);
+        updateBufferCount();
+        refreshStats();
+        producerStatus.setText("等待");
+        consumerStatus.setText("等待");
     }
-}
\ No newline at end of file
+}
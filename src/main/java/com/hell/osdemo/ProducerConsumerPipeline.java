@@ -0,0 +1,155 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 生产者-消费者的缓冲区流水线：内层缓冲区（或Flow发布者）、外层的过载策略和溢出区，以及物品对象池。
+ * BatchRunner和ProducerConsumerController都由它组装，线程的创建和界面绑定留给调用方。
+ * 生产者一侧统一走 getSink()；消费者从 getBuffer() 取出，Flow没有取出一侧，消费者订阅 getFlow()。
+ */
+public class ProducerConsumerPipeline {
+
+    /** 组装参数：实现、容量和过载策略在构造时给出，其余有默认值，组装前可修改 */
+    public static class Spec {
+        final ItemBuffer.Backend backend;
+        final int bufferSize;
+        final OverloadBuffer.Policy policy;
+        // Flow的轨道数，每个消费者一条；其他实现所有消费者共用一个缓冲区
+        int rails = 1;
+        long overloadTimeoutMillis = 100;
+        // --overload=spill 的内存溢出区容量，以及 spill-disk 溢出文件的每段字节数和最多段数
+        int spillCapacity = OverflowStore.Memory.DEFAULT_CAPACITY;
+        int spillSegmentBytes = 1 << 20;
+        int spillSegments = 16;
+        int payloadBytes = 64;
+        boolean pooled = true;
+        // 缓冲区之外同时在手上的物品数（每个生产者和消费者各一个），对象池按缓冲区容量加上它预建；
+        // 无界缓冲区（LinkedTransferQueue）的容量按poolLimit计，超出部分池空时临时新建
+        int holders = 2;
+        int poolLimit = 4096;
+
+        public Spec(ItemBuffer.Backend backend, int bufferSize, OverloadBuffer.Policy policy) {
+            this.backend = backend;
+            this.bufferSize = bufferSize;
+            this.policy = policy;
+        }
+    }
+
+    private final ItemBuffer.Backend backend;
+    private final OverloadBuffer.Policy policy;
+    private final FlowPipeline<PayloadPool.Payload> flow;
+    private final PayloadPool pool;
+    private final OverflowStore<PayloadPool.Payload> overflow;
+    // 生产者一侧的过载策略；非Flow时就是buffer
+    private final OverloadSink<PayloadPool.Payload> sink;
+    private final OverloadBuffer<PayloadPool.Payload> buffer;
+
+    /**
+     * 按spec组装，callerRuns是CALLER_RUNS策略下生产者代为处理物品的方式。
+     * 推模式不能从缓冲区取出物品，Flow不支持的过载策略退化为阻塞，见 getPolicy()。
+     */
+    public ProducerConsumerPipeline(Spec spec, OverloadBuffer.ItemHandler<PayloadPool.Payload> callerRuns) {
+        this.backend = spec.backend;
+        if (spec.backend == ItemBuffer.Backend.FLOW) {
+            this.flow = new FlowPipeline<>(spec.bufferSize, spec.rails);
+            this.policy = FlowPipeline.supports(spec.policy) ? spec.policy : OverloadBuffer.Policy.BLOCK;
+            this.pool = newPool(spec, flow.capacity());
+            this.overflow = null;
+            this.buffer = null;
+            this.sink = new OverloadSink<>(flow, policy, spec.overloadTimeoutMillis, callerRuns);
+        } else {
+            ItemBuffer<PayloadPool.Payload> inner = spec.backend.create(spec.bufferSize);
+            this.flow = null;
+            this.policy = spec.policy;
+            this.pool = newPool(spec, inner.capacity());
+            this.overflow = policy == OverloadBuffer.Policy.SPILL_DISK
+                    ? new MappedSpillFile<>(pool.codec(), spec.spillSegmentBytes, spec.spillSegments)
+                    : new OverflowStore.Memory<>(spec.spillCapacity);
+            this.buffer = new OverloadBuffer<>(inner, policy, spec.overloadTimeoutMillis, callerRuns, overflow);
+            this.sink = buffer;
+        }
+        // 被丢弃和被挤掉的物品归还对象池
+        sink.setDropListener(pool::release);
+    }
+
+    // 缓冲区中的和每个参与者手上的物品都有池中的一份，稳定运行时不会未命中
+    private static PayloadPool newPool(Spec spec, int capacity) {
+        return new PayloadPool(Math.min(capacity, spec.poolLimit) + spec.holders, spec.payloadBytes, spec.pooled);
+    }
+
+    /**
+     * 非阻塞放入加wait重试是否可用：其他过载策略自己决定满了怎么办，
+     * SynchronousQueue没有容量，非阻塞放入永远失败；Flow是推模式。
+     */
+    public boolean retries(WaitStrategy wait) {
+        return wait != WaitStrategy.CLOCK && policy == OverloadBuffer.Policy.BLOCK
+                && backend != ItemBuffer.Backend.SYNCHRONOUS && backend != ItemBuffer.Backend.FLOW;
+    }
+
+    /** 按过载策略放入；retries(wait)时非阻塞地尝试，满了按wait重试，被中断时退出 */
+    public int put(PayloadPool.Payload item, WaitStrategy wait) throws InterruptedException {
+        if (!retries(wait)) {
+            return sink.put(item);
+        }
+        int slot;
+        for (int attempt = 0; (slot = sink.offer(item, 0, TimeUnit.MILLISECONDS)) < 0; attempt++) {
+            wait.idle(attempt);
+        }
+        return slot;
+    }
+
+    /** 取出物品；retries(wait)时非阻塞地尝试，空了按wait重试，被中断时退出。Flow的消费者是订阅者，不调用它 */
+    public PayloadPool.Payload take(WaitStrategy wait) throws InterruptedException {
+        if (buffer == null) {
+            throw new IllegalStateException("Flow的消费者由订阅推送物品，不能主动取出");
+        }
+        if (!retries(wait)) {
+            return buffer.take();
+        }
+        PayloadPool.Payload item;
+        for (int attempt = 0; (item = buffer.poll(0, TimeUnit.MILLISECONDS)) == null; attempt++) {
+            wait.idle(attempt);
+        }
+        return item;
+    }
+
+    public ItemBuffer.Backend getBackend() {
+        return backend;
+    }
+
+    /** 实际使用的过载策略，Flow不支持请求的策略时为BLOCK */
+    public OverloadBuffer.Policy getPolicy() {
+        return policy;
+    }
+
+    /** 生产者一侧：放入物品、过载统计和界面显示 */
+    public OverloadSink<PayloadPool.Payload> getSink() {
+        return sink;
+    }
+
+    /** 消费者取出物品的缓冲区，选择Flow时为null */
+    public OverloadBuffer<PayloadPool.Payload> getBuffer() {
+        return buffer;
+    }
+
+    /** 选择Flow时的发布者，其他实现为null */
+    public FlowPipeline<PayloadPool.Payload> getFlow() {
+        return flow;
+    }
+
+    public PayloadPool getPool() {
+        return pool;
+    }
+
+    /** 溢出区，选择Flow时为null */
+    public OverflowStore<PayloadPool.Payload> getOverflow() {
+        return overflow;
+    }
+
+    /** 关闭溢出区，删除磁盘上的溢出文件 */
+    public void close() {
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+}
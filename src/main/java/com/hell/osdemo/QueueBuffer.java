@@ -0,0 +1,106 @@
+package com.hell.osdemo;
+
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于JDK阻塞队列的缓冲区。槽位按队首到队尾的顺序显示，不对应固定的数组下标，
+ * 放入时返回的槽位是放入后的队列长度减一，并发时只是近似。
+ */
+public class QueueBuffer<T> implements ItemBuffer<T> {
+
+    private final BlockingQueue<T> queue;
+    private final int capacity;
+
+    // JFR探针，阻塞在put/take上的时间计为等待
+    private final ContentionProbe putProbe;
+    private final ContentionProbe takeProbe;
+
+    private final InvariantChecker invariants = new InvariantChecker("缓冲区");
+
+    public QueueBuffer(BlockingQueue<T> queue, int capacity) {
+        this.queue = queue;
+        this.capacity = capacity;
+        String name = queue.getClass().getSimpleName();
+        putProbe = new ContentionProbe(name + ".put");
+        takeProbe = new ContentionProbe(name + ".take");
+    }
+
+    @Override
+    public int put(T item) throws InterruptedException {
+        ContentionProbe.AcquireEvent event = putProbe.begin();
+        queue.put(item);
+        putProbe.end(event, true);
+        return slotAfterPut();
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        ContentionProbe.AcquireEvent event = takeProbe.begin();
+        T item = queue.take();
+        takeProbe.end(event, true);
+        return item;
+    }
+
+    @Override
+    public int offer(T item, long timeout, TimeUnit unit) throws InterruptedException {
+        ContentionProbe.AcquireEvent event = putProbe.begin();
+        boolean offered = queue.offer(item, timeout, unit);
+        putProbe.end(event, offered);
+        return offered ? slotAfterPut() : -1;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        ContentionProbe.AcquireEvent event = takeProbe.begin();
+        T item = queue.poll(timeout, unit);
+        takeProbe.end(event, item != null);
+        return item;
+    }
+
+    private int slotAfterPut() {
+        int size = queue.size();
+        if (InvariantChecker.ENABLED && !invariants.check(size <= capacity)) {
+            invariants.fail("队列长度" + size + "超过容量" + capacity);
+        }
+        return Math.max(0, size - 1);
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int count() {
+        return queue.size();
+    }
+
+    @Override
+    public T peek(int slot) {
+        // 弱一致的迭代器，不会抛出并发修改异常
+        Iterator<T> iterator = queue.iterator();
+        for (int i = 0; i < slot && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    @Override
+    public String describe() {
+        if (capacity == 0) {
+            return "直接交接";
+        }
+        if (queue instanceof LinkedTransferQueue) {
+            return "等待的消费者:" + ((LinkedTransferQueue<T>) queue).getWaitingConsumerCount();
+        }
+        return "剩余容量:" + queue.remainingCapacity();
+    }
+
+    @Override
+    public InvariantChecker getInvariants() {
+        return invariants;
+    }
+}
@@ -0,0 +1,244 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 读者-写者问题的共享资源（图书馆）及三种访问策略。
+ * 不依赖JavaFX，演示界面、基准测试和命令行运行共用同一套实现。
+ */
+public class ReadWriteResource {
+
+    // 策略枚举，label与界面下拉框中的选项一致
+    public enum Strategy {
+        READER_PRIORITY("读者优先"),
+        WRITER_PRIORITY("写者优先"),
+        FAIR("公平策略");
+
+        private final String label;
+
+        Strategy(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public static Strategy fromLabel(String label) {
+            for (Strategy strategy : values()) {
+                if (strategy.label.equals(label)) {
+                    return strategy;
+                }
+            }
+            return READER_PRIORITY;
+        }
+    }
+
+    private final int readerPermits;
+
+    private volatile Strategy strategy = Strategy.READER_PRIORITY;
+    private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Semaphore readerSemaphore;
+    private Semaphore writerSemaphore = new Semaphore(1);
+    // 多个读者会同时修改，必须是原子的，普通int的++会丢失更新
+    private final AtomicInteger currentReaders = new AtomicInteger();
+    private volatile boolean isWriting = false;
+
+    private final ContentionProbe readProbe = new ContentionProbe("读锁");
+    private final ContentionProbe writeProbe = new ContentionProbe("写锁");
+
+    // 锁顺序检查的节点，reset()重建同步对象后沿用
+    private final LockOrderChecker.Lock lockOrder = LockOrderChecker.lock("读写锁");
+    private final LockOrderChecker.Lock readerOrder = LockOrderChecker.lock("读者信号量");
+    private final LockOrderChecker.Lock writerOrder = LockOrderChecker.lock("写者信号量");
+
+    // 不变式检查用的影子计数：已进入临界区的读者和写者
+    private final InvariantChecker invariants = new InvariantChecker("读写锁");
+    private final AtomicInteger readersInside = new AtomicInteger();
+    private final AtomicInteger writersInside = new AtomicInteger();
+
+    public ReadWriteResource(int readerPermits) {
+        this.readerPermits = readerPermits;
+        this.readerSemaphore = new Semaphore(readerPermits);
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public int getCurrentReaders() {
+        return currentReaders.get();
+    }
+
+    public boolean isWriting() {
+        return isWriting;
+    }
+
+    /**
+     * 切换策略并重建同步对象，只能在没有线程访问资源时调用。
+     */
+    public void reset(Strategy strategy) {
+        this.strategy = strategy;
+        // 公平策略使用公平锁，读者和写者都阻塞排队，按到达顺序授予读写锁
+        lock = new ReentrantReadWriteLock(strategy == Strategy.FAIR);
+        readerSemaphore = new Semaphore(readerPermits);
+        writerSemaphore = new Semaphore(1);
+        currentReaders.set(0);
+        isWriting = false;
+        readersInside.set(0);
+        writersInside.set(0);
+    }
+
+    /**
+     * 按当前策略尝试获取读权限，成功后必须调用 finishRead()。
+     */
+    public boolean tryRead() throws InterruptedException {
+        ContentionProbe.AcquireEvent event = readProbe.begin();
+        boolean acquired = acquireRead();
+        readProbe.end(event, acquired);
+        if (InvariantChecker.ENABLED && acquired) {
+            readersInside.incrementAndGet();
+            if (!invariants.check(writersInside.get() == 0)) {
+                invariants.fail("读者进入时有写者在写");
+            }
+        }
+        return acquired;
+    }
+
+    public InvariantChecker getInvariants() {
+        return invariants;
+    }
+
+    private boolean acquireRead() throws InterruptedException {
+        switch (strategy) {
+            case WRITER_PRIORITY:
+                // 写者优先：读者需要等待写者完成
+                if (readerSemaphore.tryAcquire()) {
+                    LockOrderChecker.acquired(readerOrder);
+                    try {
+                        lockInterruptibly(lock.readLock());
+                    } catch (InterruptedException e) {
+                        // 停止演示时中断在这里等待的读者，归还许可，否则每次停止都少一个读者名额
+                        readerSemaphore.release();
+                        LockOrderChecker.release(readerOrder);
+                        throw e;
+                    }
+                    currentReaders.incrementAndGet();
+                    return true;
+                }
+                return false;
+
+            case FAIR:
+                // 公平策略：在公平锁上排队，按到达顺序授予。不能用无超时的tryLock()，
+                // 它无视公平性直接插队；限时的tryLock(0)虽然守序，但没人排队时公平锁的队列永远为空，效果相同
+                lockInterruptibly(lock.readLock());
+                currentReaders.incrementAndGet();
+                return true;
+
+            case READER_PRIORITY:
+            default:
+                // 读者优先：读者可以直接进入
+                lockInterruptibly(lock.readLock());
+                currentReaders.incrementAndGet();
+                return true;
+        }
+    }
+
+    public void finishRead() {
+        readProbe.released();
+        if (InvariantChecker.ENABLED) {
+            readersInside.decrementAndGet();
+        }
+        int readers = currentReaders.decrementAndGet();
+        // 计数丢失更新时会变成负数
+        if (InvariantChecker.ENABLED && !invariants.check(readers >= 0)) {
+            invariants.fail("currentReaders变为" + readers);
+        }
+        lock.readLock().unlock();
+        LockOrderChecker.release(lockOrder);
+        if (strategy == Strategy.WRITER_PRIORITY) {
+            readerSemaphore.release();
+            LockOrderChecker.release(readerOrder);
+        }
+    }
+
+    /**
+     * 按当前策略尝试获取写权限，成功后必须调用 finishWrite()。
+     */
+    public boolean tryWrite() throws InterruptedException {
+        ContentionProbe.AcquireEvent event = writeProbe.begin();
+        boolean acquired;
+        switch (strategy) {
+            case READER_PRIORITY:
+                // 读者优先：写者需要等待没有读者
+                acquired = false;
+                if (writerSemaphore.tryAcquire()) {
+                    LockOrderChecker.acquired(writerOrder);
+                    try {
+                        lockInterruptibly(lock.writeLock());
+                    } catch (InterruptedException e) {
+                        // 被中断时归还写者许可，否则写者信号量永久少一个许可
+                        writerSemaphore.release();
+                        LockOrderChecker.release(writerOrder);
+                        throw e;
+                    }
+                    acquired = true;
+                }
+                break;
+
+            case FAIR:
+                // 公平策略：与读者一样在公平锁上排队
+                lockInterruptibly(lock.writeLock());
+                acquired = true;
+                break;
+
+            case WRITER_PRIORITY:
+            default:
+                // 写者优先：写者优先获取锁
+                lockInterruptibly(lock.writeLock());
+                acquired = true;
+                break;
+        }
+        if (acquired) {
+            isWriting = true;
+        }
+        writeProbe.end(event, acquired);
+        if (InvariantChecker.ENABLED && acquired) {
+            if (!invariants.check(writersInside.incrementAndGet() == 1)) {
+                invariants.fail("多个写者同时在写");
+            }
+            if (!invariants.check(readersInside.get() == 0)) {
+                invariants.fail("写者进入时仍有读者");
+            }
+        }
+        return acquired;
+    }
+
+    public void finishWrite() {
+        writeProbe.released();
+        if (InvariantChecker.ENABLED) {
+            writersInside.decrementAndGet();
+        }
+        isWriting = false;
+        lock.writeLock().unlock();
+        LockOrderChecker.release(lockOrder);
+        if (strategy == Strategy.READER_PRIORITY) {
+            writerSemaphore.release();
+            LockOrderChecker.release(writerOrder);
+        }
+    }
+
+    // 阻塞获取读锁或写锁，先交给锁顺序检查，被中断时撤销
+    private void lockInterruptibly(Lock target) throws InterruptedException {
+        LockOrderChecker.acquire(lockOrder);
+        try {
+            target.lockInterruptibly();
+        } catch (InterruptedException e) {
+            LockOrderChecker.release(lockOrder);
+            throw e;
+        }
+    }
+}
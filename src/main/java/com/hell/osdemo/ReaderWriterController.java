@@ -16,9 +16,8 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class ReaderWriterController implements Initializable {
+public class ReaderWriterController implements Initializable, DemoLifecycle {
 
     // FXML组件
     @FXML private Button startBtn;
@@ -37,17 +36,14 @@ public class ReaderWriterController implements Initializable {
     @FXML private Label totalReadCountLabel;
     @FXML private Label totalWriteCountLabel;
     @FXML private TextArea logArea;
+    @FXML private LiveMetricsPanel metricsPanel;
 
     // 常量
     private static final int READER_COUNT = 3;
     private static final int WRITER_COUNT = 2;
 
-    // 同步控制
-    private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    private Semaphore readerSemaphore = new Semaphore(READER_COUNT);
-    private Semaphore writerSemaphore = new Semaphore(1);
-    private int currentReaders = 0;
-    private boolean isWriting = false;
+    // 同步控制，重置时整体替换
+    private ReadWriteResource resource;
 
     // 线程相关
     private ExecutorService executor;
@@ -55,6 +51,13 @@ public class ReaderWriterController implements Initializable {
     private List<WriterThread> writerThreads;
     private volatile boolean isRunning = false;
     private AnimationTimer animationTimer;
+    private final PauseGate pauseGate = new PauseGate();
+    private final MetricsWindow metrics = new MetricsWindow();
+    // 所有耗时都走模拟时钟，-Dosdemo.clock=100x 或 virtual 可加速演示
+    private final SimClock clock = SimClock.fromSystemProperty();
+
+    // 每次重置递增，只安装最近一次重置构建的模型
+    private int resetGeneration = 0;
 
     // 状态记录
     private enum ReaderState { THINKING, WAITING, READING }
@@ -75,17 +78,17 @@ public class ReaderWriterController implements Initializable {
     public void initialize(URL location, ResourceBundle resources) {
         initializeInterface();
         setupStrategies();
+        installModel(buildModel(selectedStrategy()));
+        metricsPanel.bind(metrics, this::countWaiting, this::countActive);
         log("系统初始化完成，等待开始模拟");
     }
 
+    // 卡片只创建一次，重置时只替换模型并刷新显示
     private void initializeInterface() {
         // 清空容器
         readersPane.getChildren().clear();
         writersPane.getChildren().clear();
 
-        // 初始化状态列表
-        readerStates = new ArrayList<>();
-        writerStates = new ArrayList<>();
         readerRectangles = new ArrayList<>();
         writerRectangles = new ArrayList<>();
         readerLabels = new ArrayList<>();
@@ -102,7 +105,6 @@ public class ReaderWriterController implements Initializable {
 
             readerRectangles.add(rect);
             readerLabels.add(status);
-            readerStates.add(ReaderState.THINKING);
         }
 
         // 创建写者卡片
@@ -116,22 +118,45 @@ public class ReaderWriterController implements Initializable {
 
             writerRectangles.add(rect);
             writerLabels.add(status);
-            writerStates.add(WriterState.THINKING);
         }
+    }
 
-        // 初始化线程
-        readerThreads = new ArrayList<>();
-        writerThreads = new ArrayList<>();
+    // 一次重置构建出的模型：读写资源、状态和线程，不含任何界面元素
+    private class ResourceModel {
+        final ReadWriteResource resource = new ReadWriteResource(READER_COUNT);
+        final List<ReaderState> readerStates = new ArrayList<>(Collections.nCopies(READER_COUNT, ReaderState.THINKING));
+        final List<WriterState> writerStates = new ArrayList<>(Collections.nCopies(WRITER_COUNT, WriterState.THINKING));
+        final ReaderThread[] readerThreads = new ReaderThread[READER_COUNT];
+        final WriterThread[] writerThreads = new WriterThread[WRITER_COUNT];
+    }
 
+    /**
+     * 构建新模型，可在任意线程调用，策略须事先在FX线程上读出。
+     * 读者和写者只有几个，逐个创建即可，并行反而要付出调度开销。
+     */
+    private ResourceModel buildModel(ReadWriteResource.Strategy strategy) {
+        ResourceModel model = new ResourceModel();
+        model.resource.reset(strategy);
         for (int i = 0; i < READER_COUNT; i++) {
-            final int readerId = i;
-            readerThreads.add(new ReaderThread(readerId));
+            model.readerThreads[i] = new ReaderThread(i, model.resource, model.readerStates);
         }
-
         for (int i = 0; i < WRITER_COUNT; i++) {
-            final int writerId = i;
-            writerThreads.add(new WriterThread(writerId));
+            model.writerThreads[i] = new WriterThread(i, model.resource, model.writerStates);
         }
+        return model;
+    }
+
+    private ReadWriteResource.Strategy selectedStrategy() {
+        return ReadWriteResource.Strategy.fromLabel(strategyChoice.getValue());
+    }
+
+    // 在FX线程上整体替换模型
+    private void installModel(ResourceModel model) {
+        resource = model.resource;
+        readerStates = model.readerStates;
+        writerStates = model.writerStates;
+        readerThreads = Arrays.asList(model.readerThreads);
+        writerThreads = Arrays.asList(model.writerThreads);
     }
 
     private VBox createPersonCard(int id, String type, Color fillColor, Color strokeColor) {
@@ -170,8 +195,8 @@ public class ReaderWriterController implements Initializable {
             currentStrategyLabel.setText("当前策略: " + strategy);
 
             if (isRunning) {
-                resetSimulation();
-                startSimulation();
+                // 重置完成后重新开始以应用新策略
+                resetModel(this::startSimulation);
             } else {
                 log("已选择策略: " + strategy);
             }
@@ -185,7 +210,17 @@ public class ReaderWriterController implements Initializable {
             startBtn.setDisable(true);
             pauseBtn.setDisable(false);
 
+            // 暂停后继续：直接放行挂起的线程
+            if (pauseGate.isPaused() && executor != null) {
+                log("继续模拟");
+                pauseGate.resume();
+                startUITimer();
+                metricsPanel.start();
+                return;
+            }
+
             log("开始模拟 - 策略: " + strategyChoice.getValue());
+            resource.reset(selectedStrategy());
 
             // 创建线程池
             executor = Executors.newFixedThreadPool(READER_COUNT + WRITER_COUNT);
@@ -204,6 +239,7 @@ public class ReaderWriterController implements Initializable {
 
             // 启动UI更新定时器
             startUITimer();
+            metricsPanel.start();
         }
     }
 
@@ -217,48 +253,99 @@ public class ReaderWriterController implements Initializable {
             log("模拟暂停");
 
             // 暂停所有线程
-            readerThreads.forEach(ReaderThread::pause);
-            writerThreads.forEach(WriterThread::pause);
+            pauseGate.pause();
 
             // 停止UI定时器
             if (animationTimer != null) {
                 animationTimer.stop();
             }
+            metricsPanel.stop();
         }
     }
 
-    @FXML
-    private void resetSimulation() {
+    @Override
+    public void start() {
+        startSimulation();
+    }
+
+    @Override
+    public void pause() {
+        pauseSimulation();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public void dispose() {
+        stop();
+        // 虚拟时钟的协调线程不随工作线程退出
+        clock.shutdown();
+    }
+
+    @Override
+    public void stop() {
         // 停止模拟
         if (executor != null) {
             executor.shutdownNow();
+            executor = null;
         }
+        pauseGate.resume();
 
         if (animationTimer != null) {
             animationTimer.stop();
         }
+        metricsPanel.stop();
 
-        // 重置状态
         isRunning = false;
         startBtn.setDisable(false);
         pauseBtn.setDisable(true);
-        currentReaders = 0;
-        isWriting = false;
-        totalReadCount = 0;
-        totalWriteCount = 0;
+    }
 
-        // 重置同步对象
-        lock = new ReentrantReadWriteLock();
-        readerSemaphore = new Semaphore(READER_COUNT);
-        writerSemaphore = new Semaphore(1);
+    @FXML
+    private void resetSimulation() {
+        resetModel(null);
+    }
 
-        // 重置状态显示
-        initializeInterface();
-        updateStatusDisplay();
+    /**
+     * 停止线程后在后台构建新模型，完成后在FX线程一次性替换并刷新显示，再执行afterReset（可为null）。
+     */
+    private void resetModel(Runnable afterReset) {
+        stop();
+        int generation = ++resetGeneration;
+        startBtn.setDisable(true);
+        resetBtn.setDisable(true);
+
+        ReadWriteResource.Strategy strategy = selectedStrategy();
+        CompletableFuture.supplyAsync(() -> buildModel(strategy)).whenComplete((model, error) -> Platform.runLater(() -> {
+            // 重置期间又触发了重置，丢弃这次的结果
+            if (generation != resetGeneration) {
+                return;
+            }
+            startBtn.setDisable(false);
+            resetBtn.setDisable(false);
+            if (error != null) {
+                log("重置失败: " + error.getMessage());
+                return;
+            }
+            installModel(model);
 
-        // 清空日志
-        logArea.clear();
-        log("模拟已重置");
+            // 重置状态
+            totalReadCount = 0;
+            totalWriteCount = 0;
+            metricsPanel.clear();
+            updateStatusDisplay();
+
+            // 清空日志
+            logArea.clear();
+            log("模拟已重置");
+
+            if (afterReset != null) {
+                afterReset.run();
+            }
+        }));
     }
 
     @FXML
@@ -327,8 +414,8 @@ public class ReaderWriterController implements Initializable {
             }
 
             // 更新统计信息
-            readerCountLabel.setText(String.valueOf(currentReaders));
-            writerStatusLabel.setText(isWriting ? "写作中" : "等待");
+            readerCountLabel.setText(String.valueOf(resource.getCurrentReaders()));
+            writerStatusLabel.setText(resource.isWriting() ? "写作中" : "等待");
 
             // 更新活跃用户显示
             List<String> activeReaders = new ArrayList<>();
@@ -354,6 +441,18 @@ public class ReaderWriterController implements Initializable {
         });
     }
 
+    // 等待读锁或写锁的线程数
+    private int countWaiting() {
+        return Collections.frequency(readerStates, ReaderState.WAITING)
+                + Collections.frequency(writerStates, WriterState.WAITING);
+    }
+
+    // 正在读或写的线程数
+    private int countActive() {
+        return Collections.frequency(readerStates, ReaderState.READING)
+                + Collections.frequency(writerStates, WriterState.WRITING);
+    }
+
     private void log(String message) {
         String time = LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
         Platform.runLater(() -> {
@@ -365,55 +464,62 @@ public class ReaderWriterController implements Initializable {
     // 读者线程类
     class ReaderThread implements Runnable {
         private final int id;
+        // 只使用创建时的资源和状态表，重置后残留的旧线程不会碰到新模型
+        private final ReadWriteResource resource;
+        private final List<ReaderState> states;
         private volatile boolean running = true;
-        private volatile boolean paused = false;
+        // 开始等待的时刻，获取失败重试时保留，获取成功后清除（-1）
+        private long waitingSince = -1;
 
-        public ReaderThread(int id) {
+        public ReaderThread(int id, ReadWriteResource resource, List<ReaderState> states) {
             this.id = id;
-        }
-
-        public void pause() {
-            paused = true;
+            this.resource = resource;
+            this.states = states;
         }
 
         public void reset() {
             running = true;
-            paused = false;
-            readerStates.set(id, ReaderState.THINKING);
+            waitingSince = -1;
+            states.set(id, ReaderState.THINKING);
         }
 
         @Override
         public void run() {
+            // 线程名出现在JFR事件和锁竞争面板中
+            Thread.currentThread().setName("读者" + id);
+            clock.register(Thread.currentThread());
             while (running && !Thread.currentThread().isInterrupted()) {
                 try {
-                    if (paused) {
-                        Thread.sleep(100);
-                        continue;
-                    }
+                    pauseGate.awaitIfPaused();
 
                     // 思考阶段
-                    readerStates.set(id, ReaderState.THINKING);
+                    states.set(id, ReaderState.THINKING);
                     log("读者" + id + " 开始思考");
-                    Thread.sleep(1000 + (int)(Math.random() * 2000));
+                    clock.sleep(clock.randomMillis(1000, 2000));
 
                     // 尝试阅读
-                    readerStates.set(id, ReaderState.WAITING);
+                    states.set(id, ReaderState.WAITING);
                     log("读者" + id + " 尝试阅读");
+                    if (waitingSince < 0) {
+                        waitingSince = clock.nanoTime();
+                    }
 
                     // 根据策略尝试获取读锁
-                    if (tryRead()) {
-                        readerStates.set(id, ReaderState.READING);
+                    if (resource.tryRead()) {
+                        states.set(id, ReaderState.READING);
                         totalReadCount++;
+                        metrics.recordOp(clock.nanoTime() - waitingSince);
+                        waitingSince = -1;
 
                         // 阅读阶段
-                        log("读者" + id + " 开始阅读，当前读者数: " + currentReaders);
-                        Thread.sleep(1500 + (int)(Math.random() * 2000));
+                        log("读者" + id + " 开始阅读，当前读者数: " + resource.getCurrentReaders());
+                        clock.sleep(clock.randomMillis(1500, 2000));
 
                         // 结束阅读
-                        finishRead();
-                        log("读者" + id + " 结束阅读，当前读者数: " + currentReaders);
+                        resource.finishRead();
+                        log("读者" + id + " 结束阅读，当前读者数: " + resource.getCurrentReaders());
                     } else {
-                        Thread.sleep(500); // 等待后重试
+                        clock.sleep(500); // 等待后重试
                     }
 
                 } catch (InterruptedException e) {
@@ -421,108 +527,68 @@ public class ReaderWriterController implements Initializable {
                     break;
                 }
             }
-        }
-
-        private boolean tryRead() {
-            String strategy = strategyChoice.getValue();
-
-            try {
-                switch (strategy) {
-                    case "读者优先":
-                        // 读者优先：读者可以直接进入
-                        lock.readLock().lock();
-                        currentReaders++;
-                        return true;
-
-                    case "写者优先":
-                        // 写者优先：读者需要等待写者完成
-                        if (readerSemaphore.tryAcquire()) {
-                            lock.readLock().lock();
-                            currentReaders++;
-                            return true;
-                        }
-                        return false;
-
-                    case "公平策略":
-                        // 公平策略：使用公平锁
-                        if (lock.readLock().tryLock()) {
-                            currentReaders++;
-                            return true;
-                        }
-                        return false;
-
-                    default:
-                        lock.readLock().lock();
-                        currentReaders++;
-                        return true;
-                }
-            } catch (Exception e) {
-                return false;
-            }
-        }
-
-        private void finishRead() {
-            currentReaders--;
-            lock.readLock().unlock();
-            if (strategyChoice.getValue().equals("写者优先")) {
-                readerSemaphore.release();
-            }
+            clock.unregister(Thread.currentThread());
         }
     }
 
     // 写者线程类
     class WriterThread implements Runnable {
         private final int id;
+        // 只使用创建时的资源和状态表，重置后残留的旧线程不会碰到新模型
+        private final ReadWriteResource resource;
+        private final List<WriterState> states;
         private volatile boolean running = true;
-        private volatile boolean paused = false;
+        // 开始等待的时刻，获取失败重试时保留，获取成功后清除（-1）
+        private long waitingSince = -1;
 
-        public WriterThread(int id) {
+        public WriterThread(int id, ReadWriteResource resource, List<WriterState> states) {
             this.id = id;
-        }
-
-        public void pause() {
-            paused = true;
+            this.resource = resource;
+            this.states = states;
         }
 
         public void reset() {
             running = true;
-            paused = false;
-            writerStates.set(id, WriterState.THINKING);
+            waitingSince = -1;
+            states.set(id, WriterState.THINKING);
         }
 
         @Override
         public void run() {
+            Thread.currentThread().setName("写者" + id);
+            clock.register(Thread.currentThread());
             while (running && !Thread.currentThread().isInterrupted()) {
                 try {
-                    if (paused) {
-                        Thread.sleep(100);
-                        continue;
-                    }
+                    pauseGate.awaitIfPaused();
 
                     // 思考阶段
-                    writerStates.set(id, WriterState.THINKING);
+                    states.set(id, WriterState.THINKING);
                     log("写者" + id + " 开始思考");
-                    Thread.sleep(1500 + (int)(Math.random() * 2000));
+                    clock.sleep(clock.randomMillis(1500, 2000));
 
                     // 尝试写作
-                    writerStates.set(id, WriterState.WAITING);
+                    states.set(id, WriterState.WAITING);
                     log("写者" + id + " 尝试写作");
+                    if (waitingSince < 0) {
+                        waitingSince = clock.nanoTime();
+                    }
 
                     // 根据策略尝试获取写锁
-                    if (tryWrite()) {
-                        writerStates.set(id, WriterState.WRITING);
-                        isWriting = true;
+                    if (resource.tryWrite()) {
+                        states.set(id, WriterState.WRITING);
                         totalWriteCount++;
+                        metrics.recordOp(clock.nanoTime() - waitingSince);
+                        waitingSince = -1;
 
                         // 写作阶段
                         log("写者" + id + " 开始写作");
-                        Thread.sleep(2000 + (int)(Math.random() * 2000));
+                        clock.sleep(clock.randomMillis(2000, 2000));
 
                         // 结束写作
-                        finishWrite();
+                        resource.finishWrite();
                         log("写者" + id + " 结束写作");
                     } else {
-                        Thread.sleep(500); // 等待后重试
+                        clock.sleep(500); // 等待后重试
                     }
 
                 } catch (InterruptedException e) {
@@ -530,48 +596,7 @@ public class ReaderWriterController implements Initializable {
                     break;
                 }
             }
-        }
-
-        private boolean tryWrite() {
-            String strategy = strategyChoice.getValue();
-
-            try {
-                switch (strategy) {
-                    case "读者优先":
-                        // 读者优先：写者需要等待没有读者
-                        if (writerSemaphore.tryAcquire()) {
-                            lock.writeLock().lock();
-                            return true;
-                        }
-                        return false;
-
-                    case "写者优先":
-                        // 写者优先：写者优先获取锁
-                        lock.writeLock().lock();
-                        return true;
-
-                    case "公平策略":
-                        // 公平策略：使用公平锁
-                        if (lock.writeLock().tryLock()) {
-                            return true;
-                        }
-                        return false;
-
-                    default:
-                        lock.writeLock().lock();
-                        return true;
-                }
-            } catch (Exception e) {
-                return false;
-            }
-        }
-
-        private void finishWrite() {
-            isWriting = false;
-            lock.writeLock().unlock();
-            if (strategyChoice.getValue().equals("读者优先")) {
-                writerSemaphore.release();
-            }
+            clock.unregister(Thread.currentThread());
         }
     }
 }
\ No newline at end of file
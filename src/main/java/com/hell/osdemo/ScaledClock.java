@@ -0,0 +1,35 @@
+package com.hell.osdemo;
+
+/**
+ * 按固定倍率运行的墙上时钟：倍率为100时，模拟的1秒只需实际等待10毫秒。倍率1即实时。
+ */
+public class ScaledClock implements SimClock {
+
+    private final double factor;
+    private final long origin = System.nanoTime();
+
+    public ScaledClock(double factor) {
+        if (factor <= 0) {
+            throw new IllegalArgumentException("时钟倍率必须大于0: " + factor);
+        }
+        this.factor = factor;
+    }
+
+    public double getFactor() {
+        return factor;
+    }
+
+    @Override
+    public long nanoTime() {
+        return (long) ((System.nanoTime() - origin) * factor);
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (millis <= 0) {
+            return;
+        }
+        long nanos = (long) (millis * 1_000_000L / factor);
+        Thread.sleep(nanos / 1_000_000L, (int) (nanos % 1_000_000L));
+    }
+}
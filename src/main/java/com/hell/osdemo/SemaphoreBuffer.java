@@ -0,0 +1,259 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 生产者-消费者问题的有界缓冲区：经典的三信号量实现
+ * （空槽位 emptySlots、满槽位 fullSlots、互斥 mutex）。
+ * 不依赖JavaFX，演示界面、基准测试和命令行运行共用同一套实现。
+ */
+public class SemaphoreBuffer<T> implements ItemBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots; // 共享缓冲区，界面线程可直接读取快照
+
+    // 同步信号量
+    private final Semaphore emptySlots;    // 空槽位信号量
+    private final Semaphore fullSlots;     // 满槽位信号量
+    private final Semaphore mutex;         // 互斥信号量
+
+    // JFR探针，名称与信号量变量名一致
+    private final ContentionProbe emptyProbe = new ContentionProbe("emptySlots");
+    private final ContentionProbe fullProbe = new ContentionProbe("fullSlots");
+    private final ContentionProbe mutexProbe = new ContentionProbe("mutex");
+
+    // 锁顺序检查的节点：mutex归当前线程持有，两个计数信号量由对方线程释放，只检查不入栈
+    private final LockOrderChecker.Lock emptyOrder = LockOrderChecker.lock("emptySlots");
+    private final LockOrderChecker.Lock fullOrder = LockOrderChecker.lock("fullSlots");
+    private final LockOrderChecker.Lock mutexOrder = LockOrderChecker.lock("mutex");
+
+    // 不变式检查：进入/离开put、take的次数，以及mutex内的线程数
+    private final InvariantChecker invariants = new InvariantChecker("缓冲区");
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong exits = new AtomicLong();
+    private final AtomicInteger insideMutex = new AtomicInteger();
+
+    private int in = 0;  // 生产者指针
+    private int out = 0; // 消费者指针
+
+    public SemaphoreBuffer(int capacity) {
+        slots = new AtomicReferenceArray<>(capacity);
+        emptySlots = new Semaphore(capacity); // 初始有capacity个空槽位
+        fullSlots = new Semaphore(0);         // 初始没有满槽位
+        mutex = new Semaphore(1);             // 二进制信号量，用于互斥
+    }
+
+    /**
+     * 放入一个物品，缓冲区满时阻塞，返回物品所在的槽位。
+     */
+    @Override
+    public int put(T item) throws InterruptedException {
+        enter();
+        acquire(emptySlots, emptyProbe, emptyOrder); // 等待空槽位
+        acquire(mutex, mutexProbe, mutexOrder);      // 进入临界区
+        enterMutex();
+
+        int slot = in;
+        slots.set(slot, item);
+        in = (in + 1) % slots.length();
+
+        exitMutex();
+        release(mutex, mutexProbe);      // 离开临界区
+        LockOrderChecker.release(mutexOrder);
+        release(fullSlots, fullProbe);   // 增加一个满槽位
+        exit();
+        return slot;
+    }
+
+    /**
+     * 取出一个物品，缓冲区空时阻塞。
+     */
+    @Override
+    public T take() throws InterruptedException {
+        enter();
+        acquire(fullSlots, fullProbe, fullOrder);   // 等待满槽位
+        acquire(mutex, mutexProbe, mutexOrder);      // 进入临界区
+        enterMutex();
+
+        T item = slots.get(out);
+        slots.set(out, null);
+        out = (out + 1) % slots.length();
+
+        exitMutex();
+        release(mutex, mutexProbe);      // 离开临界区
+        LockOrderChecker.release(mutexOrder);
+        release(emptySlots, emptyProbe); // 增加一个空槽位
+        exit();
+        return item;
+    }
+
+    /**
+     * 限时放入，超时返回-1，否则返回物品所在的槽位。
+     */
+    @Override
+    public int offer(T item, long timeout, TimeUnit unit) throws InterruptedException {
+        enter();
+        if (!tryAcquire(emptySlots, emptyProbe, emptyOrder, timeout, unit)) {
+            exit();
+            return -1;
+        }
+        acquire(mutex, mutexProbe, mutexOrder);
+        enterMutex();
+
+        int slot = in;
+        slots.set(slot, item);
+        in = (in + 1) % slots.length();
+
+        exitMutex();
+        release(mutex, mutexProbe);
+        LockOrderChecker.release(mutexOrder);
+        release(fullSlots, fullProbe);
+        exit();
+        return slot;
+    }
+
+    /**
+     * 限时取出，超时返回null。
+     */
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        enter();
+        if (!tryAcquire(fullSlots, fullProbe, fullOrder, timeout, unit)) {
+            exit();
+            return null;
+        }
+        acquire(mutex, mutexProbe, mutexOrder);
+        enterMutex();
+
+        T item = slots.get(out);
+        slots.set(out, null);
+        out = (out + 1) % slots.length();
+
+        exitMutex();
+        release(mutex, mutexProbe);
+        LockOrderChecker.release(mutexOrder);
+        release(emptySlots, emptyProbe);
+        exit();
+        return item;
+    }
+
+    // 在碰信号量之前登记进入；被中断的操作不登记离开，此后不再判定为静止
+    private void enter() {
+        if (InvariantChecker.ENABLED) {
+            entries.incrementAndGet();
+        }
+    }
+
+    /**
+     * 登记离开，若此刻没有线程在put/take中（静止），核对 emptySlots + fullSlots == 容量。
+     * 先读exits再读entries，两者相等说明读entries时无人在内；读完许可数后entries不变，
+     * 说明期间也没有新线程进入。
+     */
+    private void exit() {
+        if (!InvariantChecker.ENABLED) {
+            return;
+        }
+        exits.incrementAndGet();
+        long exited = exits.get();
+        long entered = entries.get();
+        if (exited != entered) {
+            return;
+        }
+        int permits = emptySlots.availablePermits() + fullSlots.availablePermits();
+        if (entries.get() == entered && !invariants.check(permits == slots.length())) {
+            invariants.fail("静止时emptySlots+fullSlots=" + permits + "，容量为" + slots.length());
+        }
+    }
+
+    private void enterMutex() {
+        if (InvariantChecker.ENABLED && !invariants.check(insideMutex.incrementAndGet() == 1)) {
+            invariants.fail("mutex内同时有多个线程");
+        }
+    }
+
+    private void exitMutex() {
+        if (InvariantChecker.ENABLED) {
+            insideMutex.decrementAndGet();
+        }
+    }
+
+    @Override
+    public InvariantChecker getInvariants() {
+        return invariants;
+    }
+
+    private void acquire(Semaphore semaphore, ContentionProbe probe, LockOrderChecker.Lock order)
+            throws InterruptedException {
+        if (semaphore == mutex) {
+            LockOrderChecker.acquire(order);
+        } else {
+            LockOrderChecker.waitOn(order);
+        }
+        ContentionProbe.AcquireEvent event = probe.begin();
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            // 被中断时撤销mutex的入栈（计数信号量没有入栈，release什么也不做），
+            // 否则这个线程之后的每次获取都会记下错误的边
+            LockOrderChecker.release(order);
+            throw e;
+        }
+        probe.end(event, true);
+    }
+
+    private static boolean tryAcquire(Semaphore semaphore, ContentionProbe probe, LockOrderChecker.Lock order,
+                                      long timeout, TimeUnit unit) throws InterruptedException {
+        LockOrderChecker.waitOn(order);
+        ContentionProbe.AcquireEvent event = probe.begin();
+        boolean acquired = semaphore.tryAcquire(timeout, unit);
+        probe.end(event, acquired);
+        return acquired;
+    }
+
+    private static void release(Semaphore semaphore, ContentionProbe probe) {
+        probe.released();
+        semaphore.release();
+    }
+
+    @Override
+    public int capacity() {
+        return slots.length();
+    }
+
+    /** 槽位当前内容，空槽位返回null */
+    @Override
+    public T peek(int slot) {
+        return slots.get(slot);
+    }
+
+    @Override
+    public int count() {
+        int count = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int emptyPermits() {
+        return emptySlots.availablePermits();
+    }
+
+    public int fullPermits() {
+        return fullSlots.availablePermits();
+    }
+
+    public boolean isMutexFree() {
+        return mutex.availablePermits() > 0;
+    }
+
+    @Override
+    public String describe() {
+        return String.format("空:%d 满:%d 互斥:%s", emptyPermits(), fullPermits(), isMutexFree() ? "空闲" : "锁定");
+    }
+}
@@ -0,0 +1,280 @@
+package com.hell.osdemo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 跨进程的生产者-消费者（--engine=processes）：每个生产者和消费者各是一个独立的JVM进程，
+ * 通过内存映射文件中的 SharedRingBuffer 交换物品。协调进程创建文件、启动参与者进程、
+ * 等所有进程映射好文件后打开启动闸门，运行结束后从文件中读出计数和延迟直方图。
+ * <p>
+ * 参与者进程的入口也是这个类的main:
+ * <pre>
+ * java -cp OSdemo.jar com.hell.osdemo.SharedMemoryRunner --file=/tmp/ring --role=consumer --id=0 --work=0
+ * </pre>
+ * 参与者在闸门关闭或标准输入到达末尾（启动它的进程已退出）时退出。
+ */
+public class SharedMemoryRunner {
+
+    // 等待参与者进程启动并映射文件、以及关闭后等待退出的时长
+    private static final long ATTACH_TIMEOUT_MILLIS = 30_000;
+    private static final long EXIT_TIMEOUT_MILLIS = 5_000;
+    // 参与者限时等待的间隔，期间检查闸门是否关闭
+    private static final long POLL_MILLIS = 50;
+
+    private final BatchConfig config;
+
+    public SharedMemoryRunner(BatchConfig config) {
+        this.config = config;
+    }
+
+    public BatchResult run() throws InterruptedException {
+        int producers = Math.max(1, config.producerCount());
+        int consumers = config.actors - producers;
+        Path file = tempFile();
+        SharedRingBuffer ring = SharedRingBuffer.create(file, config.bufferSize, config.payloadBytes);
+        List<Process> processes = new ArrayList<>();
+        try {
+            for (int i = 0; i < producers; i++) {
+                processes.add(launch(file, "producer", i, config.thinkMillis, config.waitStrategy));
+            }
+            for (int i = 0; i < consumers; i++) {
+                processes.add(launch(file, "consumer", i, config.workMillis, config.waitStrategy));
+            }
+            awaitAttached(ring, producers, consumers, processes);
+
+            ring.start();
+            long start = System.nanoTime();
+            Thread.sleep(config.durationMillis);
+            ring.close();
+            long elapsed = System.nanoTime() - start;
+            awaitExit(processes);
+
+            long[] consumed = new long[consumers];
+            for (int i = 0; i < consumers; i++) {
+                consumed[i] = ring.getConsumed(i);
+            }
+            BatchResult result = new BatchResult(config.problem.getName(), config.strategyName(), config.actors,
+                    elapsed, consumed, ring.latencySnapshot());
+            long produced = 0;
+            for (int i = 0; i < producers; i++) {
+                produced += ring.getProduced(i);
+            }
+            result.addCounter("produced", produced);
+            result.addCounter("producers", producers);
+            result.addCounter("consumers", consumers);
+            result.addCounter("payloadBytes", config.payloadBytes);
+            result.addCounter("producerWaitMs", ring.getProducerWaitNanos() / 1_000_000);
+            result.addCounter("consumerWaitMs", ring.getConsumerWaitNanos() / 1_000_000);
+            result.addCounter("corruptedPayloads", ring.getCorrupted());
+            return result;
+        } finally {
+            ring.close();
+            for (Process process : processes) {
+                process.destroyForcibly();
+            }
+            deleteQuietly(file);
+        }
+    }
+
+    static Path tempFile() {
+        try {
+            Path file = Files.createTempFile("osdemo-ring", ".dat");
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建共享文件", e);
+        }
+    }
+
+    static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("无法删除共享文件 " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 启动一个参与者进程，参与者等待空位或物品时按wait重试；
+     * 标准输入保持为管道，启动者退出时管道关闭，参与者随之退出。
+     */
+    static Process launch(Path file, String role, int id, long holdMillis, WaitStrategy wait) {
+        List<String> command = SweepRunner.javaCommand(SharedMemoryRunner.class);
+        command.add("--file=" + file);
+        command.add("--role=" + role);
+        command.add("--id=" + id);
+        command.add("--hold=" + holdMillis + "ms");
+        command.add("--wait=" + wait.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        try {
+            return new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法启动" + role + "进程", e);
+        }
+    }
+
+    private static void awaitAttached(SharedRingBuffer ring, int producers, int consumers,
+                                      List<Process> processes) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + ATTACH_TIMEOUT_MILLIS;
+        while (ring.getProducers() < producers || ring.getConsumers() < consumers) {
+            for (Process process : processes) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("参与者进程异常退出，退出码 " + process.exitValue());
+                }
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("等待参与者进程超时：生产者 " + ring.getProducers()
+                        + "/" + producers + "，消费者 " + ring.getConsumers() + "/" + consumers);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitExit(List<Process> processes) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + EXIT_TIMEOUT_MILLIS;
+        for (Process process : processes) {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            if (!process.waitFor(remaining, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    // ---- 参与者进程 ----
+
+    public static void main(String[] args) throws InterruptedException {
+        Path file = null;
+        String role = null;
+        int id = 0;
+        long holdMillis = 0;
+        WaitStrategy wait = WaitStrategy.CLOCK;
+        try {
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("无法识别的参数: " + arg);
+                }
+                String key = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (key) {
+                    case "file":
+                        file = Paths.get(value);
+                        break;
+                    case "role":
+                        role = value;
+                        break;
+                    case "id":
+                        id = Integer.parseInt(value);
+                        break;
+                    case "hold":
+                        holdMillis = BatchConfig.parseMillis(value);
+                        break;
+                    case "wait":
+                        wait = WaitStrategy.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("未知参数: --" + key);
+                }
+            }
+            if (file == null || !("producer".equals(role) || "consumer".equals(role))) {
+                throw new IllegalArgumentException("需要 --file 和 --role=producer|consumer");
+            }
+            if (id < 0 || id >= SharedRingBuffer.MAX_ACTORS) {
+                throw new IllegalArgumentException("--id 超出范围 0-" + (SharedRingBuffer.MAX_ACTORS - 1));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("参数错误: " + e.getMessage());
+            System.err.println("用法: SharedMemoryRunner --file=共享文件 --role=producer|consumer [--id=0] [--hold=0] [--wait=spin-park]");
+            System.exit(2);
+            return;
+        }
+
+        SharedRingBuffer ring = SharedRingBuffer.attach(file);
+        ring.setWaitStrategy(wait);
+        Thread worker = Thread.currentThread();
+        watchParent(worker);
+
+        boolean producer = "producer".equals(role);
+        if (producer) {
+            ring.attachProducer();
+        } else {
+            ring.attachConsumer();
+        }
+        try {
+            if (ring.awaitStart()) {
+                if (producer) {
+                    produce(ring, id, holdMillis);
+                } else {
+                    consume(ring, id, holdMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            // 启动者已退出
+        } finally {
+            if (producer) {
+                ring.detachProducer();
+            } else {
+                ring.detachConsumer();
+            }
+        }
+    }
+
+    // 生产者：序号按生产者分段，思考holdMillis后放入
+    private static void produce(SharedRingBuffer ring, int id, long holdMillis) throws InterruptedException {
+        long sequence = (long) id << 40;
+        while (!ring.isClosed()) {
+            if (holdMillis > 0) {
+                Thread.sleep(holdMillis);
+            }
+            // 限时放入，满的时候也能及时发现闸门关闭
+            while (ring.offer(sequence, POLL_MILLIS, TimeUnit.MILLISECONDS) < 0) {
+                if (ring.isClosed()) {
+                    return;
+                }
+            }
+            sequence++;
+            ring.recordProduced(id);
+        }
+    }
+
+    // 消费者：取出物品、记录延迟后处理holdMillis；Entry复用，循环中不分配
+    private static void consume(SharedRingBuffer ring, int id, long holdMillis) throws InterruptedException {
+        SharedRingBuffer.Entry entry = new SharedRingBuffer.Entry();
+        while (!ring.isClosed()) {
+            if (!ring.poll(entry, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                continue;
+            }
+            ring.recordConsumed(id, entry);
+            if (holdMillis > 0) {
+                Thread.sleep(holdMillis);
+            }
+        }
+    }
+
+    // 标准输入到达末尾说明启动者已退出（管道被关闭），中断工作线程
+    private static void watchParent(Thread worker) {
+        Thread watcher = new Thread(() -> {
+            InputStream in = System.in;
+            try {
+                while (in.read() >= 0) {
+                    // 忽略输入
+                }
+            } catch (IOException e) {
+                // 同样视为启动者已退出
+            }
+            worker.interrupt();
+        }, "parent-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+}
@@ -0,0 +1,462 @@
+package com.hell.osdemo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 放在内存映射文件中的有界缓冲区，同一台机器上的多个JVM进程映射同一个文件即可共享，
+ * 代替只能在进程内使用的三信号量。
+ * 每个槽位带一个序号（Vyukov的有界多生产者多消费者队列）：生产者用CAS推进队尾，
+ * 写完物品后以release语义发布序号，消费者看到序号才读取，读完再把序号推进一圈交还给生产者。
+ * 原子操作都通过映射缓冲区上的VarHandle完成，进程之间没有锁，等待方式见 WaitStrategy，默认自旋、让出后短暂park。
+ * <p>
+ * 文件头中还有启动闸门、各参与者的计数和消费者记录的延迟直方图，协调进程和界面都直接读取。
+ * 生产时刻取自System.nanoTime()，Linux上所有进程共用CLOCK_MONOTONIC，可以跨进程相减。
+ */
+public class SharedRingBuffer implements ItemBuffer<Long> {
+
+    /** 取出的物品：物品序号、生产时刻和负载是否完好，由消费者复用，取出时不分配 */
+    public static final class Entry {
+        long item;
+        long producedAt;
+        boolean intact;
+
+        public long getItem() {
+            return item;
+        }
+
+        public long getProducedAt() {
+            return producedAt;
+        }
+
+        public boolean isIntact() {
+            return intact;
+        }
+    }
+
+    // 每个long都按字节偏移访问，偏移必须8字节对齐
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final long MAGIC = 0x4F5344454D4F5242L;
+    // 文件头：常量、状态、队尾、队首各占一个缓存行，避免生产者和消费者互相踩
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int PAYLOAD_OFFSET = 16;
+    private static final int STATE_OFFSET = 64;
+    private static final int TAIL_OFFSET = 128;
+    private static final int HEAD_OFFSET = 192;
+    private static final int PRODUCERS_OFFSET = 256;
+    private static final int CONSUMERS_OFFSET = 264;
+    private static final int PRODUCER_WAIT_OFFSET = 272;
+    private static final int CONSUMER_WAIT_OFFSET = 280;
+    private static final int CORRUPTED_OFFSET = 288;
+    private static final int MAX_LATENCY_OFFSET = 296;
+    // 每个参与者的计数独占一个缓存行
+    public static final int MAX_ACTORS = 64;
+    private static final int COUNTER_STRIDE = 64;
+    private static final int PRODUCED_OFFSET = 320;
+    private static final int CONSUMED_OFFSET = PRODUCED_OFFSET + MAX_ACTORS * COUNTER_STRIDE;
+    private static final int HISTOGRAM_OFFSET = CONSUMED_OFFSET + MAX_ACTORS * COUNTER_STRIDE;
+    private static final int SLOTS_OFFSET = HISTOGRAM_OFFSET + LatencyHistogram.BUCKETS * Long.BYTES;
+    // 槽位：序号 + 生产时刻 + 物品序号 + 负载
+    private static final int SLOT_HEADER = 3 * Long.BYTES;
+
+    // 启动闸门：参与者进程映射文件后等待RUNNING，CLOSED后退出
+    public static final long WAITING = 0;
+    public static final long RUNNING = 1;
+    public static final long CLOSED = 2;
+
+    private final Path file;
+    private final MappedByteBuffer data;
+    private final int capacity;
+    private final int payloadBytes;
+    private final int slotBytes;
+    private final InvariantChecker invariants = new InvariantChecker("共享缓冲区");
+    // 本进程等待空位或物品的方式，默认先自旋，再让出CPU，最后短暂park
+    private volatile WaitStrategy waitStrategy = WaitStrategy.SPIN_PARK;
+
+    private SharedRingBuffer(Path file, MappedByteBuffer data) {
+        this.file = file;
+        this.data = data;
+        if ((long) LONG.getVolatile(data, MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalStateException("不是共享缓冲区文件: " + file);
+        }
+        this.capacity = (int) (long) LONG.get(data, CAPACITY_OFFSET);
+        this.payloadBytes = (int) (long) LONG.get(data, PAYLOAD_OFFSET);
+        this.slotBytes = slotBytes(payloadBytes);
+    }
+
+    private static int slotBytes(int payloadBytes) {
+        return (SLOT_HEADER + payloadBytes + 7) & ~7;
+    }
+
+    /**
+     * 创建（或覆盖）共享文件并初始化，状态为WAITING。
+     */
+    public static SharedRingBuffer create(Path file, int capacity, int payloadBytes) {
+        if (capacity < 1 || payloadBytes < 0) {
+            throw new IllegalArgumentException("容量至少为1，负载不能为负");
+        }
+        long size = SLOTS_OFFSET + (long) capacity * slotBytes(payloadBytes);
+        MappedByteBuffer data = map(file, size, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        LONG.set(data, CAPACITY_OFFSET, (long) capacity);
+        LONG.set(data, PAYLOAD_OFFSET, (long) payloadBytes);
+        for (int i = 0; i < capacity; i++) {
+            LONG.set(data, SLOTS_OFFSET + i * slotBytes(payloadBytes), (long) i);
+        }
+        // 最后写入魔数，其他进程看到魔数时初始化已经完成
+        LONG.setRelease(data, MAGIC_OFFSET, MAGIC);
+        return new SharedRingBuffer(file, data);
+    }
+
+    /** 映射已由其他进程创建的共享文件 */
+    public static SharedRingBuffer attach(Path file) {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法读取共享文件 " + file, e);
+        }
+        return new SharedRingBuffer(file, map(file, size));
+    }
+
+    private static MappedByteBuffer map(Path file, long size, StandardOpenOption... extra) {
+        StandardOpenOption[] options = new StandardOpenOption[extra.length + 2];
+        options[0] = StandardOpenOption.READ;
+        options[1] = StandardOpenOption.WRITE;
+        System.arraycopy(extra, 0, options, 2, extra.length);
+        // 映射建立后即可关闭通道
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法映射共享文件 " + file, e);
+        }
+    }
+
+    private int slotOffset(long position) {
+        return SLOTS_OFFSET + (int) (position % capacity) * slotBytes;
+    }
+
+    /**
+     * 不等待地放入，生产时刻取当前时间；缓冲区满返回-1，否则返回槽位下标。
+     */
+    public int tryPut(long item) {
+        long position = (long) LONG.getVolatile(data, TAIL_OFFSET);
+        while (true) {
+            int slot = slotOffset(position);
+            long sequence = (long) LONG.getAcquire(data, slot);
+            long diff = sequence - position;
+            if (diff == 0) {
+                if (LONG.compareAndSet(data, TAIL_OFFSET, position, position + 1)) {
+                    LONG.set(data, slot + 8, System.nanoTime());
+                    LONG.set(data, slot + 16, item);
+                    fill(slot + SLOT_HEADER, item);
+                    // 发布：消费者看到序号position+1才会读取上面写入的内容
+                    LONG.setRelease(data, slot, position + 1);
+                    if (InvariantChecker.ENABLED && !invariants.check(count() <= capacity)) {
+                        invariants.fail("物品数超过容量 " + capacity);
+                    }
+                    return (int) (position % capacity);
+                }
+                position = (long) LONG.getVolatile(data, TAIL_OFFSET);
+            } else if (diff < 0) {
+                // 槽位还没被上一圈的消费者交还：缓冲区满
+                return -1;
+            } else {
+                // 其他生产者已抢到这个位置
+                position = (long) LONG.getVolatile(data, TAIL_OFFSET);
+            }
+        }
+    }
+
+    /**
+     * 不等待地取出到into中；缓冲区空返回false。
+     */
+    public boolean tryTake(Entry into) {
+        long position = (long) LONG.getVolatile(data, HEAD_OFFSET);
+        while (true) {
+            int slot = slotOffset(position);
+            long sequence = (long) LONG.getAcquire(data, slot);
+            long diff = sequence - (position + 1);
+            if (diff == 0) {
+                if (LONG.compareAndSet(data, HEAD_OFFSET, position, position + 1)) {
+                    into.producedAt = (long) LONG.get(data, slot + 8);
+                    into.item = (long) LONG.get(data, slot + 16);
+                    into.intact = verify(slot + SLOT_HEADER, into.item);
+                    // 交还给下一圈的生产者
+                    LONG.setRelease(data, slot, position + capacity);
+                    return true;
+                }
+                position = (long) LONG.getVolatile(data, HEAD_OFFSET);
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = (long) LONG.getVolatile(data, HEAD_OFFSET);
+            }
+        }
+    }
+
+    // 负载首尾写入物品序号，与PayloadPool.Payload相同
+    private void fill(int offset, long item) {
+        if (payloadBytes >= Long.BYTES) {
+            LONG.set(data, offset, item);
+        }
+        if (payloadBytes > 0) {
+            data.put(offset + payloadBytes - 1, (byte) item);
+        }
+    }
+
+    private boolean verify(int offset, long item) {
+        if (payloadBytes >= Long.BYTES && (long) LONG.get(data, offset) != item) {
+            return false;
+        }
+        return payloadBytes == 0 || data.get(offset + payloadBytes - 1) == (byte) item;
+    }
+
+    /**
+     * 限时放入，超时返回-1；等待时间计入生产者等待。
+     */
+    public int offer(long item, long timeout, TimeUnit unit) throws InterruptedException {
+        int slot = tryPut(item);
+        if (slot >= 0) {
+            return slot;
+        }
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(timeout);
+        try {
+            for (int attempt = 0; ; attempt++) {
+                waitStrategy.idle(attempt);
+                slot = tryPut(item);
+                if (slot >= 0 || System.nanoTime() - deadline >= 0) {
+                    return slot;
+                }
+            }
+        } finally {
+            LONG.getAndAdd(data, PRODUCER_WAIT_OFFSET, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 限时取出，超时返回false；等待时间计入消费者等待。
+     */
+    public boolean poll(Entry into, long timeout, TimeUnit unit) throws InterruptedException {
+        if (tryTake(into)) {
+            return true;
+        }
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(timeout);
+        try {
+            for (int attempt = 0; ; attempt++) {
+                waitStrategy.idle(attempt);
+                if (tryTake(into)) {
+                    return true;
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+            }
+        } finally {
+            LONG.getAndAdd(data, CONSUMER_WAIT_OFFSET, System.nanoTime() - start);
+        }
+    }
+
+    /** 设置本进程的等待方式，CLOCK按SPIN_PARK处理 */
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public int put(Long item) throws InterruptedException {
+        int slot;
+        while ((slot = offer(item, 1, TimeUnit.SECONDS)) < 0) {
+            // 一直满就一直等，和阻塞队列一样只响应中断
+        }
+        return slot;
+    }
+
+    @Override
+    public Long take() throws InterruptedException {
+        Entry entry = new Entry();
+        while (!poll(entry, 1, TimeUnit.SECONDS)) {
+            // 同上
+        }
+        return entry.item;
+    }
+
+    @Override
+    public int offer(Long item, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(item.longValue(), timeout, unit);
+    }
+
+    @Override
+    public Long poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Entry entry = new Entry();
+        return poll(entry, timeout, unit) ? entry.item : null;
+    }
+
+    // ---- 参与者登记、启动闸门和统计 ----
+
+    /** 参与者进程映射文件后登记，协调进程据此判断是否都已就绪 */
+    public void attachProducer() {
+        LONG.getAndAdd(data, PRODUCERS_OFFSET, 1L);
+    }
+
+    public void attachConsumer() {
+        LONG.getAndAdd(data, CONSUMERS_OFFSET, 1L);
+    }
+
+    public void detachProducer() {
+        LONG.getAndAdd(data, PRODUCERS_OFFSET, -1L);
+    }
+
+    public void detachConsumer() {
+        LONG.getAndAdd(data, CONSUMERS_OFFSET, -1L);
+    }
+
+    public int getProducers() {
+        return (int) (long) LONG.getVolatile(data, PRODUCERS_OFFSET);
+    }
+
+    public int getConsumers() {
+        return (int) (long) LONG.getVolatile(data, CONSUMERS_OFFSET);
+    }
+
+    public long getState() {
+        return (long) LONG.getVolatile(data, STATE_OFFSET);
+    }
+
+    /** 打开启动闸门 */
+    public void start() {
+        LONG.compareAndSet(data, STATE_OFFSET, WAITING, RUNNING);
+    }
+
+    /** 通知所有参与者进程退出 */
+    public void close() {
+        LONG.setVolatile(data, STATE_OFFSET, CLOSED);
+    }
+
+    public boolean isClosed() {
+        return getState() == CLOSED;
+    }
+
+    /** 参与者进程在闸门打开（或关闭）前等待，返回是否可以开始 */
+    public boolean awaitStart() throws InterruptedException {
+        long state;
+        while ((state = getState()) == WAITING) {
+            Thread.sleep(1);
+        }
+        return state == RUNNING;
+    }
+
+    public void recordProduced(int producer) {
+        LONG.getAndAdd(data, PRODUCED_OFFSET + producer * COUNTER_STRIDE, 1L);
+    }
+
+    /**
+     * 消费者记录一次消费及其端到端延迟，桶计数在所有消费者进程间共享。
+     */
+    public void recordConsumed(int consumer, Entry entry) {
+        LONG.getAndAdd(data, CONSUMED_OFFSET + consumer * COUNTER_STRIDE, 1L);
+        long latency = Math.max(0, System.nanoTime() - entry.producedAt);
+        LONG.getAndAdd(data, HISTOGRAM_OFFSET + LatencyHistogram.bucketIndex(latency) * Long.BYTES, 1L);
+        long max = (long) LONG.getVolatile(data, MAX_LATENCY_OFFSET);
+        while (latency > max && !LONG.compareAndSet(data, MAX_LATENCY_OFFSET, max, latency)) {
+            max = (long) LONG.getVolatile(data, MAX_LATENCY_OFFSET);
+        }
+        if (!entry.intact) {
+            LONG.getAndAdd(data, CORRUPTED_OFFSET, 1L);
+        }
+    }
+
+    public long getProduced(int producer) {
+        return (long) LONG.getVolatile(data, PRODUCED_OFFSET + producer * COUNTER_STRIDE);
+    }
+
+    public long getConsumed(int consumer) {
+        return (long) LONG.getVolatile(data, CONSUMED_OFFSET + consumer * COUNTER_STRIDE);
+    }
+
+    public long getProducerWaitNanos() {
+        return (long) LONG.getVolatile(data, PRODUCER_WAIT_OFFSET);
+    }
+
+    public long getConsumerWaitNanos() {
+        return (long) LONG.getVolatile(data, CONSUMER_WAIT_OFFSET);
+    }
+
+    public long getCorrupted() {
+        return (long) LONG.getVolatile(data, CORRUPTED_OFFSET);
+    }
+
+    /** 共享直方图的快照 */
+    public LatencyHistogram latencySnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long max = (long) LONG.getVolatile(data, MAX_LATENCY_OFFSET);
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            long count = (long) LONG.getVolatile(data, HISTOGRAM_OFFSET + i * Long.BYTES);
+            if (count > 0) {
+                histogram.add(i, count, max);
+            }
+        }
+        return histogram;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getPayloadBytes() {
+        return payloadBytes;
+    }
+
+    // ---- 观察者视图（ItemBuffer） ----
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int count() {
+        long head = (long) LONG.getVolatile(data, HEAD_OFFSET);
+        long tail = (long) LONG.getVolatile(data, TAIL_OFFSET);
+        return (int) Math.max(0, Math.min(capacity, tail - head));
+    }
+
+    /**
+     * 从队首数第slot个已发布的物品序号，没有则为null。只读序号，不影响生产者和消费者，结果只是快照。
+     */
+    @Override
+    public Long peek(int slot) {
+        long position = (long) LONG.getVolatile(data, HEAD_OFFSET) + slot;
+        if (slot >= capacity || position >= (long) LONG.getVolatile(data, TAIL_OFFSET)) {
+            return null;
+        }
+        int offset = slotOffset(position);
+        if ((long) LONG.getAcquire(data, offset) != position + 1) {
+            return null;
+        }
+        long item = (long) LONG.get(data, offset + 16);
+        // 读的同时被取走并覆盖，丢弃这次读到的值
+        return (long) LONG.getAcquire(data, offset) == position + 1 ? item : null;
+    }
+
+    @Override
+    public String describe() {
+        return "共享内存 生产进程:" + getProducers() + " 消费进程:" + getConsumers();
+    }
+
+    @Override
+    public InvariantChecker getInvariants() {
+        return invariants;
+    }
+}
@@ -0,0 +1,71 @@
+package com.hell.osdemo;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 模拟时钟：演示和批量运行中所有思考、就餐、读写的耗时都通过它来等待。
+ * 可选实时（real）、按倍率加速（scaled:100 或 100x）和离散事件虚拟时钟（virtual），
+ * 演示界面通过 -Dosdemo.clock 指定，批量运行通过 --clock 指定。
+ */
+public interface SimClock {
+
+    /** 模拟时间（纳秒），只用于计算时间差 */
+    long nanoTime();
+
+    /** 让当前线程在模拟时间上等待指定毫秒数 */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * 获取失败后重试前的让步。实时时钟只让出CPU；
+     * 虚拟时钟必须推进一点模拟时间，否则重试的线程会让时间永远停住。
+     */
+    default void retryPause() throws InterruptedException {
+        Thread.yield();
+    }
+
+    /** 登记参与模拟的线程，虚拟时钟据此判断何时可以推进时间 */
+    default void register(Thread thread) {
+    }
+
+    default void unregister(Thread thread) {
+    }
+
+    /** 不再使用时调用，停止时钟自己的后台线程 */
+    default void shutdown() {
+    }
+
+    /** [base, base + spread) 之间的随机时长（毫秒） */
+    default long randomMillis(long base, long spread) {
+        return spread <= 0 ? base : base + ThreadLocalRandom.current().nextLong(spread);
+    }
+
+    static SimClock fromSpec(String spec) {
+        String value = spec.trim().toLowerCase(Locale.ROOT);
+        if (value.equals("real")) {
+            return new ScaledClock(1);
+        }
+        if (value.equals("virtual")) {
+            return new VirtualClock();
+        }
+        String factor = null;
+        if (value.startsWith("scaled:")) {
+            factor = value.substring("scaled:".length());
+        } else if (value.endsWith("x")) {
+            factor = value.substring(0, value.length() - 1);
+        }
+        if (factor != null) {
+            try {
+                return new ScaledClock(Double.parseDouble(factor));
+            } catch (NumberFormatException e) {
+                // 落到下面统一报错
+            }
+        }
+        throw new IllegalArgumentException("未知时钟: " + spec + "（可选 real / scaled:倍率 / virtual）");
+    }
+
+    /** 演示界面使用的时钟，由 -Dosdemo.clock 指定，默认实时 */
+    static SimClock fromSystemProperty() {
+        return fromSpec(System.getProperty("osdemo.clock", "real"));
+    }
+}
@@ -0,0 +1,185 @@
+package com.hell.osdemo;
+
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.*;
+
+import java.net.URL;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.function.Function;
+
+public class SweepController implements Initializable, DemoLifecycle {
+
+    // FXML组件
+    @FXML private ChoiceBox<String> problemChoice;
+    @FXML private TextField actorsField;
+    @FXML private TextField bufferField;
+    @FXML private TextField thinkField;
+    @FXML private TextField durationField;
+    @FXML private TextField parallelField;
+    @FXML private Button startBtn;
+    @FXML private Button stopBtn;
+    @FXML private ProgressBar progressBar;
+    @FXML private Label progressLabel;
+    @FXML private TableView<SweepRunner.Point> resultTable;
+    @FXML private LineChart<Number, Number> throughputChart;
+
+    private volatile SweepRunner sweep;
+    private volatile boolean isRunning = false;
+    private int finishedPoints = 0;
+
+    // 每个 策略/缓冲区/思考时间 组合一条曲线
+    private final Map<String, XYChart.Series<Number, Number>> seriesByKey = new HashMap<>();
+
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        problemChoice.getSelectionModel().selectFirst();
+        setupTable();
+    }
+
+    private void setupTable() {
+        resultTable.getColumns().add(column("策略", SweepRunner.Point::getStrategy));
+        resultTable.getColumns().add(column("线程数", SweepRunner.Point::getActors));
+        resultTable.getColumns().add(column("缓冲区", SweepRunner.Point::getBufferSize));
+        resultTable.getColumns().add(column("思考(ms)", SweepRunner.Point::getThinkMillis));
+        resultTable.getColumns().add(column("吞吐量/秒", p -> format(p.getThroughput())));
+        resultTable.getColumns().add(column("p50(μs)", p -> format(p.getP50Us())));
+        resultTable.getColumns().add(column("p99(μs)", p -> format(p.getP99Us())));
+        resultTable.getColumns().add(column("公平性", p -> String.format(Locale.ROOT, "%.3f", p.getFairness())));
+        resultTable.getColumns().add(column("错误", p -> p.getError() == null ? "" : p.getError()));
+    }
+
+    private static <T> TableColumn<SweepRunner.Point, T> column(String title, Function<SweepRunner.Point, T> getter) {
+        TableColumn<SweepRunner.Point, T> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new SimpleObjectProperty<>(getter.apply(cell.getValue())));
+        return column;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    @FXML
+    private void startSweep() {
+        if (isRunning) {
+            return;
+        }
+
+        List<BatchConfig> grid;
+        int parallel;
+        try {
+            grid = SweepRunner.grid(selectedProblem(),
+                    SweepRunner.parseInts(actorsField.getText()),
+                    SweepRunner.parseInts(bufferField.getText()),
+                    SweepRunner.parseMillisList(thinkField.getText()),
+                    BatchConfig.parseMillis(durationField.getText()));
+            parallel = Integer.parseInt(parallelField.getText().trim());
+        } catch (IllegalArgumentException e) {
+            progressLabel.setText("参数格式错误: " + e.getMessage());
+            return;
+        }
+
+        isRunning = true;
+        startBtn.setDisable(true);
+        stopBtn.setDisable(false);
+        resultTable.getItems().clear();
+        throughputChart.getData().clear();
+        seriesByKey.clear();
+        finishedPoints = 0;
+        progressBar.setProgress(0);
+
+        SweepRunner runner = new SweepRunner(grid, parallel);
+        sweep = runner;
+        progressLabel.setText("扫描中: 0/" + runner.size());
+
+        Thread sweepThread = new Thread(() -> {
+            try {
+                runner.run(point -> Platform.runLater(() -> addPoint(point, runner.size())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                Platform.runLater(this::sweepFinished);
+            }
+        }, "sweep");
+        sweepThread.setDaemon(true);
+        sweepThread.start();
+    }
+
+    @FXML
+    private void stopSweep() {
+        SweepRunner runner = sweep;
+        if (runner != null) {
+            runner.cancel();
+        }
+    }
+
+    private void addPoint(SweepRunner.Point point, int total) {
+        finishedPoints++;
+        progressBar.setProgress((double) finishedPoints / total);
+        progressLabel.setText("扫描中: " + finishedPoints + "/" + total);
+        resultTable.getItems().add(point);
+
+        if (point.getError() != null) {
+            return;
+        }
+
+        String key = point.getStrategy() + " 缓冲" + point.getBufferSize() + " 思考" + point.getThinkMillis() + "ms";
+        XYChart.Series<Number, Number> series = seriesByKey.computeIfAbsent(key, k -> {
+            XYChart.Series<Number, Number> s = new XYChart.Series<>();
+            s.setName(k);
+            throughputChart.getData().add(s);
+            return s;
+        });
+        series.getData().add(new XYChart.Data<>(point.getActors(), point.getThroughput()));
+        // 并行运行时结果乱序到达，按线程数排序后折线才连贯
+        series.getData().sort(Comparator.comparingDouble(d -> d.getXValue().doubleValue()));
+    }
+
+    private void sweepFinished() {
+        isRunning = false;
+        sweep = null;
+        startBtn.setDisable(false);
+        stopBtn.setDisable(true);
+        progressLabel.setText("扫描结束: " + finishedPoints + " 个点");
+    }
+
+    private BatchConfig.Problem selectedProblem() {
+        switch (problemChoice.getValue()) {
+            case "读者-写者":
+                return BatchConfig.Problem.READERS_WRITERS;
+            case "生产者-消费者":
+                return BatchConfig.Problem.PRODUCER_CONSUMER;
+            default:
+                return BatchConfig.Problem.PHILOSOPHERS;
+        }
+    }
+
+    @Override
+    public void start() {
+        startSweep();
+    }
+
+    @Override
+    public void pause() {
+        // 扫描在独立JVM中运行，切换界面时继续进行
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public void stop() {
+        stopSweep();
+    }
+}
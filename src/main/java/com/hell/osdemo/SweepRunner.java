@@ -0,0 +1,330 @@
+package com.hell.osdemo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 参数扫描：对每个策略在线程数 × 缓冲区大小 × 思考时间的网格上运行BatchRunner，
+ * 每个点在独立的JVM中运行，互不干扰；可同时运行多个JVM。
+ * <pre>
+ * java -cp OSdemo.jar com.hell.osdemo.SweepRunner --problem=philosophers \
+ *     --actors=2,4,8,16 --think=0,1 --duration=2s --parallel=2
+ * </pre>
+ */
+public class SweepRunner {
+
+    // 扫描中的一个点及其结果
+    public static class Point {
+        private final BatchConfig config;
+        private double throughput;
+        private double p50Us;
+        private double p99Us;
+        private double fairness;
+        private String error;
+
+        Point(BatchConfig config) {
+            this.config = config;
+        }
+
+        public BatchConfig getConfig() {
+            return config;
+        }
+
+        public String getStrategy() {
+            return config.strategyName();
+        }
+
+        public int getActors() {
+            return config.actors;
+        }
+
+        public int getBufferSize() {
+            return config.bufferSize;
+        }
+
+        public long getThinkMillis() {
+            return config.thinkMillis;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public double getP50Us() {
+            return p50Us;
+        }
+
+        public double getP99Us() {
+            return p99Us;
+        }
+
+        public double getFairness() {
+            return fairness;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public static String csvHeader() {
+            return "problem,strategy,actors,buffer,thinkMs,throughputPerSec,p50Us,p99Us,fairness,error";
+        }
+
+        public String toCsv() {
+            return String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.1f,%.1f,%.1f,%.4f,%s",
+                    config.problem.getName(), getStrategy(), config.actors, config.bufferSize,
+                    config.thinkMillis, throughput, p50Us, p99Us, fairness, error == null ? "" : error);
+        }
+    }
+
+    private final List<BatchConfig> grid;
+    private final int parallel;
+    private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled = false;
+
+    public SweepRunner(List<BatchConfig> grid, int parallel) {
+        this.grid = grid;
+        this.parallel = Math.max(1, parallel);
+    }
+
+    /**
+     * 生成扫描网格：该问题的每个策略 × 线程数 × 缓冲区大小 × 思考时间。
+     */
+    public static List<BatchConfig> grid(BatchConfig.Problem problem, int[] actors, int[] bufferSizes,
+                                         long[] thinkMillis, long durationMillis) {
+        List<BatchConfig> grid = new ArrayList<>();
+        for (String strategy : BatchConfig.strategiesOf(problem)) {
+            for (int buffer : bufferSizes) {
+                for (long think : thinkMillis) {
+                    for (int actorCount : actors) {
+                        BatchConfig config = new BatchConfig();
+                        config.problem = problem;
+                        config.strategy = strategy;
+                        config.actors = actorCount;
+                        config.bufferSize = buffer;
+                        config.thinkMillis = think;
+                        config.durationMillis = durationMillis;
+                        config.format = BatchConfig.Format.CSV;
+                        grid.add(config);
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    public int size() {
+        return grid.size();
+    }
+
+    /**
+     * 运行整个网格，每完成一个点回调一次（在工作线程上），返回按网格顺序排列的结果。
+     */
+    public List<Point> run(Consumer<Point> onPoint) throws InterruptedException {
+        List<Point> points = new ArrayList<>();
+        for (BatchConfig config : grid) {
+            points.add(new Point(config));
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallel, r -> {
+            Thread thread = new Thread(r, "sweep-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Point point : points) {
+            workers.execute(() -> {
+                if (!cancelled) {
+                    runPoint(point);
+                    onPoint.accept(point);
+                }
+            });
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            cancel();
+            workers.shutdownNow();
+            throw e;
+        }
+        return Collections.unmodifiableList(points);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Process process : processes) {
+            process.destroyForcibly();
+        }
+    }
+
+    private void runPoint(Point point) {
+        Process process = null;
+        try {
+            process = new ProcessBuilder(workerCommand(point.config))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            processes.add(process);
+
+            List<String> lines = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+            int exit = process.waitFor();
+            if (exit != 0 || lines.size() < 2) {
+                point.error = cancelled ? "cancelled" : "exit " + exit;
+                return;
+            }
+            parseCsv(point, lines.get(0), lines.get(1));
+        } catch (IOException e) {
+            point.error = e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            point.error = "interrupted";
+        } finally {
+            if (process != null) {
+                processes.remove(process);
+            }
+        }
+    }
+
+    private static void parseCsv(Point point, String header, String row) {
+        String[] names = header.split(",");
+        String[] values = row.split(",");
+        for (int i = 0; i < names.length && i < values.length; i++) {
+            switch (names[i]) {
+                case "throughputPerSec":
+                    point.throughput = Double.parseDouble(values[i]);
+                    break;
+                case "p50Us":
+                    point.p50Us = Double.parseDouble(values[i]);
+                    break;
+                case "p99Us":
+                    point.p99Us = Double.parseDouble(values[i]);
+                    break;
+                case "fairness":
+                    point.fairness = Double.parseDouble(values[i]);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static List<String> workerCommand(BatchConfig config) {
+        List<String> command = javaCommand(BatchRunner.class);
+        BatchConfig csv = config.copy();
+        csv.format = BatchConfig.Format.CSV;
+        command.addAll(csv.toArgs());
+        return command;
+    }
+
+    /**
+     * 用当前JVM的java可执行文件启动mainClass的命令行（不含参数），兼容模块路径、类路径和jlink镜像。
+     */
+    static List<String> javaCommand(Class<?> mainClass) {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+
+        if (mainClass.getModule().isNamed()) {
+            String modulePath = System.getProperty("jdk.module.path");
+            if (modulePath != null && !modulePath.isEmpty()) {
+                command.add("-p");
+                command.add(modulePath);
+            }
+            command.add("-m");
+            command.add(mainClass.getModule().getName() + "/" + mainClass.getName());
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(mainClass.getName());
+        }
+        return command;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        BatchConfig.Problem problem = BatchConfig.Problem.PHILOSOPHERS;
+        int[] actors = {2, 4, 8, 16};
+        int[] buffers = {5};
+        long[] thinks = {0};
+        long duration = 2000;
+        int parallel = 1;
+
+        try {
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("无法识别的参数: " + arg);
+                }
+                String key = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (key) {
+                    case "problem":
+                        problem = BatchConfig.Problem.fromName(value);
+                        break;
+                    case "actors":
+                        actors = parseInts(value);
+                        break;
+                    case "buffer":
+                        buffers = parseInts(value);
+                        break;
+                    case "think":
+                        thinks = parseMillisList(value);
+                        break;
+                    case "duration":
+                        duration = BatchConfig.parseMillis(value);
+                        break;
+                    case "parallel":
+                        parallel = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("未知参数: --" + key);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("参数错误: " + e.getMessage());
+            System.err.println("用法: SweepRunner --problem=... [--actors=2,4,8] [--buffer=5,64]"
+                    + " [--think=0,1ms] [--duration=2s] [--parallel=1]");
+            System.exit(2);
+            return;
+        }
+
+        SweepRunner sweep = new SweepRunner(grid(problem, actors, buffers, thinks, duration), parallel);
+        System.out.println(Point.csvHeader());
+        for (Point point : sweep.run(p -> System.err.println("完成: " + p.toCsv()))) {
+            System.out.println(point.toCsv());
+        }
+    }
+
+    static int[] parseInts(String value) {
+        String[] parts = value.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+        }
+        return result;
+    }
+
+    static long[] parseMillisList(String value) {
+        String[] parts = value.split(",");
+        long[] result = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = BatchConfig.parseMillis(parts[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,254 @@
+package com.hell.osdemo;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 离散事件虚拟时钟：sleep不占用实际时间，只登记唤醒时刻。
+ * 当所有登记的参与线程都在睡眠或阻塞（等待锁、信号量）时，
+ * 时钟直接跳到最早的唤醒时刻并唤醒对应线程，几小时的模拟只需几秒。
+ * 停在暂停闸门（PauseGate）上的线程不算阻塞：演示暂停期间虚拟时间也停住。
+ * 参与线程的状态通过 Thread.getState() 判断：被唤醒但尚未运行的线程短暂仍显示为等待，
+ * 因此每次推进前会让出CPU并反复确认几次，偶尔提前推进只会让个别等待时间偏长。
+ * 获取失败后的重试不推进时间，而是等到其他线程改变了状态（下一个事件）后在同一时刻再试。
+ * 推进时间的协调线程在第一次sleep时启动，用完后调用 shutdown() 停止。
+ */
+public class VirtualClock implements SimClock {
+
+    // 推进时间前需要连续观察到全部静止的次数
+    private static final int CONFIRMATIONS = 3;
+
+    private static class Sleeper implements Comparable<Sleeper> {
+        final long wakeNanos;
+        final long seq;
+        final Thread thread;
+        // 重试者入队时的事件序号，之后发生过事件才值得再试
+        long epoch;
+        volatile boolean released = false;
+
+        Sleeper(long wakeNanos, long seq, Thread thread) {
+            this.wakeNanos = wakeNanos;
+            this.seq = seq;
+            this.thread = thread;
+        }
+
+        @Override
+        public int compareTo(Sleeper other) {
+            // 同一时刻按入队顺序唤醒，保证结果可重复
+            int byTime = Long.compare(wakeNanos, other.wakeNanos);
+            return byTime != 0 ? byTime : Long.compare(seq, other.seq);
+        }
+    }
+
+    private final Set<Thread> participants = ConcurrentHashMap.newKeySet();
+    // 以下字段由sleepers的监视器保护
+    private final PriorityQueue<Sleeper> sleepers = new PriorityQueue<>();
+    private final List<Sleeper> retriers = new ArrayList<>();
+    private final Set<Thread> sleeping = new HashSet<>();
+    // 已被唤醒但还没从sleep返回的线程，它们返回前不能再推进时间
+    private final Set<Thread> waking = new HashSet<>();
+    private long seq = 0;
+    private long epoch = 0;
+
+    private volatile long now = 0;
+    // 协调线程，shutdown()后为null，再有线程sleep时重新启动
+    private volatile Thread coordinator;
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public void register(Thread thread) {
+        participants.add(thread);
+    }
+
+    @Override
+    public void unregister(Thread thread) {
+        participants.remove(thread);
+    }
+
+    @Override
+    public void retryPause() throws InterruptedException {
+        Sleeper sleeper;
+        synchronized (sleepers) {
+            sleeper = new Sleeper(now, seq++, Thread.currentThread());
+            sleeper.epoch = epoch;
+            retriers.add(sleeper);
+            sleeping.add(sleeper.thread);
+            startCoordinator();
+        }
+        await(sleeper);
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (millis <= 0) {
+            return;
+        }
+        Sleeper sleeper;
+        synchronized (sleepers) {
+            sleeper = new Sleeper(now + millis * 1_000_000L, seq++, Thread.currentThread());
+            sleepers.add(sleeper);
+            sleeping.add(sleeper.thread);
+            startCoordinator();
+        }
+        await(sleeper);
+    }
+
+    private void await(Sleeper sleeper) throws InterruptedException {
+        LockSupport.unpark(coordinator);
+        while (!sleeper.released) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                synchronized (sleepers) {
+                    sleepers.remove(sleeper);
+                    retriers.remove(sleeper);
+                    sleeping.remove(sleeper.thread);
+                    waking.remove(sleeper.thread);
+                }
+                throw new InterruptedException();
+            }
+        }
+        synchronized (sleepers) {
+            waking.remove(sleeper.thread);
+        }
+    }
+
+    // 调用方持有sleepers的监视器
+    private void startCoordinator() {
+        if (coordinator == null) {
+            Thread thread = new Thread(this::coordinate, "virtual-clock");
+            thread.setDaemon(true);
+            coordinator = thread;
+            thread.start();
+        }
+    }
+
+    /** 停止协调线程；仍在睡眠的线程不再被唤醒，调用方应先中断它们 */
+    @Override
+    public void shutdown() {
+        Thread thread;
+        synchronized (sleepers) {
+            thread = coordinator;
+            coordinator = null;
+        }
+        LockSupport.unpark(thread);
+    }
+
+    private void coordinate() {
+        Thread self = Thread.currentThread();
+        while (coordinator == self) {
+            boolean idle;
+            synchronized (sleepers) {
+                idle = sleepers.isEmpty() && retriers.isEmpty();
+            }
+            if (idle || pausedParticipant()) {
+                LockSupport.parkNanos(this, 1_000_000);
+                continue;
+            }
+            // 多次确认之间让出CPU，让刚被锁或信号量唤醒的线程真正运行起来
+            if (!confirmQuiescent()) {
+                LockSupport.parkNanos(this, 20_000);
+                continue;
+            }
+            synchronized (sleepers) {
+                if (isQuiescent()) {
+                    advance();
+                }
+            }
+        }
+    }
+
+    private boolean confirmQuiescent() {
+        for (int i = 0; i < CONFIRMATIONS; i++) {
+            if (!isQuiescent()) {
+                return false;
+            }
+            Thread.yield();
+            LockSupport.parkNanos(this, 10_000);
+        }
+        return true;
+    }
+
+    /**
+     * 处理下一个事件：上次事件之后入队的重试者在当前时刻先重试；
+     * 没有这样的重试者时推进到最早的唤醒时刻，唤醒该时刻的所有线程。
+     */
+    private void advance() {
+        boolean retried = false;
+        for (Iterator<Sleeper> it = retriers.iterator(); it.hasNext(); ) {
+            Sleeper retrier = it.next();
+            if (retrier.epoch < epoch) {
+                it.remove();
+                release(retrier);
+                retried = true;
+            }
+        }
+        if (!retried) {
+            if (sleepers.isEmpty()) {
+                // 只剩重试者且没有任何待发生的事件，模拟本身已死锁
+                return;
+            }
+            now = Math.max(now, sleepers.peek().wakeNanos);
+            while (!sleepers.isEmpty() && sleepers.peek().wakeNanos <= now) {
+                release(sleepers.poll());
+            }
+        }
+        epoch++;
+    }
+
+    private void release(Sleeper sleeper) {
+        sleeping.remove(sleeper.thread);
+        waking.add(sleeper.thread);
+        sleeper.released = true;
+        LockSupport.unpark(sleeper.thread);
+    }
+
+    // 有参与线程停在暂停闸门上，演示处于暂停状态
+    private boolean pausedParticipant() {
+        for (Thread thread : participants) {
+            if (LockSupport.getBlocker(thread) instanceof PauseGate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isQuiescent() {
+        synchronized (sleepers) {
+            if (!waking.isEmpty()) {
+                return false;
+            }
+            for (Thread thread : participants) {
+                if (sleeping.contains(thread)) {
+                    continue;
+                }
+                switch (thread.getState()) {
+                    case TERMINATED:
+                        participants.remove(thread);
+                        break;
+                    case WAITING:
+                        // 停在暂停闸门上的线程等的是继续按钮，不是模拟中的事件
+                        if (LockSupport.getBlocker(thread) instanceof PauseGate) {
+                            return false;
+                        }
+                        break;
+                    case BLOCKED:
+                        break;
+                    default:
+                        // NEW、RUNNABLE和实际的限时等待都视为仍在运行
+                        return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.hell.osdemo;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 获取失败后重试前的等待方式：批处理（BatchRunner --wait）中拿筷子、读写锁的tryRead/tryWrite和
+ * 缓冲区的非阻塞放入/取出，生产者-消费者演示的缓冲区（含跨进程模式）都按它重试。
+ * 哲学家和读者-写者演示失败后按固定的几百毫秒重试，便于观察，不使用它。
+ * 越偏向自旋，资源释放后越快发现（交接延迟低），但等待期间一直占着CPU；越偏向挂起则相反。
+ * attempt是本次等待中已经失败的次数，从0开始，成功后重新计数。
+ */
+public enum WaitStrategy {
+    // 原有方式：重试循环走时钟的retryPause（实时时钟为让出CPU），缓冲区用阻塞的put/take
+    CLOCK("默认（阻塞/让出）"),
+    BUSY_SPIN("忙等"),
+    SPIN_YIELD("自旋后让出"),
+    SPIN_PARK("自旋、让出后挂起"),
+    PARK("挂起"),
+    BACKOFF("指数退避（随机抖动）"),
+    ADAPTIVE("自适应（自旋→让出→挂起）");
+
+    // 先自旋SPIN_TRIES次，再让出到第YIELD_TRIES次，之后每次挂起PARK_NANOS
+    static final int SPIN_TRIES = 100;
+    static final int YIELD_TRIES = 200;
+    static final long PARK_NANOS = 50_000;
+    // 退避时长从1微秒起每次翻倍，最长1毫秒，实际等待在[0, 上限)中随机取，避免多个线程同时醒来再次冲突
+    static final long BACKOFF_MIN_NANOS = 1_000;
+    static final long BACKOFF_MAX_NANOS = 1_000_000;
+    // ADAPTIVE：自旋次数在上下限之间按上一次等待的结果调整，之后让出ADAPTIVE_YIELDS次，
+    // 再挂起，挂起时长和BACKOFF一样从1微秒翻倍到1毫秒，但不加随机抖动
+    static final int ADAPTIVE_MIN_SPINS = 10;
+    static final int ADAPTIVE_MAX_SPINS = 10_000;
+    static final int ADAPTIVE_YIELDS = 50;
+
+    // ADAPTIVE每个线程的状态：[0]当前的自旋次数，[1]上一次等待中失败的次数
+    private static final ThreadLocal<int[]> ADAPTIVE_STATE =
+            ThreadLocal.withInitial(() -> new int[] {SPIN_TRIES, 0});
+
+    private final String label;
+
+    WaitStrategy(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static WaitStrategy fromLabel(String label) {
+        for (WaitStrategy strategy : values()) {
+            if (strategy.label.equals(label)) {
+                return strategy;
+            }
+        }
+        return CLOCK;
+    }
+
+    /**
+     * 第attempt次失败后的等待。CLOCK走模拟时钟，虚拟时钟下只有它能推进时间。
+     */
+    public void idle(int attempt, SimClock clock) throws InterruptedException {
+        if (this == CLOCK) {
+            clock.retryPause();
+        } else {
+            idle(attempt);
+        }
+    }
+
+    /**
+     * 不经过时钟的等待，被中断时抛出InterruptedException；CLOCK在这里按SPIN_PARK处理。
+     */
+    public void idle(int attempt) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        switch (this) {
+            case BUSY_SPIN:
+                Thread.onSpinWait();
+                break;
+            case SPIN_YIELD:
+                if (attempt < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+                break;
+            case PARK:
+                LockSupport.parkNanos(this, PARK_NANOS);
+                break;
+            case BACKOFF:
+                long ceiling = BACKOFF_MIN_NANOS << Math.min(attempt, 10);
+                LockSupport.parkNanos(this, ThreadLocalRandom.current().nextLong(Math.min(ceiling, BACKOFF_MAX_NANOS)) + 1);
+                break;
+            case ADAPTIVE:
+                adaptive(attempt);
+                break;
+            case SPIN_PARK:
+            case CLOCK:
+            default:
+                if (attempt < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (attempt < YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                break;
+        }
+    }
+
+    // 类似JVM的自适应自旋：新的一次等待开始时，如果上一次在自旋阶段就等到了，说明持有时间短，
+    // 自旋次数翻倍；如果挂起过才等到，自旋是白费CPU，次数减半
+    private void adaptive(int attempt) {
+        int[] state = ADAPTIVE_STATE.get();
+        if (attempt == 0 && state[1] > 0) {
+            state[0] = state[1] <= state[0]
+                    ? Math.min(state[0] * 2, ADAPTIVE_MAX_SPINS)
+                    : Math.max(state[0] / 2, ADAPTIVE_MIN_SPINS);
+        }
+        state[1] = attempt + 1;
+        int spins = state[0];
+        if (attempt < spins) {
+            Thread.onSpinWait();
+        } else if (attempt < spins + ADAPTIVE_YIELDS) {
+            Thread.yield();
+        } else {
+            long nanos = BACKOFF_MIN_NANOS << Math.min(attempt - spins - ADAPTIVE_YIELDS, 10);
+            LockSupport.parkNanos(this, Math.min(nanos, BACKOFF_MAX_NANOS));
+        }
+    }
+}
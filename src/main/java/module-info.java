@@ -1,10 +1,15 @@
 module com.hell.osdemo {
     requires javafx.controls;
     requires javafx.fxml;
+    // 同步资源的JFR事件及进程内录制
+    requires jdk.jfr;
+    // 按线程统计堆分配（com.sun.management.ThreadMXBean）
+    requires jdk.management;
 
-    requires org.controlsfx.controls;
-    requires org.kordamp.ikonli.javafx;
-    requires org.kordamp.bootstrapfx.core;
+    // 可选界面库：控制器暂未使用，声明为static避免启动时解析和加载
+    requires static org.controlsfx.controls;
+    requires static org.kordamp.ikonli.javafx;
+    requires static org.kordamp.bootstrapfx.core;
 
     opens com.hell.osdemo to javafx.fxml;
     exports com.hell.osdemo;
@@ -0,0 +1,70 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BatchConfigTest {
+
+    @Test
+    void parsesUnitsAndEnums() {
+        BatchConfig config = BatchConfig.parse(new String[] {
+                "--problem=producer-consumer", "--strategy=array_blocking", "--actors=6",
+                "--duration=2s", "--think=5ms", "--payload=4k", "--overload=spill-disk"});
+        assertEquals(BatchConfig.Problem.PRODUCER_CONSUMER, config.getProblem());
+        assertEquals(ItemBuffer.Backend.ARRAY_BLOCKING, config.bufferBackend());
+        assertEquals(6, config.getActors());
+        assertEquals(2_000, config.durationMillis);
+        assertEquals(5, config.getThinkMillis());
+        assertEquals(4096, config.payloadBytes);
+        assertEquals(OverloadBuffer.Policy.SPILL_DISK, config.overload);
+        assertEquals(WaitStrategy.SPIN_PARK, BatchConfig.parse(new String[] {"--wait=spin-park"}).waitStrategy);
+    }
+
+    @Test
+    void toArgsRoundTrips() {
+        BatchConfig config = BatchConfig.parse(new String[] {
+                "--problem=readers-writers", "--strategy=WRITER_PRIORITY", "--actors=8", "--writers=2",
+                "--reader-permits=3", "--duration=1s", "--work=2ms", "--seed=7", "--format=csv"});
+        BatchConfig copy = BatchConfig.parse(config.copy().toArgs().toArray(new String[0]));
+        assertEquals(config.toArgs(), copy.toArgs());
+    }
+
+    @Test
+    void rejectsMalformedArguments() {
+        assertRejected("无法识别的参数", "actors=5");
+        assertRejected("无法识别的参数", "--actors");
+        assertRejected("未知参数", "--colour=red");
+        assertRejected("未知问题类型", "--problem=sleeping-barber");
+        assertThrows(NumberFormatException.class, () -> BatchConfig.parse(new String[] {"--actors=many"}));
+    }
+
+    @Test
+    void rejectsOutOfRangeValues() {
+        assertRejected("--actors", "--actors=1");
+        assertRejected("--spill-capacity", "--spill-capacity=0");
+        assertRejected("--reader-permits", "--reader-permits=-1");
+        assertRejected("--clock=virtual", "--clock=virtual");
+        assertRejected("--engine=events", "--engine=events");
+    }
+
+    @Test
+    void rejectsUnsupportedCombinations() {
+        assertRejected("--hold-and-wait", "--hold-and-wait=true");
+        assertRejected("--hold-and-wait", "--engine=events", "--think=5ms", "--hold-and-wait=true",
+                "--strategy=ENSURE_BOTH_CHOPSTICKS");
+        assertRejected("--wait", "--engine=events", "--think=5ms", "--wait=busy-spin");
+        assertRejected("--wait", "--problem=producer-consumer", "--strategy=SYNCHRONOUS", "--wait=park");
+        assertRejected("--wait", "--problem=producer-consumer", "--overload=drop-newest", "--wait=park");
+        assertRejected("FLOW", "--problem=producer-consumer", "--strategy=FLOW", "--overload=spill");
+        assertRejected("--engine=processes", "--engine=processes");
+        assertRejected("--max-consumers", "--max-consumers=8");
+    }
+
+    private static void assertRejected(String message, String... args) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> BatchConfig.parse(args));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+}
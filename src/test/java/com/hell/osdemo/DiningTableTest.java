@@ -0,0 +1,109 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class DiningTableTest {
+
+    @Test
+    void neighboursCannotEatTogether() {
+        for (DiningTable.Strategy strategy : DiningTable.Strategy.values()) {
+            DiningTable table = new DiningTable(5);
+            table.setStrategy(strategy);
+            assertTrue(table.tryPickUp(0), strategy.name());
+            assertFalse(table.tryPickUp(1), strategy.name());
+            assertFalse(table.tryPickUp(4), strategy.name());
+            // 失败的一方不能留下半根筷子
+            assertFalse(table.isForkTaken(2), strategy.name());
+            assertTrue(table.tryPickUp(2), strategy.name());
+            table.putDown(0);
+            table.putDown(2);
+            for (int fork = 0; fork < 5; fork++) {
+                assertFalse(table.isForkTaken(fork), strategy.name());
+            }
+        }
+    }
+
+    @Test
+    void onlyOwnerCanReleaseFork() {
+        DiningTable.Fork fork = new DiningTable.Fork(0);
+        assertTrue(fork.tryTake(1));
+        fork.release(2);
+        assertFalse(fork.tryTake(2));
+        fork.release(1);
+        assertTrue(fork.tryTake(2));
+        fork.release(2);
+        assertFalse(fork.isTaken());
+    }
+
+    @Test
+    void limitDinersReturnsSeatOnFailure() {
+        // 四人三个座位：1号和3号拿不到筷子时必须归还座位，否则2号会因为没有座位而失败
+        DiningTable table = new DiningTable(4);
+        table.setStrategy(DiningTable.Strategy.LIMIT_DINERS);
+        assertTrue(table.tryPickUp(0));
+        assertFalse(table.tryPickUp(1));
+        assertFalse(table.tryPickUp(3));
+        assertTrue(table.tryPickUp(2));
+        table.putDown(0);
+        table.putDown(2);
+    }
+
+    @Test
+    void ensureBothLockOrderFormsCycle() {
+        // 每位哲学家先锁左筷子再锁右筷子，依次吃一次就凑齐 0→1→2→3→4→0 的环，不需要真的死锁
+        DiningTable table = new DiningTable(5);
+        table.setStrategy(DiningTable.Strategy.ENSURE_BOTH_CHOPSTICKS);
+        int cycles = LockOrderChecker.getCycles().size();
+        for (int philosopher = 0; philosopher < 5; philosopher++) {
+            assertTrue(table.tryPickUp(philosopher));
+            table.putDown(philosopher);
+        }
+        assertEquals(cycles + 1, LockOrderChecker.getCycles().size());
+    }
+
+    @Test
+    void concurrentDinersKeepInvariants() throws InterruptedException {
+        // ENSURE_BOTH_CHOPSTICKS的监视器加锁顺序成环，并发跑可能真的死锁，由上面的锁顺序检查覆盖
+        for (DiningTable.Strategy strategy : List.of(DiningTable.Strategy.NO_STRATEGY,
+                DiningTable.Strategy.LIMIT_DINERS)) {
+            DiningTable table = new DiningTable(5);
+            table.setStrategy(strategy);
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong meals = new AtomicLong();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                int id = i;
+                Thread thread = new Thread(() -> {
+                    while (running.get()) {
+                        if (table.tryPickUp(id)) {
+                            meals.incrementAndGet();
+                            table.putDown(id);
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            Thread.sleep(200);
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(meals.get() > 0, strategy.name());
+            assertTrue(table.getInvariants().getChecks() > 0, strategy.name());
+            assertEquals(0, table.getInvariants().getViolations(), table.getInvariants().getLastViolation());
+            assertFalse(table.allForksTaken(), strategy.name());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ElasticConsumerPoolTest {
+
+    private static final long TARGET_LATENCY = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    void scaleUpWaitsForRetiringWorkerToFreeItsSlot() throws InterruptedException {
+        // 消费者卡在手上的物品里，直到放行
+        CountDownLatch release = new CountDownLatch(1);
+        ElasticConsumerPool.Policy policy = new ElasticConsumerPool.Policy(1, 2, TARGET_LATENCY);
+        policy.upSamples = 1;
+        policy.downSamples = 1;
+        policy.cooldownSamples = 0;
+        ElasticConsumerPool pool = new ElasticConsumerPool(policy, slot -> {
+            release.await();
+            Thread.sleep(1);
+        }, (slot, body) -> new Thread(body, "消费者" + slot), event -> { });
+        pool.start();
+        try {
+            assertNotNull(pool.sample(10, 10));
+            assertEquals(2, pool.getWorkers());
+            assertNotNull(pool.sample(0, 10));
+            assertEquals(1, pool.getWorkers());
+            // 退出中的消费者仍占着槽位，扩容推迟而不是越界
+            assertNotNull(pool.threads()[1]);
+            assertNull(pool.sample(10, 10));
+            assertEquals(1, pool.getWorkers());
+
+            release.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pool.threads()[1] != null && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertNull(pool.threads()[1]);
+            ElasticConsumerPool.ScaleEvent event = pool.sample(10, 10);
+            assertNotNull(event);
+            assertTrue(event.isScaleUp());
+            assertEquals(2, pool.getWorkers());
+            assertEquals(2, pool.getScaleUps());
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination();
+        }
+    }
+
+    @Test
+    void staysWithinBounds() throws InterruptedException {
+        ElasticConsumerPool.Policy policy = new ElasticConsumerPool.Policy(1, 3, TARGET_LATENCY);
+        policy.upSamples = 1;
+        policy.downSamples = 1;
+        policy.cooldownSamples = 0;
+        ElasticConsumerPool pool = new ElasticConsumerPool(policy, slot -> Thread.sleep(1),
+                (slot, body) -> new Thread(body, "消费者" + slot), event -> { });
+        pool.start();
+        try {
+            for (int i = 0; i < 10; i++) {
+                pool.sample(10, 10);
+            }
+            assertEquals(3, pool.getWorkers());
+            for (int i = 0; i < 10; i++) {
+                pool.sample(0, 10);
+            }
+            assertEquals(1, pool.getWorkers());
+            assertEquals(3, pool.getPeakWorkers());
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class FlowPipelineTest {
+
+    @Test
+    void subscriberReceivesItemsInOrder() throws InterruptedException {
+        FlowPipeline<Integer> flow = new FlowPipeline<>(4, 1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(10);
+        flow.subscribe(rail -> item -> {
+            received.add(item);
+            done.countDown();
+        }, Thread::new);
+        for (int i = 0; i < 10; i++) {
+            flow.put(i);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), received);
+        flow.close();
+        flow.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void putAndOfferAfterCloseDoNotThrowIllegalState() throws InterruptedException {
+        FlowPipeline<Integer> flow = new FlowPipeline<>(4, 1);
+        // 还没有订阅
+        assertEquals(-1, flow.offer(1, 0, TimeUnit.MILLISECONDS));
+        assertThrows(InterruptedException.class, () -> flow.put(1));
+
+        flow.subscribe(rail -> item -> { }, Thread::new);
+        flow.close();
+        assertEquals(-1, flow.offer(1, 0, TimeUnit.MILLISECONDS));
+        assertThrows(InterruptedException.class, () -> flow.put(1));
+        flow.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void subscriberErrorGoesToListener() throws InterruptedException {
+        FlowPipeline<Integer> flow = new FlowPipeline<>(4, 1);
+        CountDownLatch failed = new CountDownLatch(1);
+        flow.setErrorListener(error -> failed.countDown());
+        flow.subscribe(rail -> item -> {
+            throw new IllegalArgumentException("坏物品");
+        }, Thread::new);
+        flow.put(1);
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, flow.getErrors());
+        flow.close();
+        flow.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
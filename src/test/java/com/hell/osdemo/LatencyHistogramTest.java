@@ -0,0 +1,73 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(0, histogram.percentile(99.9));
+    }
+
+    @Test
+    void bucketValueIsWithinPrecision() {
+        for (long value = 1; value < 1L << 40; value = value * 3 + 1) {
+            long bucketed = LatencyHistogram.bucketValue(LatencyHistogram.bucketIndex(value));
+            assertTrue(Math.abs(bucketed - value) <= value * 0.0625, value + " -> " + bucketed);
+        }
+    }
+
+    @Test
+    void percentilesOfUniformValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 1_000);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertClose(50_000_000, histogram.percentile(50));
+        assertClose(99_000_000, histogram.percentile(99));
+        // 百分位数取桶的中点，但不超过最大值
+        assertClose(100_000_000, histogram.percentile(100));
+        assertTrue(histogram.percentile(100) <= histogram.getMax());
+    }
+
+    @Test
+    void negativeValuesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.percentile(100));
+    }
+
+    @Test
+    void mergeAddsCountsAndKeepsMax() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 900; i++) {
+            fast.record(1_000);
+        }
+        for (int i = 0; i < 100; i++) {
+            slow.record(1_000_000);
+        }
+        fast.merge(slow);
+        assertEquals(1_000, fast.getCount());
+        assertEquals(1_000_000, fast.getMax());
+        assertClose(1_000, fast.percentile(90));
+        assertClose(1_000_000, fast.percentile(91));
+
+        fast.reset();
+        assertEquals(0, fast.getCount());
+        assertEquals(0, fast.getMax());
+    }
+
+    private static void assertClose(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.0625, "期望约 " + expected + "，实际 " + actual);
+    }
+}
@@ -0,0 +1,82 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// 依赖surefire的argLine打开 -Dosdemo.lockdep；检查器的环记录是全局的，只比较前后差值
+class LockOrderCheckerTest {
+
+    @Test
+    void enabledForTests() {
+        assertTrue(LockOrderChecker.ENABLED);
+    }
+
+    @Test
+    void consistentOrderHasNoCycle() {
+        LockOrderChecker.Lock a = LockOrderChecker.lock("a");
+        LockOrderChecker.Lock b = LockOrderChecker.lock("b");
+        int cycles = LockOrderChecker.getCycles().size();
+        int edges = LockOrderChecker.getEdges();
+        for (int i = 0; i < 3; i++) {
+            nest(a, b);
+        }
+        // 同一条边只记录一次
+        assertEquals(edges + 1, LockOrderChecker.getEdges());
+        assertEquals(cycles, LockOrderChecker.getCycles().size());
+    }
+
+    @Test
+    void reversedOrderReportsCycle() {
+        LockOrderChecker.Lock a = LockOrderChecker.lock("left");
+        LockOrderChecker.Lock b = LockOrderChecker.lock("right");
+        int cycles = LockOrderChecker.getCycles().size();
+        nest(a, b);
+        nest(b, a);
+        assertEquals(cycles + 1, LockOrderChecker.getCycles().size());
+        String report = LockOrderChecker.getCycles().get(cycles);
+        assertTrue(report.contains("left") && report.contains("right"), report);
+    }
+
+    @Test
+    void longerCycleAcrossThreads() throws InterruptedException {
+        LockOrderChecker.Lock a = LockOrderChecker.lock("x");
+        LockOrderChecker.Lock b = LockOrderChecker.lock("y");
+        LockOrderChecker.Lock c = LockOrderChecker.lock("z");
+        int cycles = LockOrderChecker.getCycles().size();
+        Thread first = new Thread(() -> nest(a, b));
+        Thread second = new Thread(() -> nest(b, c));
+        first.start();
+        first.join();
+        second.start();
+        second.join();
+        assertEquals(cycles, LockOrderChecker.getCycles().size());
+        // z→x 与 x→y→z 构成环，即使三次加锁分别在不同线程中
+        nest(c, a);
+        assertEquals(cycles + 1, LockOrderChecker.getCycles().size());
+    }
+
+    @Test
+    void tryAcquireAddsNoEdgeButWaitOnDoes() {
+        LockOrderChecker.Lock held = LockOrderChecker.lock("held");
+        LockOrderChecker.Lock tried = LockOrderChecker.lock("tried");
+        LockOrderChecker.Lock semaphore = LockOrderChecker.lock("semaphore");
+        int edges = LockOrderChecker.getEdges();
+        LockOrderChecker.acquire(held);
+        // 不阻塞的获取不会死锁，不记录顺序
+        LockOrderChecker.acquired(tried);
+        LockOrderChecker.release(tried);
+        assertEquals(edges, LockOrderChecker.getEdges());
+        LockOrderChecker.waitOn(semaphore);
+        assertEquals(edges + 1, LockOrderChecker.getEdges());
+        LockOrderChecker.release(held);
+    }
+
+    private static void nest(LockOrderChecker.Lock outer, LockOrderChecker.Lock inner) {
+        LockOrderChecker.acquire(outer);
+        LockOrderChecker.acquire(inner);
+        LockOrderChecker.release(inner);
+        LockOrderChecker.release(outer);
+    }
+}
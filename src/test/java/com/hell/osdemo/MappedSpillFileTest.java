@@ -0,0 +1,118 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedSpillFileTest {
+
+    // 64字节负载的物品在段中占 4 + 16 + 64 = 84 字节，每段放得下3个
+    private static final int SEGMENT_BYTES = 256;
+
+    private final PayloadPool pool = new PayloadPool(4, 64);
+
+    @Test
+    void roundTripsAcrossSegments() {
+        MappedSpillFile<PayloadPool.Payload> spill = new MappedSpillFile<>(pool.codec(), SEGMENT_BYTES, 4);
+        try {
+            for (long seq = 0; seq < 10; seq++) {
+                assertTrue(spill.append(pool.acquire(seq, seq * 100)));
+            }
+            assertEquals(10, spill.size());
+            assertEquals(4, spill.getSegments());
+            assertEquals(4L * SEGMENT_BYTES, spill.getDiskBytes());
+            // 写出的物品已归还对象池
+            assertEquals(4, pool.available());
+
+            assertEquals(0, spill.peek().getSequence());
+            for (long seq = 0; seq < 10; seq++) {
+                PayloadPool.Payload payload = spill.poll();
+                assertEquals(seq, payload.getSequence());
+                assertEquals(seq * 100, payload.getProducedAt());
+                assertTrue(payload.verify());
+                pool.release(payload);
+            }
+            assertNull(spill.poll());
+            assertEquals(0, spill.size());
+        } finally {
+            spill.close();
+        }
+    }
+
+    @Test
+    void fullFileRejectsAndRecyclesReadSegments() {
+        MappedSpillFile<PayloadPool.Payload> spill = new MappedSpillFile<>(pool.codec(), SEGMENT_BYTES, 2);
+        try {
+            for (long seq = 0; seq < 6; seq++) {
+                assertTrue(spill.append(pool.acquire(seq, 0)));
+            }
+            PayloadPool.Payload extra = pool.acquire(6, 0);
+            assertFalse(spill.append(extra));
+            pool.release(extra);
+
+            // 第一段读空后放回空闲列表，之后的物品写进同一个段文件
+            for (long seq = 0; seq < 3; seq++) {
+                pool.release(spill.poll());
+            }
+            assertEquals(1, spill.getRecycled());
+            for (long seq = 6; seq < 9; seq++) {
+                assertTrue(spill.append(pool.acquire(seq, 0)));
+            }
+            assertEquals(2, spill.getSegments());
+            for (long seq = 3; seq < 9; seq++) {
+                PayloadPool.Payload payload = spill.poll();
+                assertEquals(seq, payload.getSequence());
+                pool.release(payload);
+            }
+        } finally {
+            spill.close();
+        }
+    }
+
+    @Test
+    void closedFileRejectsAppends() {
+        MappedSpillFile<PayloadPool.Payload> spill = new MappedSpillFile<>(pool.codec(), SEGMENT_BYTES, 2);
+        assertTrue(spill.append(pool.acquire(0, 0)));
+        spill.close();
+        assertEquals(0, spill.size());
+        assertNull(spill.poll());
+        assertFalse(spill.append(pool.acquire(1, 0)));
+        assertFalse(Files.exists(spill.getDirectory()));
+    }
+
+    @Test
+    void removesLeftoversOfExitedProcesses(@TempDir Path tempRoot) throws IOException {
+        // 超过Linux进程号上限，不可能是存活的进程
+        Path exited = Files.createDirectory(tempRoot.resolve("osdemo-spill-" + Integer.MAX_VALUE + "-1"));
+        Files.createFile(exited.resolve("spill-000.seg"));
+        Path running = Files.createDirectory(tempRoot.resolve("osdemo-spill-" + ProcessHandle.current().pid() + "-1"));
+        Path unrelated = Files.createDirectory(tempRoot.resolve("osdemo-spill-other"));
+
+        MappedSpillFile.removeLeftovers(tempRoot);
+        assertFalse(Files.exists(exited));
+        assertTrue(Files.exists(running));
+        assertTrue(Files.exists(unrelated));
+    }
+
+    @Test
+    void rejectsInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new MappedSpillFile<>(pool.codec(), Integer.BYTES, 1));
+        assertThrows(IllegalArgumentException.class, () -> new MappedSpillFile<>(pool.codec(), SEGMENT_BYTES, 0));
+        MappedSpillFile<PayloadPool.Payload> spill = new MappedSpillFile<>(pool.codec(), 64, 1);
+        try {
+            // 单个物品超过段大小
+            assertThrows(IllegalArgumentException.class, () -> spill.append(pool.acquire(0, 0)));
+        } finally {
+            spill.close();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class OverloadBufferTest {
+
+    private final List<Integer> dropped = new ArrayList<>();
+    private final List<Integer> ranByCaller = new ArrayList<>();
+
+    private OverloadBuffer<Integer> buffer(OverloadBuffer.Policy policy, int capacity, int spillCapacity) {
+        OverloadBuffer<Integer> buffer = new OverloadBuffer<>(new SemaphoreBuffer<>(capacity), policy, 20,
+                ranByCaller::add, new OverflowStore.Memory<>(spillCapacity));
+        buffer.setDropListener(dropped::add);
+        return buffer;
+    }
+
+    @Test
+    void dropNewestRejectsIncomingItem() throws InterruptedException {
+        OverloadBuffer<Integer> buffer = buffer(OverloadBuffer.Policy.DROP_NEWEST, 2, 1);
+        buffer.put(1);
+        buffer.put(2);
+        assertEquals(OverloadBuffer.DROPPED, buffer.put(3));
+        assertEquals(1, buffer.getDropped());
+        assertEquals(List.of(3), dropped);
+        assertEquals(1, buffer.take());
+        assertEquals(2, buffer.take());
+    }
+
+    @Test
+    void dropOldestEvictsHead() throws InterruptedException {
+        OverloadBuffer<Integer> buffer = buffer(OverloadBuffer.Policy.DROP_OLDEST, 2, 1);
+        buffer.put(1);
+        buffer.put(2);
+        assertTrue(buffer.put(3) >= 0);
+        assertEquals(1, buffer.getDropped());
+        // 被挤掉的物品同样交给丢弃监听器，例如归还对象池
+        assertEquals(List.of(1), dropped);
+        assertEquals(2, buffer.take());
+        assertEquals(3, buffer.take());
+    }
+
+    @Test
+    void timeoutDropsAfterWaiting() throws InterruptedException {
+        OverloadBuffer<Integer> buffer = buffer(OverloadBuffer.Policy.TIMEOUT, 1, 1);
+        buffer.put(1);
+        long start = System.nanoTime();
+        assertEquals(OverloadBuffer.DROPPED, buffer.put(2));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(List.of(2), dropped);
+        assertTrue(buffer.getStallNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    void callerRunsHandlesItemItself() throws InterruptedException {
+        OverloadBuffer<Integer> buffer = buffer(OverloadBuffer.Policy.CALLER_RUNS, 1, 1);
+        buffer.put(1);
+        assertEquals(OverloadBuffer.CALLER_RAN, buffer.put(2));
+        assertEquals(1, buffer.getCallerRuns());
+        assertEquals(List.of(2), ranByCaller);
+        assertEquals(0, buffer.getDropped());
+    }
+
+    @Test
+    void spillKeepsOrderAndRefills() throws InterruptedException {
+        OverloadBuffer<Integer> buffer = buffer(OverloadBuffer.Policy.SPILL, 2, 10);
+        for (int i = 1; i <= 6; i++) {
+            buffer.put(i);
+        }
+        assertEquals(4, buffer.getSpilled());
+        assertEquals(4, buffer.overflowSize());
+        // 取出一个后溢出区队首补入缓冲区，新物品不能插队
+        assertEquals(1, buffer.take());
+        assertEquals(OverloadBuffer.SPILLED, buffer.put(7));
+        for (int i = 2; i <= 7; i++) {
+            assertEquals(i, buffer.take());
+        }
+        assertEquals(0, buffer.overflowSize());
+        assertNull(buffer.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void spillDropsWhenOverflowIsFull() throws InterruptedException {
+        OverloadBuffer<Integer> buffer = buffer(OverloadBuffer.Policy.SPILL, 1, 2);
+        buffer.put(1);
+        assertEquals(OverloadBuffer.SPILLED, buffer.put(2));
+        assertEquals(OverloadBuffer.SPILLED, buffer.put(3));
+        assertEquals(OverloadBuffer.DROPPED, buffer.put(4));
+        assertEquals(1, buffer.getOverflowDropped());
+        assertEquals(1, buffer.getDropped());
+        assertEquals(List.of(4), dropped);
+        assertEquals(2, buffer.overflowSize());
+    }
+
+    @Test
+    void spillWithoutCapacityServesFromOverflow() throws InterruptedException {
+        // SynchronousQueue没有容量，所有物品都进溢出区，消费者直接从溢出区取
+        OverloadBuffer<Integer> buffer = new OverloadBuffer<>(ItemBuffer.Backend.SYNCHRONOUS.create(1),
+                OverloadBuffer.Policy.SPILL, 20, ranByCaller::add, new OverflowStore.Memory<>(4));
+        assertEquals(OverloadBuffer.SPILLED, buffer.put(1));
+        assertEquals(OverloadBuffer.SPILLED, buffer.put(2));
+        assertEquals(1, buffer.take());
+        assertEquals(2, buffer.take());
+    }
+}
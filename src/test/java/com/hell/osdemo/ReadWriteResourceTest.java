@@ -0,0 +1,164 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class ReadWriteResourceTest {
+
+    @Test
+    void readersShareAndWriterWaitsForThem() throws InterruptedException {
+        ReadWriteResource resource = new ReadWriteResource(4);
+        resource.reset(ReadWriteResource.Strategy.READER_PRIORITY);
+        assertTrue(resource.tryRead());
+        assertTrue(resource.tryRead());
+        assertEquals(2, resource.getCurrentReaders());
+
+        AtomicBoolean wrote = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            try {
+                if (resource.tryWrite()) {
+                    wrote.set(true);
+                    resource.finishWrite();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        writer.start();
+        Thread.sleep(100);
+        assertFalse(wrote.get());
+        resource.finishRead();
+        resource.finishRead();
+        writer.join(5_000);
+        assertTrue(wrote.get());
+        assertFalse(resource.isWriting());
+    }
+
+    @Test
+    void fairReaderQueuesBehindWaitingWriter() throws InterruptedException {
+        ReadWriteResource resource = new ReadWriteResource(4);
+        resource.reset(ReadWriteResource.Strategy.FAIR);
+        assertTrue(resource.tryRead());
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Thread writer = new Thread(() -> {
+            try {
+                resource.tryWrite();
+                order.add("写");
+                Thread.sleep(50);
+                resource.finishWrite();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        writer.start();
+        Thread.sleep(100);
+        // 写者在排队，后到的读者不能插到它前面，即使当前只有读者持有锁
+        Thread reader = new Thread(() -> {
+            try {
+                resource.tryRead();
+                order.add("读");
+                resource.finishRead();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        reader.start();
+        Thread.sleep(100);
+        assertTrue(order.isEmpty());
+
+        resource.finishRead();
+        writer.join(5_000);
+        reader.join(5_000);
+        assertEquals(List.of("写", "读"), order);
+    }
+
+    @Test
+    void writerPriorityLimitsReaders() throws InterruptedException {
+        ReadWriteResource resource = new ReadWriteResource(1);
+        resource.reset(ReadWriteResource.Strategy.WRITER_PRIORITY);
+        assertTrue(resource.tryRead());
+        assertFalse(resource.tryRead());
+        resource.finishRead();
+        assertTrue(resource.tryRead());
+        resource.finishRead();
+    }
+
+    @Test
+    void interruptedReaderReturnsPermit() throws InterruptedException {
+        ReadWriteResource resource = new ReadWriteResource(1);
+        resource.reset(ReadWriteResource.Strategy.WRITER_PRIORITY);
+        assertTrue(resource.tryWrite());
+
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            try {
+                resource.tryRead();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        reader.start();
+        Thread.sleep(100);
+        reader.interrupt();
+        reader.join(5_000);
+        assertTrue(interrupted.get());
+
+        resource.finishWrite();
+        // 唯一的读者许可已经归还
+        assertTrue(resource.tryRead());
+        resource.finishRead();
+    }
+
+    @Test
+    void concurrentReadersAndWritersKeepInvariants() throws InterruptedException {
+        for (ReadWriteResource.Strategy strategy : ReadWriteResource.Strategy.values()) {
+            ReadWriteResource resource = new ReadWriteResource(3);
+            resource.reset(strategy);
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong ops = new AtomicLong();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                boolean writer = i < 2;
+                Thread thread = new Thread(() -> {
+                    try {
+                        while (running.get()) {
+                            if (writer ? resource.tryWrite() : resource.tryRead()) {
+                                ops.incrementAndGet();
+                                if (writer) {
+                                    resource.finishWrite();
+                                } else {
+                                    resource.finishRead();
+                                }
+                            } else {
+                                Thread.yield();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            Thread.sleep(200);
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(ops.get() > 0, strategy.name());
+            assertTrue(resource.getInvariants().getChecks() > 0, strategy.name());
+            assertEquals(0, resource.getInvariants().getViolations(), resource.getInvariants().getLastViolation());
+            assertEquals(0, resource.getCurrentReaders(), strategy.name());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class SemaphoreBufferTest {
+
+    @Test
+    void takesInInsertionOrder() throws InterruptedException {
+        SemaphoreBuffer<Integer> buffer = new SemaphoreBuffer<>(3);
+        assertEquals(0, buffer.put(1));
+        assertEquals(1, buffer.put(2));
+        assertEquals(2, buffer.put(3));
+        assertEquals(3, buffer.count());
+        assertEquals(1, buffer.take());
+        // 环形：下一个物品回到槽位0
+        assertEquals(0, buffer.put(4));
+        assertEquals(2, buffer.take());
+        assertEquals(3, buffer.take());
+        assertEquals(4, buffer.take());
+        assertEquals(0, buffer.count());
+    }
+
+    @Test
+    void offerAndPollTimeOut() throws InterruptedException {
+        SemaphoreBuffer<Integer> buffer = new SemaphoreBuffer<>(1);
+        assertNull(buffer.poll(10, TimeUnit.MILLISECONDS));
+        assertEquals(0, buffer.offer(1, 10, TimeUnit.MILLISECONDS));
+        assertEquals(-1, buffer.offer(2, 10, TimeUnit.MILLISECONDS));
+        assertEquals(1, buffer.poll(10, TimeUnit.MILLISECONDS));
+        assertPermitsBalanced(buffer);
+    }
+
+    @Test
+    void interruptedTakeLeavesPermitsBalanced() throws InterruptedException {
+        SemaphoreBuffer<Integer> buffer = new SemaphoreBuffer<>(2);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread consumer = new Thread(() -> {
+            try {
+                buffer.take();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        consumer.start();
+        Thread.sleep(100);
+        consumer.interrupt();
+        consumer.join(5_000);
+        assertTrue(interrupted.get());
+        assertPermitsBalanced(buffer);
+        buffer.put(1);
+        assertEquals(1, buffer.take());
+    }
+
+    @Test
+    void concurrentProducersAndConsumersKeepInvariants() throws InterruptedException {
+        SemaphoreBuffer<Long> buffer = new SemaphoreBuffer<>(4);
+        int items = 20_000;
+        AtomicLong sum = new AtomicLong();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < 2; i++) {
+            long base = (long) i * items;
+            threads[i] = new Thread(() -> {
+                try {
+                    for (long n = 1; n <= items; n++) {
+                        buffer.put(base + n);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[i + 2] = new Thread(() -> {
+                try {
+                    for (int n = 0; n < items; n++) {
+                        sum.addAndGet(buffer.take());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // 每个物品恰好取出一次
+        long n = 2L * items;
+        assertEquals(n * (n + 1) / 2, sum.get());
+        assertPermitsBalanced(buffer);
+        assertTrue(buffer.getInvariants().getChecks() > 0);
+        assertEquals(0, buffer.getInvariants().getViolations(), buffer.getInvariants().getLastViolation());
+    }
+
+    // 静止时空槽位加满槽位等于容量，满槽位等于物品数，互斥信号量空闲
+    private static void assertPermitsBalanced(SemaphoreBuffer<?> buffer) {
+        assertEquals(buffer.capacity(), buffer.emptyPermits() + buffer.fullPermits());
+        assertEquals(buffer.count(), buffer.fullPermits());
+        assertTrue(buffer.isMutexFree());
+    }
+}
@@ -0,0 +1,107 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SharedRingBufferTest {
+
+    private final Path file = SharedMemoryRunner.tempFile();
+
+    @AfterEach
+    void deleteFile() {
+        SharedMemoryRunner.deleteQuietly(file);
+    }
+
+    @Test
+    void takesInOrderAndWrapsAround() {
+        SharedRingBuffer ring = SharedRingBuffer.create(file, 3, 16);
+        SharedRingBuffer.Entry entry = new SharedRingBuffer.Entry();
+        assertFalse(ring.tryTake(entry));
+        assertEquals(0, ring.tryPut(10));
+        assertEquals(1, ring.tryPut(11));
+        assertEquals(2, ring.tryPut(12));
+        assertEquals(-1, ring.tryPut(13));
+        assertEquals(3, ring.count());
+        assertEquals(10L, ring.peek(0));
+        assertNull(ring.peek(3));
+
+        assertTrue(ring.tryTake(entry));
+        assertEquals(10, entry.getItem());
+        assertTrue(entry.isIntact());
+        assertTrue(entry.getProducedAt() > 0);
+        // 第二圈从槽位0开始
+        assertEquals(0, ring.tryPut(13));
+        for (long item = 11; item <= 13; item++) {
+            assertTrue(ring.tryTake(entry));
+            assertEquals(item, entry.getItem());
+            assertTrue(entry.isIntact());
+        }
+        assertEquals(0, ring.count());
+    }
+
+    @Test
+    void attachedMappingSeesSameSlots() throws InterruptedException {
+        // 两个映射模拟两个进程
+        SharedRingBuffer producer = SharedRingBuffer.create(file, 4, 0);
+        SharedRingBuffer consumer = SharedRingBuffer.attach(file);
+        assertEquals(4, consumer.capacity());
+        assertEquals(0, producer.offer(42L, 10, TimeUnit.MILLISECONDS));
+        assertEquals(42L, consumer.poll(10, TimeUnit.MILLISECONDS));
+        assertNull(consumer.poll(10, TimeUnit.MILLISECONDS));
+
+        assertFalse(consumer.isClosed());
+        producer.close();
+        assertTrue(consumer.isClosed());
+    }
+
+    @Test
+    void concurrentProducersAndConsumersKeepInvariants() throws InterruptedException {
+        SharedRingBuffer ring = SharedRingBuffer.create(file, 8, 64);
+        int items = 10_000;
+        AtomicLong sum = new AtomicLong();
+        AtomicLong corrupted = new AtomicLong();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < 2; i++) {
+            long base = (long) i * items;
+            threads[i] = new Thread(() -> {
+                for (long n = 1; n <= items; n++) {
+                    while (ring.tryPut(base + n) < 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[i + 2] = new Thread(() -> {
+                SharedRingBuffer.Entry entry = new SharedRingBuffer.Entry();
+                for (int n = 0; n < items; n++) {
+                    while (!ring.tryTake(entry)) {
+                        Thread.yield();
+                    }
+                    sum.addAndGet(entry.getItem());
+                    if (!entry.isIntact()) {
+                        corrupted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long n = 2L * items;
+        assertEquals(n * (n + 1) / 2, sum.get());
+        assertEquals(0, corrupted.get());
+        assertEquals(0, ring.count());
+        assertEquals(0, ring.getInvariants().getViolations(), ring.getInvariants().getLastViolation());
+    }
+}
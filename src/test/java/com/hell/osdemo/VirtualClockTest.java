@@ -0,0 +1,82 @@
+package com.hell.osdemo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class VirtualClockTest {
+
+    @Test
+    void sleepJumpsToWakeTime() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        Thread sleeper = participant(clock, () -> clock.sleep(60_000));
+        long start = System.nanoTime();
+        sleeper.join(5_000);
+        assertFalse(sleeper.isAlive());
+        assertEquals(TimeUnit.SECONDS.toNanos(60), clock.nanoTime());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        clock.shutdown();
+    }
+
+    @Test
+    void pausedParticipantStopsTime() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        PauseGate gate = new PauseGate();
+        gate.pause();
+        Thread paused = participant(clock, gate::awaitIfPaused);
+        Thread sleeper = participant(clock, () -> clock.sleep(1_000));
+        Thread.sleep(200);
+        // 暂停期间另一个线程虽然在睡眠，时间也不能推进
+        assertEquals(0, clock.nanoTime());
+        assertTrue(sleeper.isAlive());
+
+        gate.resume();
+        paused.join(5_000);
+        sleeper.join(5_000);
+        assertFalse(sleeper.isAlive());
+        assertEquals(TimeUnit.SECONDS.toNanos(1), clock.nanoTime());
+        clock.shutdown();
+    }
+
+    @Test
+    void shutdownStopsCoordinator() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        participant(clock, () -> clock.sleep(10)).join(5_000);
+        clock.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coordinatorAlive() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(coordinatorAlive());
+    }
+
+    private interface Body {
+        void run() throws InterruptedException;
+    }
+
+    private static Thread participant(VirtualClock clock, Body body) {
+        Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        clock.register(thread);
+        thread.start();
+        return thread;
+    }
+
+    private static boolean coordinatorAlive() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("virtual-clock") && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}